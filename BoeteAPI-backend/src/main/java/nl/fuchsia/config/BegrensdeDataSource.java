@@ -0,0 +1,68 @@
+package nl.fuchsia.config;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wikkelt een {@link DataSource} zodat er nooit meer verbindingen tegelijk uit zijn dan er vergunningen zijn. Met
+ * virtuele threads is het aantal threads geen grens meer; zonder deze grens wachten duizenden requests in de pool, die
+ * daar niet voor gemaakt is. Een virtuele thread die op de semaphore wacht geeft zijn drager vrij.
+ * <p>
+ * De vergunning wordt teruggegeven bij de eerste {@link Connection#close()}.
+ */
+final class BegrensdeDataSource {
+
+	private BegrensdeDataSource() {
+	}
+
+	/**
+	 * @param verbindingen het aantal verbindingen dat tegelijk uit mag, gelijk aan de grootte van de pool
+	 * @param wachtMs      hoe lang getConnection mag wachten op een vergunning
+	 */
+	static DataSource wikkel(DataSource dataSource, int verbindingen, long wachtMs) {
+		Semaphore vergunningen = new Semaphore(verbindingen, true);
+		return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, methode, args) -> {
+			if (!methode.getName().equals("getConnection")) {
+				return roepAan(methode, dataSource, args);
+			}
+			if (!vergunningen.tryAcquire(wachtMs, TimeUnit.MILLISECONDS)) {
+				throw new SQLTransientConnectionException("Geen verbinding beschikbaar na " + wachtMs + " ms, alle " + verbindingen + " zijn in gebruik");
+			}
+			try {
+				return verbinding((Connection) roepAan(methode, dataSource, args), vergunningen);
+			} catch (Throwable fout) {
+				vergunningen.release();
+				throw fout;
+			}
+		});
+	}
+
+	private static Connection verbinding(Connection connection, Semaphore vergunningen) {
+		AtomicBoolean gesloten = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, methode, args) -> {
+			if (methode.getName().equals("close") && gesloten.compareAndSet(false, true)) {
+				try {
+					return roepAan(methode, connection, args);
+				} finally {
+					vergunningen.release();
+				}
+			}
+			return roepAan(methode, connection, args);
+		});
+	}
+
+	private static Object roepAan(Method methode, Object doel, Object[] args) throws Throwable {
+		try {
+			return methode.invoke(doel, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
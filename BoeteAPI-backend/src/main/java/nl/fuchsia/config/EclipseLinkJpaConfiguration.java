@@ -1,9 +1,11 @@
 package nl.fuchsia.config;
 
+import org.eclipse.persistence.config.BatchWriting;
 import org.eclipse.persistence.config.PersistenceUnitProperties;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.orm.jpa.JpaBaseConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
 import org.springframework.context.annotation.Configuration;
@@ -18,9 +20,15 @@ import java.util.Map;
 @Configuration
 public class EclipseLinkJpaConfiguration extends JpaBaseConfiguration {
 
+	private final int sequenceAllocatie;
+	private final int batchGrootte;
+
 	@Autowired
-	protected EclipseLinkJpaConfiguration(@Qualifier("dataSource") DataSource dataSource, JpaProperties properties, ObjectProvider<JtaTransactionManager> jtaTransactionManager) {
+	protected EclipseLinkJpaConfiguration(@Qualifier("dataSource") DataSource dataSource, JpaProperties properties, ObjectProvider<JtaTransactionManager> jtaTransactionManager,
+		@Value("${boeteapi.sequence.allocatie:50}") int sequenceAllocatie, @Value("${boeteapi.jpa.batch-grootte:100}") int batchGrootte) {
 		super(dataSource, properties, jtaTransactionManager);
+		this.sequenceAllocatie = sequenceAllocatie;
+		this.batchGrootte = batchGrootte;
 	}
 
 	@Override
@@ -33,6 +41,12 @@ public class EclipseLinkJpaConfiguration extends JpaBaseConfiguration {
 		HashMap<String, Object> map = new HashMap<>();
 		map.put(PersistenceUnitProperties.WEAVING, "true");
 		map.put(PersistenceUnitProperties.DDL_GENERATION, "none");
+		map.put(PersistenceUnitProperties.SESSION_CUSTOMIZER, new SequentieCustomizer(sequenceAllocatie));
+		// De sleutels komen uit een blok van de sequence, zo kan EclipseLink de inserts per tabel in een batch sturen.
+		if (batchGrootte > 1) {
+			map.put(PersistenceUnitProperties.BATCH_WRITING, BatchWriting.JDBC);
+			map.put(PersistenceUnitProperties.BATCH_WRITING_SIZE, Integer.toString(batchGrootte));
+		}
 		return map;
 	}
 }
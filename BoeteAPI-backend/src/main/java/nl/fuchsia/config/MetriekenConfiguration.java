@@ -0,0 +1,48 @@
+package nl.fuchsia.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Zet een {@link MetriekenInterceptor} voor de controllers, de klassen met @Service en de repositories (ook die van Spring
+ * Data). De hulpklassen met @Component in services (de catalogus, indexen en tellers) worden niet gemeten, die worden in
+ * lussen per zaak of feit aangeroepen.
+ * <p>
+ * De keuze gaat alleen op de klasse, zodat Spring die één keer per klasse maakt; een AspectJ expressie wordt hier bij
+ * elke aanroep opnieuw geëvalueerd. De registry is lazy: die bindt bij het aanmaken de MeterBinders, en die hebben
+ * repositories nodig die de advisors al moeten hebben.
+ */
+@Configuration
+public class MetriekenConfiguration {
+
+	@Bean
+	public Advisor controllerMetrieken(@Lazy MeterRegistry meterRegistry) {
+		return advisor(klasse -> AnnotatedElementUtils.hasAnnotation(klasse, RestController.class),
+			new MetriekenInterceptor(meterRegistry, "controller"));
+	}
+
+	@Bean
+	public Advisor serviceMetrieken(@Lazy MeterRegistry meterRegistry) {
+		return advisor(klasse -> AnnotatedElementUtils.hasAnnotation(klasse, Service.class), new MetriekenInterceptor(meterRegistry, "service"));
+	}
+
+	@Bean
+	public Advisor repositoryMetrieken(@Lazy MeterRegistry meterRegistry) {
+		return advisor(klasse -> AnnotatedElementUtils.hasAnnotation(klasse, Repository.class)
+			|| org.springframework.data.repository.Repository.class.isAssignableFrom(klasse), new MetriekenInterceptor(meterRegistry, "repository"));
+	}
+
+	private static Advisor advisor(ClassFilter klassen, MetriekenInterceptor interceptor) {
+		return new DefaultPointcutAdvisor(new ComposablePointcut(klassen), interceptor);
+	}
+}
@@ -0,0 +1,128 @@
+package nl.fuchsia.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import nl.fuchsia.Application;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meet elke aanroep van de methodes waar {@link MetriekenConfiguration} hem voor zet, met als tags de laag, de klasse en
+ * de methode:
+ * <ul>
+ * <li>boeteapi.aanroepen: een timer met p50, p95 en p99 (HdrHistogram) en histogram buckets voor Prometheus;</li>
+ * <li>boeteapi.aanroepen.fouten: het aantal exceptions, met het type als extra tag;</li>
+ * <li>boeteapi.aanroepen.actief: het aantal aanroepen dat op dit moment loopt.</li>
+ * </ul>
+ * De meters worden per methode één keer opgezocht en bewaard, een aanroep kost daarna twee keer opzoeken in een map, de
+ * timer en een teller erbij en eraf. Bewust een {@link MethodInterceptor} en geen @Aspect: een around advice maakt per
+ * aanroep een join point met signature aan, wat meer kost dan het meten zelf.
+ */
+public class MetriekenInterceptor implements MethodInterceptor {
+
+	static final String AANROEPEN = "boeteapi.aanroepen";
+	static final String FOUTEN = "boeteapi.aanroepen.fouten";
+	static final String ACTIEF = "boeteapi.aanroepen.actief";
+
+	private static final String PAKKET = Application.class.getPackage().getName() + ".";
+
+	private final MeterRegistry meterRegistry;
+	private final String laag;
+	private final Map<Class<?>, Map<Method, Meting>> metingen = new ConcurrentHashMap<>();
+	private final Map<Tags, Meting> metingenPerNaam = new ConcurrentHashMap<>();
+
+	/**
+	 * @param laag de waarde van de tag laag, bijvoorbeeld service
+	 */
+	public MetriekenInterceptor(MeterRegistry meterRegistry, String laag) {
+		this.meterRegistry = meterRegistry;
+		this.laag = laag;
+	}
+
+	@Override
+	public Object invoke(MethodInvocation aanroep) throws Throwable {
+		Meting meting = meting(aanroep);
+		meting.actief.incrementAndGet();
+		long start = System.nanoTime();
+		try {
+			return aanroep.proceed();
+		} catch (Throwable fout) {
+			meting.fout(fout);
+			throw fout;
+		} finally {
+			meting.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			meting.actief.decrementAndGet();
+		}
+	}
+
+	private Meting meting(MethodInvocation aanroep) {
+		// Dezelfde Method (bijvoorbeeld JpaRepository.findAll) hoort bij elke Spring Data repository, dus eerst op de proxy.
+		Class<?> proxy = aanroep instanceof ProxyMethodInvocation ? ((ProxyMethodInvocation) aanroep).getProxy().getClass() : aanroep.getThis().getClass();
+		Method methode = aanroep.getMethod();
+		Map<Method, Meting> perMethode = metingen.get(proxy);
+		Meting meting = perMethode == null ? null : perMethode.get(methode);
+		if (meting == null) {
+			Tags tags = Tags.of("laag", laag, "klasse", naam(proxy, aanroep.getThis()), "methode", methode.getName());
+			// Overloads hebben dezelfde tags en dus dezelfde meters.
+			meting = metingenPerNaam.computeIfAbsent(tags, Meting::new);
+			metingen.computeIfAbsent(proxy, k -> new ConcurrentHashMap<>()).put(methode, meting);
+		}
+		return meting;
+	}
+
+	/**
+	 * @return de naam van de klasse achter de proxy: voor een Spring Data repository de interface uit de applicatie, anders
+	 * de klasse van het object zelf.
+	 */
+	private static String naam(Class<?> proxy, Object doel) {
+		if (Proxy.isProxyClass(proxy)) {
+			for (Class<?> interfaceKlasse : proxy.getInterfaces()) {
+				if (interfaceKlasse.getName().startsWith(PAKKET)) {
+					return interfaceKlasse.getSimpleName();
+				}
+			}
+		}
+		return ClassUtils.getUserClass(doel).getSimpleName();
+	}
+
+	/**
+	 * De meters van één methode.
+	 */
+	private final class Meting {
+
+		private final Tags tags;
+		private final Timer timer;
+		private final AtomicInteger actief = new AtomicInteger();
+		private final Map<Class<?>, Counter> fouten = new ConcurrentHashMap<>();
+
+		private Meting(Tags tags) {
+			this.tags = tags;
+			this.timer = Timer.builder(AANROEPEN)
+				.tags(tags)
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofNanos(100_000))
+				.maximumExpectedValue(Duration.ofSeconds(30))
+				.register(meterRegistry);
+			Gauge.builder(ACTIEF, actief, AtomicInteger::get).tags(tags).strongReference(true).register(meterRegistry);
+		}
+
+		private void fout(Throwable fout) {
+			fouten.computeIfAbsent(fout.getClass(), type -> Counter.builder(FOUTEN).tags(tags).tag("exception", type.getSimpleName()).register(meterRegistry))
+				.increment();
+		}
+	}
+}
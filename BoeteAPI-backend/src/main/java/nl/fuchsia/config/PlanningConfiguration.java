@@ -0,0 +1,16 @@
+package nl.fuchsia.config;
+
+import nl.fuchsia.services.EscalatieTaak;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Zet de geplande taken aan, op dit moment alleen {@link EscalatieTaak}. Zonder geplande taken start Spring ook geen
+ * scheduler thread.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "boeteapi.escalatie.actief", havingValue = "true")
+public class PlanningConfiguration {
+}
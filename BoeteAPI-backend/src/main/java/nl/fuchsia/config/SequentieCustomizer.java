@@ -0,0 +1,69 @@
+package nl.fuchsia.config;
+
+import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.sequencing.Sequence;
+import org.eclipse.persistence.sessions.DatasourceLogin;
+import org.eclipse.persistence.sessions.Record;
+import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Zet de allocatie van alle sequences (@SequenceGenerator op de entiteiten) op boeteapi.sequence.allocatie. EclipseLink
+ * haalt dan met één nextval een blok sleutels op en kent die zelf toe, zodat de inserts daarna in een JDBC batch passen.
+ * <p>
+ * Het blok loopt van nextval - allocatie + 1 tot en met nextval, de sequence moet dus met precies die stap ophogen (INCREMENT
+ * BY). Op PostgreSQL wordt dat na het inloggen gecontroleerd: met een grotere allocatie dan de stap zouden twee blokken
+ * overlappen.
+ */
+public class SequentieCustomizer implements SessionCustomizer {
+
+	private final int allocatie;
+
+	public SequentieCustomizer(int allocatie) {
+		this.allocatie = allocatie;
+	}
+
+	@Override
+	public void customize(Session session) {
+		Map<String, Sequence> sequences = sequences(session);
+		for (Sequence sequence : sequences.values()) {
+			sequence.setPreallocationSize(allocatie);
+		}
+		session.getEventManager().addListener(new SessionEventAdapter() {
+			@Override
+			public void postLogin(SessionEvent event) {
+				if (event.getSession().getPlatform().isPostgreSQL()) {
+					controleerStap(event.getSession(), sequences.values());
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return de sequences van de entiteiten op naam
+	 */
+	@SuppressWarnings("unchecked")
+	static Map<String, Sequence> sequences(Session session) {
+		return ((DatasourceLogin) session.getDatasourceLogin()).getSequences();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void controleerStap(Session session, Iterable<Sequence> sequences) {
+		List<String> namen = new ArrayList<>();
+		for (Sequence sequence : sequences) {
+			namen.add("'" + sequence.getName().toLowerCase() + "'");
+		}
+		List<Record> afwijkend = session.executeSQL("SELECT sequencename || ' (INCREMENT BY ' || increment_by || ')' FROM pg_sequences WHERE sequencename IN ("
+			+ String.join(", ", namen) + ") AND increment_by <> " + allocatie);
+		if (!afwijkend.isEmpty()) {
+			throw new IllegalStateException("boeteapi.sequence.allocatie is " + allocatie + ", maar de stap van deze sequences wijkt af: "
+				+ afwijkend.stream().map(rij -> String.valueOf(rij.values().iterator().next())).collect(Collectors.joining(", ")));
+		}
+	}
+}
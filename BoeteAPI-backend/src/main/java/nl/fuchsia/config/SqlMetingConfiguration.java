@@ -0,0 +1,27 @@
+package nl.fuchsia.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wikkelt de {@link DataSource} met {@link SqlMetingDataSource}, zodat {@link SqlMetingFilter} per request kan tellen.
+ */
+@Configuration
+public class SqlMetingConfiguration {
+
+	@Bean
+	public static BeanPostProcessor sqlMeting() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource) {
+					return SqlMetingDataSource.wikkel((DataSource) bean);
+				}
+				return bean;
+			}
+		};
+	}
+}
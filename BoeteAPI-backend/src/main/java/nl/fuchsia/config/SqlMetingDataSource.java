@@ -0,0 +1,92 @@
+package nl.fuchsia.config;
+
+import nl.fuchsia.util.SqlMeting;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Wikkelt een {@link DataSource} zodat statements, rijen en database tijd bij de {@link SqlMeting} van de thread komen.
+ * <p>
+ * Alleen een statement dat wordt gemaakt terwijl er een meting loopt krijgt een proxy; ander werk (imports, het opnieuw
+ * opbouwen van read models, NDJSON streams op een andere thread) krijgt het statement van de pool zelf en betaalt per
+ * query alleen de proxy van de verbinding. Op de verbinding wordt niet gekeken: een transactie kan die al hebben
+ * opgehaald voordat de meting begon.
+ */
+final class SqlMetingDataSource {
+
+	private SqlMetingDataSource() {
+	}
+
+	static DataSource wikkel(DataSource dataSource) {
+		return proxy(DataSource.class, dataSource, (methode, args, resultaat) ->
+			resultaat instanceof Connection ? verbinding((Connection) resultaat) : resultaat);
+	}
+
+	private static Connection verbinding(Connection connection) {
+		return proxy(Connection.class, connection, (methode, args, resultaat) -> {
+			if (resultaat instanceof Statement && SqlMeting.huidige() != null) {
+				// Bij prepareStatement en prepareCall staat de SQL al vast, bij createStatement komt die pas bij execute.
+				String sql = methode.getName().startsWith("prepare") ? (String) args[0] : null;
+				return statement(methode.getReturnType(), (Statement) resultaat, sql);
+			}
+			return resultaat;
+		});
+	}
+
+	private static Object statement(Class<?> type, Statement statement, String voorbereid) {
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, methode, args) -> {
+			SqlMeting meting = SqlMeting.huidige();
+			if (meting == null || !methode.getName().startsWith("execute")) {
+				return resultaatSet(roepAan(methode, statement, args));
+			}
+			String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : voorbereid;
+			long start = System.nanoTime();
+			try {
+				return resultaatSet(roepAan(methode, statement, args));
+			} finally {
+				meting.statement(sql, System.nanoTime() - start);
+			}
+		});
+	}
+
+	private static Object resultaatSet(Object resultaat) {
+		if (!(resultaat instanceof ResultSet)) {
+			return resultaat;
+		}
+		ResultSet resultSet = (ResultSet) resultaat;
+		return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, methode, args) -> {
+			SqlMeting meting = SqlMeting.huidige();
+			if (meting == null || !methode.getName().equals("next")) {
+				return roepAan(methode, resultSet, args);
+			}
+			long start = System.nanoTime();
+			boolean gevonden = resultSet.next();
+			meting.rij(gevonden, System.nanoTime() - start);
+			return gevonden;
+		});
+	}
+
+	private interface Resultaat {
+		Object verwerk(Method methode, Object[] args, Object resultaat);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, T doel, Resultaat resultaat) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+			(proxy, methode, args) -> resultaat.verwerk(methode, args, roepAan(methode, doel, args)));
+	}
+
+	private static Object roepAan(Method methode, Object doel, Object[] args) throws Throwable {
+		try {
+			return methode.invoke(doel, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
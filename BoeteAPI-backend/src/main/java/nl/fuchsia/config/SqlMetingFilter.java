@@ -0,0 +1,121 @@
+package nl.fuchsia.config;
+
+import nl.fuchsia.util.SqlMeting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meet per request hoeveel SQL statements er zijn uitgevoerd, hoeveel rijen er zijn gelezen en hoe lang dat in de
+ * database duurde. De meting staat als request attribuut {@link #ATTRIBUUT}, zodat een test bijvoorbeeld kan controleren
+ * dat GET /zaken niet meer dan een paar statements kost.
+ * <ul>
+ * <li>boeteapi.sql.headers: zet de getallen ook in de headers X-Sql-Statements, X-Sql-Rijen en X-Sql-Tijd (in
+ * microseconden). Standaard uit;</li>
+ * <li>boeteapi.sql.budget: boven dit aantal statements komt er een waarschuwing in de log;</li>
+ * <li>boeteapi.sql.herhaald: als één statement minstens zo vaak is uitgevoerd komt er een waarschuwing voor een N+1.</li>
+ * </ul>
+ * De headers worden gezet als de response begint, wat na dat moment nog gebeurt telt alleen mee voor de log. Werk op een
+ * andere thread (de NDJSON streams) wordt niet gemeten.
+ */
+@Component
+public class SqlMetingFilter extends OncePerRequestFilter {
+
+	public static final String ATTRIBUUT = SqlMeting.class.getName();
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SqlMetingFilter.class);
+
+	private final boolean headers;
+	private final int budget;
+	private final int herhaald;
+
+	public SqlMetingFilter(@Value("${boeteapi.sql.headers:false}") boolean headers, @Value("${boeteapi.sql.budget:20}") int budget,
+						   @Value("${boeteapi.sql.herhaald:10}") int herhaald) {
+		this.headers = headers;
+		this.budget = budget;
+		this.herhaald = herhaald;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		SqlMeting meting = SqlMeting.start();
+		request.setAttribute(ATTRIBUUT, meting);
+		MetingResponse metingResponse = headers ? new MetingResponse(response, meting) : null;
+		try {
+			filterChain.doFilter(request, headers ? metingResponse : response);
+			if (headers) {
+				// Een response zonder body (204, alleen een status) is hier nog niet begonnen.
+				metingResponse.zetHeaders();
+			}
+		} finally {
+			SqlMeting.stop();
+			controleer(request, meting);
+		}
+	}
+
+	private void controleer(HttpServletRequest request, SqlMeting meting) {
+		if (meting.getStatements() > budget) {
+			LOGGER.warn("{} {} voerde {} SQL statements uit ({} rijen, {} ms), het budget is {}", request.getMethod(), request.getRequestURI(),
+				meting.getStatements(), meting.getRijen(), TimeUnit.NANOSECONDS.toMillis(meting.getNanos()), budget);
+		}
+		Map.Entry<String, Integer> meest = meting.getMeestUitgevoerd();
+		if (meest != null && meest.getValue() >= herhaald) {
+			LOGGER.warn("Mogelijke N+1 in {} {}: {} keer {}", request.getMethod(), request.getRequestURI(), meest.getValue(), meest.getKey());
+		}
+	}
+
+	/**
+	 * Zet de headers vlak voordat de body begint, daarna kan dat niet meer.
+	 */
+	private static final class MetingResponse extends HttpServletResponseWrapper {
+
+		private final SqlMeting meting;
+		private boolean gezet;
+
+		private MetingResponse(HttpServletResponse response, SqlMeting meting) {
+			super(response);
+			this.meting = meting;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			zetHeaders();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			zetHeaders();
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			zetHeaders();
+			super.flushBuffer();
+		}
+
+		private void zetHeaders() {
+			if (gezet || isCommitted()) {
+				return;
+			}
+			gezet = true;
+			setHeader("X-Sql-Statements", Integer.toString(meting.getStatements()));
+			setHeader("X-Sql-Rijen", Long.toString(meting.getRijen()));
+			setHeader("X-Sql-Tijd", Long.toString(TimeUnit.NANOSECONDS.toMicros(meting.getNanos())));
+		}
+	}
+}
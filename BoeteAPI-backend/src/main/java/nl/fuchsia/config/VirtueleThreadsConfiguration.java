@@ -0,0 +1,84 @@
+package nl.fuchsia.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Met boeteapi.threads.virtueel=true draait elk request (en elke NDJSON stream) op een eigen virtuele thread in plaats
+ * van op een thread uit de pool van Tomcat. Een request dat op PostgreSQL wacht houdt dan geen platform thread vast.
+ * <p>
+ * Het aantal threads begrenst nu niets meer (server.tomcat.max-threads telt niet), daarom begrenst een semaphore het
+ * aantal verbindingen tegelijk op de grootte van de pool, zie {@link BegrensdeDataSource}. Stel de grens in met
+ * boeteapi.threads.verbindingen, standaard spring.datasource.hikari.maximum-pool-size.
+ * <p>
+ * Vereist Java 21; de code blijft voor Java 8 te compileren en zoekt de executor daarom via reflectie op. Bouw met
+ * -Pvirtuele-threads voor een PostgreSQL driver die tijdens I/O geen synchronized gebruikt, anders blijft een virtuele
+ * thread aan zijn drager vastzitten zolang hij op de database wacht. Werkt alleen met de ingebouwde Tomcat.
+ */
+@Configuration
+@ConditionalOnProperty(name = "boeteapi.threads.virtueel", havingValue = "true")
+public class VirtueleThreadsConfiguration implements WebMvcConfigurer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VirtueleThreadsConfiguration.class);
+
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService virtueleThreads() {
+		return virtueleThreadPerTaak();
+	}
+
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtueleRequestThreads() {
+		ExecutorService executor = virtueleThreads();
+		return factory -> factory.addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(executor));
+	}
+
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(new ConcurrentTaskExecutor(virtueleThreads()));
+	}
+
+	@Bean
+	public static BeanPostProcessor verbindingenBegrenzen(Environment environment) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof DataSource)) {
+					return bean;
+				}
+				int verbindingen = environment.getProperty("boeteapi.threads.verbindingen", Integer.class,
+					environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+				long wachtMs = environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30000L);
+				LOGGER.info("Virtuele threads aan, maximaal {} verbindingen tegelijk", verbindingen);
+				return BegrensdeDataSource.wikkel((DataSource) bean, verbindingen, wachtMs);
+			}
+		};
+	}
+
+	/**
+	 * @return Executors.newVirtualThreadPerTaskExecutor()
+	 * @throws IllegalStateException op een Java versie zonder virtuele threads
+	 */
+	static ExecutorService virtueleThreadPerTaak() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("boeteapi.threads.virtueel vereist Java 21 of nieuwer, dit is Java " + System.getProperty("java.version"));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Virtuele threads konden niet gestart worden", e);
+		}
+	}
+}
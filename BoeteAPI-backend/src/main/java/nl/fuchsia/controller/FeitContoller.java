@@ -1,10 +1,16 @@
 package nl.fuchsia.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.fuchsia.model.Feit;
 import nl.fuchsia.model.Payload;
 import nl.fuchsia.services.FeitService;
+import nl.fuchsia.services.VersieTeller;
+import nl.fuchsia.util.Ndjson;
+import nl.fuchsia.util.Paginering;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 
@@ -12,9 +18,13 @@ import javax.validation.Valid;
 @RequestMapping("/feiten")
 public class FeitContoller {
 	private final FeitService feitService;
+	private final VersieTeller versieTeller;
+	private final ObjectMapper objectMapper;
 
-	public FeitContoller(FeitService feitService) {
+	public FeitContoller(FeitService feitService, VersieTeller versieTeller, ObjectMapper objectMapper) {
 		this.feitService = feitService;
+		this.versieTeller = versieTeller;
+		this.objectMapper = objectMapper;
 	}
 
 	/**
@@ -31,16 +41,70 @@ public class FeitContoller {
 	}
 
 	/**
-	 * Haalt alle Feiten uit de database
+	 * Haalt alle Feiten uit de database, of één pagina als after en/of limit is meegegeven.
 	 *
-	 * @return een lijst met alle feiten
+	 * @param after het feitnr van het laatst ontvangen feit (nextCursor van de vorige pagina)
+	 * @param limit het maximaal aantal feiten per pagina
+	 * @return een lijst met alle feiten of één pagina feiten, of null als de If-None-Match van de client nog klopt
 	 */
 	@GetMapping
-	public ResponseEntity<Payload<Feit>> getFeiten() {
-		Payload<Feit> payload = new Payload<>(feitService.getFeiten());
+	public ResponseEntity<Payload<Feit>> getFeiten(@RequestParam(value = "after", required = false) Integer after, @RequestParam(value = "limit", required = false) Integer limit,
+												   WebRequest request) {
+		Ndjson.varieertOpAccept(request);
+		// checkNotModified zet zelf de ETag en bij een match de 304, er hoeft dan niets opgehaald te worden.
+		if (request.checkNotModified(versieTeller.etag(VersieTeller.Tabel.FEIT))) {
+			return null;
+		}
+		Payload<Feit> payload;
+
+		if (Paginering.isGevraagd(after, limit)) {
+			int limiet = Paginering.limiet(limit);
+			payload = Payload.pagina(feitService.getFeiten(after, limiet), limiet, Feit::getFeitnr);
+		} else {
+			payload = new Payload<>(feitService.getFeiten());
+		}
+
 		return ResponseEntity.ok().body(payload);
 	}
 
+	/**
+	 * Schrijft alle feiten als newline delimited JSON (Accept: application/x-ndjson of ?stream=true). De feiten komen uit
+	 * de catalogus in het geheugen, er is dus geen cursor nodig.
+	 *
+	 * @return de feiten, één per regel, of null als de If-None-Match van de client nog klopt
+	 */
+	@GetMapping(produces = Ndjson.MEDIA_TYPE_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamFeiten(WebRequest request) {
+		Ndjson.varieertOpAccept(request);
+		if (request.checkNotModified(versieTeller.ndjsonEtag(VersieTeller.Tabel.FEIT))) {
+			return null;
+		}
+		return ResponseEntity.ok().contentType(Ndjson.MEDIA_TYPE).body(Ndjson.body(objectMapper, feitService.getFeiten()::forEach));
+	}
+
+	@GetMapping(params = "stream=true")
+	public ResponseEntity<StreamingResponseBody> streamFeitenParam(WebRequest request) {
+		return streamFeiten(request);
+	}
+
+	/**
+	 * Zoekt feiten op trefwoorden in de omschrijving. Meerdere woorden worden los gezocht, een feit met meer (en
+	 * zeldzamere) woorden komt hoger in de lijst. Hoofdletters en accenten maken niet uit.
+	 *
+	 * @param q     de zoekwoorden
+	 * @param limit het maximaal aantal feiten
+	 * @return de gevonden feiten, het best passende feit eerst, of null als de If-None-Match van de client nog klopt
+	 */
+	@GetMapping("/zoek")
+	public ResponseEntity<Payload<Feit>> zoekFeiten(@RequestParam("q") String q, @RequestParam(value = "limit", required = false) Integer limit,
+													WebRequest request) {
+		// De index hoort bij de catalogus, de ETag van de feiten geldt dus ook voor de zoekresultaten.
+		if (request.checkNotModified(versieTeller.etag(VersieTeller.Tabel.FEIT))) {
+			return null;
+		}
+		return ResponseEntity.ok().body(new Payload<>(feitService.zoekFeiten(q, Paginering.limiet(limit))));
+	}
+
 	/**
 	 * Wijzigt het feit op bassis van de meegegeven ID nummer in Json object.
 	 */
@@ -1,11 +1,19 @@
 package nl.fuchsia.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.fuchsia.model.Payload;
 import nl.fuchsia.model.Persoon;
+import nl.fuchsia.model.PersoonSaldo;
 import nl.fuchsia.services.PersoonService;
+import nl.fuchsia.services.SaldoService;
+import nl.fuchsia.services.VersieTeller;
+import nl.fuchsia.util.Ndjson;
+import nl.fuchsia.util.Paginering;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 
@@ -14,23 +22,86 @@ import javax.validation.Valid;
 public class PersoonController {
 
 	private PersoonService persoonService;
+	private SaldoService saldoService;
+	private VersieTeller versieTeller;
+	private ObjectMapper objectMapper;
 
 	@Autowired
-	public PersoonController(PersoonService persoonService) {
+	public PersoonController(PersoonService persoonService, SaldoService saldoService, VersieTeller versieTeller, ObjectMapper objectMapper) {
 		this.persoonService = persoonService;
+		this.saldoService = saldoService;
+		this.versieTeller = versieTeller;
+		this.objectMapper = objectMapper;
 	}
 
 	/**
 	 * Wordt gebruikt om te checken of er records in de List staan via de persoonService.
+	 * Met after en/of limit wordt één pagina opgehaald.
 	 *
-	 * @return - Roept de methode getPersonen aan in persoonService.
+	 * @param after - Het persoonnr van de laatst ontvangen persoon (nextCursor van de vorige pagina).
+	 * @param limit - Het maximaal aantal personen per pagina.
+	 * @return - Roept de methode getPersonen aan in persoonService, of null als de If-None-Match van de client nog klopt.
 	 */
 	@GetMapping
-	public ResponseEntity<Payload<Persoon>> getPersonen() {
-		Payload<Persoon> payload = new Payload<>(persoonService.getPersonen());
+	public ResponseEntity<Payload<Persoon>> getPersonen(@RequestParam(value = "after", required = false) Integer after, @RequestParam(value = "limit", required = false) Integer limit,
+														WebRequest request) {
+		Ndjson.varieertOpAccept(request);
+		if (request.checkNotModified(versieTeller.etag(VersieTeller.Tabel.PERSOON))) {
+			return null;
+		}
+		Payload<Persoon> payload;
+
+		if (Paginering.isGevraagd(after, limit)) {
+			int limiet = Paginering.limiet(limit);
+			payload = Payload.pagina(persoonService.getPersonen(after, limiet), limiet, Persoon::getPersoonnr);
+		} else {
+			payload = new Payload<>(persoonService.getPersonen());
+		}
+
 		return ResponseEntity.ok(payload);
 	}
 
+	/**
+	 * Schrijft alle personen als newline delimited JSON (Accept: application/x-ndjson). De personen worden met een cursor
+	 * gelezen en meteen weggeschreven, zonder eerst een lijst op te bouwen.
+	 *
+	 * @return - De personen, één per regel, of null als de If-None-Match van de client nog klopt.
+	 */
+	@GetMapping(produces = Ndjson.MEDIA_TYPE_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamPersonen(WebRequest request) {
+		Ndjson.varieertOpAccept(request);
+		if (request.checkNotModified(versieTeller.ndjsonEtag(VersieTeller.Tabel.PERSOON))) {
+			return null;
+		}
+		return ResponseEntity.ok().contentType(Ndjson.MEDIA_TYPE).body(Ndjson.body(objectMapper, persoonService.stroomPersonen()));
+	}
+
+	/**
+	 * Als {@link #streamPersonen}, met ?stream=true in plaats van de Accept header.
+	 */
+	@GetMapping(params = "stream=true")
+	public ResponseEntity<StreamingResponseBody> streamPersonenParam(WebRequest request) {
+		return streamPersonen(request);
+	}
+
+	/**
+	 * Zoekt personen op achternaam (ook met een tikfout), op het begin van een postcode of op het begin van een BSN. De
+	 * personen komen uit een index in het geheugen.
+	 *
+	 * @param q     - De zoekvraag, bijvoorbeeld "Jansen", "8402 G" of "1234".
+	 * @param limit - Het maximaal aantal personen.
+	 * @return - De gevonden personen, de best passende eerst, of null als de If-None-Match van de client nog klopt.
+	 */
+	@GetMapping(value = "/zoek")
+	public ResponseEntity<Payload<Persoon>> zoekPersonen(@RequestParam("q") String q, @RequestParam(value = "limit", required = false) Integer limit,
+														 WebRequest request) {
+		if (request.checkNotModified(versieTeller.etag(VersieTeller.Tabel.PERSOON))) {
+			return null;
+		}
+
+		return ResponseEntity.ok(new Payload<>(persoonService.zoekPersonen(q, Paginering.limiet(limit))));
+	}
+
 	/**
 	 * Valideert de ingevoerde persoon op basis van een Json object en voegt deze persoon toe via de persoonService.
 	 *
@@ -46,14 +117,27 @@ public class PersoonController {
 	/**
 	 * verkrijgt  één persoon op bassis van de meegegeven ID nummer.
 	 *
-	 * @return
+	 * @return de persoon, of null als de If-None-Match van de client nog klopt.
 	 */
 	@GetMapping(value = "/{persoonnr}")
-	public ResponseEntity<Persoon> getPersoonById(@PathVariable("persoonnr") Integer persoonnr) {
+	public ResponseEntity<Persoon> getPersoonById(@PathVariable("persoonnr") Integer persoonnr, WebRequest request) {
+		if (request.checkNotModified(versieTeller.etag(VersieTeller.Tabel.PERSOON))) {
+			return null;
+		}
 
 		return ResponseEntity.ok(persoonService.getPersoonById(persoonnr));
 	}
 
+	/**
+	 * Geeft het aantal zaken, het aantal open zaken en het openstaande bedrag van de persoon. Het saldo wordt bij elke
+	 * wijziging van een zaak bijgewerkt, opvragen is één opzoeking.
+	 */
+	@GetMapping(value = "/{persoonnr}/saldo")
+	public ResponseEntity<PersoonSaldo> getSaldo(@PathVariable("persoonnr") Integer persoonnr) {
+
+		return ResponseEntity.ok(saldoService.getSaldo(persoonnr));
+	}
+
 	/**
 	 * Wijzigt de persoon op bassis van de meegegeven ID nummer in Json object.
 	 */
@@ -1,13 +1,27 @@
 package nl.fuchsia.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.fuchsia.dto.ZaakAddFeitDto;
 import nl.fuchsia.dto.ZaakAddStatusDto;
+import nl.fuchsia.dto.ZaakBatchResultaatDto;
 import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.dto.ZaakStatusBatchDto;
+import nl.fuchsia.dto.ZaakStatusBatchResultaatDto;
+import nl.fuchsia.dto.ZaakZoekDto;
 import nl.fuchsia.model.Payload;
+import nl.fuchsia.model.ZaakOverzicht;
+import nl.fuchsia.services.ZaakBatchService;
+import nl.fuchsia.services.ZaakOverzichtService;
+import nl.fuchsia.services.VersieTeller;
 import nl.fuchsia.services.ZaakService;
+import nl.fuchsia.services.ZaakStatusBatchService;
+import nl.fuchsia.util.Ndjson;
+import nl.fuchsia.util.Paginering;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -17,10 +31,21 @@ import java.util.List;
 public class ZaakController {
 
 	private final ZaakService zaakService;
+	private final ZaakBatchService zaakBatchService;
+	private final ZaakStatusBatchService zaakStatusBatchService;
+	private final ZaakOverzichtService zaakOverzichtService;
+	private final VersieTeller versieTeller;
+	private final ObjectMapper objectMapper;
 
 	@Autowired
-	public ZaakController(ZaakService zaakService) {
+	public ZaakController(ZaakService zaakService, ZaakBatchService zaakBatchService, ZaakStatusBatchService zaakStatusBatchService,
+						  ZaakOverzichtService zaakOverzichtService, VersieTeller versieTeller, ObjectMapper objectMapper) {
 		this.zaakService = zaakService;
+		this.zaakBatchService = zaakBatchService;
+		this.zaakStatusBatchService = zaakStatusBatchService;
+		this.zaakOverzichtService = zaakOverzichtService;
+		this.versieTeller = versieTeller;
+		this.objectMapper = objectMapper;
 	}
 
 	@PostMapping
@@ -28,16 +53,40 @@ public class ZaakController {
 		return ResponseEntity.ok(zaakService.addZaak(zaakDto));
 	}
 
+	@PostMapping(value = "/batch")
+	public ResponseEntity<Payload<ZaakBatchResultaatDto>> addZaken(@RequestBody List<ZaakDto> zaakDtos) {
+		return ResponseEntity.ok(new Payload<>(zaakBatchService.addZaken(zaakDtos)));
+	}
+
 	@PostMapping(value = "/{zaakNr}/statussen")
 	public ResponseEntity<ZaakDto> updZaakStatus(@PathVariable("zaakNr") Integer zaakNr, @Valid @RequestBody ZaakAddStatusDto zaakAddStatusDto) {
 		return ResponseEntity.ok(zaakService.updateZaakStatus(zaakNr, zaakAddStatusDto));
 	}
 
+	/**
+	 * Geeft veel zaken tegelijk een nieuwe status: de opgegeven zaaknrs, of alle zaken met een huidige status die ze al
+	 * minstens ouderDanDagen hebben. Verwerkt in chunks, het antwoord bevat de aantallen.
+	 */
+	@PostMapping(value = "/statussen")
+	public ResponseEntity<ZaakStatusBatchResultaatDto> wijzigStatussen(@Valid @RequestBody ZaakStatusBatchDto zaakStatusBatchDto) {
+		return ResponseEntity.ok(zaakStatusBatchService.wijzigStatussen(zaakStatusBatchDto));
+	}
+
 	@GetMapping
-	public ResponseEntity<Payload<ZaakDto>> getZaken(@RequestParam(value = "persoonnr", required = false) Integer persoonnr) {
+	public ResponseEntity<Payload<ZaakDto>> getZaken(@RequestParam(value = "persoonnr", required = false) Integer persoonnr, @RequestParam(value = "after", required = false) Integer after,
+													 @RequestParam(value = "limit", required = false) Integer limit, WebRequest request) {
+		Ndjson.varieertOpAccept(request);
+		// checkNotModified zet zelf de ETag en bij een match de 304, er hoeft dan niets opgehaald te worden.
+		if (request.checkNotModified(versieTeller.etag(VersieTeller.Tabel.ZAAK))) {
+			return null;
+		}
 		Payload<ZaakDto> payload;
 
-		if (persoonnr != null) {
+		if (Paginering.isGevraagd(after, limit)) {
+			int limiet = Paginering.limiet(limit);
+			List<ZaakDto> zaken = persoonnr != null ? zaakService.getZakenByPersoon(persoonnr, after, limiet) : zaakService.getZaken(after, limiet);
+			payload = Payload.pagina(zaken, limiet, ZaakDto::getZaaknr);
+		} else if (persoonnr != null) {
 			payload = new Payload<>(zaakService.getZakenByPersoon(persoonnr));
 		} else {
 			payload = new Payload<>(zaakService.getZaken());
@@ -46,8 +95,49 @@ public class ZaakController {
 		return ResponseEntity.ok().body(payload);
 	}
 
+	/**
+	 * Schrijft alle zaken, of de zaken van één persoon, als newline delimited JSON (Accept: application/x-ndjson). De
+	 * zaken worden met een cursor gelezen en meteen weggeschreven, het geheugengebruik hangt niet af van het aantal zaken.
+	 */
+	@GetMapping(produces = Ndjson.MEDIA_TYPE_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamZaken(@RequestParam(value = "persoonnr", required = false) Integer persoonnr, WebRequest request) {
+		Ndjson.varieertOpAccept(request);
+		if (request.checkNotModified(versieTeller.ndjsonEtag(VersieTeller.Tabel.ZAAK))) {
+			return null;
+		}
+		return ResponseEntity.ok().contentType(Ndjson.MEDIA_TYPE).body(Ndjson.body(objectMapper, zaakService.stroomZaken(persoonnr)));
+	}
+
+	/**
+	 * Als {@link #streamZaken}, voor clients die de Accept header niet kunnen zetten.
+	 */
+	@GetMapping(params = "stream=true")
+	public ResponseEntity<StreamingResponseBody> streamZakenParam(@RequestParam(value = "persoonnr", required = false) Integer persoonnr, WebRequest request) {
+		return streamZaken(persoonnr, request);
+	}
+
+	/**
+	 * Een pagina uit het leesmodel zaak_overzicht: per zaak de naam van de persoon, het totaalbedrag, het aantal feiten en
+	 * de huidige status. Te filteren op persoonnr, statusnr (huidige status), van en tot (overtredingsdatum, dd-MM-yyyy),
+	 * pleeglocatie (begint met) en feitnr, in elke combinatie. Altijd gepagineerd, zonder limit krijg je
+	 * {@value Paginering#DEFAULT_LIMIT} zaken.
+	 */
+	@GetMapping(value = "/zoek")
+	public ResponseEntity<Payload<ZaakOverzicht>> zoekZaken(ZaakZoekDto zoek, @RequestParam(value = "after", required = false) Integer after,
+															@RequestParam(value = "limit", required = false) Integer limit, WebRequest request) {
+		if (request.checkNotModified(versieTeller.etag(VersieTeller.Tabel.ZAAK))) {
+			return null;
+		}
+		int limiet = Paginering.limiet(limit);
+		List<ZaakOverzicht> zaken = zaakOverzichtService.zoek(zoek, after, limiet);
+		return ResponseEntity.ok(Payload.pagina(zaken, limiet, ZaakOverzicht::getZaaknr));
+	}
+
 	@GetMapping(value = "/{zaakNr}")
-	public ResponseEntity<ZaakDto> getZaakById(@PathVariable("zaakNr") Integer zaakNr) {
+	public ResponseEntity<ZaakDto> getZaakById(@PathVariable("zaakNr") Integer zaakNr, WebRequest request) {
+		if (request.checkNotModified(versieTeller.etag(VersieTeller.Tabel.ZAAK))) {
+			return null;
+		}
 		return ResponseEntity.ok(zaakService.getZaakById(zaakNr));
 	}
 
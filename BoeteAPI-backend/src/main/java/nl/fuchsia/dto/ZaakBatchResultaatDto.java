@@ -0,0 +1,55 @@
+package nl.fuchsia.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Het resultaat van één zaak uit een batch: het aangemaakte zaaknr, of de redenen waarom de zaak niet is opgeslagen.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ZaakBatchResultaatDto {
+
+	// De positie van de zaak in de binnenkomende lijst, beginnend bij 0.
+	private int index;
+
+	private Integer zaaknr;
+
+	private List<String> fouten = new ArrayList<>();
+
+	public ZaakBatchResultaatDto() {
+	}
+
+	public ZaakBatchResultaatDto(int index) {
+		this.index = index;
+	}
+
+	public boolean isGeslaagd() {
+		return fouten.isEmpty();
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public Integer getZaaknr() {
+		return zaaknr;
+	}
+
+	public void setZaaknr(Integer zaaknr) {
+		this.zaaknr = zaaknr;
+	}
+
+	public List<String> getFouten() {
+		return fouten;
+	}
+
+	public void setFouten(List<String> fouten) {
+		this.fouten = fouten;
+	}
+}
@@ -0,0 +1,78 @@
+package nl.fuchsia.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
+import java.util.List;
+
+/**
+ * Een nieuwe status voor veel zaken tegelijk. De zaken staan in zaaknrs, of worden gezocht op hun huidige status en
+ * hoe lang ze die al hebben: bijvoorbeeld alle zaken die al 30 dagen Open zijn.
+ */
+public class ZaakStatusBatchDto {
+
+	@Min(value = 1, message = ("Statusnummer dient groter dan 0 te zijn"))
+	private int statusnr;
+
+	private List<Integer> zaaknrs;
+
+	// De huidige status van de te wijzigen zaken, als er geen zaaknrs zijn opgegeven.
+	private Integer huidigeStatusnr;
+
+	// Het minimaal aantal dagen sinds de huidige status, niet ingevuld is 0.
+	@Min(value = 0, message = ("Het aantal dagen mag niet negatief zijn"))
+	private Integer ouderDanDagen;
+
+	public ZaakStatusBatchDto() {
+	}
+
+	public ZaakStatusBatchDto(int statusnr, List<Integer> zaaknrs) {
+		this.statusnr = statusnr;
+		this.zaaknrs = zaaknrs;
+	}
+
+	public ZaakStatusBatchDto(int statusnr, Integer huidigeStatusnr, Integer ouderDanDagen) {
+		this.statusnr = statusnr;
+		this.huidigeStatusnr = huidigeStatusnr;
+		this.ouderDanDagen = ouderDanDagen;
+	}
+
+	@JsonIgnore
+	@AssertTrue(message = "Geef zaaknrs of een huidigeStatusnr op, niet allebei")
+	public boolean isZaaknrsOfFilter() {
+		return (zaaknrs == null) != (huidigeStatusnr == null);
+	}
+
+	public int getStatusnr() {
+		return statusnr;
+	}
+
+	public void setStatusnr(int statusnr) {
+		this.statusnr = statusnr;
+	}
+
+	public List<Integer> getZaaknrs() {
+		return zaaknrs;
+	}
+
+	public void setZaaknrs(List<Integer> zaaknrs) {
+		this.zaaknrs = zaaknrs;
+	}
+
+	public Integer getHuidigeStatusnr() {
+		return huidigeStatusnr;
+	}
+
+	public void setHuidigeStatusnr(Integer huidigeStatusnr) {
+		this.huidigeStatusnr = huidigeStatusnr;
+	}
+
+	public Integer getOuderDanDagen() {
+		return ouderDanDagen;
+	}
+
+	public void setOuderDanDagen(Integer ouderDanDagen) {
+		this.ouderDanDagen = ouderDanDagen;
+	}
+}
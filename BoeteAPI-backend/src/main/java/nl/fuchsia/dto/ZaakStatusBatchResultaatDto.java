@@ -0,0 +1,77 @@
+package nl.fuchsia.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * De aantallen van een statuswijziging voor veel zaken tegelijk.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ZaakStatusBatchResultaatDto {
+
+	// Zaken die de nieuwe status gekregen hebben.
+	private int gewijzigd;
+
+	// Zaken die de nieuwe status al hadden, of bij het vergrendelen niet meer aan het filter voldeden.
+	private int ongewijzigd;
+
+	// Opgegeven zaaknrs die niet bestaan.
+	private int nietGevonden;
+
+	// Zaken uit een chunk die is teruggedraaid, de redenen staan in fouten.
+	private int mislukt;
+
+	private int chunks;
+
+	private List<String> fouten = new ArrayList<>();
+
+	public int getGewijzigd() {
+		return gewijzigd;
+	}
+
+	public void setGewijzigd(int gewijzigd) {
+		this.gewijzigd = gewijzigd;
+	}
+
+	public int getOngewijzigd() {
+		return ongewijzigd;
+	}
+
+	public void setOngewijzigd(int ongewijzigd) {
+		this.ongewijzigd = ongewijzigd;
+	}
+
+	public int getNietGevonden() {
+		return nietGevonden;
+	}
+
+	public void setNietGevonden(int nietGevonden) {
+		this.nietGevonden = nietGevonden;
+	}
+
+	public int getMislukt() {
+		return mislukt;
+	}
+
+	public void setMislukt(int mislukt) {
+		this.mislukt = mislukt;
+	}
+
+	public int getChunks() {
+		return chunks;
+	}
+
+	public void setChunks(int chunks) {
+		this.chunks = chunks;
+	}
+
+	public List<String> getFouten() {
+		return fouten;
+	}
+
+	public void setFouten(List<String> fouten) {
+		this.fouten = fouten;
+	}
+}
@@ -0,0 +1,90 @@
+package nl.fuchsia.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * De filters van GET /zaken/zoek, als query parameters. Een filter dat niet is ingevuld telt niet mee, de ingevulde
+ * filters moeten allemaal kloppen.
+ */
+public class ZaakZoekDto {
+
+	private Integer persoonnr;
+
+	// De huidige status van de zaak.
+	private Integer statusnr;
+
+	// Overtredingsdatum vanaf, tot en met.
+	@DateTimeFormat(pattern = "dd-MM-yyyy")
+	private LocalDate van;
+
+	@DateTimeFormat(pattern = "dd-MM-yyyy")
+	private LocalDate tot;
+
+	// Het begin van de pleeglocatie, hoofdlettergevoelig.
+	private String pleeglocatie;
+
+	// Een feit dat in de zaak staat.
+	private Integer feitnr;
+
+	public ZaakZoekDto() {
+	}
+
+	public ZaakZoekDto(Integer persoonnr, Integer statusnr, LocalDate van, LocalDate tot, String pleeglocatie, Integer feitnr) {
+		this.persoonnr = persoonnr;
+		this.statusnr = statusnr;
+		this.van = van;
+		this.tot = tot;
+		this.pleeglocatie = pleeglocatie;
+		this.feitnr = feitnr;
+	}
+
+	public Integer getPersoonnr() {
+		return persoonnr;
+	}
+
+	public void setPersoonnr(Integer persoonnr) {
+		this.persoonnr = persoonnr;
+	}
+
+	public Integer getStatusnr() {
+		return statusnr;
+	}
+
+	public void setStatusnr(Integer statusnr) {
+		this.statusnr = statusnr;
+	}
+
+	public LocalDate getVan() {
+		return van;
+	}
+
+	public void setVan(LocalDate van) {
+		this.van = van;
+	}
+
+	public LocalDate getTot() {
+		return tot;
+	}
+
+	public void setTot(LocalDate tot) {
+		this.tot = tot;
+	}
+
+	public String getPleeglocatie() {
+		return pleeglocatie;
+	}
+
+	public void setPleeglocatie(String pleeglocatie) {
+		this.pleeglocatie = pleeglocatie;
+	}
+
+	public Integer getFeitnr() {
+		return feitnr;
+	}
+
+	public void setFeitnr(Integer feitnr) {
+		this.feitnr = feitnr;
+	}
+}
@@ -0,0 +1,78 @@
+package nl.fuchsia.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * De voortgang van de escalatie in één bereik van zaaknrs: tot welk zaaknr de verlopen zaken al geëscaleerd zijn. Alle
+ * bereiken van een run hebben dezelfde peildatum.
+ * <p>
+ * Dit is een afgeleide tabel. Hij wordt niet via JPA gewijzigd maar door EscalatieRepository bijgewerkt, in dezelfde
+ * transactie als de zaken van een chunk.
+ */
+@Entity
+@Table(name = "escalatie_checkpoint")
+public class EscalatieCheckpoint {
+
+	@Id
+	private Integer van;
+
+	@Column
+	private int tot;
+
+	// Zaken met een huidige status van uiterlijk deze datum zijn verlopen.
+	@Column
+	private LocalDate peildatum;
+
+	@Column(name = "laatste_zaaknr")
+	private int laatsteZaaknr;
+
+	public EscalatieCheckpoint() {
+	}
+
+	public EscalatieCheckpoint(Integer van, int tot, LocalDate peildatum, int laatsteZaaknr) {
+		this.van = van;
+		this.tot = tot;
+		this.peildatum = peildatum;
+		this.laatsteZaaknr = laatsteZaaknr;
+	}
+
+	/**
+	 * @return true als alle zaken van het bereik verwerkt zijn.
+	 */
+	public boolean isKlaar() {
+		return laatsteZaaknr >= tot;
+	}
+
+	public Integer getVan() {
+		return van;
+	}
+
+	public void setVan(Integer van) {
+		this.van = van;
+	}
+
+	public int getTot() {
+		return tot;
+	}
+
+	public void setTot(int tot) {
+		this.tot = tot;
+	}
+
+	public LocalDate getPeildatum() {
+		return peildatum;
+	}
+
+	public void setPeildatum(LocalDate peildatum) {
+		this.peildatum = peildatum;
+	}
+
+	public int getLaatsteZaaknr() {
+		return laatsteZaaknr;
+	}
+
+	public void setLaatsteZaaknr(int laatsteZaaknr) {
+		this.laatsteZaaknr = laatsteZaaknr;
+	}
+}
@@ -15,7 +15,9 @@ public class Feit {
 	 * Geen validatie op uniek, omdat dit later in de database ingesteld kan worden.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@SequenceGenerator(name = "feit_feitnr_seq", sequenceName = "feit_feitnr_seq")
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "feit_feitnr_seq")
+	@Column(columnDefinition = "INTEGER DEFAULT nextval('feit_feitnr_seq')")
 	private Integer feitnr;
 
 	/*
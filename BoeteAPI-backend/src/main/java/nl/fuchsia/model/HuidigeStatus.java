@@ -0,0 +1,49 @@
+package nl.fuchsia.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Wat een statuswijziging van een zaak nodig heeft zonder de zaak en zijn historie te laden: de persoon, de huidige
+ * status en het totaal van de feiten.
+ */
+public class HuidigeStatus {
+
+	private final int zaaknr;
+	private final int persoonnr;
+	private final Integer statusnr;
+	private final LocalDate statusdatum;
+	private final BigDecimal bedrag;
+
+	/**
+	 * @param statusnr    de huidige status, null als de zaak nog geen status heeft.
+	 * @param statusdatum de veranderdatum van de huidige status, null als de zaak nog geen status heeft.
+	 */
+	public HuidigeStatus(int zaaknr, int persoonnr, Integer statusnr, LocalDate statusdatum, BigDecimal bedrag) {
+		this.zaaknr = zaaknr;
+		this.persoonnr = persoonnr;
+		this.statusnr = statusnr;
+		this.statusdatum = statusdatum;
+		this.bedrag = bedrag;
+	}
+
+	public int getZaaknr() {
+		return zaaknr;
+	}
+
+	public int getPersoonnr() {
+		return persoonnr;
+	}
+
+	public Integer getStatusnr() {
+		return statusnr;
+	}
+
+	public LocalDate getStatusdatum() {
+		return statusdatum;
+	}
+
+	public BigDecimal getBedrag() {
+		return bedrag;
+	}
+}
@@ -1,15 +1,45 @@
 package nl.fuchsia.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
+import java.util.function.Function;
 
 public class Payload<T> {
 
 	private List<T> payload;
 
+	/*
+	 * De sleutel om de volgende pagina op te halen (after=nextCursor), alleen gevuld als er mogelijk nog een pagina is.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private Integer nextCursor;
+
 	public Payload(List<T> payload) {
 		this.payload = payload;
 	}
 
+	public Payload(List<T> payload, Integer nextCursor) {
+		this(payload);
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * Maakt een payload voor één pagina. Is de pagina vol, dan wordt de sleutel van het laatste element de nextCursor.
+	 *
+	 * @param pagina  de opgehaalde pagina, gesorteerd op sleutel
+	 * @param limit   het maximaal aantal elementen per pagina
+	 * @param sleutel haalt de sleutel (het id) uit een element
+	 * @return de payload inclusief nextCursor
+	 */
+	public static <T> Payload<T> pagina(List<T> pagina, int limit, Function<T, Integer> sleutel) {
+		Integer nextCursor = null;
+		if (!pagina.isEmpty() && pagina.size() >= limit) {
+			nextCursor = sleutel.apply(pagina.get(pagina.size() - 1));
+		}
+		return new Payload<>(pagina, nextCursor);
+	}
+
 	public List<T> getPayload() {
 		return payload;
 	}
@@ -17,4 +47,12 @@ public class Payload<T> {
 	public void setPayload(List<T> payload) {
 		this.payload = payload;
 	}
+
+	public Integer getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(Integer nextCursor) {
+		this.nextCursor = nextCursor;
+	}
 }
@@ -15,7 +15,9 @@ import java.util.Objects;
 public class Persoon {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@SequenceGenerator(name = "persoon_persoonnr_seq", sequenceName = "persoon_persoonnr_seq")
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "persoon_persoonnr_seq")
+	@Column(columnDefinition = "INTEGER DEFAULT nextval('persoon_persoonnr_seq')")
 	private Integer persoonnr;
 	@Column
 	@NotBlank(message = ("Voornaam moet ingevuld zijn"))
@@ -0,0 +1,95 @@
+package nl.fuchsia.model;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Het saldo van een persoon: het aantal zaken, het aantal open zaken en het bedrag dat nog openstaat.
+ * <p>
+ * Dit is een afgeleide tabel. Hij wordt niet via JPA gewijzigd maar door SaldoRepository bijgewerkt, in dezelfde
+ * transactie als de zaak, feit of status die het saldo verandert.
+ */
+@Entity
+@Table(name = "persoonsaldo")
+public class PersoonSaldo {
+
+	@Id
+	private Integer persoonnr;
+
+	@Column(name = "aantal_zaken")
+	private int aantalZaken;
+
+	@Column(name = "aantal_open")
+	private int aantalOpen;
+
+	@Column(name = "openstaand_bedrag", precision = 15, scale = 2)
+	private BigDecimal openstaandBedrag;
+
+	public PersoonSaldo() {
+	}
+
+	public PersoonSaldo(Integer persoonnr, int aantalZaken, int aantalOpen, BigDecimal openstaandBedrag) {
+		this.persoonnr = persoonnr;
+		this.aantalZaken = aantalZaken;
+		this.aantalOpen = aantalOpen;
+		this.openstaandBedrag = openstaandBedrag;
+	}
+
+	public Integer getPersoonnr() {
+		return persoonnr;
+	}
+
+	public void setPersoonnr(Integer persoonnr) {
+		this.persoonnr = persoonnr;
+	}
+
+	public int getAantalZaken() {
+		return aantalZaken;
+	}
+
+	public void setAantalZaken(int aantalZaken) {
+		this.aantalZaken = aantalZaken;
+	}
+
+	public int getAantalOpen() {
+		return aantalOpen;
+	}
+
+	public void setAantalOpen(int aantalOpen) {
+		this.aantalOpen = aantalOpen;
+	}
+
+	public BigDecimal getOpenstaandBedrag() {
+		return openstaandBedrag;
+	}
+
+	public void setOpenstaandBedrag(BigDecimal openstaandBedrag) {
+		this.openstaandBedrag = openstaandBedrag;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof PersoonSaldo)) {
+			return false;
+		}
+		PersoonSaldo that = (PersoonSaldo) o;
+		return aantalZaken == that.aantalZaken &&
+			aantalOpen == that.aantalOpen &&
+			Objects.equals(persoonnr, that.persoonnr) &&
+			(openstaandBedrag == null ? that.openstaandBedrag == null : that.openstaandBedrag != null && openstaandBedrag.compareTo(that.openstaandBedrag) == 0);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(persoonnr, aantalZaken, aantalOpen);
+	}
+
+	@Override
+	public String toString() {
+		return "PersoonSaldo{" + "persoonnr=" + persoonnr + ", aantalZaken=" + aantalZaken + ", aantalOpen=" + aantalOpen + ", openstaandBedrag=" + openstaandBedrag + '}';
+	}
+}
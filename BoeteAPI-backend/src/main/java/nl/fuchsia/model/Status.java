@@ -8,7 +8,9 @@ import java.util.Objects;
 public class Status {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@SequenceGenerator(name = "status_statusnr_seq", sequenceName = "status_statusnr_seq")
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "status_statusnr_seq")
+	@Column(columnDefinition = "INTEGER DEFAULT nextval('status_statusnr_seq')")
 	private Integer statusnr;
 
 	@Column
@@ -10,7 +10,9 @@ import java.util.Objects;
 public class Zaak {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SequenceGenerator(name = "zaak_zaaknr_seq", sequenceName = "zaak_zaaknr_seq")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "zaak_zaaknr_seq")
+    @Column(columnDefinition = "INTEGER DEFAULT nextval('zaak_zaaknr_seq')")
     private Integer zaaknr;
 
     @Column
@@ -25,12 +27,18 @@ public class Zaak {
     private Persoon persoon;
 
     @ManyToMany
-    @JoinTable(name = "zaakregel", joinColumns = @JoinColumn(name = "zaaknr", referencedColumnName = "zaaknr"), inverseJoinColumns = @JoinColumn(name = "feitnr", referencedColumnName = "feitnr"))
+    @JoinTable(name = "zaakregel", joinColumns = @JoinColumn(name = "zaaknr", referencedColumnName = "zaaknr"), inverseJoinColumns = @JoinColumn(name = "feitnr", referencedColumnName = "feitnr"),
+        indexes = @Index(name = "zaakregel_feitnr_idx", columnList = "feitnr, zaaknr"))
     private List<Feit> feiten;
 
     @OneToMany(mappedBy = "zaak", cascade = {CascadeType.PERSIST})
     private List<ZaakStatus> zaakstatus;
 
+    // De huidige status. Statussen worden alleen toegevoegd, zo hoeft de historie niet gelezen te worden om de huidige te
+    // vinden; het hoogste zaakstatusnr is met gepoolde sleutels niet per se de laatste.
+    @Column(name = "huidige_zaakstatusnr")
+    private Integer huidigeZaakstatusnr;
+
     public Zaak() {
     }
 
@@ -77,6 +85,14 @@ public class Zaak {
         this.zaakstatus = zaakStatus;
     }
 
+    public Integer getHuidigeZaakstatusnr() {
+        return huidigeZaakstatusnr;
+    }
+
+    public void setHuidigeZaakstatusnr(Integer huidigeZaakstatusnr) {
+        this.huidigeZaakstatusnr = huidigeZaakstatusnr;
+    }
+
     public Integer getZaaknr() {
         return zaaknr;
     }
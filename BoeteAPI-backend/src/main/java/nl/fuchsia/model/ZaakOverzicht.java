@@ -0,0 +1,191 @@
+package nl.fuchsia.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import nl.fuchsia.util.JsonDate;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Eén zaak zoals hij in lijsten getoond wordt: met de naam van de persoon, het totaalbedrag en het aantal feiten en de
+ * huidige status, zonder joins met persoon, zaakregel, feit en zaakstatus.
+ * <p>
+ * Dit is een afgeleide tabel (het leesmodel). Hij wordt niet via JPA gewijzigd maar door ZaakOverzichtRepository
+ * bijgewerkt, in dezelfde transactie als de wijziging van de zaak.
+ * <p>
+ * De indexen zijn die van create_boeteapi.sql zonder de partiële indexen, zodat ook de tests ermee draaien.
+ */
+@Entity
+@Table(name = "zaak_overzicht", indexes = {
+	@Index(name = "zaak_overzicht_persoonnr_idx", columnList = "persoonnr, zaaknr"),
+	@Index(name = "zaak_overzicht_status_datum_idx", columnList = "statusnr, zaaknr, statusdatum"),
+	@Index(name = "zaak_overzicht_datum_idx", columnList = "overtredingsdatum, zaaknr"),
+	@Index(name = "zaak_overzicht_pleeglocatie_idx", columnList = "pleeglocatie, zaaknr")
+})
+public class ZaakOverzicht {
+
+	@Id
+	private Integer zaaknr;
+
+	@Column
+	private Integer persoonnr;
+
+	@Column
+	private String voornaam;
+
+	@Column
+	private String achternaam;
+
+	@Column
+	@JsonProperty("overtredingsDatum")
+	@JsonDate
+	private LocalDate overtredingsdatum;
+
+	@Column
+	private String pleeglocatie;
+
+	@Column(name = "totaal_bedrag", precision = 15, scale = 2)
+	private BigDecimal totaalBedrag;
+
+	@Column(name = "aantal_feiten")
+	private int aantalFeiten;
+
+	@Column
+	private Integer statusnr;
+
+	@Column
+	@JsonDate
+	private LocalDate statusdatum;
+
+	public ZaakOverzicht() {
+	}
+
+	public ZaakOverzicht(Integer zaaknr, Integer persoonnr, String voornaam, String achternaam, LocalDate overtredingsdatum, String pleeglocatie,
+						 BigDecimal totaalBedrag, int aantalFeiten, Integer statusnr, LocalDate statusdatum) {
+		this.zaaknr = zaaknr;
+		this.persoonnr = persoonnr;
+		this.voornaam = voornaam;
+		this.achternaam = achternaam;
+		this.overtredingsdatum = overtredingsdatum;
+		this.pleeglocatie = pleeglocatie;
+		this.totaalBedrag = totaalBedrag;
+		this.aantalFeiten = aantalFeiten;
+		this.statusnr = statusnr;
+		this.statusdatum = statusdatum;
+	}
+
+	public Integer getZaaknr() {
+		return zaaknr;
+	}
+
+	public void setZaaknr(Integer zaaknr) {
+		this.zaaknr = zaaknr;
+	}
+
+	public Integer getPersoonnr() {
+		return persoonnr;
+	}
+
+	public void setPersoonnr(Integer persoonnr) {
+		this.persoonnr = persoonnr;
+	}
+
+	public String getVoornaam() {
+		return voornaam;
+	}
+
+	public void setVoornaam(String voornaam) {
+		this.voornaam = voornaam;
+	}
+
+	public String getAchternaam() {
+		return achternaam;
+	}
+
+	public void setAchternaam(String achternaam) {
+		this.achternaam = achternaam;
+	}
+
+	public LocalDate getOvertredingsdatum() {
+		return overtredingsdatum;
+	}
+
+	public void setOvertredingsdatum(LocalDate overtredingsdatum) {
+		this.overtredingsdatum = overtredingsdatum;
+	}
+
+	public String getPleeglocatie() {
+		return pleeglocatie;
+	}
+
+	public void setPleeglocatie(String pleeglocatie) {
+		this.pleeglocatie = pleeglocatie;
+	}
+
+	public BigDecimal getTotaalBedrag() {
+		return totaalBedrag;
+	}
+
+	public void setTotaalBedrag(BigDecimal totaalBedrag) {
+		this.totaalBedrag = totaalBedrag;
+	}
+
+	public int getAantalFeiten() {
+		return aantalFeiten;
+	}
+
+	public void setAantalFeiten(int aantalFeiten) {
+		this.aantalFeiten = aantalFeiten;
+	}
+
+	public Integer getStatusnr() {
+		return statusnr;
+	}
+
+	public void setStatusnr(Integer statusnr) {
+		this.statusnr = statusnr;
+	}
+
+	public LocalDate getStatusdatum() {
+		return statusdatum;
+	}
+
+	public void setStatusdatum(LocalDate statusdatum) {
+		this.statusdatum = statusdatum;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof ZaakOverzicht)) {
+			return false;
+		}
+		ZaakOverzicht that = (ZaakOverzicht) o;
+		return aantalFeiten == that.aantalFeiten &&
+			Objects.equals(zaaknr, that.zaaknr) &&
+			Objects.equals(persoonnr, that.persoonnr) &&
+			Objects.equals(voornaam, that.voornaam) &&
+			Objects.equals(achternaam, that.achternaam) &&
+			Objects.equals(overtredingsdatum, that.overtredingsdatum) &&
+			Objects.equals(pleeglocatie, that.pleeglocatie) &&
+			(totaalBedrag == null ? that.totaalBedrag == null : that.totaalBedrag != null && totaalBedrag.compareTo(that.totaalBedrag) == 0) &&
+			Objects.equals(statusnr, that.statusnr) &&
+			Objects.equals(statusdatum, that.statusdatum);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(zaaknr, persoonnr, aantalFeiten, statusnr);
+	}
+
+	@Override
+	public String toString() {
+		return "ZaakOverzicht{" + "zaaknr=" + zaaknr + ", persoonnr=" + persoonnr + ", voornaam='" + voornaam + '\'' + ", achternaam='" + achternaam + '\'' +
+			", overtredingsdatum=" + overtredingsdatum + ", pleeglocatie='" + pleeglocatie + '\'' + ", totaalBedrag=" + totaalBedrag +
+			", aantalFeiten=" + aantalFeiten + ", statusnr=" + statusnr + ", statusdatum=" + statusdatum + '}';
+	}
+}
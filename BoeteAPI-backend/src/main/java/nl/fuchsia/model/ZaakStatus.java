@@ -11,8 +11,9 @@ import java.util.Objects;
 public class ZaakStatus {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
-	@Column(name = "zaakstatusnr")
+	@SequenceGenerator(name = "zaakstatus_zaakstatusnr_seq", sequenceName = "zaakstatus_zaakstatusnr_seq")
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "zaakstatus_zaakstatusnr_seq")
+	@Column(name = "zaakstatusnr", columnDefinition = "INTEGER DEFAULT nextval('zaakstatus_zaakstatusnr_seq')")
 	private Integer zaakStatusnr;
 
 	@Column
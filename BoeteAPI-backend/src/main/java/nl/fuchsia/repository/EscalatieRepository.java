@@ -0,0 +1,74 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.model.EscalatieCheckpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Leest en onderhoudt de tabel escalatie_checkpoint, één rij per bereik van zaaknrs van de lopende of laatste run.
+ */
+@Repository
+public class EscalatieRepository {
+
+	private static final String GET_ALLE = "SELECT van, tot, peildatum, laatste_zaaknr FROM escalatie_checkpoint ORDER BY van";
+	private static final String VERGRENDEL = "SELECT van, tot, peildatum, laatste_zaaknr FROM escalatie_checkpoint WHERE van = ? FOR UPDATE";
+	private static final String DELETE_ALLE = "DELETE FROM escalatie_checkpoint";
+	private static final String INSERT = "INSERT INTO escalatie_checkpoint (van, tot, peildatum, laatste_zaaknr) VALUES (?, ?, ?, ?)";
+	private static final String UPDATE_VOORTGANG = "UPDATE escalatie_checkpoint SET laatste_zaaknr = ? WHERE van = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public EscalatieRepository(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * @return de bereiken van de lopende of laatste run, gesorteerd op van.
+	 */
+	public List<EscalatieCheckpoint> findAll() {
+		return jdbcTemplate.query(GET_ALLE, EscalatieRepository::naarCheckpoint);
+	}
+
+	/**
+	 * Vergrendelt het bereik tot het einde van de transactie, zodat elke chunk van het bereik maar één keer verwerkt
+	 * wordt, ook als twee instanties tegelijk escaleren.
+	 *
+	 * @return het bereik, of leeg als er intussen een nieuwe run met andere bereiken is begonnen.
+	 */
+	public Optional<EscalatieCheckpoint> vergrendel(int van) {
+		return jdbcTemplate.query(VERGRENDEL, EscalatieRepository::naarCheckpoint, van).stream().findFirst();
+	}
+
+	/**
+	 * Vervangt de bereiken van de vorige run door die van een nieuwe run, in één JDBC batch.
+	 */
+	public void begin(List<EscalatieCheckpoint> bereiken) {
+		jdbcTemplate.update(DELETE_ALLE);
+		List<Object[]> parameters = new ArrayList<>(bereiken.size());
+		for (EscalatieCheckpoint bereik : bereiken) {
+			parameters.add(new Object[]{bereik.getVan(), bereik.getTot(), bereik.getPeildatum(), bereik.getLaatsteZaaknr()});
+		}
+		jdbcTemplate.batchUpdate(INSERT, parameters);
+	}
+
+	/**
+	 * Legt vast dat de zaken van het bereik tot en met laatsteZaaknr verwerkt zijn. Hoort in dezelfde transactie als de
+	 * verwerking, dan gaat bij een crash hooguit de lopende chunk verloren en wordt die bij de volgende run opnieuw gedaan.
+	 */
+	public void voortgang(int van, int laatsteZaaknr) {
+		jdbcTemplate.update(UPDATE_VOORTGANG, laatsteZaaknr, van);
+	}
+
+	private static EscalatieCheckpoint naarCheckpoint(ResultSet rs, int rowNum) throws SQLException {
+		return new EscalatieCheckpoint(rs.getInt("van"), rs.getInt("tot"), rs.getObject("peildatum", LocalDate.class), rs.getInt("laatste_zaaknr"));
+	}
+}
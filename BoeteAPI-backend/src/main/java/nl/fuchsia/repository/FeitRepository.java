@@ -1,9 +1,27 @@
 package nl.fuchsia.repository;
 
 import nl.fuchsia.model.Feit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 @Repository
 public interface FeitRepository extends JpaRepository<Feit, Integer> {
+
+	/**
+	 * Keyset paginering: de feiten met een feitnr groter dan after, oplopend gesorteerd.
+	 */
+	List<Feit> findByFeitnrGreaterThanOrderByFeitnrAsc(Integer after, Pageable pageable);
+
+	/**
+	 * Geeft van de meegegeven feitcodes de codes terug die al bestaan.
+	 */
+	@Query("SELECT f.feitcode FROM Feit f WHERE f.feitcode IN :feitcodes")
+	Set<String> findBestaandeFeitcodes(@Param("feitcodes") Collection<String> feitcodes);
 }
@@ -1,9 +1,33 @@
 package nl.fuchsia.repository;
 
 import nl.fuchsia.model.Persoon;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 @Repository
 public interface PersoonRepository extends JpaRepository<Persoon, Integer> {
+
+	/**
+	 * Keyset paginering: de personen met een persoonnr groter dan after, oplopend gesorteerd.
+	 */
+	List<Persoon> findByPersoonnrGreaterThanOrderByPersoonnrAsc(Integer after, Pageable pageable);
+
+	/**
+	 * Geeft van de meegegeven persoonnrs de nummers terug die bestaan, in één query en zonder entiteiten te laden.
+	 */
+	@Query("SELECT p.persoonnr FROM Persoon p WHERE p.persoonnr IN :persoonnrs")
+	Set<Integer> findBestaandePersoonnrs(@Param("persoonnrs") Collection<Integer> persoonnrs);
+
+	/**
+	 * Geeft van de meegegeven bsn's de bsn's terug die al bij een persoon horen.
+	 */
+	@Query("SELECT p.bsn FROM Persoon p WHERE p.bsn IN :bsns")
+	Set<String> findBestaandeBsns(@Param("bsns") Collection<String> bsns);
 }
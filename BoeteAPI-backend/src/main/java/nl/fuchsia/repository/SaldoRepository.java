@@ -0,0 +1,132 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.model.PersoonSaldo;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Leest en onderhoudt de tabel persoonsaldo. Een wijziging wordt als verschil doorgegeven en met één UPDATE op de
+ * primary key verwerkt, de database zorgt ervoor dat gelijktijdige wijzigingen voor dezelfde persoon op elkaar wachten.
+ * <p>
+ * Een zaak is open zolang de huidige status (zaak.huidige_zaakstatusnr) niet een van de statussen uit
+ * boeteapi.status.afgesloten is. Dezelfde regel wordt gebruikt om een saldo vanuit de zaken opnieuw te berekenen.
+ */
+@Repository
+public class SaldoRepository {
+
+	private static final String GET_SALDO = "SELECT persoonnr, aantal_zaken, aantal_open, openstaand_bedrag FROM persoonsaldo WHERE persoonnr = ?";
+	private static final String WIJZIG_SALDO = "UPDATE persoonsaldo SET aantal_zaken = aantal_zaken + ?, aantal_open = aantal_open + ?, "
+		+ "openstaand_bedrag = openstaand_bedrag + ? WHERE persoonnr = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final String maakAanPostgreSQL;
+	private final String maakAanMerge;
+	private final String herberekenVoorFeit;
+	private volatile Boolean postgreSQL;
+
+	@Autowired
+	public SaldoRepository(JdbcTemplate jdbcTemplate, @Value("${boeteapi.status.afgesloten:}") int[] afgesloten) {
+		this.jdbcTemplate = jdbcTemplate;
+		String open = open(afgesloten);
+		String berekend = "SELECT p.persoonnr, "
+			+ "(SELECT COUNT(*) FROM zaak z WHERE z.persoonnr = p.persoonnr) AS aantal_zaken, "
+			+ "(SELECT COUNT(*) FROM zaak z WHERE z.persoonnr = p.persoonnr AND " + open + ") AS aantal_open, "
+			+ bedrag("p.persoonnr", open) + " AS openstaand_bedrag "
+			+ "FROM persoon p WHERE p.persoonnr = ?";
+		// Twee transacties die tegelijk het eerste saldo van een persoon aanmaken: op PostgreSQL wacht de tweede INSERT op de
+		// eerste en voegt daarna niets toe, in plaats van met een dubbele sleutel de hele transactie af te breken.
+		this.maakAanPostgreSQL = "INSERT INTO persoonsaldo (persoonnr, aantal_zaken, aantal_open, openstaand_bedrag) " + berekend
+			+ " ON CONFLICT (persoonnr) DO NOTHING";
+		this.maakAanMerge = "MERGE INTO persoonsaldo ps USING (" + berekend + ") b ON (ps.persoonnr = b.persoonnr) "
+			+ "WHEN NOT MATCHED THEN INSERT (persoonnr, aantal_zaken, aantal_open, openstaand_bedrag) "
+			+ "VALUES (b.persoonnr, b.aantal_zaken, b.aantal_open, b.openstaand_bedrag)";
+		this.herberekenVoorFeit = "UPDATE persoonsaldo ps SET "
+			+ "aantal_zaken = (SELECT COUNT(*) FROM zaak z WHERE z.persoonnr = ps.persoonnr), "
+			+ "aantal_open = (SELECT COUNT(*) FROM zaak z WHERE z.persoonnr = ps.persoonnr AND " + open + "), "
+			+ "openstaand_bedrag = " + bedrag("ps.persoonnr", open) + " "
+			+ "WHERE ps.persoonnr IN (SELECT z.persoonnr FROM zaak z JOIN zaakregel r ON r.zaaknr = z.zaaknr WHERE r.feitnr = ?)";
+	}
+
+	/**
+	 * @param persoonnr de persoon.
+	 * @return het saldo, of leeg als er voor de persoon nog geen saldo is.
+	 */
+	public Optional<PersoonSaldo> findByPersoonnr(int persoonnr) {
+		List<PersoonSaldo> saldo = jdbcTemplate.query(GET_SALDO, SaldoRepository::naarSaldo, persoonnr);
+		return saldo.stream().findFirst();
+	}
+
+	/**
+	 * Telt de verschillen op bij de saldo's, in één JDBC batch.
+	 *
+	 * @param verschillen per persoon de op te tellen aantallen en het op te tellen bedrag.
+	 * @return per verschil het aantal gewijzigde rijen, 0 als de persoon nog geen saldo heeft.
+	 */
+	public int[] wijzig(Collection<PersoonSaldo> verschillen) {
+		List<Object[]> parameters = new ArrayList<>(verschillen.size());
+		for (PersoonSaldo verschil : verschillen) {
+			parameters.add(new Object[]{verschil.getAantalZaken(), verschil.getAantalOpen(), verschil.getOpenstaandBedrag(), verschil.getPersoonnr()});
+		}
+		return jdbcTemplate.batchUpdate(WIJZIG_SALDO, parameters);
+	}
+
+	/**
+	 * Berekent het saldo van de persoon vanuit zijn zaken en slaat het op, als de persoon nog geen saldo heeft. Wijzigingen
+	 * van de lopende transactie moeten al naar de database geschreven zijn. Een saldo dat tegelijk door een andere
+	 * transactie is aangemaakt blijft staan.
+	 *
+	 * @return false als de persoon niet bestaat of al een saldo had.
+	 */
+	public boolean maakAan(int persoonnr) {
+		return jdbcTemplate.update(isPostgreSQL() ? maakAanPostgreSQL : maakAanMerge, persoonnr) > 0;
+	}
+
+	/**
+	 * Berekent de saldo's opnieuw van alle personen met een zaak waar het feit in staat, na een wijziging van het bedrag.
+	 *
+	 * @return het aantal bijgewerkte saldo's.
+	 */
+	public int herberekenVoorFeit(int feitnr) {
+		return jdbcTemplate.update(herberekenVoorFeit, feitnr);
+	}
+
+	// ON CONFLICT kent H2 (in de tests) alleen in de PostgreSQL modus, daar wordt het een MERGE.
+	private boolean isPostgreSQL() {
+		if (postgreSQL == null) {
+			postgreSQL = jdbcTemplate.execute((Connection conn) -> conn.isWrapperFor(PGConnection.class));
+		}
+		return postgreSQL;
+	}
+
+	// Een zaak z is open als zijn huidige status geen afsluitende status is. De statusnrs komen uit de configuratie.
+	private static String open(int[] afgesloten) {
+		if (afgesloten.length == 0) {
+			return "1 = 1";
+		}
+		String statusnrs = IntStream.of(afgesloten).mapToObj(Integer::toString).collect(Collectors.joining(", "));
+		return "NOT EXISTS (SELECT 1 FROM zaakstatus s WHERE s.zaakstatusnr = z.huidige_zaakstatusnr AND s.statusnr IN (" + statusnrs + "))";
+	}
+
+	private static String bedrag(String persoonnr, String open) {
+		return "(SELECT COALESCE(SUM(f.bedrag), 0) FROM zaak z JOIN zaakregel r ON r.zaaknr = z.zaaknr JOIN feit f ON f.feitnr = r.feitnr "
+			+ "WHERE z.persoonnr = " + persoonnr + " AND " + open + ")";
+	}
+
+	private static PersoonSaldo naarSaldo(ResultSet rs, int rowNum) throws SQLException {
+		return new PersoonSaldo(rs.getInt("persoonnr"), rs.getInt("aantal_zaken"), rs.getInt("aantal_open"), rs.getBigDecimal("openstaand_bedrag"));
+	}
+}
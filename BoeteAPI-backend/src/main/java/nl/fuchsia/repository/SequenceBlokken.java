@@ -0,0 +1,69 @@
+package nl.fuchsia.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reserveert sleutels uit de gepoolde sequences voor inserts buiten EclipseLink om, op dezelfde manier als EclipseLink:
+ * één nextval levert het blok van nextval - allocatie + 1 tot en met nextval. Een insert die de default van de kolom
+ * gebruikt verbruikt per rij een heel blok, voor bulk inserts is dat zonde van de nummers.
+ */
+@Component
+public class SequenceBlokken {
+
+	private final int allocatie;
+	private final Map<String, Queue<Integer>> over = new ConcurrentHashMap<>();
+
+	public SequenceBlokken(@Value("${boeteapi.sequence.allocatie:50}") int allocatie) {
+		this.allocatie = allocatie;
+	}
+
+	/**
+	 * @param sequence de naam van de sequence, bijvoorbeeld zaak_zaaknr_seq
+	 * @param aantal   het aantal sleutels
+	 * @return de sleutels, oplopend
+	 */
+	public List<Integer> reserveer(Connection conn, String sequence, int aantal) throws SQLException {
+		List<Integer> sleutels = new ArrayList<>(aantal);
+		try (PreparedStatement pstmt = conn.prepareStatement("SELECT nextval('" + sequence + "')")) {
+			while (sleutels.size() < aantal) {
+				try (ResultSet rs = pstmt.executeQuery()) {
+					rs.next();
+					int laatste = rs.getInt(1);
+					for (int sleutel = laatste - allocatie + 1; sleutel <= laatste && sleutels.size() < aantal; sleutel++) {
+						sleutels.add(sleutel);
+					}
+				}
+			}
+		}
+		return sleutels;
+	}
+
+	/**
+	 * Geeft één sleutel, voor inserts van één rij tegelijk. De rest van het blok wordt voor de volgende aanroepen bewaard,
+	 * zoals EclipseLink dat ook doet. Halen twee threads tegelijk een nieuw blok op, dan komen beide blokken in de voorraad.
+	 *
+	 * @param sequence de naam van de sequence, bijvoorbeeld zaakstatus_zaakstatusnr_seq
+	 */
+	public int volgende(Connection conn, String sequence) throws SQLException {
+		Queue<Integer> voorraad = over.computeIfAbsent(sequence, naam -> new ConcurrentLinkedQueue<>());
+		Integer sleutel = voorraad.poll();
+		if (sleutel == null) {
+			List<Integer> blok = reserveer(conn, sequence, allocatie);
+			sleutel = blok.get(0);
+			voorraad.addAll(blok.subList(1, blok.size()));
+		}
+		return sleutel;
+	}
+}
@@ -0,0 +1,110 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.util.Stroom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Leest hele tabellen als {@link Stroom}, via een forward-only cursor. De database levert steeds fetchSize rijen per
+ * keer aan, zodat er nooit meer dan één blok rijen in het geheugen staat.
+ * <p>
+ * De PostgreSQL driver gebruikt alleen een cursor als autocommit uit staat; zonder lopende transactie wordt autocommit
+ * daarom voor de duur van de query uitgezet. De fetch size is in te stellen met boeteapi.stream.fetchsize.
+ */
+@Repository
+public class StroomRepository {
+
+	private static final String GET_PERSONEN = "SELECT persoonnr, voornaam, achternaam, straat, huisnummer, postcode, woonplaats, bsn, geboortedatum "
+		+ "FROM persoon ORDER BY persoonnr";
+
+	private JdbcTemplate jdbcTemplate;
+	private int fetchSize;
+
+	@Autowired
+	public StroomRepository(JdbcTemplate jdbcTemplate, @Value("${boeteapi.stream.fetchsize:500}") int fetchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * @return alle personen, gesorteerd op persoonnr.
+	 */
+	public Stroom<Persoon> getPersonen() {
+		return verwerker -> stroom(GET_PERSONEN, StroomRepository::naarPersoon, verwerker);
+	}
+
+	/**
+	 * @return alle zaken als ZaakDto, gesorteerd op zaaknr.
+	 */
+	public Stroom<ZaakDto> getZaken() {
+		return verwerker -> stroom(ZaakDtoRepository.GET_ZAKEN, ZaakDtoRepository::naarZaakDto, verwerker);
+	}
+
+	/**
+	 * @param persoonnr de persoon waarvan de zaken gelezen worden.
+	 * @return de zaken van de persoon als ZaakDto, gesorteerd op zaaknr.
+	 */
+	public Stroom<ZaakDto> getZakenByPersoonnr(int persoonnr) {
+		return verwerker -> stroom(ZaakDtoRepository.GET_ZAKEN_BY_PERSOON, ZaakDtoRepository::naarZaakDto, verwerker, persoonnr);
+	}
+
+	private <T> void stroom(String sql, RowMapper<T> rowMapper, Consumer<T> verwerker, Object... parameters) {
+		jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+			boolean autoCommit = connection.getAutoCommit();
+			if (autoCommit) {
+				connection.setAutoCommit(false);
+			}
+			try {
+				lees(connection, sql, rowMapper, verwerker, parameters);
+			} finally {
+				if (autoCommit) {
+					// Er is alleen gelezen, een rollback sluit de transactie van de cursor af.
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+			}
+			return null;
+		});
+	}
+
+	private <T> void lees(Connection connection, String sql, RowMapper<T> rowMapper, Consumer<T> verwerker, Object... parameters)
+		throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+			statement.setFetchSize(fetchSize);
+			for (int i = 0; i < parameters.length; i++) {
+				statement.setObject(i + 1, parameters[i]);
+			}
+			try (ResultSet rs = statement.executeQuery()) {
+				int rowNum = 0;
+				while (rs.next()) {
+					verwerker.accept(rowMapper.mapRow(rs, rowNum++));
+				}
+			}
+		}
+	}
+
+	private static Persoon naarPersoon(ResultSet rs, int rowNum) throws SQLException {
+		return new Persoon(rs.getInt("persoonnr"),
+			rs.getString("voornaam"),
+			rs.getString("achternaam"),
+			rs.getString("straat"),
+			rs.getString("huisnummer"),
+			rs.getString("postcode"),
+			rs.getString("woonplaats"),
+			rs.getString("bsn"),
+			rs.getObject("geboortedatum", LocalDate.class));
+	}
+}
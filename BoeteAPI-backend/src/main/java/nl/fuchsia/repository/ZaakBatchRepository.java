@@ -0,0 +1,85 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.dto.ZaakDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Schrijft zaken met JDBC batches weg: één batch voor de zaken, één voor de zaakregels en één voor de eerste
+ * zaakstatus, in plaats van een persist en flush per zaak. De zaaknrs en zaakstatusnrs komen per blok uit de sequences,
+ * zo kan elke zaak meteen met de verwijzing naar zijn eerste status geschreven worden.
+ */
+@Repository
+public class ZaakBatchRepository {
+
+	private static final String INSERT_ZAAK = "INSERT INTO zaak (zaaknr, persoonnr, overtredingsdatum, pleeglocatie, huidige_zaakstatusnr) VALUES (?, ?, ?, ?, ?)";
+	private static final String INSERT_ZAAKREGEL = "INSERT INTO zaakregel (zaaknr, feitnr) VALUES (?, ?)";
+	private static final String INSERT_ZAAKSTATUS = "INSERT INTO zaakstatus (zaakstatusnr, zaaknr, statusnr, veranderdatum) VALUES (?, ?, ?, ?)";
+
+	private JdbcTemplate jdbcTemplate;
+	private SequenceBlokken sequenceBlokken;
+
+	@Autowired
+	public ZaakBatchRepository(JdbcTemplate jdbcTemplate, SequenceBlokken sequenceBlokken) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.sequenceBlokken = sequenceBlokken;
+	}
+
+	/**
+	 * Voegt de zaken inclusief zaakregels en de eerste status toe. De aanroeper zorgt voor de transactie.
+	 *
+	 * @param zaken         de gevalideerde zaken.
+	 * @param statusnr      de status waarmee elke zaak begint.
+	 * @param veranderdatum de datum van de eerste status.
+	 * @return de aangemaakte zaaknrs, in dezelfde volgorde als de zaken.
+	 */
+	public List<Integer> addZaken(List<ZaakDto> zaken, int statusnr, LocalDate veranderdatum) {
+		return jdbcTemplate.execute((Connection conn) -> {
+			List<Integer> zaaknrs = sequenceBlokken.reserveer(conn, "zaak_zaaknr_seq", zaken.size());
+			List<Integer> zaakstatusnrs = sequenceBlokken.reserveer(conn, "zaakstatus_zaakstatusnr_seq", zaken.size());
+
+			try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ZAAK)) {
+				for (int i = 0; i < zaken.size(); i++) {
+					ZaakDto zaakDto = zaken.get(i);
+					pstmt.setInt(1, zaaknrs.get(i));
+					pstmt.setInt(2, zaakDto.getPersoonnr());
+					pstmt.setObject(3, zaakDto.getOvertredingsdatum());
+					pstmt.setString(4, zaakDto.getPleeglocatie());
+					pstmt.setInt(5, zaakstatusnrs.get(i));
+					pstmt.addBatch();
+				}
+				pstmt.executeBatch();
+			}
+
+			try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ZAAKREGEL)) {
+				for (int i = 0; i < zaken.size(); i++) {
+					for (Integer feitnr : zaken.get(i).getFeitnrs()) {
+						pstmt.setInt(1, zaaknrs.get(i));
+						pstmt.setInt(2, feitnr);
+						pstmt.addBatch();
+					}
+				}
+				pstmt.executeBatch();
+			}
+
+			try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ZAAKSTATUS)) {
+				for (int i = 0; i < zaaknrs.size(); i++) {
+					pstmt.setInt(1, zaakstatusnrs.get(i));
+					pstmt.setInt(2, zaaknrs.get(i));
+					pstmt.setInt(3, statusnr);
+					pstmt.setObject(4, veranderdatum);
+					pstmt.addBatch();
+				}
+				pstmt.executeBatch();
+			}
+
+			return zaaknrs;
+		});
+	}
+}
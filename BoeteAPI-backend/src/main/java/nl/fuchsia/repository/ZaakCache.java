@@ -0,0 +1,39 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.model.Zaak;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Haalt zaken uit de gedeelde cache van EclipseLink die met SQL buiten de entiteiten om gewijzigd zijn, zoals de statussen
+ * en feiten van een zaak.
+ */
+@Component
+public class ZaakCache {
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	public ZaakCache(EntityManagerFactory entityManagerFactory) {
+		this.entityManagerFactory = entityManagerFactory;
+	}
+
+	/**
+	 * Binnen een transactie gebeurt dit pas na de commit, anders kan een ander request de oude zaak tussen het verwijderen
+	 * en de commit opnieuw in de cache zetten.
+	 */
+	public void gewijzigd(int zaaknr) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					entityManagerFactory.getCache().evict(Zaak.class, zaaknr);
+				}
+			});
+		} else {
+			entityManagerFactory.getCache().evict(Zaak.class, zaaknr);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.dto.ZaakDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Leest {@link ZaakDto}'s rechtstreeks met één SQL query, zonder Zaak, Persoon, Feit en ZaakStatus entiteiten in de
+ * persistence context te laden. De feitnrs en zaakstatusnrs worden per zaak in de database geaggregeerd.
+ */
+@Repository
+public class ZaakDtoRepository {
+
+	private static final String SELECT_ZAAKDTO = "SELECT z.zaaknr, z.overtredingsdatum, z.pleeglocatie, z.persoonnr, "
+		+ "(SELECT ARRAY_AGG(r.feitnr ORDER BY r.feitnr) FROM zaakregel r WHERE r.zaaknr = z.zaaknr) AS feitnrs, "
+		+ "(SELECT ARRAY_AGG(s.zaakstatusnr ORDER BY s.zaakstatusnr) FROM zaakstatus s WHERE s.zaaknr = z.zaaknr) AS zaakstatusnrs "
+		+ "FROM zaak z ";
+	static final String GET_ZAKEN = SELECT_ZAAKDTO + "ORDER BY z.zaaknr";
+	private static final String GET_ZAAK = SELECT_ZAAKDTO + "WHERE z.zaaknr = ?";
+	private static final String GET_ZAKEN_NA = SELECT_ZAAKDTO + "WHERE z.zaaknr > ? ORDER BY z.zaaknr LIMIT ?";
+	static final String GET_ZAKEN_BY_PERSOON = SELECT_ZAAKDTO + "WHERE z.persoonnr = ? ORDER BY z.zaaknr";
+	private static final String GET_ZAKEN_BY_PERSOON_NA = SELECT_ZAAKDTO + "WHERE z.persoonnr = ? AND z.zaaknr > ? ORDER BY z.zaaknr LIMIT ?";
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public ZaakDtoRepository(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Haalt alle zaken op als ZaakDto.
+	 *
+	 * @return alle zaken, gesorteerd op zaaknr.
+	 */
+	public List<ZaakDto> findAll() {
+		return jdbcTemplate.query(GET_ZAKEN, ZaakDtoRepository::naarZaakDto);
+	}
+
+	/**
+	 * Haalt één zaak op als ZaakDto.
+	 *
+	 * @param zaaknr de gezochte zaak.
+	 * @return de zaak, of leeg als hij niet bestaat.
+	 */
+	public Optional<ZaakDto> findByZaaknr(int zaaknr) {
+		return jdbcTemplate.query(GET_ZAAK, ZaakDtoRepository::naarZaakDto, zaaknr).stream().findFirst();
+	}
+
+	/**
+	 * Haalt één pagina zaken op met keyset paginering.
+	 *
+	 * @param after het zaaknr waarna de pagina begint.
+	 * @param limit het maximaal aantal zaken.
+	 * @return de zaken met een zaaknr groter dan after, gesorteerd op zaaknr.
+	 */
+	public List<ZaakDto> findAll(int after, int limit) {
+		return jdbcTemplate.query(GET_ZAKEN_NA, ZaakDtoRepository::naarZaakDto, after, limit);
+	}
+
+	/**
+	 * Haalt alle zaken van een persoon op als ZaakDto.
+	 *
+	 * @param persoonnr de persoon waarvan de zaken opgehaald worden.
+	 * @return de zaken van de persoon, gesorteerd op zaaknr.
+	 */
+	public List<ZaakDto> findAllByPersoonnr(int persoonnr) {
+		return jdbcTemplate.query(GET_ZAKEN_BY_PERSOON, ZaakDtoRepository::naarZaakDto, persoonnr);
+	}
+
+	/**
+	 * Haalt één pagina zaken van een persoon op met keyset paginering.
+	 *
+	 * @param persoonnr de persoon waarvan de zaken opgehaald worden.
+	 * @param after     het zaaknr waarna de pagina begint.
+	 * @param limit     het maximaal aantal zaken.
+	 * @return de zaken van de persoon met een zaaknr groter dan after, gesorteerd op zaaknr.
+	 */
+	public List<ZaakDto> findAllByPersoonnr(int persoonnr, int after, int limit) {
+		return jdbcTemplate.query(GET_ZAKEN_BY_PERSOON_NA, ZaakDtoRepository::naarZaakDto, persoonnr, after, limit);
+	}
+
+	// Ook gebruikt door StroomRepository, dat dezelfde queries met een cursor leest.
+	static ZaakDto naarZaakDto(ResultSet rs, int rowNum) throws SQLException {
+		return new ZaakDto(rs.getInt("zaaknr"),
+			rs.getObject("overtredingsdatum", LocalDate.class),
+			rs.getString("pleeglocatie"),
+			rs.getInt("persoonnr"),
+			naarLijst(rs.getArray("feitnrs")),
+			naarLijst(rs.getArray("zaakstatusnrs")));
+	}
+
+	// Een zaak zonder regels of statussen levert NULL op in plaats van een lege array.
+	private static List<Integer> naarLijst(Array array) throws SQLException {
+		List<Integer> lijst = new ArrayList<>();
+		if (array != null) {
+			for (Object waarde : (Object[]) array.getArray()) {
+				lijst.add(((Number) waarde).intValue());
+			}
+			array.free();
+		}
+		return lijst;
+	}
+}
@@ -0,0 +1,256 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.dto.ZaakZoekDto;
+import nl.fuchsia.model.ZaakOverzicht;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Leest en onderhoudt de tabel zaak_overzicht, het leesmodel met één rij per zaak.
+ * <p>
+ * Een rij wordt altijd met dezelfde query vanuit zaak, persoon, zaakregel, feit en zaakstatus berekend; bijwerken,
+ * herbouwen en controleren gebruiken die query allemaal. De huidige status van een zaak is die waar
+ * zaak.huidige_zaakstatusnr naar wijst.
+ */
+@Repository
+public class ZaakOverzichtRepository {
+
+	private static final String KOLOMMEN = "zaaknr, persoonnr, voornaam, achternaam, overtredingsdatum, pleeglocatie, totaal_bedrag, aantal_feiten, statusnr, statusdatum";
+	private static final String BEREKEN = "SELECT z.zaaknr, z.persoonnr, p.voornaam, p.achternaam, z.overtredingsdatum, z.pleeglocatie, "
+		+ "(SELECT COALESCE(SUM(f.bedrag), 0) FROM zaakregel r JOIN feit f ON f.feitnr = r.feitnr WHERE r.zaaknr = z.zaaknr) AS totaal_bedrag, "
+		+ "(SELECT COUNT(*) FROM zaakregel r WHERE r.zaaknr = z.zaaknr) AS aantal_feiten, "
+		+ "s.statusnr, s.veranderdatum AS statusdatum "
+		+ "FROM zaak z JOIN persoon p ON p.persoonnr = z.persoonnr "
+		+ "LEFT JOIN zaakstatus s ON s.zaakstatusnr = z.huidige_zaakstatusnr ";
+	private static final String BEREKEN_BEREIK = BEREKEN + "WHERE z.zaaknr BETWEEN ? AND ? ORDER BY z.zaaknr";
+	private static final String INSERT_BEREIK = "INSERT INTO zaak_overzicht (" + KOLOMMEN + ") " + BEREKEN + "WHERE z.zaaknr BETWEEN ? AND ?";
+	private static final String DELETE_BEREIK = "DELETE FROM zaak_overzicht WHERE zaaknr BETWEEN ? AND ?";
+	private static final String GET_BEREIK = "SELECT " + KOLOMMEN + " FROM zaak_overzicht WHERE zaaknr BETWEEN ? AND ? ORDER BY zaaknr";
+	private static final String VERGRENDEL = "SELECT zaaknr FROM zaak_overzicht WHERE zaaknr = ? FOR UPDATE";
+	private static final String INSERT = "INSERT INTO zaak_overzicht (" + KOLOMMEN + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String UPDATE = "UPDATE zaak_overzicht SET persoonnr = ?, voornaam = ?, achternaam = ?, overtredingsdatum = ?, pleeglocatie = ?, "
+		+ "totaal_bedrag = ?, aantal_feiten = ?, statusnr = ?, statusdatum = ? WHERE zaaknr = ?";
+	private static final String DELETE = "DELETE FROM zaak_overzicht WHERE zaaknr = ?";
+	private static final String UPDATE_NAAM = "UPDATE zaak_overzicht SET voornaam = ?, achternaam = ? WHERE persoonnr = ?";
+	private static final String UPDATE_BEDRAG = "UPDATE zaak_overzicht o SET totaal_bedrag = "
+		+ "(SELECT COALESCE(SUM(f.bedrag), 0) FROM zaakregel r JOIN feit f ON f.feitnr = r.feitnr WHERE r.zaaknr = o.zaaknr) "
+		+ "WHERE o.zaaknr IN (SELECT r.zaaknr FROM zaakregel r WHERE r.feitnr = ?)";
+	private static final String ZOEK_VERLOPEN = "SELECT zaaknr FROM zaak_overzicht WHERE statusnr = ? AND zaaknr > ? AND zaaknr <= ? AND statusdatum <= ? "
+		+ "ORDER BY zaaknr LIMIT ?";
+	private static final String GET_MAX_ZAAKNR = "SELECT GREATEST((SELECT COALESCE(MAX(zaaknr), 0) FROM zaak), (SELECT COALESCE(MAX(zaaknr), 0) FROM zaak_overzicht))";
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public ZaakOverzichtRepository(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Haalt één pagina gefilterde zaken op met keyset paginering. Alleen de ingevulde filters komen in de query, zodat de
+	 * database per combinatie de passende index kiest; zie de indexen op zaak_overzicht en zaakregel in
+	 * create_boeteapi.sql.
+	 *
+	 * @param zoek  de filters.
+	 * @param after het zaaknr waarna de pagina begint.
+	 * @param limit het maximaal aantal zaken.
+	 * @return de zaken met een zaaknr groter dan after, gesorteerd op zaaknr.
+	 */
+	public List<ZaakOverzicht> zoek(ZaakZoekDto zoek, int after, int limit) {
+		List<Object> parameters = new ArrayList<>();
+		return jdbcTemplate.query(zoekQuery(zoek, after, limit, parameters), ZaakOverzichtRepository::naarOverzicht, parameters.toArray());
+	}
+
+	// Bouwt de query van zoek en vult de parameters, ook gebruikt door ZaakZoekBenchmark om het plan op te vragen.
+	static String zoekQuery(ZaakZoekDto zoek, int after, int limit, List<Object> parameters) {
+		StringBuilder sql = new StringBuilder("SELECT " + KOLOMMEN + " FROM zaak_overzicht o WHERE o.zaaknr > ?");
+		parameters.add(after);
+		if (zoek.getPersoonnr() != null) {
+			sql.append(" AND o.persoonnr = ?");
+			parameters.add(zoek.getPersoonnr());
+		}
+		if (zoek.getStatusnr() != null) {
+			sql.append(" AND o.statusnr = ?");
+			parameters.add(zoek.getStatusnr());
+		}
+		if (zoek.getVan() != null) {
+			sql.append(" AND o.overtredingsdatum >= ?");
+			parameters.add(zoek.getVan());
+		}
+		if (zoek.getTot() != null) {
+			sql.append(" AND o.overtredingsdatum <= ?");
+			parameters.add(zoek.getTot());
+		}
+		if (zoek.getPleeglocatie() != null && !zoek.getPleeglocatie().isEmpty()) {
+			sql.append(" AND o.pleeglocatie LIKE ? ESCAPE '\\'");
+			parameters.add(begintMet(zoek.getPleeglocatie()));
+		}
+		if (zoek.getFeitnr() != null) {
+			// Als IN met de ondergrens van de pagina erin, dan kan de database vanuit de feitnr index van zaakregel beginnen.
+			sql.append(" AND o.zaaknr IN (SELECT r.zaaknr FROM zaakregel r WHERE r.feitnr = ? AND r.zaaknr > ?)");
+			parameters.add(zoek.getFeitnr());
+			parameters.add(after);
+		}
+		sql.append(" ORDER BY o.zaaknr LIMIT ?");
+		parameters.add(limit);
+		return sql.toString();
+	}
+
+	/**
+	 * @return de opgeslagen rijen met een zaaknr van van tot en met tot, gesorteerd op zaaknr.
+	 */
+	public List<ZaakOverzicht> findBereik(int van, int tot) {
+		return jdbcTemplate.query(GET_BEREIK, ZaakOverzichtRepository::naarOverzicht, van, tot);
+	}
+
+	/**
+	 * @return de rijen zoals ze vanuit de zaken berekend worden, met een zaaknr van van tot en met tot, gesorteerd op zaaknr.
+	 */
+	public List<ZaakOverzicht> bereken(int van, int tot) {
+		return jdbcTemplate.query(BEREKEN_BEREIK, ZaakOverzichtRepository::naarOverzicht, van, tot);
+	}
+
+	/**
+	 * Berekent de rij van één zaak opnieuw. Wijzigingen van de lopende transactie moeten al naar de database geschreven
+	 * zijn.
+	 * <p>
+	 * De rij wordt eerst vergrendeld en pas daarna berekend. Wijzigen twee transacties tegelijk dezelfde zaak, dan wacht
+	 * de tweede tot de eerste klaar is en berekent de rij daarna met de wijzigingen van allebei.
+	 */
+	public void vernieuw(int zaaknr) {
+		jdbcTemplate.queryForList(VERGRENDEL, Integer.class, zaaknr);
+		List<ZaakOverzicht> berekend = bereken(zaaknr, zaaknr);
+		if (berekend.isEmpty()) {
+			jdbcTemplate.update(DELETE, zaaknr);
+			return;
+		}
+		ZaakOverzicht overzicht = berekend.get(0);
+		if (jdbcTemplate.update(UPDATE, overzicht.getPersoonnr(), overzicht.getVoornaam(), overzicht.getAchternaam(), overzicht.getOvertredingsdatum(),
+			overzicht.getPleeglocatie(), overzicht.getTotaalBedrag(), overzicht.getAantalFeiten(), overzicht.getStatusnr(), overzicht.getStatusdatum(), zaaknr) == 0) {
+			jdbcTemplate.update(INSERT, zaaknr, overzicht.getPersoonnr(), overzicht.getVoornaam(), overzicht.getAchternaam(), overzicht.getOvertredingsdatum(),
+				overzicht.getPleeglocatie(), overzicht.getTotaalBedrag(), overzicht.getAantalFeiten(), overzicht.getStatusnr(), overzicht.getStatusdatum());
+		}
+	}
+
+	/**
+	 * Berekent de rijen van een reeks zaken opnieuw, set-based. De zaken moeten in de lopende transactie vergrendeld zijn,
+	 * zie {@link ZaakStatusRepository#vergrendel(Collection)}; {@link #vernieuw(int)} vergrendelt de rij pas na de zaak.
+	 *
+	 * @param zaaknrs maximaal een paar duizend per aanroep.
+	 */
+	public int vernieuw(Collection<Integer> zaaknrs) {
+		if (zaaknrs.isEmpty()) {
+			return 0;
+		}
+		String in = "(" + String.join(", ", Collections.nCopies(zaaknrs.size(), "?")) + ")";
+		jdbcTemplate.update("DELETE FROM zaak_overzicht WHERE zaaknr IN " + in, zaaknrs.toArray());
+		return jdbcTemplate.update("INSERT INTO zaak_overzicht (" + KOLOMMEN + ") " + BEREKEN + "WHERE z.zaaknr IN " + in, zaaknrs.toArray());
+	}
+
+	/**
+	 * Voegt de rijen van nieuwe zaken toe, set-based vanuit de zaken. De zaken moeten in de lopende transactie al
+	 * weggeschreven zijn en mogen nog geen rij hebben.
+	 *
+	 * @param zaaknrs de nieuwe zaken, maximaal een paar duizend per aanroep.
+	 */
+	public int voegToe(Collection<Integer> zaaknrs) {
+		if (zaaknrs.isEmpty()) {
+			return 0;
+		}
+		String sql = "INSERT INTO zaak_overzicht (" + KOLOMMEN + ") " + BEREKEN + "WHERE z.zaaknr IN ("
+			+ String.join(", ", Collections.nCopies(zaaknrs.size(), "?")) + ")";
+		return jdbcTemplate.update(sql, zaaknrs.toArray());
+	}
+
+	/**
+	 * Vervangt alle rijen met een zaaknr van van tot en met tot door opnieuw berekende rijen. De aanroeper zorgt voor de
+	 * transactie.
+	 *
+	 * @return het aantal toegevoegde rijen.
+	 */
+	public int herbouw(int van, int tot) {
+		jdbcTemplate.update(DELETE_BEREIK, van, tot);
+		return jdbcTemplate.update(INSERT_BEREIK, van, tot);
+	}
+
+	/**
+	 * Neemt de nieuwe naam van een persoon over in al zijn zaken.
+	 */
+	public int wijzigNaam(int persoonnr, String voornaam, String achternaam) {
+		return jdbcTemplate.update(UPDATE_NAAM, voornaam, achternaam, persoonnr);
+	}
+
+	/**
+	 * Neemt een nieuwe status over die een reeks zaken tegelijk gekregen heeft, zonder de rijen opnieuw te berekenen.
+	 *
+	 * @param zaaknrs maximaal een paar duizend per aanroep.
+	 * @return het aantal bijgewerkte rijen.
+	 */
+	public int wijzigStatus(Collection<Integer> zaaknrs, int statusnr, LocalDate statusdatum) {
+		if (zaaknrs.isEmpty()) {
+			return 0;
+		}
+		List<Object> parameters = new ArrayList<>(zaaknrs.size() + 2);
+		parameters.add(statusnr);
+		parameters.add(statusdatum);
+		parameters.addAll(zaaknrs);
+		return jdbcTemplate.update("UPDATE zaak_overzicht SET statusnr = ?, statusdatum = ? WHERE zaaknr IN ("
+			+ String.join(", ", Collections.nCopies(zaaknrs.size(), "?")) + ")", parameters.toArray());
+	}
+
+	/**
+	 * Berekent het totaalbedrag opnieuw van alle zaken waar het feit in staat, na een wijziging van het bedrag.
+	 */
+	public int herberekenVoorFeit(int feitnr) {
+		return jdbcTemplate.update(UPDATE_BEDRAG, feitnr);
+	}
+
+	/**
+	 * Zoekt in een bereik van zaaknrs de zaken die al sinds een bepaalde datum dezelfde huidige status hebben, via de
+	 * index zaak_overzicht_status_datum_idx. Alleen de huidige status van elke zaak staat in het leesmodel, oudere
+	 * statussen tellen dus niet mee. Controleer de status na het vergrendelen van de zaak opnieuw.
+	 *
+	 * @param after     het laatst verwerkte zaaknr.
+	 * @param tot       het laatste zaaknr van het bereik.
+	 * @param uiterlijk de laatste statusdatum.
+	 * @return de zaaknrs, oplopend.
+	 */
+	public List<Integer> zoekVerlopen(int statusnr, int after, int tot, LocalDate uiterlijk, int limit) {
+		return jdbcTemplate.queryForList(ZOEK_VERLOPEN, Integer.class, statusnr, after, tot, uiterlijk, limit);
+	}
+
+	/**
+	 * @return het hoogste zaaknr in zaak of zaak_overzicht, 0 als beide leeg zijn.
+	 */
+	public int getMaxZaaknr() {
+		return jdbcTemplate.queryForObject(GET_MAX_ZAAKNR, Integer.class);
+	}
+
+	// Een LIKE patroon voor alles wat met het begin begint; % en _ in het begin zelf tellen als gewone tekens.
+	static String begintMet(String begin) {
+		return begin.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+	}
+
+	private static ZaakOverzicht naarOverzicht(ResultSet rs, int rowNum) throws SQLException {
+		return new ZaakOverzicht(rs.getInt("zaaknr"),
+			rs.getInt("persoonnr"),
+			rs.getString("voornaam"),
+			rs.getString("achternaam"),
+			rs.getObject("overtredingsdatum", LocalDate.class),
+			rs.getString("pleeglocatie"),
+			rs.getBigDecimal("totaal_bedrag").setScale(2, RoundingMode.HALF_UP),
+			rs.getInt("aantal_feiten"),
+			rs.getObject("statusnr", Integer.class),
+			rs.getObject("statusdatum", LocalDate.class));
+	}
+}
@@ -3,12 +3,46 @@ package nl.fuchsia.repository;
 import nl.fuchsia.model.Persoon;
 import nl.fuchsia.model.Zaak;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
+import static org.eclipse.persistence.config.QueryHints.BATCH;
+import static org.eclipse.persistence.config.QueryHints.BATCH_TYPE;
+
 @Repository
 public interface ZaakRepository extends JpaRepository<Zaak, Integer> {
 
+	/**
+	 * Haalt alle zaken op. De persoon, feiten en statussen worden per associatie in één batch query meegeladen
+	 * (JOIN batch fetching), zodat het aantal queries niet meer groeit met het aantal zaken.
+	 *
+	 * @return alle zaken inclusief hun associaties.
+	 */
+	@Override
+	@Query("SELECT z FROM Zaak z")
+	@QueryHints({
+		@QueryHint(name = BATCH_TYPE, value = "JOIN"),
+		@QueryHint(name = BATCH, value = "z.persoon"),
+		@QueryHint(name = BATCH, value = "z.feiten"),
+		@QueryHint(name = BATCH, value = "z.zaakstatus"),
+		@QueryHint(name = BATCH, value = "z.zaakstatus.status")})
+	List<Zaak> findAll();
+
+	/**
+	 * Haalt alle zaken van een persoon op, met dezelfde batch fetching als {@link #findAll()}.
+	 *
+	 * @param persoon de persoon waarvan de zaken opgehaald worden.
+	 * @return de zaken van de persoon inclusief hun associaties.
+	 */
+	@QueryHints({
+		@QueryHint(name = BATCH_TYPE, value = "JOIN"),
+		@QueryHint(name = BATCH, value = "z.persoon"),
+		@QueryHint(name = BATCH, value = "z.feiten"),
+		@QueryHint(name = BATCH, value = "z.zaakstatus"),
+		@QueryHint(name = BATCH, value = "z.zaakstatus.status")})
 	List<Zaak> findAllByPersoon(Persoon persoon);
 }
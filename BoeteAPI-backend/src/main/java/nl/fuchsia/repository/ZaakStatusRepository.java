@@ -0,0 +1,131 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.model.HuidigeStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Voegt statussen aan een zaak toe zonder de zaak en zijn historie te laden. De tabel zaakstatus wordt alleen aangevuld,
+ * zaak.huidige_zaakstatusnr wijst naar de huidige status. Een statuswijziging kost daardoor hetzelfde aantal
+ * statements, hoe lang de historie ook is.
+ */
+@Repository
+public class ZaakStatusRepository {
+
+	// Geen join met zaakstatus: PostgreSQL kan FOR UPDATE niet combineren met de nullable kant van een outer join.
+	private static final String VERGRENDEL = "SELECT z.zaaknr, z.persoonnr, "
+		+ "(SELECT s.statusnr FROM zaakstatus s WHERE s.zaakstatusnr = z.huidige_zaakstatusnr) AS statusnr, "
+		+ "(SELECT s.veranderdatum FROM zaakstatus s WHERE s.zaakstatusnr = z.huidige_zaakstatusnr) AS veranderdatum, "
+		+ "(SELECT COALESCE(SUM(f.bedrag), 0) FROM zaakregel r JOIN feit f ON f.feitnr = r.feitnr WHERE r.zaaknr = z.zaaknr) AS bedrag "
+		+ "FROM zaak z WHERE z.zaaknr IN (%s) ORDER BY z.zaaknr FOR UPDATE";
+	private static final String INSERT_ZAAKSTATUS = "INSERT INTO zaakstatus (zaakstatusnr, zaaknr, statusnr, veranderdatum) VALUES (?, ?, ?, ?)";
+	private static final String UPDATE_HUIDIGE = "UPDATE zaak SET huidige_zaakstatusnr = ? WHERE zaaknr = ?";
+
+	private JdbcTemplate jdbcTemplate;
+	private SequenceBlokken sequenceBlokken;
+	private ZaakCache zaakCache;
+
+	@Autowired
+	public ZaakStatusRepository(JdbcTemplate jdbcTemplate, SequenceBlokken sequenceBlokken, ZaakCache zaakCache) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.sequenceBlokken = sequenceBlokken;
+		this.zaakCache = zaakCache;
+	}
+
+	/**
+	 * Vergrendelt de zaak tot het einde van de transactie, zodat gelijktijdige statuswijzigingen van dezelfde zaak na
+	 * elkaar komen en elk de status van de vorige als huidige ziet.
+	 *
+	 * @return de persoon, huidige status en het totaalbedrag van de zaak, of leeg als de zaak niet bestaat.
+	 */
+	public Optional<HuidigeStatus> vergrendel(int zaaknr) {
+		return vergrendel(Collections.singletonList(zaaknr)).stream().findFirst();
+	}
+
+	/**
+	 * Vergrendelt de zaken tot het einde van de transactie, op volgorde van zaaknr. Twee transacties die elk meerdere
+	 * zaken vergrendelen wachten daardoor op elkaar in plaats van elkaar te blokkeren.
+	 *
+	 * @param zaaknrs maximaal een paar duizend per aanroep.
+	 * @return per bestaande zaak de persoon, huidige status en het totaalbedrag, gesorteerd op zaaknr.
+	 */
+	public List<HuidigeStatus> vergrendel(Collection<Integer> zaaknrs) {
+		if (zaaknrs.isEmpty()) {
+			return Collections.emptyList();
+		}
+		String sql = String.format(VERGRENDEL, String.join(", ", Collections.nCopies(zaaknrs.size(), "?")));
+		return jdbcTemplate.query(sql, ZaakStatusRepository::naarHuidigeStatus, zaaknrs.toArray());
+	}
+
+	/**
+	 * Voegt een status toe en maakt die de huidige. De zaak gaat uit de cache van EclipseLink, de statussen en huidige
+	 * status daarin kloppen dan niet meer.
+	 *
+	 * @return het zaakstatusnr van de nieuwe status.
+	 */
+	public int voegToe(int zaaknr, int statusnr, LocalDate veranderdatum) {
+		int zaakstatusnr = jdbcTemplate.execute((Connection conn) -> sequenceBlokken.volgende(conn, "zaakstatus_zaakstatusnr_seq"));
+		jdbcTemplate.update(INSERT_ZAAKSTATUS, zaakstatusnr, zaaknr, statusnr, veranderdatum);
+		jdbcTemplate.update(UPDATE_HUIDIGE, zaakstatusnr, zaaknr);
+		zaakCache.gewijzigd(zaaknr);
+		return zaakstatusnr;
+	}
+
+	/**
+	 * Geeft een reeks zaken dezelfde nieuwe status, met één INSERT ... SELECT voor de statussen en één UPDATE voor de
+	 * verwijzingen, hoeveel zaken het ook zijn. De zaakstatusnrs komen per blok uit de sequence en worden met een VALUES
+	 * lijst aan de zaken gekoppeld. De zaken moeten in de lopende transactie vergrendeld zijn.
+	 *
+	 * @param zaaknrs maximaal een paar duizend per aanroep.
+	 * @return het aantal toegevoegde statussen.
+	 */
+	public int voegToe(List<Integer> zaaknrs, int statusnr, LocalDate veranderdatum) {
+		if (zaaknrs.isEmpty()) {
+			return 0;
+		}
+		List<Integer> zaakstatusnrs = jdbcTemplate.execute((Connection conn) -> sequenceBlokken.reserveer(conn, "zaakstatus_zaakstatusnr_seq", zaaknrs.size()));
+		String nieuw = "(VALUES " + String.join(", ", Collections.nCopies(zaaknrs.size(), "(?, ?)")) + ") n (zaaknr, zaakstatusnr)";
+		List<Object> paren = new ArrayList<>(zaaknrs.size() * 2);
+		for (int i = 0; i < zaaknrs.size(); i++) {
+			paren.add(zaaknrs.get(i));
+			paren.add(zaakstatusnrs.get(i));
+		}
+
+		List<Object> parameters = new ArrayList<>();
+		parameters.add(statusnr);
+		parameters.add(veranderdatum);
+		parameters.addAll(paren);
+		int toegevoegd = jdbcTemplate.update("INSERT INTO zaakstatus (zaakstatusnr, zaaknr, statusnr, veranderdatum) "
+			+ "SELECT n.zaakstatusnr, z.zaaknr, ?, ? FROM zaak z JOIN " + nieuw + " ON n.zaaknr = z.zaaknr", parameters.toArray());
+
+		parameters = new ArrayList<>(paren);
+		parameters.addAll(zaaknrs);
+		jdbcTemplate.update("UPDATE zaak z SET huidige_zaakstatusnr = (SELECT n.zaakstatusnr FROM " + nieuw + " WHERE n.zaaknr = z.zaaknr) "
+			+ "WHERE z.zaaknr IN (" + String.join(", ", Collections.nCopies(zaaknrs.size(), "?")) + ")", parameters.toArray());
+
+		for (Integer zaaknr : zaaknrs) {
+			zaakCache.gewijzigd(zaaknr);
+		}
+		return toegevoegd;
+	}
+
+	private static HuidigeStatus naarHuidigeStatus(ResultSet rs, int rowNum) throws SQLException {
+		return new HuidigeStatus(rs.getInt("zaaknr"),
+			rs.getInt("persoonnr"),
+			rs.getObject("statusnr", Integer.class),
+			rs.getObject("veranderdatum", LocalDate.class),
+			rs.getBigDecimal("bedrag").setScale(2, RoundingMode.HALF_UP));
+	}
+}
@@ -0,0 +1,96 @@
+package nl.fuchsia.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Leest en vult de tabel zaakregel, de feiten van een zaak, zonder de zaak en zijn feiten als entiteiten te laden.
+ */
+@Repository
+public class ZaakregelRepository {
+
+	private static final String GET_FEITNRS = "SELECT feitnr FROM zaakregel WHERE zaaknr = ?";
+
+	private JdbcTemplate jdbcTemplate;
+	private ZaakCache zaakCache;
+
+	@Autowired
+	public ZaakregelRepository(JdbcTemplate jdbcTemplate, ZaakCache zaakCache) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.zaakCache = zaakCache;
+	}
+
+	/**
+	 * @return de feitnrs van de zaak, leeg als de zaak geen feiten heeft of niet bestaat.
+	 */
+	public Set<Integer> getFeitnrs(int zaaknr) {
+		return new HashSet<>(jdbcTemplate.queryForList(GET_FEITNRS, Integer.class, zaaknr));
+	}
+
+	/**
+	 * Voegt de feiten met één insert aan de zaak toe. De zaak gaat uit de cache van EclipseLink, de feiten daarin kloppen
+	 * dan niet meer.
+	 *
+	 * @param feitnrs feiten die de zaak nog niet heeft, zonder dubbele.
+	 * @return het aantal toegevoegde regels.
+	 */
+	public int voegToe(int zaaknr, Collection<Integer> feitnrs) {
+		if (feitnrs.isEmpty()) {
+			return 0;
+		}
+		Object[] parameters = new Object[feitnrs.size() * 2];
+		int i = 0;
+		for (Integer feitnr : feitnrs) {
+			parameters[i++] = zaaknr;
+			parameters[i++] = feitnr;
+		}
+		String sql = "INSERT INTO zaakregel (zaaknr, feitnr) VALUES " + String.join(", ", Collections.nCopies(feitnrs.size(), "(?, ?)"));
+		int toegevoegd = jdbcTemplate.update(sql, parameters);
+		zaakCache.gewijzigd(zaaknr);
+		return toegevoegd;
+	}
+
+	/**
+	 * Voegt één feit toe aan elke zaak die het nog niet heeft, met één query en één insert. De zaken moeten in de lopende
+	 * transactie vergrendeld zijn.
+	 *
+	 * @param zaaknrs maximaal een paar duizend per aanroep.
+	 * @return de zaken die het feit gekregen hebben.
+	 */
+	public List<Integer> voegFeitToe(Collection<Integer> zaaknrs, int feitnr) {
+		if (zaaknrs.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<Object> parameters = new ArrayList<>(zaaknrs.size() + 1);
+		parameters.add(feitnr);
+		parameters.addAll(zaaknrs);
+		Set<Integer> hebbenHet = new HashSet<>(jdbcTemplate.queryForList("SELECT zaaknr FROM zaakregel WHERE feitnr = ? AND zaaknr IN ("
+			+ String.join(", ", Collections.nCopies(zaaknrs.size(), "?")) + ")", Integer.class, parameters.toArray()));
+
+		List<Integer> nieuw = new ArrayList<>(zaaknrs.size());
+		List<Object> regels = new ArrayList<>(zaaknrs.size() * 2);
+		for (Integer zaaknr : zaaknrs) {
+			if (!hebbenHet.contains(zaaknr)) {
+				nieuw.add(zaaknr);
+				regels.add(zaaknr);
+				regels.add(feitnr);
+			}
+		}
+		if (nieuw.isEmpty()) {
+			return nieuw;
+		}
+		jdbcTemplate.update("INSERT INTO zaakregel (zaaknr, feitnr) VALUES " + String.join(", ", Collections.nCopies(nieuw.size(), "(?, ?)")), regels.toArray());
+		for (Integer zaaknr : nieuw) {
+			zaakCache.gewijzigd(zaaknr);
+		}
+		return nieuw;
+	}
+}
@@ -17,6 +17,7 @@ import java.util.Objects;
 public class JdbcPersoonRepository {
 
     private static final String GET_PERSONEN = "SELECT * FROM PERSOON";
+    private static final String GET_PERSOON_BY_ID = GET_PERSONEN + " WHERE persoonnr = ?";
 
     private JdbcTemplate jdbcTemplate;
 
@@ -34,6 +35,17 @@ public class JdbcPersoonRepository {
         return jdbcTemplate.query(GET_PERSONEN, this::rowMapper);
     }
 
+    /**
+     * Haalt de persoon op op basis van het persoonnr m.b.v. jdbc.
+     *
+     * @param persoonnr het persoonnr van de op te halen persoon.
+     * @return de opgehaalde persoon, of null als die niet bestaat.
+     */
+    public Persoon getJdbcPersoonById(int persoonnr) {
+        List<Persoon> personen = jdbcTemplate.query(GET_PERSOON_BY_ID, this::rowMapper, persoonnr);
+        return personen.isEmpty() ? null : personen.get(0);
+    }
+
     private Persoon rowMapper(ResultSet rs, int rowNum) throws SQLException {
         return new Persoon(rs.getInt("persoonnr"),
                 rs.getString("voornaam"),
@@ -0,0 +1,75 @@
+package nl.fuchsia.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * De metrics van {@link EscalatieService}. De doorvoer is de rate van escalatie.zaken, de achterstand is te zien aan
+ * escalatie.vertraging (hoeveel dagen na de betaaltermijn zaken geëscaleerd worden) en escalatie.bereiken.open.
+ */
+@Component
+public class EscalatieMetrieken implements MeterBinder {
+
+	private final LongAdder zaken = new LongAdder();
+	private final LongAdder toeslagen = new LongAdder();
+	private final LongAdder chunks = new LongAdder();
+	private final AtomicLong vertraging = new AtomicLong();
+	private final AtomicInteger bereikenOpen = new AtomicInteger();
+	private final AtomicLong laatsteRun = new AtomicLong();
+
+	void chunkKlaar(int zaken, int toeslagen, long vertraging) {
+		this.zaken.add(zaken);
+		this.toeslagen.add(toeslagen);
+		chunks.increment();
+		if (zaken > 0) {
+			this.vertraging.set(vertraging);
+		}
+	}
+
+	void bereikenOpen(int bereiken) {
+		bereikenOpen.set(bereiken);
+	}
+
+	void bereikKlaar() {
+		bereikenOpen.decrementAndGet();
+	}
+
+	void runKlaar() {
+		laatsteRun.set(System.currentTimeMillis() / 1000);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("escalatie.zaken", zaken, LongAdder::sum)
+			.description("Zaken die de escalatiestatus gekregen hebben").register(registry);
+		FunctionCounter.builder("escalatie.toeslagen", toeslagen, LongAdder::sum)
+			.description("Zaken die het toeslagfeit gekregen hebben").register(registry);
+		FunctionCounter.builder("escalatie.chunks", chunks, LongAdder::sum)
+			.description("Verwerkte chunks, ook die zonder verlopen zaken").register(registry);
+		Gauge.builder("escalatie.vertraging", vertraging, AtomicLong::get).baseUnit("dagen")
+			.description("Dagen na de betaaltermijn van de langst verlopen zaak in de laatste chunk met verlopen zaken").register(registry);
+		Gauge.builder("escalatie.bereiken.open", bereikenOpen, AtomicInteger::get)
+			.description("Bereiken van de lopende run die nog niet klaar zijn").register(registry);
+		Gauge.builder("escalatie.laatste.run", laatsteRun, AtomicLong::get).baseUnit("seconds")
+			.description("Einde van de laatste volledige run, in seconden sinds 1970").register(registry);
+	}
+
+	long getZaken() {
+		return zaken.sum();
+	}
+
+	long getVertraging() {
+		return vertraging.get();
+	}
+
+	int getBereikenOpen() {
+		return bereikenOpen.get();
+	}
+}
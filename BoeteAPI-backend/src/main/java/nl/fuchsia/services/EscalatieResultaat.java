@@ -0,0 +1,72 @@
+package nl.fuchsia.services;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * De voortgang en uitkomst van een escalatierun. De tellers worden door meerdere workers tegelijk bijgewerkt.
+ */
+public class EscalatieResultaat {
+
+	private final LocalDate peildatum;
+	private final int bereiken;
+	private final boolean hervat;
+	private final AtomicInteger bereikenKlaar = new AtomicInteger();
+	private final AtomicLong zaken = new AtomicLong();
+	private final AtomicLong toeslagen = new AtomicLong();
+
+	public EscalatieResultaat(LocalDate peildatum, int bereiken, boolean hervat) {
+		this.peildatum = peildatum;
+		this.bereiken = bereiken;
+		this.hervat = hervat;
+	}
+
+	void chunkKlaar(int zaken, int toeslagen) {
+		this.zaken.addAndGet(zaken);
+		this.toeslagen.addAndGet(toeslagen);
+	}
+
+	void bereikKlaar() {
+		bereikenKlaar.incrementAndGet();
+	}
+
+	/**
+	 * @return de laatste statusdatum waarmee een zaak als verlopen telt, null als er niets te doen was.
+	 */
+	public LocalDate getPeildatum() {
+		return peildatum;
+	}
+
+	/**
+	 * @return het aantal bereiken dat deze run verwerkt, bij een hervatte run alleen de bereiken die nog niet klaar waren.
+	 */
+	public int getBereiken() {
+		return bereiken;
+	}
+
+	/**
+	 * @return true als deze run een afgebroken run heeft afgemaakt.
+	 */
+	public boolean isHervat() {
+		return hervat;
+	}
+
+	public int getBereikenKlaar() {
+		return bereikenKlaar.get();
+	}
+
+	public long getZaken() {
+		return zaken.get();
+	}
+
+	public long getToeslagen() {
+		return toeslagen.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("peildatum %s%s, %d/%d bereiken, %d zaken geëscaleerd, %d toeslagen", peildatum, hervat ? " (hervat)" : "", getBereikenKlaar(),
+			bereiken, getZaken(), getToeslagen());
+	}
+}
@@ -0,0 +1,252 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.model.EscalatieCheckpoint;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.HuidigeStatus;
+import nl.fuchsia.model.PersoonSaldo;
+import nl.fuchsia.model.Status;
+import nl.fuchsia.repository.EscalatieRepository;
+import nl.fuchsia.repository.ZaakOverzichtRepository;
+import nl.fuchsia.repository.ZaakStatusRepository;
+import nl.fuchsia.repository.ZaakregelRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Escaleert zaken die langer dan de betaaltermijn in dezelfde status staan: ze krijgen de escalatiestatus en, als die
+ * is ingesteld, het toeslagfeit. Instellingen:
+ * <ul>
+ * <li>boeteapi.escalatie.van: de status waarin een zaak verloopt, standaard de beginstatus;</li>
+ * <li>boeteapi.escalatie.naar: de escalatiestatus, verplicht;</li>
+ * <li>boeteapi.escalatie.termijn-dagen: de betaaltermijn, standaard 30;</li>
+ * <li>boeteapi.escalatie.toeslag-feitnr: het feit met het bedrag van de toeslag, standaard geen.</li>
+ * </ul>
+ * De verlopen zaken worden per bereik van {@value #BEREIK_GROOTTE} zaaknrs gezocht in zaak_overzicht, waar de huidige
+ * status van elke zaak met een index staat. Elke chunk van {@value #CHUNK_GROOTTE} zaken wordt in een eigen transactie
+ * verwerkt, samen met het checkpoint van zijn bereik. Na een crash gaat de volgende run verder waar de vorige gebleven
+ * was, met dezelfde peildatum; de status wordt na het vergrendelen van de zaken opnieuw gecontroleerd, een zaak wordt dus
+ * nooit twee keer geëscaleerd.
+ */
+@Service
+public class EscalatieService {
+
+	static final int BEREIK_GROOTTE = 10000;
+	static final int CHUNK_GROOTTE = 500;
+
+	private EscalatieRepository escalatieRepository;
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+	private ZaakStatusRepository zaakStatusRepository;
+	private ZaakregelRepository zaakregelRepository;
+	private StatusRegister statusRegister;
+	private FeitCatalogus feitCatalogus;
+	private SaldoService saldoService;
+	private ZaakOverzichtService zaakOverzichtService;
+	private VersieTeller versieTeller;
+	private EscalatieMetrieken escalatieMetrieken;
+	private TransactionTemplate transactionTemplate;
+	private final int vanStatusnr;
+	private final int naarStatusnr;
+	private final int termijnDagen;
+	private final int toeslagFeitnr;
+
+	public EscalatieService(EscalatieRepository escalatieRepository, ZaakOverzichtRepository zaakOverzichtRepository, ZaakStatusRepository zaakStatusRepository,
+							ZaakregelRepository zaakregelRepository, StatusRegister statusRegister, FeitCatalogus feitCatalogus, SaldoService saldoService,
+							ZaakOverzichtService zaakOverzichtService, VersieTeller versieTeller, EscalatieMetrieken escalatieMetrieken,
+							PlatformTransactionManager transactionManager, @Value("${boeteapi.escalatie.van:${boeteapi.status.begin:1}}") int vanStatusnr,
+							@Value("${boeteapi.escalatie.naar:0}") int naarStatusnr, @Value("${boeteapi.escalatie.termijn-dagen:30}") int termijnDagen,
+							@Value("${boeteapi.escalatie.toeslag-feitnr:0}") int toeslagFeitnr) {
+		this.escalatieRepository = escalatieRepository;
+		this.zaakOverzichtRepository = zaakOverzichtRepository;
+		this.zaakStatusRepository = zaakStatusRepository;
+		this.zaakregelRepository = zaakregelRepository;
+		this.statusRegister = statusRegister;
+		this.feitCatalogus = feitCatalogus;
+		this.saldoService = saldoService;
+		this.zaakOverzichtService = zaakOverzichtService;
+		this.versieTeller = versieTeller;
+		this.escalatieMetrieken = escalatieMetrieken;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.vanStatusnr = vanStatusnr;
+		this.naarStatusnr = naarStatusnr;
+		this.termijnDagen = termijnDagen;
+		this.toeslagFeitnr = toeslagFeitnr;
+	}
+
+	/**
+	 * Maakt een afgebroken run af, of begint een nieuwe run met als peildatum vandaag min de betaaltermijn.
+	 *
+	 * @param workers   het aantal bereiken dat tegelijk verwerkt wordt, elke worker gebruikt een eigen connectie.
+	 * @param voortgang wordt na elk bereik aangeroepen, vanuit de worker die het bereik verwerkt heeft.
+	 * @throws IllegalStateException als de escalatiestatus of het toeslagfeit niet bestaat.
+	 */
+	public EscalatieResultaat escaleer(int workers, Consumer<EscalatieResultaat> voortgang) {
+		return escaleer(workers, BEREIK_GROOTTE, CHUNK_GROOTTE, voortgang);
+	}
+
+	EscalatieResultaat escaleer(int workers, int bereikGrootte, int chunkGrootte, Consumer<EscalatieResultaat> voortgang) {
+		Status naar = statusRegister.getStatus(naarStatusnr)
+			.orElseThrow(() -> new IllegalStateException("Escalatiestatus " + naarStatusnr + " staat niet in de tabel status, stel boeteapi.escalatie.naar in"));
+		Feit toeslag = null;
+		if (toeslagFeitnr > 0) {
+			toeslag = feitCatalogus.getFeit(toeslagFeitnr).orElseThrow(() -> new IllegalStateException("Toeslagfeit " + toeslagFeitnr + " bestaat niet"));
+		}
+
+		List<EscalatieCheckpoint> open = new ArrayList<>();
+		boolean hervat = transactionTemplate.execute(status -> begin(bereikGrootte, open));
+		EscalatieResultaat resultaat = new EscalatieResultaat(open.isEmpty() ? null : open.get(0).getPeildatum(), open.size(), hervat);
+		escalatieMetrieken.bereikenOpen(open.size());
+
+		Feit feit = toeslag;
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<?>> taken = new ArrayList<>();
+			for (EscalatieCheckpoint bereik : open) {
+				taken.add(executor.submit(() -> {
+					while (verwerkChunk(bereik.getVan(), naar, feit, chunkGrootte, resultaat)) {
+						// Volgende chunk van hetzelfde bereik.
+					}
+					resultaat.bereikKlaar();
+					escalatieMetrieken.bereikKlaar();
+					voortgang.accept(resultaat);
+				}));
+			}
+			for (Future<?> taak : taken) {
+				wacht(taak);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		escalatieMetrieken.runKlaar();
+		return resultaat;
+	}
+
+	// Vult open met de bereiken die nog niet klaar zijn. Zijn alle bereiken van de vorige run klaar, dan komen er nieuwe.
+	private boolean begin(int bereikGrootte, List<EscalatieCheckpoint> open) {
+		for (EscalatieCheckpoint checkpoint : escalatieRepository.findAll()) {
+			if (!checkpoint.isKlaar()) {
+				open.add(checkpoint);
+			}
+		}
+		if (!open.isEmpty()) {
+			return true;
+		}
+		LocalDate peildatum = LocalDate.now().minusDays(termijnDagen);
+		int max = zaakOverzichtRepository.getMaxZaaknr();
+		for (int van = 1; van <= max; van += bereikGrootte) {
+			open.add(new EscalatieCheckpoint(van, Math.min(van + bereikGrootte - 1, max), peildatum, van - 1));
+		}
+		escalatieRepository.begin(open);
+		return false;
+	}
+
+	/**
+	 * Escaleert de volgende chunk van het bereik en legt de voortgang vast, in één transactie.
+	 *
+	 * @return false als het bereik klaar is.
+	 */
+	private boolean verwerkChunk(int van, Status naar, Feit toeslag, int chunkGrootte, EscalatieResultaat resultaat) {
+		LocalDate vandaag = LocalDate.now();
+		Chunk chunk = transactionTemplate.execute(status -> {
+			Optional<EscalatieCheckpoint> checkpoint = escalatieRepository.vergrendel(van);
+			if (!checkpoint.isPresent() || checkpoint.get().isKlaar()) {
+				return null;
+			}
+			LocalDate peildatum = checkpoint.get().getPeildatum();
+			List<Integer> kandidaten = zaakOverzichtRepository.zoekVerlopen(vanStatusnr, checkpoint.get().getLaatsteZaaknr(), checkpoint.get().getTot(), peildatum,
+				chunkGrootte);
+
+			List<HuidigeStatus> verlopen = new ArrayList<>(kandidaten.size());
+			for (HuidigeStatus huidig : zaakStatusRepository.vergrendel(kandidaten)) {
+				if (Objects.equals(huidig.getStatusnr(), vanStatusnr) && huidig.getStatusdatum() != null && !huidig.getStatusdatum().isAfter(peildatum)) {
+					verlopen.add(huidig);
+				}
+			}
+			List<Integer> zaaknrs = new ArrayList<>(verlopen.size());
+			long vertraging = 0;
+			for (HuidigeStatus huidig : verlopen) {
+				zaaknrs.add(huidig.getZaaknr());
+				vertraging = Math.max(vertraging, ChronoUnit.DAYS.between(huidig.getStatusdatum().plusDays(termijnDagen), vandaag));
+			}
+
+			zaakStatusRepository.voegToe(zaaknrs, naar.getStatusnr(), vandaag);
+			Set<Integer> metToeslag = toeslag != null ? new HashSet<>(zaakregelRepository.voegFeitToe(zaaknrs, toeslag.getFeitnr())) : Collections.emptySet();
+			Collection<PersoonSaldo> verschillen = saldoVerschillen(verlopen, naar, toeslag, metToeslag);
+			if (!verschillen.isEmpty()) {
+				saldoService.verwerk(verschillen);
+			}
+			zaakOverzichtService.zakenGewijzigd(zaaknrs);
+
+			boolean laatste = kandidaten.size() < chunkGrootte;
+			escalatieRepository.voortgang(van, laatste ? checkpoint.get().getTot() : kandidaten.get(kandidaten.size() - 1));
+			return new Chunk(zaaknrs.size(), metToeslag.size(), vertraging, !laatste);
+		});
+		if (chunk == null) {
+			return false;
+		}
+		resultaat.chunkKlaar(chunk.zaken, chunk.toeslagen);
+		escalatieMetrieken.chunkKlaar(chunk.zaken, chunk.toeslagen, chunk.vertraging);
+		if (chunk.zaken > 0) {
+			versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+		}
+		return chunk.meer;
+	}
+
+	// Per persoon het verschil in open zaken en openstaand bedrag, op volgorde van persoonnr zodat workers de saldo's in
+	// dezelfde volgorde vergrendelen.
+	private Collection<PersoonSaldo> saldoVerschillen(List<HuidigeStatus> zaken, Status naar, Feit toeslag, Set<Integer> metToeslag) {
+		boolean isOpen = statusRegister.isOpen(naar);
+		BigDecimal toeslagBedrag = toeslag != null ? SaldoService.bedrag(Collections.singletonList(toeslag)) : BigDecimal.ZERO;
+		Map<Integer, PersoonSaldo> verschillen = new TreeMap<>();
+		for (HuidigeStatus huidig : zaken) {
+			boolean wasOpen = statusRegister.isOpen(statusRegister.getStatus(huidig.getStatusnr()).orElse(null));
+			BigDecimal oud = wasOpen ? huidig.getBedrag() : BigDecimal.ZERO;
+			BigDecimal nieuw = isOpen ? huidig.getBedrag().add(metToeslag.contains(huidig.getZaaknr()) ? toeslagBedrag : BigDecimal.ZERO) : BigDecimal.ZERO;
+			int open = (isOpen ? 1 : 0) - (wasOpen ? 1 : 0);
+			if (open == 0 && nieuw.compareTo(oud) == 0) {
+				continue;
+			}
+			PersoonSaldo verschil = verschillen.computeIfAbsent(huidig.getPersoonnr(), persoonnr -> new PersoonSaldo(persoonnr, 0, 0, BigDecimal.ZERO));
+			verschil.setAantalOpen(verschil.getAantalOpen() + open);
+			verschil.setOpenstaandBedrag(verschil.getOpenstaandBedrag().add(nieuw.subtract(oud)));
+		}
+		return verschillen.values();
+	}
+
+	private static void wacht(Future<?> taak) {
+		try {
+			taak.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Escaleren onderbroken");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Escaleren van een bereik is mislukt, de volgende run gaat verder vanaf het checkpoint", e.getCause());
+		}
+	}
+
+	private static class Chunk {
+
+		private final int zaken;
+		private final int toeslagen;
+		private final long vertraging;
+		private final boolean meer;
+
+		private Chunk(int zaken, int toeslagen, long vertraging, boolean meer) {
+			this.zaken = zaken;
+			this.toeslagen = toeslagen;
+			this.vertraging = vertraging;
+			this.meer = meer;
+		}
+	}
+}
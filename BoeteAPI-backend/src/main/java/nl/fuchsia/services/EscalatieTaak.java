@@ -0,0 +1,42 @@
+package nl.fuchsia.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Start de escalatie van verlopen zaken volgens boeteapi.escalatie.cron, standaard elke nacht om 2 uur. Alleen actief met
+ * boeteapi.escalatie.actief=true. Met boeteapi.escalatie.workers wordt het aantal parallelle bereiken ingesteld, houd
+ * dit onder de grootte van de connection pool.
+ */
+@Component
+@ConditionalOnProperty(name = "boeteapi.escalatie.actief", havingValue = "true")
+public class EscalatieTaak {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EscalatieTaak.class);
+
+	private final EscalatieService escalatieService;
+	private final int workers;
+
+	public EscalatieTaak(EscalatieService escalatieService, @Value("${boeteapi.escalatie.workers:2}") int workers) {
+		this.escalatieService = escalatieService;
+		this.workers = workers;
+	}
+
+	/**
+	 * Een fout wordt gelogd en niet doorgegeven, de volgende run gaat verder vanaf de checkpoints.
+	 */
+	@Scheduled(cron = "${boeteapi.escalatie.cron:0 0 2 * * *}")
+	public void escaleer() {
+		LOGGER.info("Escalatie gestart");
+		try {
+			EscalatieResultaat resultaat = escalatieService.escaleer(workers, voortgang -> LOGGER.info("Escalatie: {}", voortgang));
+			LOGGER.info("Escalatie klaar: {}", resultaat);
+		} catch (RuntimeException e) {
+			LOGGER.error("Escalatie afgebroken", e);
+		}
+	}
+}
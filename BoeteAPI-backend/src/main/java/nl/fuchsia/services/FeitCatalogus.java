@@ -0,0 +1,204 @@
+package nl.fuchsia.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.repository.FeitRepository;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * De catalogus van alle feiten in het geheugen, opgezocht op feitnr en op feitcode.
+ * <p>
+ * Het zijn een paar honderd feiten die bijna nooit veranderen. De catalogus wordt bij het opstarten geladen en daarna
+ * alleen vervangen als er via {@link FeitService} een feit bijkomt of wijzigt. Lezers zien altijd een complete versie:
+ * een wijziging bouwt een nieuwe versie op en zet die in één keer neer.
+ * <p>
+ * De catalogus is leidend, een feitnr dat er niet in staat bestaat niet. Feiten die buiten de API om in de database
+ * komen zijn pas te zien na {@link #herlaad()}.
+ */
+@Component
+public class FeitCatalogus implements MeterBinder {
+
+	private final FeitRepository feitRepository;
+	private final AtomicReference<Versie> versie = new AtomicReference<>(new Versie(Collections.emptyList()));
+	// Schrijvers wachten op elkaar, lezers niet. De feiten die tijdens herlaad() zijn bijgewerkt, null als er niet
+	// herladen wordt.
+	private final Object schrijven = new Object();
+	private List<Feit> tijdensHerladen;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder herladen = new LongAdder();
+
+	public FeitCatalogus(FeitRepository feitRepository) {
+		this.feitRepository = feitRepository;
+	}
+
+	/**
+	 * Leest alle feiten opnieuw uit de database. Een feit dat tijdens het lezen wordt bijgewerkt, wordt ook in de nieuwe
+	 * versie gezet.
+	 */
+	@PostConstruct
+	public synchronized void herlaad() {
+		synchronized (schrijven) {
+			tijdensHerladen = new ArrayList<>();
+		}
+		List<Feit> feiten = null;
+		try {
+			feiten = feitRepository.findAll();
+		} finally {
+			synchronized (schrijven) {
+				if (feiten != null) {
+					Versie nieuw = new Versie(feiten);
+					for (Feit feit : tijdensHerladen) {
+						nieuw = nieuw.met(feit);
+					}
+					versie.set(nieuw);
+				}
+				tijdensHerladen = null;
+			}
+		}
+		herladen.increment();
+	}
+
+	/**
+	 * Neemt een toegevoegd of gewijzigd feit op in de catalogus. Aanroepen nadat het feit is opgeslagen.
+	 *
+	 * @param feit het opgeslagen feit, met feitnr.
+	 */
+	public void bijwerken(Feit feit) {
+		synchronized (schrijven) {
+			versie.updateAndGet(huidig -> huidig.met(feit));
+			if (tijdensHerladen != null) {
+				tijdensHerladen.add(feit);
+			}
+		}
+		herladen.increment();
+	}
+
+	public Optional<Feit> getFeit(Integer feitnr) {
+		return tel(versie.get().opFeitnr.get(feitnr));
+	}
+
+	public Optional<Feit> getFeitByFeitcode(String feitcode) {
+		return tel(versie.get().opFeitcode.get(feitcode));
+	}
+
+	/**
+	 * @return alle feiten, gesorteerd op feitnr.
+	 */
+	public List<Feit> getFeiten() {
+		return new ArrayList<>(versie.get().opFeitnr.values());
+	}
+
+	/**
+	 * Keyset paginering over de catalogus, met dezelfde uitkomst als de query op de database.
+	 *
+	 * @param after het feitnr waarna de pagina begint.
+	 * @param limit het maximaal aantal feiten.
+	 * @return de feiten met een feitnr groter dan after, gesorteerd op feitnr.
+	 */
+	public List<Feit> getFeiten(int after, int limit) {
+		List<Feit> feiten = new ArrayList<>(limit);
+		for (Feit feit : versie.get().opFeitnr.tailMap(after, false).values()) {
+			if (feiten.size() == limit) {
+				break;
+			}
+			feiten.add(feit);
+		}
+		return feiten;
+	}
+
+	/**
+	 * Zoekt in de omschrijvingen van de feiten, zie {@link FeitZoekIndex}.
+	 *
+	 * @param vraag een of meer zoekwoorden.
+	 * @param limit het maximaal aantal feiten.
+	 * @return de feiten met minstens één van de zoekwoorden, het best passende feit eerst.
+	 */
+	public List<Feit> zoek(String vraag, int limit) {
+		Versie huidig = versie.get();
+		List<Feit> feiten = new ArrayList<>();
+		for (Integer feitnr : huidig.zoekIndex.zoek(vraag, limit)) {
+			feiten.add(huidig.opFeitnr.get(feitnr));
+		}
+		return feiten;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("feitcatalogus.opzoekingen", hits, LongAdder::sum).tag("resultaat", "hit")
+			.description("Opzoekingen van een feit die in de catalogus gevonden zijn").register(registry);
+		FunctionCounter.builder("feitcatalogus.opzoekingen", misses, LongAdder::sum).tag("resultaat", "miss")
+			.description("Opzoekingen van een feit die niet in de catalogus staan").register(registry);
+		FunctionCounter.builder("feitcatalogus.herladen", herladen, LongAdder::sum)
+			.description("Aantal keer dat er een nieuwe versie van de catalogus is neergezet").register(registry);
+		Gauge.builder("feitcatalogus.grootte", versie, huidig -> huidig.get().opFeitnr.size())
+			.description("Aantal feiten in de catalogus").register(registry);
+		Gauge.builder("feitcatalogus.zoektermen", versie, huidig -> huidig.get().zoekIndex.getAantalTermen())
+			.description("Aantal verschillende termen in de zoekindex over de omschrijvingen").register(registry);
+	}
+
+	long getHits() {
+		return hits.sum();
+	}
+
+	long getMisses() {
+		return misses.sum();
+	}
+
+	long getHerladen() {
+		return herladen.sum();
+	}
+
+	private Optional<Feit> tel(Feit feit) {
+		if (feit == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return Optional.ofNullable(feit);
+	}
+
+	/**
+	 * Een versie van de catalogus, wordt na het aanmaken niet meer gewijzigd.
+	 */
+	private static final class Versie {
+
+		private final NavigableMap<Integer, Feit> opFeitnr;
+		private final Map<String, Feit> opFeitcode;
+		private final FeitZoekIndex zoekIndex;
+
+		private Versie(Collection<Feit> feiten) {
+			this(feiten, FeitZoekIndex.bouw(feiten));
+		}
+
+		private Versie(Collection<Feit> feiten, FeitZoekIndex zoekIndex) {
+			TreeMap<Integer, Feit> opFeitnr = new TreeMap<>();
+			Map<String, Feit> opFeitcode = new HashMap<>();
+			for (Feit feit : feiten) {
+				opFeitnr.put(feit.getFeitnr(), feit);
+				opFeitcode.put(feit.getFeitcode(), feit);
+			}
+			this.opFeitnr = Collections.unmodifiableNavigableMap(opFeitnr);
+			this.opFeitcode = Collections.unmodifiableMap(opFeitcode);
+			this.zoekIndex = zoekIndex;
+		}
+
+		/**
+		 * De maps worden opnieuw opgebouwd, de zoekindex werkt alleen de termen van het feit bij.
+		 */
+		private Versie met(Feit feit) {
+			Map<Integer, Feit> feiten = new TreeMap<>(opFeitnr);
+			feiten.put(feit.getFeitnr(), feit);
+			return new Versie(feiten.values(), zoekIndex.met(feit));
+		}
+	}
+}
@@ -4,9 +4,12 @@ import nl.fuchsia.exceptionhandlers.NotFoundException;
 import nl.fuchsia.exceptionhandlers.UniekVeldException;
 import nl.fuchsia.model.Feit;
 import nl.fuchsia.repository.FeitRepository;
+import nl.fuchsia.util.NaCommit;
+import nl.fuchsia.util.Paginering;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,15 +17,27 @@ import java.util.Optional;
 @Service
 public class FeitService {
 	private FeitRepository feitRepository;
+	private FeitCatalogus feitCatalogus;
+	private VersieTeller versieTeller;
+	private SaldoService saldoService;
+	private ZaakOverzichtService zaakOverzichtService;
 
 	@Autowired
-	public FeitService(FeitRepository feitRepository) {
+	public FeitService(FeitRepository feitRepository, FeitCatalogus feitCatalogus, VersieTeller versieTeller, SaldoService saldoService,
+					   ZaakOverzichtService zaakOverzichtService) {
 		this.feitRepository = feitRepository;
+		this.feitCatalogus = feitCatalogus;
+		this.versieTeller = versieTeller;
+		this.saldoService = saldoService;
+		this.zaakOverzichtService = zaakOverzichtService;
 	}
 
 	public Feit addFeit(Feit feit) {
 		try {
-			return feitRepository.save(feit);
+			Feit opgeslagen = feitRepository.save(feit);
+			feitCatalogus.bijwerken(opgeslagen);
+			versieTeller.verhoog(VersieTeller.Tabel.FEIT);
+			return opgeslagen;
 		}
 		//Vangt opgevoerde feiten met feitcodes die al in de database voor komt.
 		catch (TransactionSystemException e) {
@@ -30,14 +45,44 @@ public class FeitService {
 		}
 	}
 
+	/**
+	 * Haalt alle feiten op uit de {@link FeitCatalogus}, zonder de database te raadplegen.
+	 */
 	public List<Feit> getFeiten() {
-		return feitRepository.findAll();
+		return feitCatalogus.getFeiten();
 	}
 
+	/**
+	 * Haalt één pagina feiten op met keyset paginering.
+	 *
+	 * @param after het feitnr van het laatst ontvangen feit, of null voor de eerste pagina
+	 * @param limit het maximaal aantal feiten
+	 * @return de feiten met een feitnr groter dan after
+	 */
+	public List<Feit> getFeiten(Integer after, int limit) {
+		return feitCatalogus.getFeiten(Paginering.na(after), limit);
+	}
+
+	/**
+	 * Zoekt feiten op trefwoorden in de omschrijving, via de zoekindex van de {@link FeitCatalogus}.
+	 *
+	 * @param vraag een of meer zoekwoorden
+	 * @param limit het maximaal aantal feiten
+	 * @return de gevonden feiten, het best passende feit eerst
+	 */
+	public List<Feit> zoekFeiten(String vraag, int limit) {
+		return feitCatalogus.zoek(vraag, limit);
+	}
+
+	/**
+	 * Wijzigt het feit. De saldo's en het zaakoverzicht worden in dezelfde transactie herberekend, de catalogus pas na de
+	 * commit bijgewerkt.
+	 */
+	@Transactional
 	public Feit updateFeitById(Feit feit) {
 
 		try {
-			Optional<Feit> feitOpgehaald = feitRepository.findById(feit.getFeitnr());
+			Optional<Feit> feitOpgehaald = feitCatalogus.getFeit(feit.getFeitnr());
 
 			feitOpgehaald.orElseThrow(() -> new NotFoundException("Feitnummer: " + feit.getFeitnr() + " bestaat niet!"));
 
@@ -45,7 +90,16 @@ public class FeitService {
 				throw new UniekVeldException("Feitcode: " + feitOpgehaald.get().getFeitcode() + " mag niet gewijzigd worden in " + feit.getFeitcode());
 			}
 
-			feitRepository.save(feit);
+			// Het bedrag eerst bewaren, het opslaan kan het opgehaalde feit bijwerken als dat nog beheerd wordt.
+			double oudBedrag = feitOpgehaald.get().getBedrag();
+			// Flushen, de herberekening van de saldi leest het nieuwe bedrag via JDBC.
+			Feit opgeslagen = feitRepository.saveAndFlush(feit);
+			NaCommit.uitvoeren(() -> feitCatalogus.bijwerken(opgeslagen));
+			versieTeller.verhoog(VersieTeller.Tabel.FEIT);
+			if (oudBedrag != feit.getBedrag()) {
+				saldoService.feitGewijzigd(feit.getFeitnr());
+				zaakOverzichtService.feitGewijzigd(feit.getFeitnr());
+			}
 
 		} catch (TransactionSystemException e) {
 			throw new UniekVeldException("Feitcode: " + feit.getFeitcode() + " bestaat reeds.");
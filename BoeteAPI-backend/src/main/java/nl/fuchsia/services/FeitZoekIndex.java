@@ -0,0 +1,267 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.model.Feit;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Een inverted index over de omschrijvingen van de feiten: per term de feitnrs waarin de term voorkomt, met hoe vaak.
+ * <p>
+ * Net als {@link FeitCatalogus} wordt de index na het aanmaken niet meer gewijzigd. {@link #met(Feit)} geeft een nieuwe
+ * index terug waarin alleen de postings van de termen van de oude en de nieuwe omschrijving vervangen zijn, de rest wordt
+ * gedeeld met de vorige versie. De index onthoudt zelf welke termen bij een feitnr horen: het feit in de catalogus kan
+ * een beheerde entity zijn die bij het opslaan al de nieuwe omschrijving heeft gekregen.
+ * <p>
+ * Zoeken rangschikt met BM25: een feit scoort hoger naarmate het meer zoektermen bevat, een zeldzame term zwaarder
+ * weegt dan een veelvoorkomende en de term vaker in een korte omschrijving staat.
+ */
+final class FeitZoekIndex {
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private final Map<String, Postings> postings;
+	private final Map<Integer, Document> documenten;
+	private final long totaleLengte;
+
+	private FeitZoekIndex(Map<String, Postings> postings, Map<Integer, Document> documenten, long totaleLengte) {
+		this.postings = postings;
+		this.documenten = documenten;
+		this.totaleLengte = totaleLengte;
+	}
+
+	/**
+	 * Bouwt de index in één keer op.
+	 */
+	static FeitZoekIndex bouw(Collection<Feit> feiten) {
+		Map<String, Postings> postings = new HashMap<>();
+		Map<Integer, Document> documenten = new HashMap<>();
+		long totaleLengte = 0;
+		// Op feitnr gesorteerd toevoegen houdt elke postinglijst gesorteerd zonder te hoeven invoegen.
+		List<Feit> gesorteerd = new ArrayList<>(feiten);
+		gesorteerd.sort(Comparator.comparing(Feit::getFeitnr));
+		Map<String, List<int[]>> verzameld = new HashMap<>();
+		for (Feit feit : gesorteerd) {
+			List<String> termen = termen(feit.getOmschrijving());
+			Map<String, Integer> frequenties = frequenties(termen);
+			for (Map.Entry<String, Integer> frequentie : frequenties.entrySet()) {
+				verzameld.computeIfAbsent(frequentie.getKey(), term -> new ArrayList<>()).add(new int[]{feit.getFeitnr(), frequentie.getValue()});
+			}
+			documenten.put(feit.getFeitnr(), new Document(termen.size(), frequenties.keySet()));
+			totaleLengte += termen.size();
+		}
+		for (Map.Entry<String, List<int[]>> term : verzameld.entrySet()) {
+			postings.put(term.getKey(), Postings.van(term.getValue()));
+		}
+		return new FeitZoekIndex(postings, documenten, totaleLengte);
+	}
+
+	/**
+	 * @param feit het toegevoegde of gewijzigde feit
+	 * @return een nieuwe index met de nieuwe omschrijving van het feit in plaats van de oude
+	 */
+	FeitZoekIndex met(Feit feit) {
+		int feitnr = feit.getFeitnr();
+		Map<String, Postings> postings = new HashMap<>(this.postings);
+		Map<Integer, Document> documenten = new HashMap<>(this.documenten);
+		long totaleLengte = this.totaleLengte;
+
+		Document oud = documenten.remove(feitnr);
+		if (oud != null) {
+			for (String term : oud.termen) {
+				Postings zonder = postings.get(term).zonder(feitnr);
+				if (zonder == null) {
+					postings.remove(term);
+				} else {
+					postings.put(term, zonder);
+				}
+			}
+			totaleLengte -= oud.lengte;
+		}
+
+		List<String> termen = termen(feit.getOmschrijving());
+		Map<String, Integer> frequenties = frequenties(termen);
+		for (Map.Entry<String, Integer> frequentie : frequenties.entrySet()) {
+			Postings huidig = postings.get(frequentie.getKey());
+			postings.put(frequentie.getKey(), huidig == null ? Postings.van(Collections.singletonList(new int[]{feitnr, frequentie.getValue()}))
+				: huidig.met(feitnr, frequentie.getValue()));
+		}
+		documenten.put(feitnr, new Document(termen.size(), frequenties.keySet()));
+		totaleLengte += termen.size();
+		return new FeitZoekIndex(postings, documenten, totaleLengte);
+	}
+
+	/**
+	 * Zoekt de feiten die minstens één van de termen uit de zoekvraag bevatten.
+	 *
+	 * @param vraag de zoekvraag, losse woorden gescheiden door spaties of leestekens
+	 * @param limit het maximaal aantal feitnrs
+	 * @return de feitnrs, de best passende eerst; bij een gelijke score het laagste feitnr eerst
+	 */
+	List<Integer> zoek(String vraag, int limit) {
+		Set<String> zoektermen = new LinkedHashSet<>(termen(vraag));
+		if (zoektermen.isEmpty() || documenten.isEmpty()) {
+			return Collections.emptyList();
+		}
+		double aantal = documenten.size();
+		double gemiddeldeLengte = Math.max(1.0, totaleLengte / aantal);
+
+		Map<Integer, double[]> scores = new HashMap<>();
+		for (String term : zoektermen) {
+			Postings gevonden = postings.get(term);
+			if (gevonden == null) {
+				continue;
+			}
+			int df = gevonden.feitnrs.length;
+			double idf = Math.log(1 + (aantal - df + 0.5) / (df + 0.5));
+			for (int i = 0; i < df; i++) {
+				int feitnr = gevonden.feitnrs[i];
+				double tf = gevonden.frequenties[i];
+				double normalisatie = K1 * (1 - B + B * documenten.get(feitnr).lengte / gemiddeldeLengte);
+				scores.computeIfAbsent(feitnr, nr -> new double[1])[0] += idf * tf * (K1 + 1) / (tf + normalisatie);
+			}
+		}
+
+		List<Map.Entry<Integer, double[]>> gerangschikt = new ArrayList<>(scores.entrySet());
+		gerangschikt.sort((a, b) -> {
+			int score = Double.compare(b.getValue()[0], a.getValue()[0]);
+			return score != 0 ? score : Integer.compare(a.getKey(), b.getKey());
+		});
+		List<Integer> feitnrs = new ArrayList<>(Math.min(limit, gerangschikt.size()));
+		for (Map.Entry<Integer, double[]> score : gerangschikt) {
+			if (feitnrs.size() == limit) {
+				break;
+			}
+			feitnrs.add(score.getKey());
+		}
+		return feitnrs;
+	}
+
+	int getAantalTermen() {
+		return postings.size();
+	}
+
+	/**
+	 * Splitst een tekst in termen: reeksen letters en cijfers, in kleine letters en zonder accenten, zodat "Rijden" en
+	 * "rijden" en "één" en "een" dezelfde term zijn.
+	 */
+	static List<String> termen(String tekst) {
+		if (tekst == null || tekst.isEmpty()) {
+			return Collections.emptyList();
+		}
+		String genormaliseerd = isAscii(tekst) ? tekst : Normalizer.normalize(tekst, Normalizer.Form.NFD);
+		List<String> termen = new ArrayList<>();
+		StringBuilder term = new StringBuilder();
+		for (int i = 0; i < genormaliseerd.length(); i++) {
+			char teken = genormaliseerd.charAt(i);
+			if (Character.getType(teken) == Character.NON_SPACING_MARK) {
+				continue;
+			}
+			if (Character.isLetterOrDigit(teken)) {
+				term.append(Character.toLowerCase(teken));
+			} else if (term.length() > 0) {
+				termen.add(term.toString());
+				term.setLength(0);
+			}
+		}
+		if (term.length() > 0) {
+			termen.add(term.toString());
+		}
+		return termen;
+	}
+
+	private static boolean isAscii(String tekst) {
+		for (int i = 0; i < tekst.length(); i++) {
+			if (tekst.charAt(i) > 127) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Map<String, Integer> frequenties(List<String> termen) {
+		Map<String, Integer> frequenties = new HashMap<>();
+		for (String term : termen) {
+			frequenties.merge(term, 1, Integer::sum);
+		}
+		return frequenties;
+	}
+
+	/**
+	 * Het aantal termen in de omschrijving van een feit en welke verschillende termen dat zijn.
+	 */
+	private static final class Document {
+
+		private final int lengte;
+		private final String[] termen;
+
+		private Document(int lengte, Set<String> termen) {
+			this.lengte = lengte;
+			this.termen = termen.toArray(new String[0]);
+		}
+	}
+
+	/**
+	 * De feitnrs waarin een term voorkomt, oplopend gesorteerd, met per feitnr hoe vaak de term erin staat.
+	 */
+	private static final class Postings {
+
+		private final int[] feitnrs;
+		private final int[] frequenties;
+
+		private Postings(int[] feitnrs, int[] frequenties) {
+			this.feitnrs = feitnrs;
+			this.frequenties = frequenties;
+		}
+
+		private static Postings van(List<int[]> gesorteerd) {
+			int[] feitnrs = new int[gesorteerd.size()];
+			int[] frequenties = new int[gesorteerd.size()];
+			for (int i = 0; i < gesorteerd.size(); i++) {
+				feitnrs[i] = gesorteerd.get(i)[0];
+				frequenties[i] = gesorteerd.get(i)[1];
+			}
+			return new Postings(feitnrs, frequenties);
+		}
+
+		private Postings met(int feitnr, int frequentie) {
+			int positie = Arrays.binarySearch(feitnrs, feitnr);
+			if (positie >= 0) {
+				int[] nieuweFrequenties = frequenties.clone();
+				nieuweFrequenties[positie] = frequentie;
+				return new Postings(feitnrs, nieuweFrequenties);
+			}
+			int invoegen = -positie - 1;
+			int[] nieuweFeitnrs = new int[feitnrs.length + 1];
+			int[] nieuweFrequenties = new int[feitnrs.length + 1];
+			System.arraycopy(feitnrs, 0, nieuweFeitnrs, 0, invoegen);
+			System.arraycopy(frequenties, 0, nieuweFrequenties, 0, invoegen);
+			nieuweFeitnrs[invoegen] = feitnr;
+			nieuweFrequenties[invoegen] = frequentie;
+			System.arraycopy(feitnrs, invoegen, nieuweFeitnrs, invoegen + 1, feitnrs.length - invoegen);
+			System.arraycopy(frequenties, invoegen, nieuweFrequenties, invoegen + 1, feitnrs.length - invoegen);
+			return new Postings(nieuweFeitnrs, nieuweFrequenties);
+		}
+
+		/**
+		 * @return de postings zonder het feitnr, of null als er dan niets overblijft
+		 */
+		private Postings zonder(int feitnr) {
+			int positie = Arrays.binarySearch(feitnrs, feitnr);
+			if (positie < 0) {
+				return this;
+			}
+			if (feitnrs.length == 1) {
+				return null;
+			}
+			int[] nieuweFeitnrs = new int[feitnrs.length - 1];
+			int[] nieuweFrequenties = new int[feitnrs.length - 1];
+			System.arraycopy(feitnrs, 0, nieuweFeitnrs, 0, positie);
+			System.arraycopy(frequenties, 0, nieuweFrequenties, 0, positie);
+			System.arraycopy(feitnrs, positie + 1, nieuweFeitnrs, positie, feitnrs.length - positie - 1);
+			System.arraycopy(frequenties, positie + 1, nieuweFrequenties, positie, feitnrs.length - positie - 1);
+			return new Postings(nieuweFeitnrs, nieuweFrequenties);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package nl.fuchsia.services;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * De voortgang en uitkomst van een import. De tellers worden door meerdere threads tegelijk bijgewerkt.
+ */
+public class ImportResultaat {
+
+	private final Path rejectBestand;
+	private final int chunks;
+	private final AtomicInteger chunksKlaar = new AtomicInteger();
+	private final AtomicLong regels = new AtomicLong();
+	private final AtomicLong geladen = new AtomicLong();
+	private final AtomicLong afgewezen = new AtomicLong();
+
+	public ImportResultaat(Path rejectBestand, int chunks) {
+		this.rejectBestand = rejectBestand;
+		this.chunks = chunks;
+	}
+
+	void chunkKlaar(long regels, long geladen, long afgewezen) {
+		this.regels.addAndGet(regels);
+		this.geladen.addAndGet(geladen);
+		this.afgewezen.addAndGet(afgewezen);
+		chunksKlaar.incrementAndGet();
+	}
+
+	public Path getRejectBestand() {
+		return rejectBestand;
+	}
+
+	public int getChunks() {
+		return chunks;
+	}
+
+	public int getChunksKlaar() {
+		return chunksKlaar.get();
+	}
+
+	public long getRegels() {
+		return regels.get();
+	}
+
+	public long getGeladen() {
+		return geladen.get();
+	}
+
+	public long getAfgewezen() {
+		return afgewezen.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d/%d chunks, %d regels, %d geladen, %d afgewezen", getChunksKlaar(), chunks, getRegels(), getGeladen(), getAfgewezen());
+	}
+}
@@ -0,0 +1,55 @@
+package nl.fuchsia.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Start een import bij het opstarten van de applicatie, bijvoorbeeld:
+ * <pre>
+ * java -jar BoeteAPI-backend.war --boeteapi.import.soort=personen --boeteapi.import.bestand=/data/personen.csv --spring.main.web-application-type=none
+ * </pre>
+ * Zonder web-application-type=none blijft de API na de import gewoon draaien. De afgewezen regels komen in
+ * boeteapi.import.rejects, standaard het bronbestand met .rejects.csv erachter. Met boeteapi.import.threads wordt het
+ * aantal parallelle chunks ingesteld, houd dit onder de grootte van de connection pool.
+ */
+@Component
+@ConditionalOnProperty("boeteapi.import.bestand")
+public class ImportRunner implements ApplicationRunner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImportRunner.class);
+
+	private final ImportService importService;
+	private final String soort;
+	private final String bestand;
+	private final String rejects;
+	private final int threads;
+
+	public ImportRunner(ImportService importService, @Value("${boeteapi.import.soort}") String soort, @Value("${boeteapi.import.bestand}") String bestand,
+						@Value("${boeteapi.import.rejects:}") String rejects, @Value("${boeteapi.import.threads:4}") int threads) {
+		this.importService = importService;
+		this.soort = soort;
+		this.bestand = bestand;
+		this.rejects = rejects;
+		this.threads = threads;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		Path bron = Paths.get(bestand);
+		Path rejectBestand = rejects.isEmpty() ? Paths.get(bestand + ".rejects.csv") : Paths.get(rejects);
+
+		LOGGER.info("Import van {} uit {} gestart", soort, bron);
+		ImportResultaat resultaat = importService.importeer(ImportService.Soort.valueOf(soort.toUpperCase(Locale.ROOT)), bron, rejectBestand, threads,
+			voortgang -> LOGGER.info("Import {}: {}", soort, voortgang));
+		LOGGER.info("Import van {} klaar: {}, afgewezen regels in {}", soort, resultaat, resultaat.getRejectBestand());
+	}
+}
@@ -0,0 +1,352 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.dto.ZaakBatchResultaatDto;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.repository.FeitRepository;
+import nl.fuchsia.repository.ImportRepository;
+import nl.fuchsia.repository.PersoonRepository;
+import nl.fuchsia.util.CsvBestand;
+import nl.fuchsia.util.DatumCodec;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Importeert personen, feiten of zaken uit een CSV bestand. Het bestand wordt in chunks verdeeld (zie
+ * {@link CsvBestand}) die parallel gelezen, gevalideerd en geladen worden. Elke chunk wordt in een eigen transactie
+ * geladen, regels die niet door de validatie komen of niet geladen kunnen worden gaan naar het reject bestand.
+ * <p>
+ * De eerste regel van het bestand bevat de kolomnamen en wordt overgeslagen. De kolommen zijn:
+ * <ul>
+ * <li>personen: voornaam;achternaam;straat;huisnummer;postcode;woonplaats;bsn;geboortedatum</li>
+ * <li>feiten: feitcode;omschrijving;bedrag</li>
+ * <li>zaken: persoonnr;overtredingsdatum;pleeglocatie;feitnrs (feitnrs gescheiden door komma's)</li>
+ * </ul>
+ * Datums hebben het formaat dd-MM-yyyy, net als in de API.
+ */
+@Service
+public class ImportService {
+
+	public enum Soort {
+		PERSONEN, FEITEN, ZAKEN
+	}
+
+	static final long CHUNK_GROOTTE = 8L * 1024 * 1024;
+	private static final int OPZOEK_GROOTTE = 1000;
+
+	private PersoonRepository persoonRepository;
+	private FeitRepository feitRepository;
+	private ImportRepository importRepository;
+	private ZaakBatchService zaakBatchService;
+	private FeitCatalogus feitCatalogus;
+	private PersoonIndex persoonIndex;
+	private VersieTeller versieTeller;
+	private Validator validator;
+	private TransactionTemplate transactionTemplate;
+
+	public ImportService(PersoonRepository persoonRepository, FeitRepository feitRepository, ImportRepository importRepository, ZaakBatchService zaakBatchService,
+						 FeitCatalogus feitCatalogus, PersoonIndex persoonIndex, VersieTeller versieTeller, Validator validator,
+						 PlatformTransactionManager transactionManager) {
+		this.persoonRepository = persoonRepository;
+		this.feitRepository = feitRepository;
+		this.importRepository = importRepository;
+		this.zaakBatchService = zaakBatchService;
+		this.feitCatalogus = feitCatalogus;
+		this.persoonIndex = persoonIndex;
+		this.versieTeller = versieTeller;
+		this.validator = validator;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Importeert het bestand.
+	 *
+	 * @param soort         wat er in het bestand staat.
+	 * @param bestand       het CSV bestand.
+	 * @param rejectBestand hier komen de afgewezen regels met regelnummer en reden.
+	 * @param threads       het aantal chunks dat tegelijk verwerkt wordt, elke thread gebruikt een eigen connectie.
+	 * @param voortgang     wordt na elke verwerkte chunk aangeroepen, vanuit de thread die de chunk verwerkt heeft.
+	 * @return de tellingen van de import.
+	 */
+	public ImportResultaat importeer(Soort soort, Path bestand, Path rejectBestand, int threads, Consumer<ImportResultaat> voortgang) throws IOException {
+		return importeer(soort, bestand, rejectBestand, threads, CHUNK_GROOTTE, voortgang);
+	}
+
+	ImportResultaat importeer(Soort soort, Path bestand, Path rejectBestand, int threads, long chunkGrootte, Consumer<ImportResultaat> voortgang) throws IOException {
+		// De unieke sleutels (bsn, feitcode) die al in een andere regel van het bestand voorkwamen. Staat een sleutel in twee
+		// chunks, dan wint de chunk die het eerst klaar is met valideren; de andere regel komt in het reject bestand.
+		Set<String> gezien = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try (FileChannel kanaal = FileChannel.open(bestand, StandardOpenOption.READ);
+			 BufferedWriter rejects = Files.newBufferedWriter(rejectBestand, StandardCharsets.UTF_8)) {
+			List<CsvBestand.Chunk> chunks = CsvBestand.verdeel(kanaal, chunkGrootte);
+			ImportResultaat resultaat = new ImportResultaat(rejectBestand, chunks.size());
+
+			List<Future<ChunkResultaat>> taken = new ArrayList<>();
+			for (CsvBestand.Chunk chunk : chunks) {
+				taken.add(executor.submit(() -> {
+					ChunkResultaat chunkResultaat = verwerk(soort, kanaal, chunk, gezien);
+					resultaat.chunkKlaar(chunkResultaat.aantal, chunkResultaat.geladen, chunkResultaat.afwijzingen.size());
+					voortgang.accept(resultaat);
+					return chunkResultaat;
+				}));
+			}
+
+			// Pas als de voorgaande chunks klaar zijn is bekend op welke regel een chunk begint.
+			rejects.write("regel;fout;inhoud");
+			rejects.newLine();
+			long eersteRegel = 1;
+			for (Future<ChunkResultaat> taak : taken) {
+				ChunkResultaat chunkResultaat = wacht(taak);
+				for (Afwijzing afwijzing : chunkResultaat.afwijzingen) {
+					rejects.write((eersteRegel + afwijzing.index) + ";\"" + afwijzing.fout.replace("\"", "\"\"") + "\";" + afwijzing.regel);
+					rejects.newLine();
+				}
+				eersteRegel += chunkResultaat.regels;
+			}
+			// Nieuwe feiten zijn pas bruikbaar in zaken als ze in de catalogus staan.
+			if (soort == Soort.FEITEN) {
+				feitCatalogus.herlaad();
+				versieTeller.verhoog(VersieTeller.Tabel.FEIT);
+			} else if (soort == Soort.PERSONEN) {
+				persoonIndex.herlaad();
+				versieTeller.verhoog(VersieTeller.Tabel.PERSOON);
+			}
+			return resultaat;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private ChunkResultaat verwerk(Soort soort, FileChannel kanaal, CsvBestand.Chunk chunk, Set<String> gezien) throws IOException {
+		List<String> regels = CsvBestand.regels(kanaal, chunk);
+		ChunkResultaat resultaat = new ChunkResultaat(regels.size());
+		int eerste = chunk.getVolgnummer() == 0 ? 1 : 0;
+
+		switch (soort) {
+			case PERSONEN:
+				verwerk(regels, eerste, resultaat, this::naarPersoon, personen -> laad(personen, Persoon::getBsn, "Bsn", persoonRepository::findBestaandeBsns, gezien,
+					importRepository::addPersonen));
+				break;
+			case FEITEN:
+				verwerk(regels, eerste, resultaat, this::naarFeit, feiten -> laad(feiten, Feit::getFeitcode, "Feitcode", feitRepository::findBestaandeFeitcodes, gezien,
+					importRepository::addFeiten));
+				break;
+			case ZAKEN:
+				verwerk(regels, eerste, resultaat, this::naarZaak, this::laadZaken);
+				break;
+		}
+
+		resultaat.afwijzingen.sort(Comparator.comparingInt(afwijzing -> afwijzing.index));
+		return resultaat;
+	}
+
+	/**
+	 * Leest en valideert de regels en laadt daarna alle geldige regels in één keer.
+	 *
+	 * @param laad geeft per geladen object null of de reden waarom het niet geladen is.
+	 */
+	private <T> void verwerk(List<String> regels, int eerste, ChunkResultaat resultaat, Function<String[], T> naarObject, Function<List<T>, List<String>> laad) {
+		List<T> geldig = new ArrayList<>();
+		List<Integer> indexen = new ArrayList<>();
+
+		for (int i = eerste; i < regels.size(); i++) {
+			String regel = regels.get(i);
+			if (regel.trim().isEmpty()) {
+				continue;
+			}
+			resultaat.aantal++;
+			try {
+				T object = naarObject.apply(CsvBestand.velden(regel));
+				StringJoiner fouten = new StringJoiner(", ");
+				for (ConstraintViolation<T> violation : validator.validate(object)) {
+					fouten.add(violation.getMessage());
+				}
+				if (fouten.length() == 0) {
+					geldig.add(object);
+					indexen.add(i);
+				} else {
+					resultaat.wijsAf(i, regel, fouten.toString());
+				}
+			} catch (IllegalArgumentException | DateTimeException e) {
+				resultaat.wijsAf(i, regel, e.getMessage());
+			}
+		}
+
+		List<String> fouten = laad.apply(geldig);
+		for (int j = 0; j < geldig.size(); j++) {
+			if (fouten.get(j) == null) {
+				resultaat.geladen++;
+			} else {
+				resultaat.wijsAf(indexen.get(j), regels.get(indexen.get(j)), fouten.get(j));
+			}
+		}
+	}
+
+	private <T> List<String> laad(List<T> objecten, Function<T, String> sleutel, String sleutelNaam, Function<Collection<String>, Set<String>> zoekBestaande,
+								  Set<String> gezien, Consumer<List<T>> laadObjecten) {
+		List<String> fouten = new ArrayList<>(Collections.nCopies(objecten.size(), (String) null));
+
+		List<String> sleutels = new ArrayList<>();
+		for (T object : objecten) {
+			sleutels.add(sleutel.apply(object));
+		}
+		Set<String> bestaand = new HashSet<>();
+		for (int start = 0; start < sleutels.size(); start += OPZOEK_GROOTTE) {
+			bestaand.addAll(zoekBestaande.apply(sleutels.subList(start, Math.min(start + OPZOEK_GROOTTE, sleutels.size()))));
+		}
+
+		List<T> nieuw = new ArrayList<>();
+		for (int i = 0; i < objecten.size(); i++) {
+			if (bestaand.contains(sleutels.get(i))) {
+				fouten.set(i, sleutelNaam + " " + sleutels.get(i) + " bestaat al");
+			} else if (!gezien.add(sleutels.get(i))) {
+				fouten.set(i, sleutelNaam + " " + sleutels.get(i) + " komt meerdere keren voor in het bestand");
+			} else {
+				nieuw.add(objecten.get(i));
+			}
+		}
+
+		if (nieuw.isEmpty()) {
+			return fouten;
+		}
+		try {
+			transactionTemplate.execute(status -> {
+				laadObjecten.accept(nieuw);
+				return null;
+			});
+		}
+		// De hele chunk is teruggedraaid, dus geen van de nieuwe objecten is geladen.
+		catch (DataAccessException | TransactionException e) {
+			String fout = "Niet geladen: " + e.getMostSpecificCause().getMessage();
+			for (int i = 0; i < fouten.size(); i++) {
+				if (fouten.get(i) == null) {
+					fouten.set(i, fout);
+				}
+			}
+		}
+		return fouten;
+	}
+
+	private List<String> laadZaken(List<ZaakDto> zaken) {
+		List<String> fouten = new ArrayList<>(zaken.size());
+		for (ZaakBatchResultaatDto resultaat : zaakBatchService.addZaken(zaken)) {
+			fouten.add(resultaat.isGeslaagd() ? null : String.join(", ", resultaat.getFouten()));
+		}
+		return fouten;
+	}
+
+	private Persoon naarPersoon(String[] velden) {
+		controleerAantal(velden, 8);
+		return new Persoon(velden[0], velden[1], velden[2], velden[3], velden[4], velden[5], velden[6], datum(velden[7], "Geboortedatum"));
+	}
+
+	private Feit naarFeit(String[] velden) {
+		controleerAantal(velden, 3);
+		try {
+			return new Feit(velden[0], velden[1], Double.parseDouble(velden[2].trim().replace(',', '.')));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Bedrag " + velden[2] + " is geen getal");
+		}
+	}
+
+	private ZaakDto naarZaak(String[] velden) {
+		controleerAantal(velden, 4);
+		List<Integer> feitnrs = new ArrayList<>();
+		for (String feitnr : velden[3].split(",")) {
+			if (!feitnr.trim().isEmpty()) {
+				feitnrs.add(getal(feitnr, "Feitnr"));
+			}
+		}
+		String pleeglocatie = velden[2].isEmpty() ? null : velden[2];
+		return new ZaakDto(null, datum(velden[1], "Overtredingsdatum"), pleeglocatie, getal(velden[0], "Persoonnr"), feitnrs);
+	}
+
+	private static void controleerAantal(String[] velden, int aantal) {
+		if (velden.length != aantal) {
+			throw new IllegalArgumentException("Verwacht " + aantal + " velden, gevonden " + velden.length);
+		}
+	}
+
+	private static LocalDate datum(String veld, String naam) {
+		try {
+			return DatumCodec.lees(veld.trim());
+		} catch (DateTimeException e) {
+			throw new IllegalArgumentException(naam + " " + veld + " is geen geldige datum (dd-MM-yyyy)");
+		}
+	}
+
+	private static Integer getal(String veld, String naam) {
+		try {
+			return Integer.valueOf(veld.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(naam + " " + veld + " is geen getal");
+		}
+	}
+
+	private static ChunkResultaat wacht(Future<ChunkResultaat> taak) throws IOException {
+		try {
+			return taak.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Import onderbroken");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException("Verwerken van een chunk is mislukt", e.getCause());
+		}
+	}
+
+	private static class ChunkResultaat {
+
+		// Alle regels van de chunk, inclusief kopregel en lege regels, nodig om de regelnummers door te tellen.
+		private final int regels;
+		private long aantal;
+		private long geladen;
+		private final List<Afwijzing> afwijzingen = new ArrayList<>();
+
+		private ChunkResultaat(int regels) {
+			this.regels = regels;
+		}
+
+		private void wijsAf(int index, String regel, String fout) {
+			afwijzingen.add(new Afwijzing(index, regel, fout));
+		}
+	}
+
+	private static class Afwijzing {
+
+		private final int index;
+		private final String regel;
+		private final String fout;
+
+		private Afwijzing(int index, String regel, String fout) {
+			this.index = index;
+			this.regel = regel;
+			this.fout = fout;
+		}
+	}
+}
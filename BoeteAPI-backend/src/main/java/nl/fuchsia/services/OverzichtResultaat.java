@@ -0,0 +1,76 @@
+package nl.fuchsia.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * De voortgang en uitkomst van het herbouwen of controleren van zaak_overzicht. De tellers worden door meerdere threads
+ * tegelijk bijgewerkt.
+ */
+public class OverzichtResultaat {
+
+	// Meer afwijkende zaaknrs worden wel geteld maar niet bewaard.
+	static final int MAX_VOORBEELDEN = 100;
+
+	private final int bereiken;
+	private final AtomicInteger bereikenKlaar = new AtomicInteger();
+	private final AtomicLong zaken = new AtomicLong();
+	private final AtomicLong afwijkend = new AtomicLong();
+	private final List<Integer> voorbeelden = new ArrayList<>();
+
+	public OverzichtResultaat(int bereiken) {
+		this.bereiken = bereiken;
+	}
+
+	void bereikKlaar(long zaken, List<Integer> afwijkend) {
+		this.zaken.addAndGet(zaken);
+		this.afwijkend.addAndGet(afwijkend.size());
+		synchronized (voorbeelden) {
+			for (Integer zaaknr : afwijkend) {
+				if (voorbeelden.size() == MAX_VOORBEELDEN) {
+					break;
+				}
+				voorbeelden.add(zaaknr);
+			}
+		}
+		bereikenKlaar.incrementAndGet();
+	}
+
+	public int getBereiken() {
+		return bereiken;
+	}
+
+	public int getBereikenKlaar() {
+		return bereikenKlaar.get();
+	}
+
+	/**
+	 * @return het aantal herbouwde of gecontroleerde zaken.
+	 */
+	public long getZaken() {
+		return zaken.get();
+	}
+
+	/**
+	 * @return het aantal zaken waarvan de rij ontbreekt, overbodig is of afwijkt van de zaak. Alleen bij controleren.
+	 */
+	public long getAfwijkend() {
+		return afwijkend.get();
+	}
+
+	/**
+	 * @return de eerste {@value #MAX_VOORBEELDEN} afwijkende zaaknrs, in de volgorde waarin ze gevonden zijn.
+	 */
+	public List<Integer> getVoorbeelden() {
+		synchronized (voorbeelden) {
+			return new ArrayList<>(voorbeelden);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d/%d bereiken, %d zaken, %d afwijkend", getBereikenKlaar(), bereiken, getZaken(), getAfwijkend());
+	}
+}
@@ -0,0 +1,711 @@
+package nl.fuchsia.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.repository.StroomRepository;
+import nl.fuchsia.util.Woordenboek;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Zoekt personen in het geheugen op achternaam, postcode of BSN, zonder de database te raadplegen.
+ * <p>
+ * Alle personen staan kolomsgewijs in int arrays. Voornaam, achternaam, straat, huisnummer en woonplaats zijn met een
+ * {@link Woordenboek} gecodeerd, de postcode, het BSN en de geboortedatum als getal. Een persoon kost zo een paar tientallen
+ * bytes in plaats van een Persoon object met negen Strings.
+ * <p>
+ * Anders dan de {@link FeitCatalogus} wordt de index bij een wijziging niet gekopieerd, daarvoor zijn het te veel
+ * personen. Lezers en schrijvers delen de index met een read/write lock; een wijziging raakt alleen de rij van de persoon
+ * en zijn sleutels in de indexen. De index wordt bij het opstarten geladen en bijgewerkt door {@link PersoonService}.
+ * Personen die buiten de API om in de database komen zijn pas te vinden na {@link #herlaad()}.
+ */
+@Component
+public class PersoonIndex implements MeterBinder {
+
+	private static final int GEEN = Woordenboek.GEEN;
+	private static final int GEEN_DATUM = Integer.MIN_VALUE;
+	private static final Pattern BSN = Pattern.compile("\\d{1,9}");
+	private static final Pattern POSTCODE = Pattern.compile("(\\d{4})\\s*([A-Za-z]{0,2})");
+	private static final Pattern POSTCODE_STRIKT = Pattern.compile("\\d{4} [A-Z]{2}");
+
+	// Rangen van een treffer, een lagere rang komt eerder in het resultaat.
+	private static final int EXACT = 0;
+	private static final int PREFIX = 1;
+	private static final int FUZZY = 2;
+
+	private final StroomRepository stroomRepository;
+	private final long budgetNanos;
+	private final ReentrantReadWriteLock slot = new ReentrantReadWriteLock();
+	private Tabel tabel = new Tabel(false);
+	// De personen die tijdens herlaad() zijn bijgewerkt, null als er niet herladen wordt. Bewaakt door het write lock.
+	private List<Persoon> tijdensHerladen;
+
+	private final LongAdder zoekopdrachten = new LongAdder();
+	private final LongAdder budgetOverschreden = new LongAdder();
+
+	public PersoonIndex(StroomRepository stroomRepository, @Value("${boeteapi.personen.zoekbudget-ms:5}") long budgetMs) {
+		this.stroomRepository = stroomRepository;
+		this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+	}
+
+	/**
+	 * Leest alle personen opnieuw uit de database. Zoeken gaat intussen door op de vorige index. Een persoon die tijdens
+	 * het lezen wordt bijgewerkt kan al voor of pas na het lezen in de database staan, die wordt vlak voor het neerzetten
+	 * van de nieuwe index nog een keer in de nieuwe index gezet.
+	 */
+	@PostConstruct
+	public synchronized void herlaad() {
+		slot.writeLock().lock();
+		try {
+			tijdensHerladen = new ArrayList<>();
+		} finally {
+			slot.writeLock().unlock();
+		}
+		Tabel nieuw = new Tabel(true);
+		try {
+			stroomRepository.getPersonen().verwerk(nieuw::zet);
+			nieuw.sorteer();
+		} finally {
+			slot.writeLock().lock();
+			try {
+				if (!nieuw.laden) {
+					for (Persoon persoon : tijdensHerladen) {
+						nieuw.zet(persoon);
+					}
+					tabel = nieuw;
+				}
+				tijdensHerladen = null;
+			} finally {
+				slot.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Neemt een toegevoegde of gewijzigde persoon op in de index. Aanroepen nadat de persoon is opgeslagen.
+	 *
+	 * @param persoon de opgeslagen persoon, met persoonnr.
+	 */
+	public void bijwerken(Persoon persoon) {
+		slot.writeLock().lock();
+		try {
+			tabel.zet(persoon);
+			if (tijdensHerladen != null) {
+				tijdensHerladen.add(persoon);
+			}
+		} finally {
+			slot.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Zoekt personen op BSN (een of meer cijfers), postcode ("8402", "8402 G", "8402GH") of achternaam. Een achternaam
+	 * wordt gevonden op het begin van de naam of van een los woord erin ("vries" vindt "de Vries"), en bij te weinig
+	 * treffers ook met een of twee tikfouten.
+	 * <p>
+	 * Exacte treffers komen eerst, dan treffers op het begin, dan tikfouten op volgorde van het aantal fouten. Het zoeken
+	 * naar tikfouten stopt als het budget op is, er komen dan alleen de treffers die tot dan gevonden zijn.
+	 *
+	 * @param vraag de zoekvraag.
+	 * @param limit het maximaal aantal personen.
+	 * @return de gevonden personen, de best passende eerst.
+	 */
+	public List<Persoon> zoek(String vraag, int limit) {
+		long deadline = System.nanoTime() + budgetNanos;
+		zoekopdrachten.increment();
+		slot.readLock().lock();
+		try {
+			Treffers treffers = new Treffers(limit);
+			String tekst = vraag == null ? "" : vraag.trim();
+			boolean bsn = BSN.matcher(tekst).matches();
+			Matcher postcode = POSTCODE.matcher(tekst);
+			if (bsn) {
+				tabel.zoekBsn(tekst, treffers);
+			}
+			if (postcode.matches()) {
+				tabel.zoekPostcode(postcode.group(1), postcode.group(2).toUpperCase(), treffers);
+			} else if (!bsn) {
+				String naam = normaliseer(tekst);
+				if (!naam.isEmpty() && !tabel.zoekNaam(naam, treffers, deadline)) {
+					budgetOverschreden.increment();
+				}
+			}
+			return tabel.personen(treffers.gerangschikt());
+		} finally {
+			slot.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("persoonindex.zoekopdrachten", zoekopdrachten, LongAdder::sum)
+			.description("Zoekopdrachten op de persoonindex").register(registry);
+		FunctionCounter.builder("persoonindex.budget.overschreden", budgetOverschreden, LongAdder::sum)
+			.description("Zoekopdrachten waarbij het zoeken naar tikfouten is afgebroken").register(registry);
+		Gauge.builder("persoonindex.grootte", this, PersoonIndex::getAantal)
+			.description("Aantal personen in de index").register(registry);
+	}
+
+	int getAantal() {
+		slot.readLock().lock();
+		try {
+			return tabel.aantal;
+		} finally {
+			slot.readLock().unlock();
+		}
+	}
+
+	long getBudgetOverschreden() {
+		return budgetOverschreden.sum();
+	}
+
+	/**
+	 * Kleine letters, zonder accenten, alleen letters en cijfers met één spatie tussen de woorden.
+	 */
+	static String normaliseer(String tekst) {
+		if (tekst == null) {
+			return "";
+		}
+		String genormaliseerd = Normalizer.normalize(tekst, Normalizer.Form.NFD);
+		StringBuilder naam = new StringBuilder(genormaliseerd.length());
+		for (int i = 0; i < genormaliseerd.length(); i++) {
+			char teken = genormaliseerd.charAt(i);
+			if (Character.isLetterOrDigit(teken)) {
+				naam.append(Character.toLowerCase(teken));
+			} else if (Character.getType(teken) != Character.NON_SPACING_MARK && naam.length() > 0 && naam.charAt(naam.length() - 1) != ' ') {
+				naam.append(' ');
+			}
+		}
+		int lengte = naam.length();
+		return lengte > 0 && naam.charAt(lengte - 1) == ' ' ? naam.substring(0, lengte - 1) : naam.toString();
+	}
+
+	/**
+	 * Damerau-Levenshtein afstand (optimal string alignment): invoegen, weglaten, vervangen en twee letters omdraaien
+	 * tellen elk als één fout. Afgebroken zodra de afstand groter wordt dan max.
+	 *
+	 * @return de afstand, of max + 1 als die groter is dan max.
+	 */
+	static int afstand(String a, String b, int max) {
+		if (Math.abs(a.length() - b.length()) > max) {
+			return max + 1;
+		}
+		int[] tweeTerug = new int[b.length() + 1];
+		int[] vorige = new int[b.length() + 1];
+		int[] huidige = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			vorige[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			huidige[0] = i;
+			int kleinste = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int vervang = vorige[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				huidige[j] = Math.min(vervang, Math.min(vorige[j], huidige[j - 1]) + 1);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					huidige[j] = Math.min(huidige[j], tweeTerug[j - 2] + 1);
+				}
+				kleinste = Math.min(kleinste, huidige[j]);
+			}
+			if (kleinste > max) {
+				return max + 1;
+			}
+			int[] wissel = tweeTerug;
+			tweeTerug = vorige;
+			vorige = huidige;
+			huidige = wissel;
+		}
+		return Math.min(vorige[b.length()], max + 1);
+	}
+
+	private static List<String> trigrammen(String naam) {
+		String omrand = "$" + naam + "$";
+		List<String> trigrammen = new ArrayList<>(omrand.length());
+		for (int i = 0; i + 3 <= omrand.length(); i++) {
+			trigrammen.add(omrand.substring(i, i + 3));
+		}
+		return trigrammen;
+	}
+
+	/**
+	 * Postcode "8402 GH" als getal: de cijfers maal 676 plus de letters, zodat alle postcodes die met "8402" of
+	 * "8402 G" beginnen een aaneengesloten bereik vormen.
+	 */
+	private static int postcodeSleutel(int cijfers, String letters) {
+		int sleutel = cijfers * 676;
+		if (letters.length() > 0) {
+			sleutel += (letters.charAt(0) - 'A') * 26;
+		}
+		if (letters.length() > 1) {
+			sleutel += letters.charAt(1) - 'A';
+		}
+		return sleutel;
+	}
+
+	private static int postcodeSleutel(String postcode) {
+		Matcher matcher = postcode == null ? null : POSTCODE.matcher(postcode);
+		if (matcher == null || !matcher.matches() || matcher.group(2).length() != 2) {
+			return GEEN;
+		}
+		return postcodeSleutel(Integer.parseInt(matcher.group(1)), matcher.group(2).toUpperCase());
+	}
+
+	/**
+	 * De gevonden persoonnrs met hun beste rang, in de volgorde waarin ze gevonden zijn.
+	 */
+	private static final class Treffers {
+
+		private final int limit;
+		private final Map<Integer, Integer> rangen = new LinkedHashMap<>();
+		private final int[] perRang = new int[FUZZY + 2];
+
+		private Treffers(int limit) {
+			this.limit = limit;
+		}
+
+		private void voegToe(int persoonnr, int rang) {
+			Integer bestaand = rangen.get(persoonnr);
+			if (bestaand == null || rang < bestaand) {
+				rangen.put(persoonnr, rang);
+				perRang[rang]++;
+				if (bestaand != null) {
+					perRang[bestaand]--;
+				}
+			}
+		}
+
+		/**
+		 * @return true als er genoeg treffers met een rang tot en met de meegegeven rang zijn.
+		 */
+		private boolean isVol(int rang) {
+			int aantal = 0;
+			for (int i = 0; i <= rang; i++) {
+				aantal += perRang[i];
+			}
+			return aantal >= limit;
+		}
+
+		private List<Integer> gerangschikt() {
+			List<Map.Entry<Integer, Integer>> gesorteerd = new ArrayList<>(rangen.entrySet());
+			gesorteerd.sort(Map.Entry.comparingByValue());
+			List<Integer> persoonnrs = new ArrayList<>(Math.min(limit, gesorteerd.size()));
+			for (int i = 0; i < gesorteerd.size() && i < limit; i++) {
+				persoonnrs.add(gesorteerd.get(i).getKey());
+			}
+			return persoonnrs;
+		}
+	}
+
+	/**
+	 * De personen en de indexen erop. Niet thread safe, {@link PersoonIndex} regelt de synchronisatie.
+	 */
+	private static final class Tabel {
+
+		private final Woordenboek voornamen = new Woordenboek();
+		private final Woordenboek achternamen = new Woordenboek();
+		private final Woordenboek straten = new Woordenboek();
+		private final Woordenboek huisnummers = new Woordenboek();
+		// Alleen voor postcodes die niet de vorm "8402 GH" hebben.
+		private final Woordenboek postcodes = new Woordenboek();
+		private final Woordenboek woonplaatsen = new Woordenboek();
+
+		// Per rij, gesorteerd op persoonnr.
+		private int aantal;
+		private int[] persoonnrs = new int[1024];
+		private int[] voornaam = new int[1024];
+		private int[] achternaam = new int[1024];
+		private int[] straat = new int[1024];
+		private int[] huisnummer = new int[1024];
+		private int[] postcode = new int[1024];
+		private int[] woonplaats = new int[1024];
+		private int[] bsn = new int[1024];
+		private int[] geboortedatum = new int[1024];
+
+		// Tijdens het laden worden de sleutels achteraan toegevoegd en pas aan het eind gesorteerd.
+		private boolean laden;
+		private final SleutelIndex opBsn = new SleutelIndex();
+		private final SleutelIndex opPostcode = new SleutelIndex();
+		// Genormaliseerde achternaam, en elk los woord vanaf het tweede tot het eind, naar de persoonnrs.
+		private final TreeMap<String, IntLijst> opNaam = new TreeMap<>();
+		// Per code uit het woordenboek van de achternamen, om niet elke keer opnieuw te normaliseren.
+		private String[][] sleutelsPerAchternaam = new String[1024][];
+		// Voor de tikfouten: trigram naar de codes van de sleutels uit opNaam.
+		private final Woordenboek naamsleutels = new Woordenboek();
+		private final Map<String, IntLijst> opTrigram = new HashMap<>();
+
+		private Tabel(boolean laden) {
+			this.laden = laden;
+		}
+
+		private void zet(Persoon persoon) {
+			int nr = persoon.getPersoonnr();
+			int rij = Arrays.binarySearch(persoonnrs, 0, aantal, nr);
+			if (rij >= 0) {
+				uitIndexen(rij);
+			} else {
+				rij = -rij - 1;
+				maakRuimte(rij);
+				persoonnrs[rij] = nr;
+			}
+			voornaam[rij] = voornamen.code(persoon.getVoornaam());
+			achternaam[rij] = achternamen.code(persoon.getAchternaam());
+			straat[rij] = straten.code(persoon.getStraat());
+			huisnummer[rij] = huisnummers.code(persoon.getHuisnummer());
+			postcode[rij] = postcodeKolom(persoon.getPostcode());
+			woonplaats[rij] = woonplaatsen.code(persoon.getWoonplaats());
+			bsn[rij] = persoon.getBsn() != null && persoon.getBsn().matches("\\d{9}") ? Integer.parseInt(persoon.getBsn()) : GEEN;
+			geboortedatum[rij] = persoon.getGeboortedatum() == null ? GEEN_DATUM : (int) persoon.getGeboortedatum().toEpochDay();
+			inIndexen(rij);
+		}
+
+		private void sorteer() {
+			opBsn.sorteer();
+			opPostcode.sorteer();
+			laden = false;
+		}
+
+		private void maakRuimte(int rij) {
+			if (aantal == persoonnrs.length) {
+				int capaciteit = aantal * 2;
+				persoonnrs = Arrays.copyOf(persoonnrs, capaciteit);
+				voornaam = Arrays.copyOf(voornaam, capaciteit);
+				achternaam = Arrays.copyOf(achternaam, capaciteit);
+				straat = Arrays.copyOf(straat, capaciteit);
+				huisnummer = Arrays.copyOf(huisnummer, capaciteit);
+				postcode = Arrays.copyOf(postcode, capaciteit);
+				woonplaats = Arrays.copyOf(woonplaats, capaciteit);
+				bsn = Arrays.copyOf(bsn, capaciteit);
+				geboortedatum = Arrays.copyOf(geboortedatum, capaciteit);
+			}
+			// Nieuwe persoonnrs zijn bijna altijd de hoogste, dan hoeft er niets op te schuiven.
+			if (rij < aantal) {
+				for (int[] kolom : new int[][]{persoonnrs, voornaam, achternaam, straat, huisnummer, postcode, woonplaats, bsn, geboortedatum}) {
+					System.arraycopy(kolom, rij, kolom, rij + 1, aantal - rij);
+				}
+			}
+			aantal++;
+		}
+
+		private void inIndexen(int rij) {
+			int nr = persoonnrs[rij];
+			if (bsn[rij] != GEEN) {
+				opBsn.voegToe(bsn[rij], nr, laden);
+			}
+			int postcodeSleutel = postcodeSleutel(postcode[rij]);
+			if (postcodeSleutel != GEEN) {
+				opPostcode.voegToe(postcodeSleutel, nr, laden);
+			}
+			for (String sleutel : naamsleutels(achternaam[rij])) {
+				opNaam.computeIfAbsent(sleutel, this::nieuweNaamsleutel).voegToe(nr);
+			}
+		}
+
+		private void uitIndexen(int rij) {
+			int nr = persoonnrs[rij];
+			if (bsn[rij] != GEEN) {
+				opBsn.verwijder(bsn[rij], nr);
+			}
+			int postcodeSleutel = postcodeSleutel(postcode[rij]);
+			if (postcodeSleutel != GEEN) {
+				opPostcode.verwijder(postcodeSleutel, nr);
+			}
+			for (String sleutel : naamsleutels(achternaam[rij])) {
+				IntLijst lijst = opNaam.get(sleutel);
+				lijst.verwijder(nr);
+				if (lijst.aantal == 0) {
+					opNaam.remove(sleutel);
+				}
+			}
+		}
+
+		private IntLijst nieuweNaamsleutel(String sleutel) {
+			int bestaand = naamsleutels.getAantal();
+			int code = naamsleutels.code(sleutel);
+			// Een sleutel die al eens bestond staat nog in de trigrammen.
+			if (code == bestaand) {
+				for (String trigram : new LinkedHashSet<>(trigrammen(sleutel))) {
+					opTrigram.computeIfAbsent(trigram, t -> new IntLijst()).voegToe(code);
+				}
+			}
+			return new IntLijst();
+		}
+
+		/**
+		 * De sleutels in opNaam voor een achternaam, per code uit het woordenboek maar één keer berekend.
+		 */
+		private String[] naamsleutels(int code) {
+			if (code == GEEN) {
+				return new String[0];
+			}
+			if (code >= sleutelsPerAchternaam.length) {
+				sleutelsPerAchternaam = Arrays.copyOf(sleutelsPerAchternaam, Math.max(code + 1, sleutelsPerAchternaam.length * 2));
+			}
+			if (sleutelsPerAchternaam[code] == null) {
+				sleutelsPerAchternaam[code] = naamsleutels(achternamen.waarde(code)).toArray(new String[0]);
+			}
+			return sleutelsPerAchternaam[code];
+		}
+
+		/**
+		 * Een postcode als "8402 GH" staat als {@link PersoonIndex#postcodeSleutel(int, String)} in de kolom, een afwijkende
+		 * waarde als -2 - de code uit het woordenboek.
+		 */
+		private int postcodeKolom(String waarde) {
+			if (waarde == null) {
+				return GEEN;
+			}
+			if (waarde.length() == 7 && waarde.charAt(4) == ' ' && POSTCODE_STRIKT.matcher(waarde).matches()) {
+				return PersoonIndex.postcodeSleutel(Integer.parseInt(waarde.substring(0, 4)), waarde.substring(5));
+			}
+			return -2 - postcodes.code(waarde);
+		}
+
+		private String postcode(int kolom) {
+			if (kolom >= 0) {
+				return String.format("%04d %c%c", kolom / 676, (char) ('A' + kolom % 676 / 26), (char) ('A' + kolom % 26));
+			}
+			return kolom == GEEN ? null : postcodes.waarde(-2 - kolom);
+		}
+
+		private int postcodeSleutel(int kolom) {
+			return kolom >= GEEN ? kolom : PersoonIndex.postcodeSleutel(postcodes.waarde(-2 - kolom));
+		}
+
+		private static Set<String> naamsleutels(String achternaam) {
+			String naam = normaliseer(achternaam);
+			Set<String> sleutels = new LinkedHashSet<>();
+			if (naam.isEmpty()) {
+				return sleutels;
+			}
+			sleutels.add(naam);
+			for (int i = naam.indexOf(' '); i >= 0; i = naam.indexOf(' ', i + 1)) {
+				sleutels.add(naam.substring(i + 1));
+			}
+			return sleutels;
+		}
+
+		private void zoekBsn(String cijfers, Treffers treffers) {
+			int factor = (int) Math.pow(10, 9 - cijfers.length());
+			int van = Integer.parseInt(cijfers) * factor;
+			opBsn.bereik(van, van + factor - 1, persoonnr -> {
+				treffers.voegToe(persoonnr, factor == 1 ? EXACT : PREFIX);
+				return !treffers.isVol(PREFIX);
+			});
+		}
+
+		private void zoekPostcode(String cijfers, String letters, Treffers treffers) {
+			int van = PersoonIndex.postcodeSleutel(Integer.parseInt(cijfers), letters);
+			int tot = letters.length() == 2 ? van : letters.length() == 1 ? van + 25 : van + 675;
+			opPostcode.bereik(van, tot, persoonnr -> {
+				treffers.voegToe(persoonnr, letters.length() == 2 ? EXACT : PREFIX);
+				return !treffers.isVol(PREFIX);
+			});
+		}
+
+		/**
+		 * @return false als het zoeken naar tikfouten is afgebroken omdat de deadline verstreken is.
+		 */
+		private boolean zoekNaam(String naam, Treffers treffers, long deadline) {
+			IntLijst exact = opNaam.get(naam);
+			if (exact != null) {
+				exact.elk(persoonnr -> {
+					treffers.voegToe(persoonnr, EXACT);
+					return !treffers.isVol(EXACT);
+				});
+			}
+			for (IntLijst lijst : opNaam.subMap(naam, false, naam + Character.MAX_VALUE, false).values()) {
+				if (treffers.isVol(PREFIX)) {
+					return true;
+				}
+				lijst.elk(persoonnr -> {
+					treffers.voegToe(persoonnr, PREFIX);
+					return !treffers.isVol(PREFIX);
+				});
+			}
+			if (treffers.isVol(PREFIX) || naam.length() < 3) {
+				return true;
+			}
+			return zoekTikfouten(naam, treffers, deadline);
+		}
+
+		private boolean zoekTikfouten(String naam, Treffers treffers, long deadline) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			int max = naam.length() <= 5 ? 1 : 2;
+			List<String> trigrammen = trigrammen(naam);
+			// Elke tikfout raakt hooguit drie trigrammen, twee omgedraaide letters vier.
+			int minimum = Math.max(1, trigrammen.size() - 4 * max);
+			int[] gedeeld = new int[naamsleutels.getAantal()];
+			List<Integer> boven = new ArrayList<>();
+			for (String trigram : new LinkedHashSet<>(trigrammen)) {
+				if (System.nanoTime() > deadline) {
+					return false;
+				}
+				IntLijst codes = opTrigram.get(trigram);
+				for (int i = 0; codes != null && i < codes.aantal; i++) {
+					if (++gedeeld[codes.waarden[i]] == minimum) {
+						boven.add(codes.waarden[i]);
+					}
+				}
+			}
+			List<String> kandidaten = new ArrayList<>();
+			List<Integer> afstanden = new ArrayList<>();
+			for (int i = 0; i < boven.size(); i++) {
+				if (i % 64 == 63 && System.nanoTime() > deadline) {
+					voegTikfoutenToe(kandidaten, afstanden, treffers);
+					return false;
+				}
+				String sleutel = naamsleutels.waarde(boven.get(i));
+				int afstand = afstand(naam, sleutel, max);
+				if (afstand > 0 && afstand <= max && !sleutel.startsWith(naam) && opNaam.containsKey(sleutel)) {
+					kandidaten.add(sleutel);
+					afstanden.add(afstand);
+				}
+			}
+			voegTikfoutenToe(kandidaten, afstanden, treffers);
+			return true;
+		}
+
+		private void voegTikfoutenToe(List<String> kandidaten, List<Integer> afstanden, Treffers treffers) {
+			Integer[] volgorde = new Integer[kandidaten.size()];
+			for (int i = 0; i < volgorde.length; i++) {
+				volgorde[i] = i;
+			}
+			Arrays.sort(volgorde, Comparator.<Integer>comparingInt(afstanden::get).thenComparing(kandidaten::get));
+			for (int i : volgorde) {
+				int rang = FUZZY + afstanden.get(i) - 1;
+				if (treffers.isVol(rang)) {
+					return;
+				}
+				opNaam.get(kandidaten.get(i)).elk(persoonnr -> {
+					treffers.voegToe(persoonnr, rang);
+					return !treffers.isVol(rang);
+				});
+			}
+		}
+
+		private List<Persoon> personen(List<Integer> persoonnrs) {
+			List<Persoon> personen = new ArrayList<>(persoonnrs.size());
+			for (int nr : persoonnrs) {
+				int rij = Arrays.binarySearch(this.persoonnrs, 0, aantal, nr);
+				personen.add(new Persoon(nr, voornamen.waarde(voornaam[rij]), achternamen.waarde(achternaam[rij]), straten.waarde(straat[rij]),
+					huisnummers.waarde(huisnummer[rij]), postcode(postcode[rij]), woonplaatsen.waarde(woonplaats[rij]),
+					bsn[rij] == GEEN ? null : String.format("%09d", bsn[rij]),
+					geboortedatum[rij] == GEEN_DATUM ? null : LocalDate.ofEpochDay(geboortedatum[rij])));
+			}
+			return personen;
+		}
+	}
+
+	/**
+	 * Een gesorteerde lijst van (sleutel, persoonnr) paren in één long array, voor het opzoeken van een bereik sleutels.
+	 */
+	private static final class SleutelIndex {
+
+		private long[] paren = new long[1024];
+		private int aantal;
+
+		private static long paar(int sleutel, int persoonnr) {
+			return ((long) sleutel << 32) | (persoonnr & 0xffffffffL);
+		}
+
+		/**
+		 * @param achteraan true om het paar alleen achteraan toe te voegen, daarna moet {@link #sorteer()} nog volgen.
+		 */
+		private void voegToe(int sleutel, int persoonnr, boolean achteraan) {
+			long paar = paar(sleutel, persoonnr);
+			int positie = achteraan ? -aantal - 1 : Arrays.binarySearch(paren, 0, aantal, paar);
+			if (positie >= 0) {
+				return;
+			}
+			positie = -positie - 1;
+			if (aantal == paren.length) {
+				paren = Arrays.copyOf(paren, aantal * 2);
+			}
+			System.arraycopy(paren, positie, paren, positie + 1, aantal - positie);
+			paren[positie] = paar;
+			aantal++;
+		}
+
+		private void sorteer() {
+			Arrays.sort(paren, 0, aantal);
+		}
+
+		private void verwijder(int sleutel, int persoonnr) {
+			int positie = Arrays.binarySearch(paren, 0, aantal, paar(sleutel, persoonnr));
+			if (positie >= 0) {
+				System.arraycopy(paren, positie + 1, paren, positie, aantal - positie - 1);
+				aantal--;
+			}
+		}
+
+		/**
+		 * Geeft de persoonnrs met een sleutel van van tot en met tot, tot de verwerker false teruggeeft.
+		 */
+		private void bereik(int van, int tot, IntPredicate verwerker) {
+			int positie = Arrays.binarySearch(paren, 0, aantal, paar(van, 0));
+			for (int i = positie >= 0 ? positie : -positie - 1; i < aantal && (int) (paren[i] >> 32) <= tot; i++) {
+				if (!verwerker.test((int) paren[i])) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Een gesorteerde lijst ints zonder dubbelen.
+	 */
+	private static final class IntLijst {
+
+		private int[] waarden = new int[2];
+		private int aantal;
+
+		private void voegToe(int waarde) {
+			int positie = Arrays.binarySearch(waarden, 0, aantal, waarde);
+			if (positie >= 0) {
+				return;
+			}
+			positie = -positie - 1;
+			if (aantal == waarden.length) {
+				waarden = Arrays.copyOf(waarden, aantal * 2);
+			}
+			System.arraycopy(waarden, positie, waarden, positie + 1, aantal - positie);
+			waarden[positie] = waarde;
+			aantal++;
+		}
+
+		private void verwijder(int waarde) {
+			int positie = Arrays.binarySearch(waarden, 0, aantal, waarde);
+			if (positie >= 0) {
+				System.arraycopy(waarden, positie + 1, waarden, positie, aantal - positie - 1);
+				aantal--;
+			}
+		}
+
+		/**
+		 * Geeft de waarden op volgorde, tot de verwerker false teruggeeft.
+		 */
+		private void elk(IntPredicate verwerker) {
+			for (int i = 0; i < aantal; i++) {
+				if (!verwerker.test(waarden[i])) {
+					return;
+				}
+			}
+		}
+	}
+}
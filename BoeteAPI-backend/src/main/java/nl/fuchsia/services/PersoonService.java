@@ -4,20 +4,37 @@ import nl.fuchsia.exceptionhandlers.NotFoundException;
 import nl.fuchsia.exceptionhandlers.UniekVeldException;
 import nl.fuchsia.model.Persoon;
 import nl.fuchsia.repository.PersoonRepository;
+import nl.fuchsia.repository.StroomRepository;
+import nl.fuchsia.util.NaCommit;
+import nl.fuchsia.util.Paginering;
+import nl.fuchsia.util.Stroom;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
 
-@Component
+@Service
 public class PersoonService {
     private PersoonRepository persoonRepository;
+    private VersieTeller versieTeller;
+    private StroomRepository stroomRepository;
+    private ZaakOverzichtService zaakOverzichtService;
+    private PersoonIndex persoonIndex;
+    private TransactionTemplate transactionTemplate;
 
     @Autowired
-    public PersoonService(PersoonRepository persoonRepository) {
+    public PersoonService(PersoonRepository persoonRepository, VersieTeller versieTeller, StroomRepository stroomRepository,
+                          ZaakOverzichtService zaakOverzichtService, PersoonIndex persoonIndex, PlatformTransactionManager transactionManager) {
         this.persoonRepository = persoonRepository;
+        this.versieTeller = versieTeller;
+        this.stroomRepository = stroomRepository;
+        this.zaakOverzichtService = zaakOverzichtService;
+        this.persoonIndex = persoonIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -29,6 +46,37 @@ public class PersoonService {
         return persoonRepository.findAll();
     }
 
+    /**
+     * Haalt één pagina personen op met keyset paginering.
+     *
+     * @param after - Het persoonnr van de laatst ontvangen persoon, of null voor de eerste pagina.
+     * @param limit - Het maximaal aantal personen.
+     * @return - De personen met een persoonnr groter dan after.
+     */
+    public List<Persoon> getPersonen(Integer after, int limit) {
+        return persoonRepository.findByPersoonnrGreaterThanOrderByPersoonnrAsc(Paginering.na(after), Paginering.eerste(limit));
+    }
+
+    /**
+     * Leest alle personen als stroom, zonder ze eerst allemaal in een lijst te zetten.
+     *
+     * @return - Alle personen, gesorteerd op persoonnr.
+     */
+    public Stroom<Persoon> stroomPersonen() {
+        return stroomRepository.getPersonen();
+    }
+
+    /**
+     * Zoekt personen op achternaam, postcode of BSN in de {@link PersoonIndex}, zonder de database te raadplegen.
+     *
+     * @param vraag - De zoekvraag.
+     * @param limit - Het maximaal aantal personen.
+     * @return - De gevonden personen, de best passende eerst.
+     */
+    public List<Persoon> zoekPersonen(String vraag, int limit) {
+        return persoonIndex.zoek(vraag, limit);
+    }
+
     /**
      * Voegt de persoon toe via de persoonRepository.
      *
@@ -36,7 +84,10 @@ public class PersoonService {
      */
     public Persoon addPersoon(Persoon persoon) {
         try {
-            return persoonRepository.save(persoon);
+            Persoon opgeslagen = persoonRepository.save(persoon);
+            persoonIndex.bijwerken(opgeslagen);
+            versieTeller.verhoog(VersieTeller.Tabel.PERSOON);
+            return opgeslagen;
         } catch (TransactionSystemException e) {
             throw new UniekVeldException("BSN nummer: " + persoon.getBsn() + " bestaat reeds.");
         }
@@ -65,7 +116,14 @@ public class PersoonService {
 			Optional<Persoon> persoonOpgehaald = persoonRepository.findById(persoonnr);
 			persoonOpgehaald.orElseThrow(() -> new NotFoundException("PersoonNummer: " + persoonnr + " bestaat niet"));
 			persoon.setPersoonnr(persoonnr);
-            persoonRepository.save(persoon);
+            // De persoon en zijn naam in zaak_overzicht in één transactie. De commit valt binnen de try, een dubbel BSN
+            // wordt pas dan gemeld.
+            transactionTemplate.executeWithoutResult(transactie -> {
+                persoonRepository.save(persoon);
+                zaakOverzichtService.persoonGewijzigd(persoon);
+                NaCommit.uitvoeren(() -> persoonIndex.bijwerken(persoon));
+                versieTeller.verhoog(VersieTeller.Tabel.PERSOON);
+            });
 
         } catch (TransactionSystemException e) {
             throw new UniekVeldException("BSN nummer: " + persoon.getBsn() + " bestaat reeds.");
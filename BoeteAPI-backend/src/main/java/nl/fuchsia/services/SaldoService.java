@@ -0,0 +1,117 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.exceptionhandlers.NotFoundException;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.PersoonSaldo;
+import nl.fuchsia.repository.SaldoRepository;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Houdt per persoon het aantal zaken, het aantal open zaken en het openstaande bedrag bij. De services die zaken, feiten
+ * of statussen wijzigen geven het verschil door, binnen hun eigen transactie. Opvragen is daardoor één opzoeking op de
+ * primary key in plaats van alle zaken en feiten van de persoon ophalen.
+ * <p>
+ * Een persoon die nog geen saldo heeft (bijvoorbeeld omdat hij via de import is toegevoegd) krijgt er een bij de eerste
+ * wijziging of opvraging, berekend vanuit zijn zaken.
+ */
+@Service
+public class SaldoService {
+
+	private final SaldoRepository saldoRepository;
+
+	public SaldoService(SaldoRepository saldoRepository) {
+		this.saldoRepository = saldoRepository;
+	}
+
+	/**
+	 * @param persoonnr de persoon.
+	 * @return het saldo van de persoon.
+	 */
+	public PersoonSaldo getSaldo(Integer persoonnr) {
+		return saldoRepository.findByPersoonnr(persoonnr).orElseGet(() -> {
+			// Is het saldo tegelijk door een ander request aangemaakt, dan wordt dat saldo hieronder gelezen.
+			saldoRepository.maakAan(persoonnr);
+			return saldoRepository.findByPersoonnr(persoonnr).orElseThrow(() -> new NotFoundException("Persoonnr " + persoonnr + " bestaat niet"));
+		});
+	}
+
+	/**
+	 * Verwerkt een nieuwe zaak in het saldo van de persoon.
+	 *
+	 * @param bedrag het totaal van de feiten van de zaak.
+	 * @param open   of de zaak met een open status begint.
+	 */
+	public void zaakToegevoegd(int persoonnr, BigDecimal bedrag, boolean open) {
+		verwerk(Collections.singletonList(new PersoonSaldo(persoonnr, 1, open ? 1 : 0, open ? bedrag : BigDecimal.ZERO)));
+	}
+
+	/**
+	 * Verwerkt feiten die aan een bestaande zaak zijn toegevoegd. Bij een afgesloten zaak verandert het saldo niet.
+	 *
+	 * @param bedrag het totaal van de toegevoegde feiten.
+	 */
+	public void feitenToegevoegd(int persoonnr, BigDecimal bedrag, boolean zaakOpen) {
+		if (zaakOpen) {
+			verwerk(Collections.singletonList(new PersoonSaldo(persoonnr, 0, 0, bedrag)));
+		}
+	}
+
+	/**
+	 * Verwerkt een nieuwe status van een zaak. Alleen de overgang van open naar afgesloten, of terug, verandert het saldo.
+	 *
+	 * @param zaakBedrag het totaal van de feiten van de zaak.
+	 */
+	public void statusGewijzigd(int persoonnr, BigDecimal zaakBedrag, boolean wasOpen, boolean isOpen) {
+		if (wasOpen != isOpen) {
+			verwerk(Collections.singletonList(new PersoonSaldo(persoonnr, 0, isOpen ? 1 : -1, isOpen ? zaakBedrag : zaakBedrag.negate())));
+		}
+	}
+
+	/**
+	 * Berekent de saldo's opnieuw die van het bedrag van het feit afhangen.
+	 */
+	public void feitGewijzigd(int feitnr) {
+		saldoRepository.herberekenVoorFeit(feitnr);
+	}
+
+	/**
+	 * Telt de verschillen op bij de saldo's. De wijzigingen van de lopende transactie moeten al naar de database
+	 * geschreven zijn: een persoon zonder saldo krijgt er een dat vanuit de zaken in de database berekend wordt.
+	 * <p>
+	 * Heeft een andere transactie dat saldo net aangemaakt, dan telt het de zaken van deze transactie nog niet mee en
+	 * wordt het verschil er alsnog bij opgeteld.
+	 *
+	 * @param verschillen per persoon het aantal zaken, open zaken en openstaand bedrag dat erbij komt (of af gaat).
+	 */
+	public void verwerk(Collection<PersoonSaldo> verschillen) {
+		int[] gewijzigd = saldoRepository.wijzig(verschillen);
+		List<PersoonSaldo> tegelijkAangemaakt = new ArrayList<>();
+		int i = 0;
+		for (PersoonSaldo verschil : verschillen) {
+			if (gewijzigd[i++] == 0 && !saldoRepository.maakAan(verschil.getPersoonnr())) {
+				tegelijkAangemaakt.add(verschil);
+			}
+		}
+		if (!tegelijkAangemaakt.isEmpty()) {
+			saldoRepository.wijzig(tegelijkAangemaakt);
+		}
+	}
+
+	/**
+	 * @return het totaalbedrag van de feiten, afgerond op centen.
+	 */
+	public static BigDecimal bedrag(Collection<Feit> feiten) {
+		BigDecimal bedrag = BigDecimal.ZERO;
+		for (Feit feit : feiten) {
+			bedrag = bedrag.add(BigDecimal.valueOf(feit.getBedrag()));
+		}
+		return bedrag.setScale(2, RoundingMode.HALF_UP);
+	}
+}
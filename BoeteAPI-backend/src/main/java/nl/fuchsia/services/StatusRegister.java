@@ -0,0 +1,83 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.model.Status;
+import nl.fuchsia.repository.StatusRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Alle statussen in het geheugen, in een array met het statusnr als index. De tabel status bevat een handvol rijen die
+ * niet via de API wijzigen, daarom wordt hij bij het opstarten één keer gelezen. Na een wijziging in de database zorgt
+ * {@link #herlaad()} voor een nieuwe array.
+ * <p>
+ * De status waarmee een nieuwe zaak begint is in te stellen met boeteapi.status.begin, standaard 1 (Open). De statussen
+ * die een zaak afsluiten staan in boeteapi.status.afgesloten, standaard geen.
+ */
+@Component
+public class StatusRegister {
+
+	private final StatusRepository statusRepository;
+	private final int beginstatusnr;
+	private final int[] afgesloten;
+
+	// Wordt na het vullen niet meer gewijzigd, herladen zet een nieuwe array neer.
+	private volatile Status[] statussen = new Status[0];
+
+	public StatusRegister(StatusRepository statusRepository, @Value("${boeteapi.status.begin:1}") int beginstatusnr,
+						  @Value("${boeteapi.status.afgesloten:}") int[] afgesloten) {
+		this.statusRepository = statusRepository;
+		this.beginstatusnr = beginstatusnr;
+		this.afgesloten = afgesloten.clone();
+		Arrays.sort(this.afgesloten);
+	}
+
+	/**
+	 * Leest alle statussen opnieuw uit de database.
+	 */
+	@PostConstruct
+	public void herlaad() {
+		List<Status> gelezen = statusRepository.findAll();
+		int hoogste = 0;
+		for (Status status : gelezen) {
+			hoogste = Math.max(hoogste, status.getStatusnr());
+		}
+		Status[] nieuw = new Status[hoogste + 1];
+		for (Status status : gelezen) {
+			nieuw[status.getStatusnr()] = status;
+		}
+		statussen = nieuw;
+	}
+
+	/**
+	 * @param statusnr het gezochte statusnr, mag null zijn.
+	 * @return de status, of leeg als het statusnr niet bestaat.
+	 */
+	public Optional<Status> getStatus(Integer statusnr) {
+		Status[] huidig = statussen;
+		if (statusnr == null || statusnr < 0 || statusnr >= huidig.length) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(huidig[statusnr]);
+	}
+
+	/**
+	 * @return de status waarmee een nieuwe zaak begint.
+	 * @throws IllegalStateException als de ingestelde beginstatus niet in de tabel status staat.
+	 */
+	public Status getBeginstatus() {
+		return getStatus(beginstatusnr).orElseThrow(() -> new IllegalStateException("Beginstatus " + beginstatusnr + " staat niet in de tabel status"));
+	}
+
+	/**
+	 * @param status de laatste status van een zaak, of null als de zaak nog geen status heeft.
+	 * @return true als een zaak met deze laatste status nog open is.
+	 */
+	public boolean isOpen(Status status) {
+		return status == null || Arrays.binarySearch(afgesloten, status.getStatusnr()) < 0;
+	}
+}
@@ -0,0 +1,70 @@
+package nl.fuchsia.services;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Houdt per tabel een versienummer bij dat bij elke wijziging via de services omhoog gaat. Hieruit worden de ETags van
+ * de GET endpoints gemaakt, zodat een If-None-Match vergeleken kan worden zonder de query te draaien.
+ * <p>
+ * Een ETag bevat ook het moment van opstarten, zodat na een herstart geen oude ETag meer past. De tellers staan in het
+ * geheugen van deze applicatie: wijzigingen die buiten de services om in de database gedaan worden, of door een andere
+ * instantie, zijn niet te zien tot de eerstvolgende wijziging via deze instantie.
+ */
+@Component
+public class VersieTeller {
+
+	public enum Tabel {
+		FEIT, PERSOON, ZAAK
+	}
+
+	private final String opgestart = Long.toString(System.currentTimeMillis(), 36);
+	private final Map<Tabel, AtomicLong> versies = new EnumMap<>(Tabel.class);
+
+	public VersieTeller() {
+		for (Tabel tabel : Tabel.values()) {
+			versies.put(tabel, new AtomicLong());
+		}
+	}
+
+	/**
+	 * Verhoogt de versie van de tabel. Binnen een transactie gebeurt dit pas na de commit, anders kan een lezer tussen
+	 * het verhogen en de commit de oude gegevens onder de nieuwe ETag ophalen.
+	 */
+	public void verhoog(Tabel tabel) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					versies.get(tabel).incrementAndGet();
+				}
+			});
+		} else {
+			versies.get(tabel).incrementAndGet();
+		}
+	}
+
+	public long getVersie(Tabel tabel) {
+		return versies.get(tabel).get();
+	}
+
+	/**
+	 * @return een sterke ETag, inclusief aanhalingstekens, voor de huidige versie van de tabel.
+	 */
+	public String etag(Tabel tabel) {
+		return "\"" + tabel.name().toLowerCase() + "-" + opgestart + "-" + getVersie(tabel) + "\"";
+	}
+
+	/**
+	 * @return de ETag voor de NDJSON stream van de tabel. JSON en NDJSON van dezelfde URL zijn verschillende
+	 * representaties en mogen dus geen gelijke sterke ETag hebben.
+	 */
+	public String ndjsonEtag(Tabel tabel) {
+		return "\"" + tabel.name().toLowerCase() + "-" + opgestart + "-" + getVersie(tabel) + "-ndjson\"";
+	}
+}
@@ -0,0 +1,169 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.dto.ZaakBatchResultaatDto;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.PersoonSaldo;
+import nl.fuchsia.model.Status;
+import nl.fuchsia.repository.PersoonRepository;
+import nl.fuchsia.repository.ZaakBatchRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Voegt grote aantallen zaken in één keer toe. De persoonnrs worden met een paar set-based queries gecontroleerd en de
+ * feitnrs tegen de {@link FeitCatalogus}, daarna worden de geldige zaken per chunk in een eigen transactie weggeschreven.
+ */
+@Service
+public class ZaakBatchService {
+
+	static final int CHUNK_GROOTTE = 500;
+	static final int OPZOEK_GROOTTE = 1000;
+
+	private PersoonRepository persoonRepository;
+	private FeitCatalogus feitCatalogus;
+	private StatusRegister statusRegister;
+	private VersieTeller versieTeller;
+	private SaldoService saldoService;
+	private ZaakOverzichtService zaakOverzichtService;
+	private ZaakBatchRepository zaakBatchRepository;
+	private Validator validator;
+	private TransactionTemplate transactionTemplate;
+
+	public ZaakBatchService(PersoonRepository persoonRepository, FeitCatalogus feitCatalogus, StatusRegister statusRegister, ZaakBatchRepository zaakBatchRepository, Validator validator,
+							PlatformTransactionManager transactionManager, VersieTeller versieTeller, SaldoService saldoService,
+							ZaakOverzichtService zaakOverzichtService) {
+		this.persoonRepository = persoonRepository;
+		this.feitCatalogus = feitCatalogus;
+		this.statusRegister = statusRegister;
+		this.versieTeller = versieTeller;
+		this.saldoService = saldoService;
+		this.zaakOverzichtService = zaakOverzichtService;
+		this.zaakBatchRepository = zaakBatchRepository;
+		this.validator = validator;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Voegt de zaken toe. Een ongeldige zaak houdt de andere zaken niet tegen.
+	 *
+	 * @param zaakDtos de toe te voegen zaken
+	 * @return per zaak het aangemaakte zaaknr of de fouten, in dezelfde volgorde als de zaken
+	 */
+	public List<ZaakBatchResultaatDto> addZaken(List<ZaakDto> zaakDtos) {
+		List<ZaakBatchResultaatDto> resultaten = new ArrayList<>(zaakDtos.size());
+		Set<Integer> persoonnrs = new HashSet<>();
+
+		for (int i = 0; i < zaakDtos.size(); i++) {
+			ZaakDto zaakDto = zaakDtos.get(i);
+			ZaakBatchResultaatDto resultaat = new ZaakBatchResultaatDto(i);
+			for (ConstraintViolation<ZaakDto> violation : validator.validate(zaakDto)) {
+				resultaat.getFouten().add(violation.getMessage());
+			}
+			if (zaakDto.getPersoonnr() != null) {
+				persoonnrs.add(zaakDto.getPersoonnr());
+			}
+			resultaten.add(resultaat);
+		}
+
+		Set<Integer> bestaandePersoonnrs = zoekBestaande(persoonnrs, persoonRepository::findBestaandePersoonnrs);
+
+		List<Integer> geldig = new ArrayList<>();
+		for (int i = 0; i < zaakDtos.size(); i++) {
+			controleerVerwijzingen(zaakDtos.get(i), resultaten.get(i), bestaandePersoonnrs);
+			if (resultaten.get(i).isGeslaagd()) {
+				geldig.add(i);
+			}
+		}
+
+		// Net als bij ZaakService.addZaak begint elke zaak met de beginstatus uit het StatusRegister.
+		Status beginstatus = statusRegister.getBeginstatus();
+		boolean open = statusRegister.isOpen(beginstatus);
+		LocalDate vandaag = LocalDate.now();
+		for (int start = 0; start < geldig.size(); start += CHUNK_GROOTTE) {
+			List<Integer> chunk = geldig.subList(start, Math.min(start + CHUNK_GROOTTE, geldig.size()));
+			List<ZaakDto> chunkZaken = new ArrayList<>(chunk.size());
+			for (int index : chunk) {
+				chunkZaken.add(zaakDtos.get(index));
+			}
+			try {
+				List<Integer> zaaknrs = transactionTemplate.execute(status -> {
+					List<Integer> toegevoegd = zaakBatchRepository.addZaken(chunkZaken, beginstatus.getStatusnr(), vandaag);
+					saldoService.verwerk(saldoVerschillen(chunkZaken, open));
+					zaakOverzichtService.zakenToegevoegd(toegevoegd);
+					return toegevoegd;
+				});
+				for (int j = 0; j < chunk.size(); j++) {
+					resultaten.get(chunk.get(j)).setZaaknr(zaaknrs.get(j));
+				}
+				versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+			}
+			// De hele chunk is teruggedraaid, dus geen van deze zaken is opgeslagen.
+			catch (DataAccessException | TransactionException e) {
+				for (int index : chunk) {
+					resultaten.get(index).getFouten().add("Zaak niet opgeslagen: " + e.getMostSpecificCause().getMessage());
+				}
+			}
+		}
+
+		return resultaten;
+	}
+
+	// Per persoon in de chunk het aantal nieuwe zaken en het bedrag ervan, zodat er één saldo wijziging per persoon is.
+	private Collection<PersoonSaldo> saldoVerschillen(List<ZaakDto> zaken, boolean open) {
+		Map<Integer, PersoonSaldo> verschillen = new LinkedHashMap<>();
+		for (ZaakDto zaakDto : zaken) {
+			List<Feit> feiten = new ArrayList<>(zaakDto.getFeitnrs().size());
+			for (Integer feitnr : zaakDto.getFeitnrs()) {
+				feitCatalogus.getFeit(feitnr).ifPresent(feiten::add);
+			}
+			BigDecimal bedrag = open ? SaldoService.bedrag(feiten) : BigDecimal.ZERO;
+			PersoonSaldo verschil = verschillen.computeIfAbsent(zaakDto.getPersoonnr(), persoonnr -> new PersoonSaldo(persoonnr, 0, 0, BigDecimal.ZERO));
+			verschil.setAantalZaken(verschil.getAantalZaken() + 1);
+			verschil.setAantalOpen(verschil.getAantalOpen() + (open ? 1 : 0));
+			verschil.setOpenstaandBedrag(verschil.getOpenstaandBedrag().add(bedrag));
+		}
+		return verschillen.values();
+	}
+
+	private void controleerVerwijzingen(ZaakDto zaakDto, ZaakBatchResultaatDto resultaat, Set<Integer> bestaandePersoonnrs) {
+		if (zaakDto.getPersoonnr() == null) {
+			resultaat.getFouten().add("Persoonnr ontbreekt");
+		} else if (!bestaandePersoonnrs.contains(zaakDto.getPersoonnr())) {
+			resultaat.getFouten().add("Persoonnr " + zaakDto.getPersoonnr() + " bestaat niet");
+		}
+		if (zaakDto.getFeitnrs() == null) {
+			return;
+		}
+		Set<Integer> gezien = new HashSet<>();
+		for (Integer feitnr : zaakDto.getFeitnrs()) {
+			if (feitnr == null) {
+				resultaat.getFouten().add("Feitnr ontbreekt");
+			} else if (!gezien.add(feitnr)) {
+				resultaat.getFouten().add("Feitnr " + feitnr + " komt meerdere keren voor");
+			} else if (!feitCatalogus.getFeit(feitnr).isPresent()) {
+				resultaat.getFouten().add("Feitnr " + feitnr + " bestaat niet");
+			}
+		}
+	}
+
+	// Zoekt in blokken, zodat de IN lijst ook bij duizenden nummers binnen de grenzen van de database blijft.
+	private static Set<Integer> zoekBestaande(Set<Integer> nummers, Function<Collection<Integer>, Set<Integer>> zoek) {
+		Set<Integer> bestaand = new HashSet<>();
+		List<Integer> lijst = new ArrayList<>(nummers);
+		for (int start = 0; start < lijst.size(); start += OPZOEK_GROOTTE) {
+			bestaand.addAll(zoek.apply(lijst.subList(start, Math.min(start + OPZOEK_GROOTTE, lijst.size()))));
+		}
+		return bestaand;
+	}
+}
@@ -0,0 +1,52 @@
+package nl.fuchsia.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Herbouwt of controleert zaak_overzicht bij het opstarten van de applicatie, bijvoorbeeld:
+ * <pre>
+ * java -jar BoeteAPI-backend.war --boeteapi.overzicht.taak=controleer --spring.main.web-application-type=none
+ * </pre>
+ * De taak is herbouw of controleer. Met boeteapi.overzicht.threads wordt het aantal parallelle bereiken ingesteld, houd
+ * dit onder de grootte van de connection pool. Na het aanmaken van de tabel op een bestaande database is een herbouw nodig.
+ */
+@Component
+@ConditionalOnProperty("boeteapi.overzicht.taak")
+public class ZaakOverzichtRunner implements ApplicationRunner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ZaakOverzichtRunner.class);
+
+	private final ZaakOverzichtService zaakOverzichtService;
+	private final String taak;
+	private final int threads;
+
+	public ZaakOverzichtRunner(ZaakOverzichtService zaakOverzichtService, @Value("${boeteapi.overzicht.taak}") String taak, @Value("${boeteapi.overzicht.threads:4}") int threads) {
+		this.zaakOverzichtService = zaakOverzichtService;
+		this.taak = taak;
+		this.threads = threads;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		LOGGER.info("zaak_overzicht {} gestart", taak);
+		OverzichtResultaat resultaat;
+		if ("herbouw".equalsIgnoreCase(taak)) {
+			resultaat = zaakOverzichtService.herbouw(threads, voortgang -> LOGGER.info("zaak_overzicht {}: {}", taak, voortgang));
+		} else if ("controleer".equalsIgnoreCase(taak)) {
+			resultaat = zaakOverzichtService.controleer(threads, voortgang -> LOGGER.info("zaak_overzicht {}: {}", taak, voortgang));
+		} else {
+			throw new IllegalArgumentException("Onbekende boeteapi.overzicht.taak " + taak + ", gebruik herbouw of controleer");
+		}
+		if (resultaat.getAfwijkend() > 0) {
+			LOGGER.warn("zaak_overzicht {} klaar: {}, eerste afwijkende zaaknrs {}", taak, resultaat, resultaat.getVoorbeelden());
+		} else {
+			LOGGER.info("zaak_overzicht {} klaar: {}", taak, resultaat);
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.dto.ZaakZoekDto;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.model.ZaakOverzicht;
+import nl.fuchsia.repository.ZaakOverzichtRepository;
+import nl.fuchsia.util.Paginering;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Het leesmodel zaak_overzicht: één rij per zaak met alles wat een lijst van zaken nodig heeft. De services die zaken,
+ * personen of feiten wijzigen melden dat hier, de rij wordt dan in dezelfde transactie vanuit de zaak bijgewerkt.
+ * <p>
+ * Voor het geval het leesmodel toch uit de pas loopt (een wijziging buiten de API om, of een fout) kan het per bereik
+ * van zaaknrs parallel herbouwd en gecontroleerd worden, zie {@link ZaakOverzichtRunner}.
+ */
+@Service
+public class ZaakOverzichtService {
+
+	static final int BEREIK_GROOTTE = 10000;
+
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+	private VersieTeller versieTeller;
+	private TransactionTemplate transactionTemplate;
+
+	public ZaakOverzichtService(ZaakOverzichtRepository zaakOverzichtRepository, VersieTeller versieTeller, PlatformTransactionManager transactionManager) {
+		this.zaakOverzichtRepository = zaakOverzichtRepository;
+		this.versieTeller = versieTeller;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Zoekt één pagina zaken in het leesmodel met keyset paginering.
+	 *
+	 * @param zoek  de filters, niet ingevulde filters tellen niet mee
+	 * @param after het zaaknr van de laatst ontvangen zaak, of null voor de eerste pagina
+	 * @param limit het maximaal aantal zaken
+	 */
+	public List<ZaakOverzicht> zoek(ZaakZoekDto zoek, Integer after, int limit) {
+		return zaakOverzichtRepository.zoek(zoek, Paginering.na(after), limit);
+	}
+
+	/**
+	 * Werkt de rij van een zaak bij na een wijziging. De wijziging moet al naar de database geschreven zijn.
+	 */
+	public void zaakGewijzigd(Integer zaaknr) {
+		zaakOverzichtRepository.vernieuw(zaaknr);
+	}
+
+	/**
+	 * Voegt de rijen van nieuw weggeschreven zaken toe.
+	 */
+	public void zakenToegevoegd(Collection<Integer> zaaknrs) {
+		zaakOverzichtRepository.voegToe(zaaknrs);
+	}
+
+	/**
+	 * Werkt de rijen van een reeks vergrendelde zaken bij na een wijziging. De wijziging moet al naar de database
+	 * geschreven zijn.
+	 */
+	public void zakenGewijzigd(Collection<Integer> zaaknrs) {
+		zaakOverzichtRepository.vernieuw(zaaknrs);
+	}
+
+	/**
+	 * Neemt de nieuwe status over van zaken die die tegelijk gekregen hebben.
+	 */
+	public void statusGewijzigd(Collection<Integer> zaaknrs, int statusnr, LocalDate statusdatum) {
+		zaakOverzichtRepository.wijzigStatus(zaaknrs, statusnr, statusdatum);
+	}
+
+	/**
+	 * Neemt de naam van een gewijzigde persoon over in zijn zaken.
+	 */
+	public void persoonGewijzigd(Persoon persoon) {
+		if (zaakOverzichtRepository.wijzigNaam(persoon.getPersoonnr(), persoon.getVoornaam(), persoon.getAchternaam()) > 0) {
+			versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+		}
+	}
+
+	/**
+	 * Berekent het totaalbedrag opnieuw van de zaken met dit feit. Het nieuwe bedrag moet al in de database staan.
+	 */
+	public void feitGewijzigd(int feitnr) {
+		if (zaakOverzichtRepository.herberekenVoorFeit(feitnr) > 0) {
+			versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+		}
+	}
+
+	/**
+	 * Berekent alle rijen opnieuw vanuit de zaken. Elk bereik van {@value #BEREIK_GROOTTE} zaaknrs wordt in een eigen
+	 * transactie vervangen.
+	 *
+	 * @param threads   het aantal bereiken dat tegelijk verwerkt wordt, elke thread gebruikt een eigen connectie.
+	 * @param voortgang wordt na elk bereik aangeroepen, vanuit de thread die het bereik verwerkt heeft.
+	 */
+	public OverzichtResultaat herbouw(int threads, Consumer<OverzichtResultaat> voortgang) {
+		return herbouw(threads, BEREIK_GROOTTE, voortgang);
+	}
+
+	OverzichtResultaat herbouw(int threads, int bereikGrootte, Consumer<OverzichtResultaat> voortgang) {
+		OverzichtResultaat resultaat = verwerk(threads, bereikGrootte, voortgang, (van, tot) -> {
+			int zaken = transactionTemplate.execute(status -> zaakOverzichtRepository.herbouw(van, tot));
+			return new Bereik(zaken, Collections.emptyList());
+		});
+		versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+		return resultaat;
+	}
+
+	/**
+	 * Vergelijkt alle rijen met de zaken, zonder iets te wijzigen. Een zaak die tijdens de controle wijzigt kan als
+	 * afwijkend gemeld worden.
+	 *
+	 * @param threads   het aantal bereiken dat tegelijk verwerkt wordt, elke thread gebruikt een eigen connectie.
+	 * @param voortgang wordt na elk bereik aangeroepen, vanuit de thread die het bereik verwerkt heeft.
+	 */
+	public OverzichtResultaat controleer(int threads, Consumer<OverzichtResultaat> voortgang) {
+		return controleer(threads, BEREIK_GROOTTE, voortgang);
+	}
+
+	OverzichtResultaat controleer(int threads, int bereikGrootte, Consumer<OverzichtResultaat> voortgang) {
+		return verwerk(threads, bereikGrootte, voortgang, (van, tot) -> {
+			List<ZaakOverzicht> berekend = zaakOverzichtRepository.bereken(van, tot);
+			List<ZaakOverzicht> opgeslagen = zaakOverzichtRepository.findBereik(van, tot);
+			return new Bereik(berekend.size(), afwijkend(berekend, opgeslagen));
+		});
+	}
+
+	private OverzichtResultaat verwerk(int threads, int bereikGrootte, Consumer<OverzichtResultaat> voortgang, BereikVerwerker verwerker) {
+		int max = zaakOverzichtRepository.getMaxZaaknr();
+		int bereiken = (max + bereikGrootte - 1) / bereikGrootte;
+		OverzichtResultaat resultaat = new OverzichtResultaat(bereiken);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> taken = new ArrayList<>();
+			for (int i = 0; i < bereiken; i++) {
+				int van = i * bereikGrootte + 1;
+				int tot = Math.min(van + bereikGrootte - 1, max);
+				taken.add(executor.submit(() -> {
+					Bereik bereik = verwerker.verwerk(van, tot);
+					resultaat.bereikKlaar(bereik.zaken, bereik.afwijkend);
+					voortgang.accept(resultaat);
+				}));
+			}
+			for (Future<?> taak : taken) {
+				wacht(taak);
+			}
+			return resultaat;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// Beide lijsten zijn gesorteerd op zaaknr. Afwijkend is een zaak met een rij die ontbreekt, overbodig is of verschilt.
+	static List<Integer> afwijkend(List<ZaakOverzicht> berekend, List<ZaakOverzicht> opgeslagen) {
+		List<Integer> afwijkend = new ArrayList<>();
+		int i = 0;
+		int j = 0;
+		while (i < berekend.size() || j < opgeslagen.size()) {
+			if (j == opgeslagen.size() || (i < berekend.size() && berekend.get(i).getZaaknr() < opgeslagen.get(j).getZaaknr())) {
+				afwijkend.add(berekend.get(i++).getZaaknr());
+			} else if (i == berekend.size() || opgeslagen.get(j).getZaaknr() < berekend.get(i).getZaaknr()) {
+				afwijkend.add(opgeslagen.get(j++).getZaaknr());
+			} else {
+				if (!berekend.get(i).equals(opgeslagen.get(j))) {
+					afwijkend.add(berekend.get(i).getZaaknr());
+				}
+				i++;
+				j++;
+			}
+		}
+		return afwijkend;
+	}
+
+	private static void wacht(Future<?> taak) {
+		try {
+			taak.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Verwerken van zaak_overzicht onderbroken");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Verwerken van een bereik is mislukt", e.getCause());
+		}
+	}
+
+	private interface BereikVerwerker {
+		Bereik verwerk(int van, int tot);
+	}
+
+	private static class Bereik {
+
+		private final long zaken;
+		private final List<Integer> afwijkend;
+
+		private Bereik(long zaken, List<Integer> afwijkend) {
+			this.zaken = zaken;
+			this.afwijkend = afwijkend;
+		}
+	}
+}
@@ -6,33 +6,58 @@ import nl.fuchsia.dto.ZaakDto;
 import nl.fuchsia.exceptionhandlers.NotFoundException;
 import nl.fuchsia.exceptionhandlers.UniekVeldException;
 import nl.fuchsia.model.*;
-import nl.fuchsia.repository.FeitRepository;
 import nl.fuchsia.repository.PersoonRepository;
-import nl.fuchsia.repository.StatusRepository;
+import nl.fuchsia.repository.StroomRepository;
+import nl.fuchsia.repository.ZaakDtoRepository;
 import nl.fuchsia.repository.ZaakRepository;
+import nl.fuchsia.repository.ZaakStatusRepository;
+import nl.fuchsia.repository.ZaakregelRepository;
+import nl.fuchsia.util.Paginering;
+import nl.fuchsia.util.Stroom;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ZaakService {
 
 	private ZaakRepository zaakRepository;
 	private PersoonRepository persoonRepository;
-	private FeitRepository feitRepository;
-	private StatusRepository statusRepository;
+	private FeitCatalogus feitCatalogus;
+	private StatusRegister statusRegister;
 	private ZaakDtoService zaakDtoService;
-
-	public ZaakService(ZaakRepository zaakRepository, PersoonRepository persoonRepository, FeitRepository feitRepository, StatusRepository statusRepository, ZaakDtoService zaakDtoService) {
+	private ZaakDtoRepository zaakDtoRepository;
+	private VersieTeller versieTeller;
+	private StroomRepository stroomRepository;
+	private SaldoService saldoService;
+	private ZaakOverzichtService zaakOverzichtService;
+	private ZaakStatusRepository zaakStatusRepository;
+	private ZaakregelRepository zaakregelRepository;
+
+	public ZaakService(ZaakRepository zaakRepository, PersoonRepository persoonRepository, FeitCatalogus feitCatalogus, StatusRegister statusRegister, ZaakDtoService zaakDtoService,
+					   ZaakDtoRepository zaakDtoRepository, VersieTeller versieTeller, StroomRepository stroomRepository,
+					   SaldoService saldoService, ZaakOverzichtService zaakOverzichtService, ZaakStatusRepository zaakStatusRepository,
+					   ZaakregelRepository zaakregelRepository) {
 		this.zaakRepository = zaakRepository;
 		this.persoonRepository = persoonRepository;
-		this.feitRepository = feitRepository;
-		this.statusRepository = statusRepository;
+		this.feitCatalogus = feitCatalogus;
+		this.statusRegister = statusRegister;
 		this.zaakDtoService = zaakDtoService;
+		this.zaakDtoRepository = zaakDtoRepository;
+		this.versieTeller = versieTeller;
+		this.stroomRepository = stroomRepository;
+		this.saldoService = saldoService;
+		this.zaakOverzichtService = zaakOverzichtService;
+		this.zaakStatusRepository = zaakStatusRepository;
+		this.zaakregelRepository = zaakregelRepository;
 	}
 
 	/**
@@ -41,6 +66,7 @@ public class ZaakService {
 	 * @param zaakDto de ingevoerde zaakDto
 	 * @return de gemaakte zaak inclusief persoon en feit(en).
 	 */
+	@Transactional
 	public ZaakDto addZaak(ZaakDto zaakDto) {
 
 		List<String> exceptions = new ArrayList<>();
@@ -51,7 +77,7 @@ public class ZaakService {
 		}
 		List<Feit> feiten = new ArrayList<>();
 		for (int feitNr : zaakDto.getFeitnrs()) {
-			Optional<Feit> feit = feitRepository.findById(feitNr);
+			Optional<Feit> feit = feitCatalogus.getFeit(feitNr);
 			if (!feit.isPresent()) {
 				exceptions.add("Feitnr " + feitNr + " bestaat niet");
 			} else
@@ -63,11 +89,18 @@ public class ZaakService {
 
 		Zaak zaak = new Zaak(zaakDto.getOvertredingsdatum(), zaakDto.getPleeglocatie(), persoon.get(), feiten);
 		List<ZaakStatus> zaakStatussen = new ArrayList<>();
-		ZaakStatus zaakStatus = new ZaakStatus(LocalDate.now(), new Status(1, "Open"), zaak);
+		ZaakStatus zaakStatus = new ZaakStatus(LocalDate.now(), statusRegister.getBeginstatus(), zaak);
 		zaakStatussen.add(zaakStatus);
 
 		zaak.setZaakstatus(zaakStatussen);
-		Zaak savedZaak = zaakRepository.saveAndFlush(zaak);
+		// Bij het persisten krijgt de zaakstatus zijn nummer uit het sequence blok, de zaak wordt daarna met de verwijzing
+		// naar zijn huidige status in één keer geschreven.
+		Zaak savedZaak = zaakRepository.save(zaak);
+		savedZaak.setHuidigeZaakstatusnr(zaakStatus.getZaakStatusnr());
+		zaakRepository.flush();
+		versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+		saldoService.zaakToegevoegd(persoon.get().getPersoonnr(), SaldoService.bedrag(feiten), statusRegister.isOpen(zaakStatus.getStatus()));
+		zaakOverzichtService.zaakGewijzigd(savedZaak.getZaaknr());
 
 		zaakDto = zaakDtoService.setZaakDto(savedZaak);
 
@@ -76,7 +109,8 @@ public class ZaakService {
 	}
 
 	/**
-	 * Voegt 1 zaakStatus toe aan een bestaande zaak en hier een nieuwe historie voor statussen aan van de zaak.
+	 * Voegt 1 zaakStatus toe aan een bestaande zaak en maakt die de huidige status. De zaak en zijn historie worden niet
+	 * geladen: de status wordt met één insert toegevoegd en de ZaakDto met één query gelezen.
 	 *
 	 * @param zaakNr           de betreffende bestaande zaak
 	 * @param zaakAddStatusDto de toe te voegen status
@@ -85,10 +119,10 @@ public class ZaakService {
 	@Transactional
 	public ZaakDto updateZaakStatus(Integer zaakNr, ZaakAddStatusDto zaakAddStatusDto) {
 		List<String> notFoundExceptions = new ArrayList<>();
-		Optional<Status> status = statusRepository.findById(zaakAddStatusDto.getStatusNr());
-		Optional<Zaak> zaak = zaakRepository.findById(zaakNr);
+		Optional<Status> status = statusRegister.getStatus(zaakAddStatusDto.getStatusNr());
+		Optional<HuidigeStatus> huidig = zaakStatusRepository.vergrendel(zaakNr);
 
-		if (!zaak.isPresent()) {
+		if (!huidig.isPresent()) {
 			notFoundExceptions.add("ZaakNummer: " + zaakNr + " bestaat niet");
 		}
 
@@ -100,25 +134,50 @@ public class ZaakService {
 			throw new NotFoundException(notFoundExceptions.toString());
 		}
 
-		ZaakStatus zaakStatus = new ZaakStatus(0, LocalDate.now(), status.get(), zaak.get());
+		boolean wasOpen = statusRegister.isOpen(statusRegister.getStatus(huidig.get().getStatusnr()).orElse(null));
+		zaakStatusRepository.voegToe(zaakNr, status.get().getStatusnr(), LocalDate.now());
+		versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+		saldoService.statusGewijzigd(huidig.get().getPersoonnr(), huidig.get().getBedrag(), wasOpen, statusRegister.isOpen(status.get()));
+		zaakOverzichtService.zaakGewijzigd(zaakNr);
 
-		List<ZaakStatus> zaakStatussen = zaak.get().getZaakstatus();
-		zaakStatussen.add(zaakStatus);
-		//zaak.get().setZaakstatus(zaakStatussen);
-		zaakRepository.saveAndFlush(zaak.get());
+		return zaakDtoRepository.findByZaaknr(zaakNr).orElseThrow(() -> new NotFoundException("ZaakNummer: " + zaakNr + " bestaat niet"));
+	}
 
-		ZaakDto zaakDto = zaakDtoService.setZaakDto(zaak.get());
+	/**
+	 * Haalt alle zaken op. De ZaakDto's worden direct uit één SQL query opgebouwd, zonder entiteiten te laden.
+	 *
+	 * @return alle zaken
+	 */
+	public List<ZaakDto> getZaken() {
+		return zaakDtoRepository.findAll();
+	}
 
-		return zaakDto;
+	/**
+	 * Haalt één pagina zaken op met keyset paginering.
+	 *
+	 * @param after het zaaknr van de laatst ontvangen zaak, of null voor de eerste pagina
+	 * @param limit het maximaal aantal zaken
+	 * @return de zaken met een zaaknr groter dan after
+	 */
+	public List<ZaakDto> getZaken(Integer after, int limit) {
+		return zaakDtoRepository.findAll(Paginering.na(after), limit);
 	}
 
-	public List<ZaakDto> getZaken() {
-		List<Zaak> zaken = zaakRepository.findAll();
-		List<ZaakDto> zaakDtos = new ArrayList<>();
-		for (Zaak zaak : zaken) {
-			zaakDtos.add(zaakDtoService.setZaakDto(zaak));
+	/**
+	 * Leest alle zaken, of alle zaken van één persoon, als stroom. Of de persoon bestaat wordt meteen gecontroleerd, de
+	 * zaken zelf worden pas gelezen als de stroom verwerkt wordt.
+	 *
+	 * @param persoonnr de persoon waarvan de zaken gelezen worden, of null voor alle zaken
+	 * @return de zaken, gesorteerd op zaaknr
+	 */
+	public Stroom<ZaakDto> stroomZaken(Integer persoonnr) {
+		if (persoonnr == null) {
+			return stroomRepository.getZaken();
 		}
-		return zaakDtos;
+		if (!persoonRepository.existsById(persoonnr)) {
+			throw new NotFoundException("Persoonnr " + persoonnr + " bestaat niet");
+		}
+		return stroomRepository.getZakenByPersoonnr(persoonnr);
 	}
 
 	public ZaakDto getZaakById(Integer zaakNr) {
@@ -136,17 +195,29 @@ public class ZaakService {
 		if (!persoon.isPresent()) {
 			throw new NotFoundException("Persoonnr " + persoonnr + " bestaat niet");
 		}
-		List<Zaak> zaken = zaakRepository.findAllByPersoon(persoon.get());
+		return zaakDtoRepository.findAllByPersoonnr(persoonnr);
+	}
 
-		List<ZaakDto> zaakDtos = new ArrayList<>();
-		for (Zaak zaak : zaken) {
-			zaakDtos.add(zaakDtoService.setZaakDto(zaak));
+	/**
+	 * Haalt één pagina zaken van een persoon op met keyset paginering.
+	 *
+	 * @param persoonnr de persoon waarvan de zaken opgehaald worden
+	 * @param after     het zaaknr van de laatst ontvangen zaak, of null voor de eerste pagina
+	 * @param limit     het maximaal aantal zaken
+	 * @return de zaken van de persoon met een zaaknr groter dan after
+	 */
+	public List<ZaakDto> getZakenByPersoon(Integer persoonnr, Integer after, int limit) {
+		Optional<Persoon> persoon = persoonRepository.findById(persoonnr);
+		if (!persoon.isPresent()) {
+			throw new NotFoundException("Persoonnr " + persoonnr + " bestaat niet");
 		}
-		return zaakDtos;
+		return zaakDtoRepository.findAllByPersoonnr(persoonnr, Paginering.na(after), limit);
 	}
 
 	/**
-	 * Voegt 1 of meer bestaande feiten toe aan een bestaande zaak.
+	 * Voegt 1 of meer bestaande feiten toe aan een bestaande zaak. De zaak wordt vergrendeld, zodat twee gelijktijdige
+	 * aanroepen niet allebei hetzelfde feit toevoegen. De feiten komen uit de catalogus, de feiten die de zaak al heeft
+	 * uit één query; ze worden met één insert toegevoegd. Een feit dat meer dan eens in de lijst staat telt één keer.
 	 *
 	 * @param zaakNr             de betreffende bestaande zaak
 	 * @param listZaakAddFeitDto de toe te voegen feit(en)
@@ -156,44 +227,48 @@ public class ZaakService {
 	public ZaakDto updateZaakFeit(Integer zaakNr, List<ZaakAddFeitDto> listZaakAddFeitDto) {
 		List<String> notFoundExceptions = new ArrayList<>();
 		List<String> uniekVeldExceptions = new ArrayList<>();
-		Optional<Zaak> zaak = zaakRepository.findById(zaakNr);
+		Optional<HuidigeStatus> huidig = zaakStatusRepository.vergrendel(zaakNr);
 
-		if (!zaak.isPresent()) {
+		if (!huidig.isPresent()) {
 			notFoundExceptions.add("zaakNummer: " + zaakNr + " bestaat niet");
 		}
+		Map<Integer, Feit> feiten = new LinkedHashMap<>();
 		for (ZaakAddFeitDto zaakAddFeitDto : listZaakAddFeitDto) {
-
-			Optional<Feit> feitOpgehaald = feitRepository.findById(zaakAddFeitDto.getFeitNr());
-
-			if (!feitOpgehaald.isPresent()) {
-				notFoundExceptions.add("feitNummer: " + zaakAddFeitDto.getFeitNr() + " bestaat niet");
+			if (!feiten.containsKey(zaakAddFeitDto.getFeitNr())) {
+				Optional<Feit> feitOpgehaald = feitCatalogus.getFeit(zaakAddFeitDto.getFeitNr());
+				if (feitOpgehaald.isPresent()) {
+					feiten.put(zaakAddFeitDto.getFeitNr(), feitOpgehaald.get());
+				} else {
+					notFoundExceptions.add("feitNummer: " + zaakAddFeitDto.getFeitNr() + " bestaat niet");
+				}
 			}
-
 		}
 		if (notFoundExceptions.size() > 0) {
 			notFoundExceptions.add("geen feit(en) toegevoegd");
 			throw new NotFoundException(notFoundExceptions.toString());
 		}
 
-		List<Feit> zaakFeiten = zaak.get().getFeiten();
-		for (ZaakAddFeitDto zaakAddFeitDto : listZaakAddFeitDto) {
-			int feitNrDto = zaakAddFeitDto.getFeitNr();
-			for (Feit feit : zaakFeiten) {
-				if (feit.getFeitnr() == feitNrDto) {
-					uniekVeldExceptions.add("feitNummer: " + zaakAddFeitDto.getFeitNr() + " is reeds toegevoegd aan deze zaak");
-				}
+		Set<Integer> zaakFeitnrs = zaakregelRepository.getFeitnrs(zaakNr);
+		for (Integer feitnr : feiten.keySet()) {
+			if (zaakFeitnrs.contains(feitnr)) {
+				uniekVeldExceptions.add("feitNummer: " + feitnr + " is reeds toegevoegd aan deze zaak");
 			}
 		}
 		if (uniekVeldExceptions.size() > 0) {
 			uniekVeldExceptions.add("geen feit(en) toegevoegd");
 			throw new UniekVeldException(uniekVeldExceptions.toString());
 		}
-		for (ZaakAddFeitDto zaakAddFeitDto : listZaakAddFeitDto) {
-			Optional<Feit> feitOpgehaald = feitRepository.findById(zaakAddFeitDto.getFeitNr());
-			zaakFeiten.add(feitOpgehaald.get());
-			zaak.get().setFeiten(zaakFeiten);
+		try {
+			zaakregelRepository.voegToe(zaakNr, feiten.keySet());
+		} catch (DuplicateKeyException e) {
+			// Alleen mogelijk als de regels buiten de API om, zonder de zaak te vergrendelen, zijn toegevoegd.
+			throw new UniekVeldException("[feit(en) zijn tegelijk al aan deze zaak toegevoegd, geen feit(en) toegevoegd]");
 		}
-		ZaakDto zaakDto = zaakDtoService.setZaakDto(zaak.get());
-		return zaakDto;
+		versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+		boolean open = statusRegister.isOpen(statusRegister.getStatus(huidig.get().getStatusnr()).orElse(null));
+		saldoService.feitenToegevoegd(huidig.get().getPersoonnr(), SaldoService.bedrag(feiten.values()), open);
+		zaakOverzichtService.zaakGewijzigd(zaakNr);
+
+		return zaakDtoRepository.findByZaaknr(zaakNr).orElseThrow(() -> new NotFoundException("zaakNummer: " + zaakNr + " bestaat niet"));
 	}
 }
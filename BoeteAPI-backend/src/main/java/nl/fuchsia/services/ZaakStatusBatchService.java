@@ -0,0 +1,166 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.dto.ZaakStatusBatchDto;
+import nl.fuchsia.dto.ZaakStatusBatchResultaatDto;
+import nl.fuchsia.exceptionhandlers.NotFoundException;
+import nl.fuchsia.model.HuidigeStatus;
+import nl.fuchsia.model.PersoonSaldo;
+import nl.fuchsia.model.Status;
+import nl.fuchsia.repository.ZaakOverzichtRepository;
+import nl.fuchsia.repository.ZaakStatusRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Geeft veel zaken tegelijk een nieuwe status, bijvoorbeeld alle zaken die al een maand Open zijn. De zaken worden per
+ * chunk van {@value #CHUNK_GROOTTE} in een eigen transactie verwerkt: vergrendelen op volgorde van zaaknr, één
+ * INSERT ... SELECT voor de statussen en één UPDATE voor de verwijzingen, daarna de saldo's en het overzicht.
+ * <p>
+ * Een statuswijziging via {@link ZaakService#updateZaakStatus} vergrendelt één zaak, die wacht hooguit op de chunk
+ * waar zijn zaak in zit. Omdat de zaken en saldo's steeds op volgorde vergrendeld worden, kunnen twee chunks elkaar
+ * niet blokkeren.
+ */
+@Service
+public class ZaakStatusBatchService {
+
+	static final int CHUNK_GROOTTE = 500;
+
+	private ZaakStatusRepository zaakStatusRepository;
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+	private StatusRegister statusRegister;
+	private VersieTeller versieTeller;
+	private SaldoService saldoService;
+	private ZaakOverzichtService zaakOverzichtService;
+	private TransactionTemplate transactionTemplate;
+
+	public ZaakStatusBatchService(ZaakStatusRepository zaakStatusRepository, ZaakOverzichtRepository zaakOverzichtRepository, StatusRegister statusRegister,
+								  VersieTeller versieTeller, SaldoService saldoService, ZaakOverzichtService zaakOverzichtService, PlatformTransactionManager transactionManager) {
+		this.zaakStatusRepository = zaakStatusRepository;
+		this.zaakOverzichtRepository = zaakOverzichtRepository;
+		this.statusRegister = statusRegister;
+		this.versieTeller = versieTeller;
+		this.saldoService = saldoService;
+		this.zaakOverzichtService = zaakOverzichtService;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Geeft de opgegeven zaken, of de zaken die aan het filter voldoen, de nieuwe status. Een zaak die de nieuwe status
+	 * al heeft krijgt hem niet nog een keer, zo kan een afgebroken aanroep veilig herhaald worden.
+	 *
+	 * @param zaakStatusBatchDto de nieuwe status en de zaaknrs of het filter.
+	 * @return de aantallen gewijzigde, ongewijzigde, niet gevonden en mislukte zaken.
+	 * @throws NotFoundException als de nieuwe of de huidige status niet bestaat.
+	 */
+	public ZaakStatusBatchResultaatDto wijzigStatussen(ZaakStatusBatchDto zaakStatusBatchDto) {
+		return wijzigStatussen(zaakStatusBatchDto, CHUNK_GROOTTE);
+	}
+
+	ZaakStatusBatchResultaatDto wijzigStatussen(ZaakStatusBatchDto zaakStatusBatchDto, int chunkGrootte) {
+		List<String> notFoundExceptions = new ArrayList<>();
+		Optional<Status> status = statusRegister.getStatus(zaakStatusBatchDto.getStatusnr());
+		if (!status.isPresent()) {
+			notFoundExceptions.add("StatusNummer: " + zaakStatusBatchDto.getStatusnr() + " bestaat niet");
+		}
+		Integer huidigeStatusnr = zaakStatusBatchDto.getHuidigeStatusnr();
+		if (huidigeStatusnr != null && !statusRegister.getStatus(huidigeStatusnr).isPresent()) {
+			notFoundExceptions.add("StatusNummer: " + huidigeStatusnr + " bestaat niet");
+		}
+		if (notFoundExceptions.size() > 0) {
+			throw new NotFoundException(notFoundExceptions.toString());
+		}
+
+		ZaakStatusBatchResultaatDto resultaat = new ZaakStatusBatchResultaatDto();
+		LocalDate vandaag = LocalDate.now();
+		int statusnr = status.get().getStatusnr();
+
+		if (zaakStatusBatchDto.getZaaknrs() != null) {
+			Set<Integer> gesorteerd = new TreeSet<>();
+			for (Integer zaaknr : zaakStatusBatchDto.getZaaknrs()) {
+				if (zaaknr != null) {
+					gesorteerd.add(zaaknr);
+				}
+			}
+			List<Integer> zaaknrs = new ArrayList<>(gesorteerd);
+			for (int start = 0; start < zaaknrs.size(); start += chunkGrootte) {
+				List<Integer> chunk = zaaknrs.subList(start, Math.min(start + chunkGrootte, zaaknrs.size()));
+				verwerkChunk(chunk, status.get(), vandaag, huidig -> !Objects.equals(huidig.getStatusnr(), statusnr), resultaat);
+			}
+		} else {
+			LocalDate uiterlijk = vandaag.minusDays(zaakStatusBatchDto.getOuderDanDagen() != null ? zaakStatusBatchDto.getOuderDanDagen() : 0);
+			// Gezocht wordt in zaak_overzicht, op de index op status en datum. Tussen het zoeken en vergrendelen kan een zaak een
+			// andere status gekregen hebben, daarom wordt het filter na het vergrendelen opnieuw gecontroleerd.
+			Predicate<HuidigeStatus> filter = huidig -> huidigeStatusnr.equals(huidig.getStatusnr()) && huidig.getStatusdatum() != null
+				&& !huidig.getStatusdatum().isAfter(uiterlijk);
+			int after = 0;
+			List<Integer> chunk;
+			while (!(chunk = zaakOverzichtRepository.zoekVerlopen(huidigeStatusnr, after, Integer.MAX_VALUE, uiterlijk, chunkGrootte)).isEmpty()) {
+				verwerkChunk(chunk, status.get(), vandaag, filter, resultaat);
+				after = chunk.get(chunk.size() - 1);
+			}
+		}
+
+		return resultaat;
+	}
+
+	private void verwerkChunk(List<Integer> chunk, Status status, LocalDate vandaag, Predicate<HuidigeStatus> wijzigen, ZaakStatusBatchResultaatDto resultaat) {
+		resultaat.setChunks(resultaat.getChunks() + 1);
+		try {
+			int[] aantallen = transactionTemplate.execute(transactie -> {
+				List<HuidigeStatus> vergrendeld = zaakStatusRepository.vergrendel(chunk);
+				List<HuidigeStatus> teWijzigen = new ArrayList<>(vergrendeld.size());
+				for (HuidigeStatus huidig : vergrendeld) {
+					if (wijzigen.test(huidig)) {
+						teWijzigen.add(huidig);
+					}
+				}
+				List<Integer> zaaknrs = new ArrayList<>(teWijzigen.size());
+				for (HuidigeStatus huidig : teWijzigen) {
+					zaaknrs.add(huidig.getZaaknr());
+				}
+				zaakStatusRepository.voegToe(zaaknrs, status.getStatusnr(), vandaag);
+				Collection<PersoonSaldo> verschillen = saldoVerschillen(teWijzigen, statusRegister.isOpen(status));
+				if (!verschillen.isEmpty()) {
+					saldoService.verwerk(verschillen);
+				}
+				zaakOverzichtService.statusGewijzigd(zaaknrs, status.getStatusnr(), vandaag);
+				return new int[]{teWijzigen.size(), vergrendeld.size() - teWijzigen.size(), chunk.size() - vergrendeld.size()};
+			});
+			resultaat.setGewijzigd(resultaat.getGewijzigd() + aantallen[0]);
+			resultaat.setOngewijzigd(resultaat.getOngewijzigd() + aantallen[1]);
+			resultaat.setNietGevonden(resultaat.getNietGevonden() + aantallen[2]);
+			if (aantallen[0] > 0) {
+				versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+			}
+		}
+		// De hele chunk is teruggedraaid, de volgende chunks gaan gewoon door.
+		catch (DataAccessException | TransactionException e) {
+			resultaat.setMislukt(resultaat.getMislukt() + chunk.size());
+			resultaat.getFouten().add("Zaken " + chunk.get(0) + " t/m " + chunk.get(chunk.size() - 1) + " niet gewijzigd: " + e.getMostSpecificCause().getMessage());
+		}
+	}
+
+	// Alleen zaken die van open naar afgesloten gaan, of terug, veranderen het saldo. Op volgorde van persoonnr, zodat twee
+	// chunks de saldo's in dezelfde volgorde vergrendelen.
+	private Collection<PersoonSaldo> saldoVerschillen(List<HuidigeStatus> zaken, boolean isOpen) {
+		Map<Integer, PersoonSaldo> verschillen = new TreeMap<>();
+		for (HuidigeStatus huidig : zaken) {
+			boolean wasOpen = statusRegister.isOpen(statusRegister.getStatus(huidig.getStatusnr()).orElse(null));
+			if (wasOpen == isOpen) {
+				continue;
+			}
+			PersoonSaldo verschil = verschillen.computeIfAbsent(huidig.getPersoonnr(), persoonnr -> new PersoonSaldo(persoonnr, 0, 0, BigDecimal.ZERO));
+			verschil.setAantalOpen(verschil.getAantalOpen() + (isOpen ? 1 : -1));
+			verschil.setOpenstaandBedrag(verschil.getOpenstaandBedrag().add(isOpen ? huidig.getBedrag() : huidig.getBedrag().negate()));
+		}
+		return verschillen.values();
+	}
+}
@@ -0,0 +1,165 @@
+package nl.fuchsia.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Leest een groot CSV bestand via memory mapping in chunks die op een regelgrens beginnen en eindigen, zodat de chunks
+ * los van elkaar (en dus parallel) verwerkt kunnen worden.
+ * <p>
+ * Velden worden gescheiden door een puntkomma. Een veld mag tussen dubbele aanhalingstekens staan als het zelf een
+ * puntkomma bevat, een aanhalingsteken in het veld wordt dan verdubbeld. Een veld mag geen regeleinde bevatten.
+ */
+public final class CsvBestand {
+
+	public static final char SCHEIDINGSTEKEN = ';';
+
+	// Zo ver wordt er per keer vooruit gekeken om het einde van een regel te vinden.
+	private static final int ZOEKVENSTER = 8 * 1024;
+
+	private CsvBestand() {
+	}
+
+	/**
+	 * Een aaneengesloten stuk van het bestand dat alleen hele regels bevat.
+	 */
+	public static final class Chunk {
+
+		private final int volgnummer;
+		private final long start;
+		private final long lengte;
+
+		public Chunk(int volgnummer, long start, long lengte) {
+			this.volgnummer = volgnummer;
+			this.start = start;
+			this.lengte = lengte;
+		}
+
+		public int getVolgnummer() {
+			return volgnummer;
+		}
+
+		public long getStart() {
+			return start;
+		}
+
+		public long getLengte() {
+			return lengte;
+		}
+	}
+
+	/**
+	 * Deelt het bestand op in chunks van ongeveer chunkGrootte bytes. Elke chunk loopt door tot en met het eerstvolgende
+	 * regeleinde.
+	 *
+	 * @param kanaal       het geopende bestand.
+	 * @param chunkGrootte de gewenste grootte van een chunk in bytes, maximaal {@link Integer#MAX_VALUE}.
+	 * @return de chunks, in de volgorde van het bestand.
+	 */
+	public static List<Chunk> verdeel(FileChannel kanaal, long chunkGrootte) throws IOException {
+		long grootte = kanaal.size();
+		List<Chunk> chunks = new ArrayList<>();
+		long start = 0;
+		while (start < grootte) {
+			long eind = Math.min(start + chunkGrootte, grootte);
+			if (eind < grootte) {
+				eind = volgendeRegel(kanaal, eind, grootte);
+			}
+			chunks.add(new Chunk(chunks.size(), start, eind - start));
+			start = eind;
+		}
+		return chunks;
+	}
+
+	/**
+	 * Leest de regels van één chunk. Een afsluitende \r wordt weggehaald, zodat ook Windows bestanden gelezen kunnen
+	 * worden.
+	 *
+	 * @param kanaal het geopende bestand.
+	 * @param chunk  de te lezen chunk.
+	 * @return de regels van de chunk, als UTF-8 gelezen.
+	 */
+	public static List<String> regels(FileChannel kanaal, Chunk chunk) throws IOException {
+		MappedByteBuffer buffer = kanaal.map(FileChannel.MapMode.READ_ONLY, chunk.getStart(), chunk.getLengte());
+		List<String> regels = new ArrayList<>();
+		byte[] regel = new byte[256];
+		int lengte = 0;
+		while (buffer.hasRemaining()) {
+			byte b = buffer.get();
+			if (b == '\n') {
+				regels.add(decodeer(regel, lengte));
+				lengte = 0;
+			} else {
+				if (lengte == regel.length) {
+					regel = Arrays.copyOf(regel, lengte * 2);
+				}
+				regel[lengte++] = b;
+			}
+		}
+		if (lengte > 0) {
+			regels.add(decodeer(regel, lengte));
+		}
+		return regels;
+	}
+
+	/**
+	 * Splitst een regel in velden.
+	 *
+	 * @param regel een regel uit het bestand.
+	 * @return de velden, zonder omringende aanhalingstekens.
+	 */
+	public static String[] velden(String regel) {
+		List<String> velden = new ArrayList<>();
+		StringBuilder veld = new StringBuilder();
+		boolean tussenAanhalingstekens = false;
+		for (int i = 0; i < regel.length(); i++) {
+			char c = regel.charAt(i);
+			if (tussenAanhalingstekens) {
+				if (c != '"') {
+					veld.append(c);
+				} else if (i + 1 < regel.length() && regel.charAt(i + 1) == '"') {
+					veld.append('"');
+					i++;
+				} else {
+					tussenAanhalingstekens = false;
+				}
+			} else if (c == '"') {
+				tussenAanhalingstekens = true;
+			} else if (c == SCHEIDINGSTEKEN) {
+				velden.add(veld.toString());
+				veld.setLength(0);
+			} else {
+				veld.append(c);
+			}
+		}
+		velden.add(veld.toString());
+		return velden.toArray(new String[0]);
+	}
+
+	// De positie direct na het eerste regeleinde vanaf positie, of het einde van het bestand.
+	private static long volgendeRegel(FileChannel kanaal, long positie, long grootte) throws IOException {
+		while (positie < grootte) {
+			int venster = (int) Math.min(ZOEKVENSTER, grootte - positie);
+			MappedByteBuffer buffer = kanaal.map(FileChannel.MapMode.READ_ONLY, positie, venster);
+			for (int i = 0; i < venster; i++) {
+				if (buffer.get(i) == '\n') {
+					return positie + i + 1;
+				}
+			}
+			positie += venster;
+		}
+		return grootte;
+	}
+
+	private static String decodeer(byte[] regel, int lengte) {
+		if (lengte > 0 && regel[lengte - 1] == '\r') {
+			lengte--;
+		}
+		return new String(regel, 0, lengte, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,148 @@
+package nl.fuchsia.util;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+
+/**
+ * Schrijft en leest datums in het formaat dd-MM-yyyy, zoals in de JSON van de API ({@link JsonDate}) en in de imports.
+ * <p>
+ * Het gewone geval, een geldige datum met jaar 1 t/m 9999 in precies tien tekens, gaat met de hand: de cijfers komen uit
+ * een vooraf berekende tabel en worden bij het lezen zelf omgerekend, zonder tussenliggende objecten. Alles wat daar niet
+ * in past (een ongeldige datum zoals 30-02-2019, een andere lengte, andere tekens) gaat naar {@link #FORMATTER}, zodat
+ * het resultaat en de foutmelding precies hetzelfde blijven als met alleen de formatter.
+ */
+public final class DatumCodec {
+
+	/**
+	 * De stricte formatter voor dd-MM-yyyy: 30-02-2019 is dus gewoon FOUT.
+	 */
+	public static final DateTimeFormatter FORMATTER = new DateTimeFormatterBuilder()
+		.appendPattern("dd-MM-yyyy") // Dit is het patroon wat we willen parsen
+		.parseDefaulting(ChronoField.ERA, 1) // Omdat we strict zijn, moeten we de default ERA instellen. 1 staat voor Na Christus.
+		.toFormatter() // Maak de formatter
+		.withResolverStyle(ResolverStyle.STRICT); // En maak de formatter strict
+
+	/**
+	 * Het aantal tekens van een datum.
+	 */
+	public static final int LENGTE = 10;
+
+	// "00" t/m "99" achter elkaar, het getal i staat op positie 2 * i.
+	private static final char[] TWEE_CIJFERS = new char[200];
+
+	static {
+		for (int i = 0; i < 100; i++) {
+			TWEE_CIJFERS[2 * i] = (char) ('0' + i / 10);
+			TWEE_CIJFERS[2 * i + 1] = (char) ('0' + i % 10);
+		}
+	}
+
+	private DatumCodec() {
+	}
+
+	/**
+	 * Schrijft de datum als dd-MM-yyyy in doel.
+	 *
+	 * @return het aantal geschreven tekens ({@link #LENGTE}), of -1 als het jaar niet in vier cijfers past; dan is er
+	 * niets geschreven en moet de datum met {@link #FORMATTER} geformatteerd worden.
+	 */
+	public static int schrijf(LocalDate datum, char[] doel, int offset) {
+		int jaar = datum.getYear();
+		if (jaar < 1 || jaar > 9999) {
+			return -1;
+		}
+		kopieer(datum.getDayOfMonth(), doel, offset);
+		doel[offset + 2] = '-';
+		kopieer(datum.getMonthValue(), doel, offset + 3);
+		doel[offset + 5] = '-';
+		kopieer(jaar / 100, doel, offset + 6);
+		kopieer(jaar % 100, doel, offset + 8);
+		return LENGTE;
+	}
+
+	/**
+	 * @return de datum als dd-MM-yyyy.
+	 */
+	public static String formatteer(LocalDate datum) {
+		char[] tekens = new char[LENGTE];
+		return schrijf(datum, tekens, 0) == LENGTE ? new String(tekens) : datum.format(FORMATTER);
+	}
+
+	/**
+	 * Leest een datum uit tekens[offset] t/m tekens[offset + lengte - 1].
+	 *
+	 * @throws java.time.format.DateTimeParseException als het geen geldige datum in het formaat dd-MM-yyyy is.
+	 */
+	public static LocalDate lees(char[] tekens, int offset, int lengte) {
+		if (lengte == LENGTE && tekens[offset + 2] == '-' && tekens[offset + 5] == '-') {
+			LocalDate datum = datum(getal(tekens[offset], tekens[offset + 1]), getal(tekens[offset + 3], tekens[offset + 4]),
+				getal(tekens[offset + 6], tekens[offset + 7]), getal(tekens[offset + 8], tekens[offset + 9]));
+			if (datum != null) {
+				return datum;
+			}
+		}
+		return LocalDate.parse(new String(tekens, offset, lengte), FORMATTER);
+	}
+
+	/**
+	 * Leest een datum uit de tekst.
+	 *
+	 * @throws java.time.format.DateTimeParseException als het geen geldige datum in het formaat dd-MM-yyyy is.
+	 */
+	public static LocalDate lees(String tekst) {
+		if (tekst != null && tekst.length() == LENGTE && tekst.charAt(2) == '-' && tekst.charAt(5) == '-') {
+			LocalDate datum = datum(getal(tekst.charAt(0), tekst.charAt(1)), getal(tekst.charAt(3), tekst.charAt(4)),
+				getal(tekst.charAt(6), tekst.charAt(7)), getal(tekst.charAt(8), tekst.charAt(9)));
+			if (datum != null) {
+				return datum;
+			}
+		}
+		return LocalDate.parse(tekst, FORMATTER);
+	}
+
+	private static void kopieer(int getal, char[] doel, int offset) {
+		doel[offset] = TWEE_CIJFERS[2 * getal];
+		doel[offset + 1] = TWEE_CIJFERS[2 * getal + 1];
+	}
+
+	/**
+	 * @return het getal van twee cijfers, of -1 als een van de tekens geen cijfer is.
+	 */
+	private static int getal(char tientallen, char eenheden) {
+		int t = tientallen - '0';
+		int e = eenheden - '0';
+		return (t | e) >= 0 && t <= 9 && e <= 9 ? t * 10 + e : -1;
+	}
+
+	/**
+	 * @return de datum, of null als de delen geen geldige datum vormen.
+	 */
+	private static LocalDate datum(int dag, int maand, int eeuw, int jaarInEeuw) {
+		if (dag < 1 || maand < 1 || maand > 12 || eeuw < 0 || jaarInEeuw < 0) {
+			return null;
+		}
+		int jaar = eeuw * 100 + jaarInEeuw;
+		if (jaar == 0 || dag > dagenInMaand(maand, jaar)) {
+			return null;
+		}
+		return LocalDate.of(jaar, maand, dag);
+	}
+
+	private static int dagenInMaand(int maand, int jaar) {
+		switch (maand) {
+			case 2:
+				return Year.isLeap(jaar) ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+}
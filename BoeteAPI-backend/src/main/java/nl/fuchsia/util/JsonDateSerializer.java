@@ -6,16 +6,26 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Dit is om een {@link LocalDate} in een POJO om te zetten naar een {@link String} voor de JSON representatie.
  * <p>
  * Het implementeren van {@link JsonSerializer} zorgt ervoor dat Jackson dit kan gebruiken.
+ * <p>
+ * De datum gaat via {@link DatumCodec} rechtstreeks als tekens naar de generator, zonder tussenliggende String.
  */
 public class JsonDateSerializer extends JsonSerializer<LocalDate> {
+
+	// De generator kopieert de tekens, dus één buffer per thread is genoeg.
+	private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[DatumCodec.LENGTE]);
+
 	@Override
 	public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
-		gen.writeString(value.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")));
+		char[] buffer = BUFFER.get();
+		if (DatumCodec.schrijf(value, buffer, 0) == DatumCodec.LENGTE) {
+			gen.writeString(buffer, 0, DatumCodec.LENGTE);
+		} else {
+			gen.writeString(value.format(DatumCodec.FORMATTER));
+		}
 	}
 }
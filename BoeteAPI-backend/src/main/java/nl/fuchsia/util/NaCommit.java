@@ -0,0 +1,30 @@
+package nl.fuchsia.util;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Werkt een cache in het geheugen pas bij als de transactie gecommit is. Een teruggedraaide transactie laat de cache dan
+ * ongemoeid, en een ander request kan de nieuwe gegevens niet uit de cache lezen voordat ze in de database staan.
+ */
+public final class NaCommit {
+
+	private NaCommit() {
+	}
+
+	/**
+	 * Voert de actie uit na de commit van de lopende transactie, of meteen als er geen transactie loopt.
+	 */
+	public static void uitvoeren(Runnable actie) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					actie.run();
+				}
+			});
+		} else {
+			actie.run();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package nl.fuchsia.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Schrijft een {@link Stroom} als newline delimited JSON: één JSON object per regel. Elk element wordt geschreven
+ * zodra het gelezen is, het geheugengebruik hangt dus niet af van het aantal elementen.
+ */
+public final class Ndjson {
+
+	public static final String MEDIA_TYPE_VALUE = "application/x-ndjson";
+	public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+	private Ndjson() {
+	}
+
+	/**
+	 * Zet Vary: Accept op de response van een URL die zowel JSON als NDJSON kan geven, ook op een 304. Een cache bewaart
+	 * de twee representaties dan apart.
+	 */
+	public static void varieertOpAccept(WebRequest request) {
+		if (request instanceof NativeWebRequest) {
+			HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+			if (response != null) {
+				response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+			}
+		}
+	}
+
+	/**
+	 * @param objectMapper de ObjectMapper van de applicatie, zodat de elementen hetzelfde geschreven worden als in een
+	 *                     gewone response.
+	 * @param stroom       de te schrijven elementen.
+	 * @return de body van de response.
+	 */
+	public static <T> StreamingResponseBody body(ObjectMapper objectMapper, Stroom<T> stroom) {
+		// Niet na elk element flushen, de buffers van de generator en de servlet bepalen wanneer er verstuurd wordt. De
+		// regeleinden worden zelf geschreven, zonder de spatie die Jackson standaard tussen losse waarden zet.
+		ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE).withRootValueSeparator("");
+		return uitvoer -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(uitvoer)) {
+				generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				stroom.verwerk(element -> {
+					try {
+						writer.writeValue(generator, element);
+						generator.writeRaw('\n');
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		};
+	}
+}
@@ -0,0 +1,52 @@
+package nl.fuchsia.util;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Hulpmethodes voor keyset paginering op de serial primary keys (after=&lt;id&gt;&amp;limit=N).
+ * <p>
+ * Er wordt altijd de eerste pagina van een "id &gt; after" query opgevraagd, zodat de database geen OFFSET hoeft te
+ * scannen en een diepe pagina net zo snel is als de eerste.
+ */
+public final class Paginering {
+
+	public static final int DEFAULT_LIMIT = 100;
+	public static final int MAX_LIMIT = 1000;
+
+	private Paginering() {
+	}
+
+	/**
+	 * @param after de sleutel van het laatst ontvangen element, of null voor de eerste pagina
+	 * @param limit het gevraagde aantal elementen
+	 * @return true als de client om een pagina vraagt
+	 */
+	public static boolean isGevraagd(Integer after, Integer limit) {
+		return after != null || limit != null;
+	}
+
+	/**
+	 * Begrenst de gevraagde limit tussen 1 en {@link #MAX_LIMIT}.
+	 */
+	public static int limiet(Integer limit) {
+		if (limit == null) {
+			return DEFAULT_LIMIT;
+		}
+		return Math.max(1, Math.min(limit, MAX_LIMIT));
+	}
+
+	/**
+	 * De ondergrens van de sleutel, serial keys beginnen bij 1.
+	 */
+	public static int na(Integer after) {
+		return after == null ? 0 : after;
+	}
+
+	/**
+	 * Een {@link Pageable} voor de eerste pagina, wat neerkomt op alleen een LIMIT in de query.
+	 */
+	public static Pageable eerste(int limit) {
+		return PageRequest.of(0, limit);
+	}
+}
@@ -0,0 +1,107 @@
+package nl.fuchsia.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wat een request (of een ander stuk werk) in de database doet: het aantal statements, het aantal gelezen rijen, de tijd
+ * in de database en hoe vaak elk statement is uitgevoerd.
+ * <p>
+ * De meting hoort bij de thread die {@link #start()} aanroept, tot {@link #stop()}. Alleen die thread werkt hem bij; een
+ * ander thread mag de getallen lezen als het werk klaar is.
+ */
+public final class SqlMeting {
+
+	private static final ThreadLocal<SqlMeting> HUIDIGE = new ThreadLocal<>();
+
+	private int statements;
+	private long rijen;
+	private long nanos;
+	private final Map<String, Integer> uitgevoerd = new HashMap<>();
+
+	/**
+	 * Begint een nieuwe meting voor deze thread.
+	 */
+	public static SqlMeting start() {
+		SqlMeting meting = new SqlMeting();
+		HUIDIGE.set(meting);
+		return meting;
+	}
+
+	/**
+	 * @return de meting van deze thread, of null als er geen loopt.
+	 */
+	public static SqlMeting huidige() {
+		return HUIDIGE.get();
+	}
+
+	/**
+	 * Stopt de meting van deze thread.
+	 */
+	public static void stop() {
+		HUIDIGE.remove();
+	}
+
+	/**
+	 * Meet het werk op deze thread, tussen {@link #start()} en {@link #stop()}.
+	 */
+	public static SqlMeting meet(Runnable werk) {
+		SqlMeting meting = start();
+		try {
+			werk.run();
+		} finally {
+			stop();
+		}
+		return meting;
+	}
+
+	/**
+	 * Telt een uitgevoerd statement.
+	 *
+	 * @param sql   de SQL, of null als die niet bekend is (een batch)
+	 * @param nanos hoe lang het uitvoeren duurde
+	 */
+	public void statement(String sql, long nanos) {
+		statements++;
+		this.nanos += nanos;
+		if (sql != null) {
+			uitgevoerd.merge(sql, 1, Integer::sum);
+		}
+	}
+
+	/**
+	 * Telt de tijd van een ResultSet.next() en als er een rij was ook die rij.
+	 */
+	public void rij(boolean gevonden, long nanos) {
+		if (gevonden) {
+			rijen++;
+		}
+		this.nanos += nanos;
+	}
+
+	public int getStatements() {
+		return statements;
+	}
+
+	public long getRijen() {
+		return rijen;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return het statement dat het vaakst is uitgevoerd met hoe vaak, of null als er geen statement met bekende SQL was.
+	 * Een hoog aantal voor dezelfde SQL wijst op een N+1: per gevonden rij nog een query.
+	 */
+	public Map.Entry<String, Integer> getMeestUitgevoerd() {
+		Map.Entry<String, Integer> meest = null;
+		for (Map.Entry<String, Integer> statement : uitgevoerd.entrySet()) {
+			if (meest == null || statement.getValue() > meest.getValue()) {
+				meest = statement;
+			}
+		}
+		return meest;
+	}
+}
@@ -0,0 +1,20 @@
+package nl.fuchsia.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Een reeks elementen die één voor één aangeleverd wordt, zonder dat de hele reeks in het geheugen staat. Pas bij
+ * {@link #verwerk(Consumer)} wordt de reeks gelezen.
+ *
+ * @param <T> het type van de elementen.
+ */
+@FunctionalInterface
+public interface Stroom<T> {
+
+	/**
+	 * Leest de reeks en geeft elk element, in volgorde, aan de verwerker.
+	 *
+	 * @param verwerker wordt per element aangeroepen.
+	 */
+	void verwerk(Consumer<T> verwerker);
+}
@@ -0,0 +1,62 @@
+package nl.fuchsia.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding: elke verschillende waarde krijgt een volgnummer, zodat een kolom met veel herhaalde waarden
+ * (woonplaats, straat) per rij alleen een int hoeft op te slaan. Elke waarde staat één keer in het geheugen.
+ * <p>
+ * Een code blijft geldig zolang het woordenboek bestaat, ook als geen rij de waarde nog gebruikt. Niet thread safe, de
+ * eigenaar zorgt voor de synchronisatie.
+ */
+public final class Woordenboek {
+
+	/**
+	 * De code voor null.
+	 */
+	public static final int GEEN = -1;
+
+	private final Map<String, Integer> codes = new HashMap<>();
+	private String[] waarden = new String[16];
+	private int aantal;
+
+	/**
+	 * @return de code van de waarde, een nieuwe code als de waarde nog niet in het woordenboek stond.
+	 */
+	public int code(String waarde) {
+		if (waarde == null) {
+			return GEEN;
+		}
+		Integer code = codes.get(waarde);
+		if (code != null) {
+			return code;
+		}
+		if (aantal == waarden.length) {
+			waarden = Arrays.copyOf(waarden, aantal * 2);
+		}
+		waarden[aantal] = waarde;
+		codes.put(waarde, aantal);
+		return aantal++;
+	}
+
+	/**
+	 * @return de code van de waarde, of {@link #GEEN} als de waarde niet in het woordenboek staat.
+	 */
+	public int zoek(String waarde) {
+		Integer code = waarde == null ? null : codes.get(waarde);
+		return code == null ? GEEN : code;
+	}
+
+	/**
+	 * @return de waarde bij de code, null voor {@link #GEEN}.
+	 */
+	public String waarde(int code) {
+		return code == GEEN ? null : waarden[code];
+	}
+
+	public int getAantal() {
+		return aantal;
+	}
+}
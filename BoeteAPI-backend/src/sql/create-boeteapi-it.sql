@@ -40,3 +40,10 @@ CREATE TABLE ZAAKREGEL
     FOREIGN KEY (zaakNr) REFERENCES zaak (zaakNr),
     FOREIGN KEY (feitNr) REFERENCES feit (feitNr)
 );
+
+/* Gepoolde sleutels: EclipseLink haalt met één nextval een blok van 50 nummers op en kent die zelf toe, zodat de inserts
+   in een batch kunnen. boeteapi.sequence.allocatie moet gelijk zijn aan INCREMENT BY. Het blok eindigt op de waarde van
+   nextval, daarom begint elke sequence op 50. Inserts zonder sleutel (COPY, JDBC) gebruiken de default van de kolom. */
+ALTER SEQUENCE persoon_persoonnr_seq INCREMENT BY 50 RESTART WITH 50;
+ALTER SEQUENCE feit_feitnr_seq INCREMENT BY 50 RESTART WITH 50;
+ALTER SEQUENCE zaak_zaaknr_seq INCREMENT BY 50 RESTART WITH 50;
@@ -29,6 +29,7 @@ CREATE TABLE ZAAK
     persoonNr         Integer NOT NULL,
     overtredingsdatum DATE    NOT NULL,
     pleegLocatie      VARCHAR(100),
+    huidige_zaakstatusnr INTEGER,
     PRIMARY KEY (zaakNr),
     FOREIGN KEY (persoonNr) REFERENCES persoon (persoonnr)
 );
@@ -58,3 +59,73 @@ CREATE TABLE ZaakStatus
     FOREIGN KEY (zaakNr) REFERENCES zaak (zaakNr),
     FOREIGN KEY (statusNr) REFERENCES status (statusNr)
 );
+/* De huidige status van een zaak. Een zaak en zijn eerste status verwijzen naar elkaar, daarom wordt deze verwijzing pas
+   bij de commit gecontroleerd. */
+ALTER TABLE zaak ADD FOREIGN KEY (huidige_zaakstatusnr) REFERENCES zaakstatus (zaakStatusNr) DEFERRABLE INITIALLY DEFERRED;
+
+/* Gepoolde sleutels: EclipseLink haalt met één nextval een blok van 50 nummers op en kent die zelf toe, zodat de inserts
+   in een batch kunnen. boeteapi.sequence.allocatie moet gelijk zijn aan INCREMENT BY. Het blok eindigt op de waarde van
+   nextval, daarom begint elke sequence op 50. Inserts zonder sleutel (COPY, JDBC) gebruiken de default van de kolom. */
+ALTER SEQUENCE persoon_persoonnr_seq INCREMENT BY 50 RESTART WITH 50;
+ALTER SEQUENCE feit_feitnr_seq INCREMENT BY 50 RESTART WITH 50;
+ALTER SEQUENCE zaak_zaaknr_seq INCREMENT BY 50 RESTART WITH 50;
+ALTER SEQUENCE status_statusnr_seq INCREMENT BY 50 RESTART WITH 50;
+ALTER SEQUENCE zaakstatus_zaakstatusnr_seq INCREMENT BY 50 RESTART WITH 50;
+
+/* De ZaakDto projectie zoekt de statussen per zaak op, zie ZaakDtoRepository */
+CREATE INDEX zaakstatus_zaaknr_idx ON ZaakStatus (zaakNr);
+
+/* Afgeleid saldo per persoon, bijgewerkt door SaldoRepository. Een persoon zonder rij krijgt die bij de eerste wijziging of opvraging */
+CREATE TABLE PersoonSaldo
+(
+    persoonNr         INTEGER        NOT NULL,
+    aantal_zaken      INTEGER        NOT NULL DEFAULT 0,
+    aantal_open       INTEGER        NOT NULL DEFAULT 0,
+    openstaand_bedrag NUMERIC(15, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (persoonNr),
+    FOREIGN KEY (persoonNr) REFERENCES persoon (persoonnr)
+);
+
+/* Leesmodel voor lijsten van zaken, een rij per zaak. Bijgewerkt door ZaakOverzichtRepository; op een bestaande database eenmalig vullen met boeteapi.overzicht.taak=herbouw */
+CREATE TABLE Zaak_Overzicht
+(
+    zaakNr            INTEGER        NOT NULL,
+    persoonNr         INTEGER        NOT NULL,
+    voornaam          VARCHAR(30),
+    achternaam        VARCHAR(30),
+    overtredingsdatum DATE           NOT NULL,
+    pleegLocatie      VARCHAR(100),
+    totaal_bedrag     NUMERIC(15, 2) NOT NULL DEFAULT 0,
+    aantal_feiten     INTEGER        NOT NULL DEFAULT 0,
+    statusNr          INTEGER,
+    statusdatum       DATE,
+    PRIMARY KEY (zaakNr),
+    FOREIGN KEY (zaakNr) REFERENCES zaak (zaakNr)
+);
+CREATE INDEX zaak_overzicht_persoonnr_idx ON Zaak_Overzicht (persoonNr, zaakNr);
+/* Per status op zaaknr, voor het statusnr filter van GET /zaken/zoek. De statusdatum staat erin voor het zoeken naar
+   zaken die al lang dezelfde status hebben (EscalatieService, het filter van POST /zaken/statussen) */
+CREATE INDEX zaak_overzicht_status_datum_idx ON Zaak_Overzicht (statusNr, zaakNr, statusdatum);
+
+/* Indexen voor GET /zaken/zoek (ZaakOverzichtRepository.zoek). Elk filter wordt met keyset paginering gecombineerd
+   (zaaknr > after ORDER BY zaaknr), daarom eindigt elke index op zaaknr. De persoonnr en statusnr indexen staan hierboven. */
+CREATE INDEX zaak_overzicht_datum_idx ON Zaak_Overzicht (overtredingsdatum, zaakNr);
+/* text_pattern_ops zodat LIKE 'prefix%' de index ook buiten de C locale kan gebruiken */
+CREATE INDEX zaak_overzicht_pleeglocatie_idx ON Zaak_Overzicht (pleegLocatie text_pattern_ops, zaakNr);
+/* De primary key van zaakregel begint met zaakNr, voor het zoeken op feit is de omgekeerde volgorde nodig */
+CREATE INDEX zaakregel_feitnr_idx ON ZaakRegel (feitNr, zaakNr);
+/* Partiële indexen voor de beginstatus (boeteapi.status.begin, standaard 1): de meeste zoekopdrachten gaan over open zaken,
+   zo blijven deze indexen klein. LET OP: het statusNr moet gelijk zijn aan boeteapi.status.begin, anders worden de
+   indexen zonder foutmelding niet meer gebruikt. Zie ook zoeken.sql voor een bestaande database. */
+CREATE INDEX zaak_overzicht_open_datum_idx ON Zaak_Overzicht (overtredingsdatum, zaakNr) WHERE statusNr = 1;
+CREATE INDEX zaak_overzicht_open_pleeglocatie_idx ON Zaak_Overzicht (pleegLocatie text_pattern_ops, zaakNr) WHERE statusNr = 1;
+
+/* Voortgang van de escalatie van verlopen zaken, een rij per bereik van zaaknrs. Bijgewerkt door EscalatieRepository */
+CREATE TABLE Escalatie_Checkpoint
+(
+    van            INTEGER NOT NULL,
+    tot            INTEGER NOT NULL,
+    peildatum      DATE    NOT NULL,
+    laatste_zaaknr INTEGER NOT NULL,
+    PRIMARY KEY (van)
+);
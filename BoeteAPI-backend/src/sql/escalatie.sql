@@ -0,0 +1,12 @@
+/* Voegt de tabel en index voor de escalatie van verlopen zaken (boeteapi.escalatie.*) toe aan een bestaande database */
+CREATE TABLE Escalatie_Checkpoint
+(
+    van            INTEGER NOT NULL,
+    tot            INTEGER NOT NULL,
+    peildatum      DATE    NOT NULL,
+    laatste_zaaknr INTEGER NOT NULL,
+    PRIMARY KEY (van)
+);
+CREATE INDEX zaak_overzicht_status_datum_idx ON Zaak_Overzicht (statusNr, zaakNr, statusdatum);
+/* De nieuwe index begint met dezelfde kolommen, de oude kost alleen nog schrijfwerk bij elke statuswijziging */
+DROP INDEX IF EXISTS zaak_overzicht_statusnr_idx;
@@ -0,0 +1,14 @@
+/* Zet de sequences van een bestaande database om naar gepoolde sleutels (boeteapi.sequence.allocatie=50). Eenmalig
+   uitvoeren terwijl de applicatie niet draait. Met is_called = false geeft de volgende nextval precies de gezette waarde,
+   het eerste blok loopt dan van het hoogste nummer + 1 tot en met het hoogste nummer + 50. Bij een andere allocatie de 50
+   overal aanpassen. */
+ALTER SEQUENCE persoon_persoonnr_seq INCREMENT BY 50;
+SELECT setval('persoon_persoonnr_seq', COALESCE(MAX(persoonnr), 0) + 50, false) FROM persoon;
+ALTER SEQUENCE feit_feitnr_seq INCREMENT BY 50;
+SELECT setval('feit_feitnr_seq', COALESCE(MAX(feitnr), 0) + 50, false) FROM feit;
+ALTER SEQUENCE zaak_zaaknr_seq INCREMENT BY 50;
+SELECT setval('zaak_zaaknr_seq', COALESCE(MAX(zaaknr), 0) + 50, false) FROM zaak;
+ALTER SEQUENCE status_statusnr_seq INCREMENT BY 50;
+SELECT setval('status_statusnr_seq', COALESCE(MAX(statusnr), 0) + 50, false) FROM status;
+ALTER SEQUENCE zaakstatus_zaakstatusnr_seq INCREMENT BY 50;
+SELECT setval('zaakstatus_zaakstatusnr_seq', COALESCE(MAX(zaakstatusnr), 0) + 50, false) FROM zaakstatus;
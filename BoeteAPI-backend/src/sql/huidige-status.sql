@@ -0,0 +1,5 @@
+/* Voegt zaak.huidige_zaakstatusnr toe aan een bestaande database. Eenmalig uitvoeren terwijl de applicatie niet draait,
+   samen met gepoolde-sequences.sql: tot dan liepen de zaakstatusnrs op en is het hoogste nummer de huidige status. */
+ALTER TABLE zaak ADD COLUMN huidige_zaakstatusnr INTEGER;
+UPDATE zaak z SET huidige_zaakstatusnr = (SELECT MAX(s.zaakstatusnr) FROM zaakstatus s WHERE s.zaaknr = z.zaaknr);
+ALTER TABLE zaak ADD FOREIGN KEY (huidige_zaakstatusnr) REFERENCES zaakstatus (zaakStatusNr) DEFERRABLE INITIALLY DEFERRED;
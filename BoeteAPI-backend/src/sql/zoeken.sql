@@ -0,0 +1,11 @@
+/* Voegt de indexen voor GET /zaken/zoek toe aan een bestaande database met zaak_overzicht. Elke index eindigt op zaaknr,
+   voor de keyset paginering. */
+CREATE INDEX zaak_overzicht_datum_idx ON Zaak_Overzicht (overtredingsdatum, zaakNr);
+CREATE INDEX zaak_overzicht_pleeglocatie_idx ON Zaak_Overzicht (pleegLocatie text_pattern_ops, zaakNr);
+CREATE INDEX zaakregel_feitnr_idx ON ZaakRegel (feitNr, zaakNr);
+/* LET OP: de partiële indexen gelden voor statusNr 1, de standaard van boeteapi.status.begin. Is die instelling anders,
+   dan hier (en in create_boeteapi.sql) hetzelfde statusNr invullen. Anders passen de indexen niet meer op het zoeken naar
+   zaken met de beginstatus en gebruikt de database ze zonder foutmelding niet. Na het wijzigen van boeteapi.status.begin
+   de twee indexen opnieuw aanmaken. */
+CREATE INDEX zaak_overzicht_open_datum_idx ON Zaak_Overzicht (overtredingsdatum, zaakNr) WHERE statusNr = 1;
+CREATE INDEX zaak_overzicht_open_pleeglocatie_idx ON Zaak_Overzicht (pleegLocatie text_pattern_ops, zaakNr) WHERE statusNr = 1;
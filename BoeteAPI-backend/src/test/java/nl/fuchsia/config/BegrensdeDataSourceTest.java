@@ -0,0 +1,74 @@
+package nl.fuchsia.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BegrensdeDataSourceTest {
+
+	@Mock
+	private DataSource dataSource;
+
+	@BeforeEach
+	public void setup() throws SQLException {
+		MockitoAnnotations.initMocks(this);
+		when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+	}
+
+	/**
+	 * Test of er niet meer verbindingen tegelijk uit kunnen dan er vergunningen zijn, en of close er een teruggeeft.
+	 */
+	@Test
+	public void testBegrenzing() throws SQLException {
+		DataSource begrensd = BegrensdeDataSource.wikkel(dataSource, 2, 10);
+
+		Connection eerste = begrensd.getConnection();
+		begrensd.getConnection();
+		assertThatThrownBy(begrensd::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+		eerste.close();
+		begrensd.getConnection();
+		assertThatThrownBy(begrensd::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+	}
+
+	/**
+	 * Een verbinding die twee keer gesloten wordt mag maar één vergunning teruggeven.
+	 */
+	@Test
+	public void testDubbelSluiten() throws SQLException {
+		DataSource begrensd = BegrensdeDataSource.wikkel(dataSource, 1, 10);
+
+		Connection verbinding = begrensd.getConnection();
+		verbinding.close();
+		verbinding.close();
+		begrensd.getConnection();
+
+		assertThatThrownBy(begrensd::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+	}
+
+	/**
+	 * Als de pool zelf faalt komt de vergunning terug.
+	 */
+	@Test
+	public void testFoutVanDePool() throws SQLException {
+		DataSource begrensd = BegrensdeDataSource.wikkel(dataSource, 1, 10);
+		when(dataSource.getConnection()).thenThrow(new SQLException("Pool leeg")).thenAnswer(invocation -> mock(Connection.class));
+
+		assertThatThrownBy(begrensd::getConnection).hasMessage("Pool leeg");
+		begrensd.getConnection().close();
+
+		verify(dataSource, times(2)).getConnection();
+	}
+}
@@ -0,0 +1,49 @@
+package nl.fuchsia.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bootst voor de benchmarks op H2 de round trip naar een database over het netwerk na: zolang {@code aan} waar is slaapt
+ * elke execute (ook executeBatch, dat is één round trip) het opgegeven aantal milliseconden.
+ */
+final class Latentie {
+
+	private Latentie() {
+	}
+
+	static BeanPostProcessor dataSource(int ms, AtomicBoolean aan) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return bean instanceof DataSource && ms > 0 ? proxy(DataSource.class, bean, ms, aan) : bean;
+			}
+		};
+	}
+
+	private static Object proxy(Class<?> type, Object doel, int ms, AtomicBoolean aan) {
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, methode, args) -> {
+			if (aan.get() && methode.getName().startsWith("execute")) {
+				Thread.sleep(ms);
+			}
+			try {
+				Object resultaat = methode.invoke(doel, args);
+				if (resultaat instanceof Connection) {
+					return proxy(Connection.class, resultaat, ms, aan);
+				}
+				if (resultaat instanceof Statement) {
+					return proxy(methode.getReturnType(), resultaat, ms, aan);
+				}
+				return resultaat;
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		});
+	}
+}
@@ -0,0 +1,38 @@
+package nl.fuchsia.config;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import nl.fuchsia.Application;
+import nl.fuchsia.repository.PersoonRepository;
+import nl.fuchsia.services.PersoonService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = Application.class)
+public class MetriekenConfigurationTest {
+
+	@Autowired
+	PrometheusMeterRegistry prometheusMeterRegistry;
+	@Autowired
+	PersoonService persoonService;
+	@Autowired
+	PersoonRepository persoonRepository;
+
+	/**
+	 * Test of de aanroepen van een service en van een Spring Data repository in de Prometheus metrics staan.
+	 */
+	@Test
+	public void testAanroepenInMetrics() {
+		persoonService.getPersonen();
+		persoonRepository.findBestaandeBsns(Collections.singleton("123456789"));
+
+		assertThat(prometheusMeterRegistry.scrape())
+			.contains("boeteapi_aanroepen_seconds_count{klasse=\"PersoonService\",laag=\"service\",methode=\"getPersonen\",}")
+			.contains("boeteapi_aanroepen_seconds_count{klasse=\"PersoonRepository\",laag=\"repository\",methode=\"findAll\",}")
+			.contains("boeteapi_aanroepen_seconds_count{klasse=\"PersoonRepository\",laag=\"repository\",methode=\"findBestaandeBsns\",}");
+	}
+}
@@ -0,0 +1,95 @@
+package nl.fuchsia.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.stereotype.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MetriekenInterceptorTest {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Service
+	public static class Voorbeeld {
+
+		private MeterRegistry meterRegistry;
+
+		public String groet(String naam) {
+			return "Hallo " + naam;
+		}
+
+		public void faal() {
+			throw new IllegalStateException("Fout");
+		}
+
+		public double actief() {
+			return meterRegistry.get(MetriekenInterceptor.ACTIEF).tag("methode", "actief").gauge().value();
+		}
+	}
+
+	/**
+	 * Test of elke aanroep in de timer van de methode komt, met de laag, klasse en methode als tags.
+	 */
+	@Test
+	public void testTimer() {
+		Voorbeeld voorbeeld = proxy(meterRegistry);
+
+		assertThat(voorbeeld.groet("Rense")).isEqualTo("Hallo Rense");
+		voorbeeld.groet("Geert");
+
+		assertThat(meterRegistry.get(MetriekenInterceptor.AANROEPEN).tags("laag", "service", "klasse", "Voorbeeld", "methode", "groet").timer().count()).isEqualTo(2);
+	}
+
+	/**
+	 * Test of een exception doorgegeven en per type geteld wordt, en de aanroep ook in de timer komt.
+	 */
+	@Test
+	public void testFout() {
+		Voorbeeld voorbeeld = proxy(meterRegistry);
+
+		assertThatThrownBy(voorbeeld::faal).isInstanceOf(IllegalStateException.class).hasMessage("Fout");
+
+		assertThat(meterRegistry.get(MetriekenInterceptor.FOUTEN).tags("methode", "faal", "exception", "IllegalStateException").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get(MetriekenInterceptor.AANROEPEN).tag("methode", "faal").timer().count()).isEqualTo(1);
+	}
+
+	/**
+	 * Test of de gauge tijdens de aanroep 1 is en daarna weer 0.
+	 */
+	@Test
+	public void testActief() {
+		Voorbeeld voorbeeld = proxy(meterRegistry);
+
+		assertThat(voorbeeld.actief()).isEqualTo(1);
+		assertThat(meterRegistry.get(MetriekenInterceptor.ACTIEF).tag("methode", "actief").gauge().value()).isEqualTo(0);
+	}
+
+	/**
+	 * Test of Prometheus de percentielen en histogram buckets van de timer krijgt.
+	 */
+	@Test
+	public void testPrometheus() {
+		PrometheusMeterRegistry prometheusMeterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		proxy(prometheusMeterRegistry).groet("Rense");
+
+		assertThat(prometheusMeterRegistry.scrape())
+			.contains("boeteapi_aanroepen_seconds{klasse=\"Voorbeeld\",laag=\"service\",methode=\"groet\",quantile=\"0.99\",}")
+			.contains("boeteapi_aanroepen_seconds_bucket{klasse=\"Voorbeeld\",laag=\"service\",methode=\"groet\",le=\"+Inf\",} 1.0")
+			.contains("boeteapi_aanroepen_actief{klasse=\"Voorbeeld\",laag=\"service\",methode=\"groet\",} 0.0");
+	}
+
+	private static Voorbeeld proxy(MeterRegistry meterRegistry) {
+		Voorbeeld voorbeeld = new Voorbeeld();
+		voorbeeld.meterRegistry = meterRegistry;
+		ProxyFactory proxyFactory = new ProxyFactory(voorbeeld);
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAdvisor(new MetriekenConfiguration().serviceMetrieken(meterRegistry));
+		return (Voorbeeld) proxyFactory.getProxy();
+	}
+}
@@ -0,0 +1,121 @@
+package nl.fuchsia.config;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.*;
+import nl.fuchsia.repository.FeitRepository;
+import nl.fuchsia.repository.PersoonRepository;
+import nl.fuchsia.repository.ZaakRepository;
+import nl.fuchsia.services.FeitCatalogus;
+import nl.fuchsia.services.StatusRegister;
+import nl.fuchsia.services.ZaakService;
+import nl.fuchsia.util.SqlMeting;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Meet het toevoegen van zaken met een sleutel per rij (boeteapi.sequence.allocatie=1 en geen batch writing: net als
+ * IDENTITY twee round trips per rij) tegenover gepoolde sleutels met batch writing (de standaard instellingen). Per manier
+ * van toevoegen komen de zaken per seconde en de statements per zaak in de uitvoer:
+ * <ul>
+ * <li>addZaak: ZaakService.addZaak, één zaak per transactie zoals POST /zaken;</li>
+ * <li>saveAll: {@value #PER_TRANSACTIE} zaken per transactie via ZaakRepository, daar levert batch writing het meest op.</li>
+ * </ul>
+ * Op H2 kost een round trip bijna niets, daarom slaapt elke execute benchmark.latentie-ms (standaard 1).
+ * <p>
+ * Draait niet mee met de gewone tests, start met: mvn test -Dtest=SequentieBenchmark [-Dbenchmark.zaken=2000]
+ * [-Dbenchmark.latentie-ms=1]
+ * <p>
+ * Op een lokale PostgreSQL (de tabellen worden opnieuw aangemaakt, dus gebruik de integratietest database) met
+ * -Dbenchmark.latentie-ms=0 -Dspring.datasource.driver-class-name=org.postgresql.Driver
+ * -Dspring.datasource.url=jdbc:postgresql://localhost:5432/boeteapi_it?reWriteBatchedInserts=true
+ * -Dspring.datasource.username=postgres -Dspring.datasource.password=postgres
+ */
+public class SequentieBenchmark {
+
+	private static final int ZAKEN = Integer.getInteger("benchmark.zaken", 2000);
+	private static final int LATENTIE_MS = Integer.getInteger("benchmark.latentie-ms", 1);
+	private static final int PER_TRANSACTIE = 100;
+
+	@Test
+	public void vergelijk() {
+		System.out.printf("%d zaken met elk 2 feiten, %d ms per round trip%n", ZAKEN, LATENTIE_MS);
+		meet("per rij", 1, 1);
+		meet("gepoold", 50, 100);
+	}
+
+	private void meet(String naam, int allocatie, int batchGrootte) {
+		AtomicBoolean vertragen = new AtomicBoolean();
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+			.properties("server.port=0", "boeteapi.sequence.allocatie=" + allocatie, "boeteapi.jpa.batch-grootte=" + batchGrootte,
+				"spring.datasource.url=jdbc:h2:mem:sequentie-" + allocatie + ";DB_CLOSE_DELAY=-1",
+				"logging.level.root=WARN")
+			.initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(Latentie.dataSource(LATENTIE_MS, vertragen)))
+			.run();
+		try {
+			Persoon persoon = context.getBean(PersoonRepository.class).save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654321",
+				LocalDate.of(1990, 10, 12)));
+			FeitRepository feitRepository = context.getBean(FeitRepository.class);
+			List<Feit> feiten = Arrays.asList(feitRepository.save(new Feit("VBF-961", "Test", 4.00)), feitRepository.save(new Feit("VBF-962", "Test", 5.00)));
+			JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+			if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM status WHERE statusnr = 1", Integer.class) == 0) {
+				jdbcTemplate.update("INSERT INTO status (statusnr, omschrijving) VALUES (1, 'Open')");
+			}
+			context.getBean(FeitCatalogus.class).herlaad();
+			context.getBean(StatusRegister.class).herlaad();
+			Status open = context.getBean(StatusRegister.class).getBeginstatus();
+			vertragen.set(true);
+
+			ZaakService zaakService = context.getBean(ZaakService.class);
+			List<Integer> feitnrs = Arrays.asList(feiten.get(0).getFeitnr(), feiten.get(1).getFeitnr());
+			rapporteer(naam, "addZaak", ZAKEN / 10, () -> {
+				for (int i = 0; i < ZAKEN / 10; i++) {
+					zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Drachten", persoon.getPersoonnr(), feitnrs));
+				}
+			});
+
+			ZaakRepository zaakRepository = context.getBean(ZaakRepository.class);
+			TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+			rapporteer(naam, "saveAll", ZAKEN, () -> {
+				for (int i = 0; i < ZAKEN; i += PER_TRANSACTIE) {
+					transactionTemplate.execute(status -> zaakRepository.saveAll(zaken(persoon, feiten, open)));
+				}
+			});
+		} finally {
+			context.close();
+		}
+	}
+
+	private static void rapporteer(String naam, String werk, int aantal, Runnable actie) {
+		SqlMeting meting = SqlMeting.start();
+		long start = System.nanoTime();
+		try {
+			actie.run();
+		} finally {
+			SqlMeting.stop();
+		}
+		long duur = System.nanoTime() - start;
+		System.out.printf("%-8s %-8s %8.0f zaken/s   %5.2f statements per zaak%n", naam, werk, aantal / (duur / 1e9), meting.getStatements() / (double) aantal);
+	}
+
+	private static List<Zaak> zaken(Persoon persoon, List<Feit> feiten, Status status) {
+		List<Zaak> zaken = new ArrayList<>(PER_TRANSACTIE);
+		for (int i = 0; i < PER_TRANSACTIE; i++) {
+			Zaak zaak = new Zaak(LocalDate.of(2019, 12, 12), "Sneek", persoon, new ArrayList<>(feiten));
+			zaak.setZaakstatus(new ArrayList<>(Collections.singletonList(new ZaakStatus(LocalDate.now(), status, zaak))));
+			zaken.add(zaak);
+		}
+		return zaken;
+	}
+}
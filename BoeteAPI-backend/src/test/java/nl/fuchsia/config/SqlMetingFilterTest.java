@@ -0,0 +1,127 @@
+package nl.fuchsia.config;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.model.*;
+import nl.fuchsia.repository.FeitRepository;
+import nl.fuchsia.repository.PersoonRepository;
+import nl.fuchsia.repository.StatusRepository;
+import nl.fuchsia.repository.ZaakRepository;
+import nl.fuchsia.util.SqlMeting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@SpringBootTest(classes = Application.class, properties = "boeteapi.sql.headers=true")
+@AutoConfigureMockMvc
+public class SqlMetingFilterTest {
+
+	@PersistenceContext(unitName = "entityManagerFactory")
+	private EntityManager entityManager;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private StatusRepository statusRepository;
+
+	@Autowired
+	private ZaakRepository zaakRepository;
+
+	@BeforeEach
+	public void setup() {
+		entityManager.createQuery("DELETE FROM ZaakStatus").executeUpdate();
+		entityManager.createNativeQuery("DELETE FROM zaakregel").executeUpdate();
+		entityManager.createQuery("DELETE FROM Zaak").executeUpdate();
+
+		Persoon persoon = persoonRepository.save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654321", LocalDate.of(1990, 10, 12)));
+		Feit feit = feitRepository.save(new Feit("VBF-911", "Test", 4.00));
+		Status status = statusRepository.save(new Status("Open"));
+		for (int i = 0; i < 10; i++) {
+			Zaak zaak = new Zaak(LocalDate.of(2019, 12, 12), "Drachten", persoon, new ArrayList<>(Collections.singletonList(feit)));
+			List<ZaakStatus> zaakStatussen = new ArrayList<>();
+			zaakStatussen.add(new ZaakStatus(LocalDate.now(), status, zaak));
+			zaak.setZaakstatus(zaakStatussen);
+			zaakRepository.save(zaak);
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	/**
+	 * GET /zaken mag niet per zaak nog queries doen voor de persoon, feiten of statussen.
+	 */
+	@Test
+	public void testGetZakenStatements() throws Exception {
+		MvcResult resultaat = mockMvc.perform(get("/zaken").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andReturn();
+
+		SqlMeting meting = (SqlMeting) resultaat.getRequest().getAttribute(SqlMetingFilter.ATTRIBUUT);
+		assertThat(meting.getStatements()).isBetween(1, 4);
+		assertThat(meting.getRijen()).isGreaterThanOrEqualTo(10);
+		assertThat(meting.getMeestUitgevoerd().getValue()).isLessThan(10);
+		assertThat(resultaat.getResponse().getHeader("X-Sql-Statements")).isEqualTo(Integer.toString(meting.getStatements()));
+		assertThat(resultaat.getResponse().getHeader("X-Sql-Rijen")).isEqualTo(Long.toString(meting.getRijen()));
+		assertThat(resultaat.getResponse().getHeader("X-Sql-Tijd")).isNotNull();
+	}
+
+	/**
+	 * Test of hetzelfde statement per uitvoering geteld wordt, zoals bij een N+1.
+	 */
+	@Test
+	public void testHerhaaldStatement() {
+		SqlMeting meting = SqlMeting.start();
+		try {
+			for (int i = 0; i < 3; i++) {
+				entityManager.createNativeQuery("SELECT COUNT(*) FROM zaak").getSingleResult();
+			}
+		} finally {
+			SqlMeting.stop();
+		}
+
+		assertThat(meting.getStatements()).isEqualTo(3);
+		assertThat(meting.getRijen()).isEqualTo(3);
+		assertThat(meting.getMeestUitgevoerd().getKey()).containsIgnoringCase("SELECT COUNT(*) FROM zaak");
+		assertThat(meting.getMeestUitgevoerd().getValue()).isEqualTo(3);
+	}
+
+	/**
+	 * Zonder meting krijgt de aanroeper het statement van de pool zelf.
+	 */
+	@Test
+	public void testZonderMetingGeenProxy() throws Exception {
+		try (Connection connection = dataSource.getConnection(); PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+			assertThat(Proxy.isProxyClass(statement.getClass())).isFalse();
+		}
+	}
+}
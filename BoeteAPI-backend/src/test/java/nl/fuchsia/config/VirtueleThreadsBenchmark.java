@@ -0,0 +1,159 @@
+package nl.fuchsia.config;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.model.*;
+import nl.fuchsia.repository.FeitRepository;
+import nl.fuchsia.repository.PersoonRepository;
+import nl.fuchsia.repository.StatusRepository;
+import nl.fuchsia.repository.ZaakRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static nl.fuchsia.util.Percentielen.percentiel;
+
+/**
+ * Belast GET /zaken eerst met een thread per request uit de pool van Tomcat en daarna met
+ * {@link VirtueleThreadsConfiguration}, en geeft per model de doorvoer, p50/p95/p99 van de responstijd, het aantal fouten
+ * en het hoogste aantal platform threads van de server.
+ * <p>
+ * Op H2 wacht niemand op de database; daarom slaapt elk statement benchmark.latentie-ms (standaard 5) als nagebootste
+ * round trip naar PostgreSQL. De clients zijn platform threads in dezelfde JVM, die tellen niet mee bij de threads.
+ * <p>
+ * Draait niet mee met de gewone tests, start met: mvn test -Dtest=VirtueleThreadsBenchmark [-Dbenchmark.clients=400]
+ * [-Dbenchmark.aanvragen=25] [-Dbenchmark.latentie-ms=5] [-Dserver.tomcat.max-threads=200]. Het virtuele model draait
+ * alleen op Java 21 of nieuwer, bouw dan met -Pvirtuele-threads.
+ */
+public class VirtueleThreadsBenchmark {
+
+	private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+	private static final int AANVRAGEN_PER_CLIENT = Integer.getInteger("benchmark.aanvragen", 25);
+	private static final int LATENTIE_MS = Integer.getInteger("benchmark.latentie-ms", 5);
+	private static final int ZAKEN = 200;
+
+	@Test
+	public void vergelijk() throws Exception {
+		System.out.printf("%d clients x %d aanvragen, %d ms per statement, tijden in ms (p50 / p95 / p99)%n", CLIENTS, AANVRAGEN_PER_CLIENT, LATENTIE_MS);
+		meet("platform", false);
+		try {
+			VirtueleThreadsConfiguration.virtueleThreadPerTaak().shutdown();
+		} catch (IllegalStateException e) {
+			System.out.println("virtueel: niet beschikbaar, " + e.getMessage());
+			return;
+		}
+		meet("virtueel", true);
+	}
+
+	private void meet(String naam, boolean virtueel) throws Exception {
+		AtomicBoolean vertragen = new AtomicBoolean();
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+			.properties("server.port=0", "boeteapi.threads.virtueel=" + virtueel, "spring.datasource.url=jdbc:h2:mem:threads-" + naam + ";DB_CLOSE_DELAY=-1",
+				"logging.level.root=WARN")
+			.initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(Latentie.dataSource(LATENTIE_MS, vertragen)))
+			.run();
+		try {
+			vulDatabase(context);
+			vertragen.set(true);
+			String url = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort() + "/zaken?limit=20";
+
+			belast(url, Math.max(1, AANVRAGEN_PER_CLIENT / 5));
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			threads.resetPeakThreadCount();
+			long start = System.nanoTime();
+			Resultaat resultaat = belast(url, AANVRAGEN_PER_CLIENT);
+			long duur = System.nanoTime() - start;
+			long[] tijden = resultaat.tijden;
+			Arrays.sort(tijden);
+
+			System.out.printf("%-9s %7.0f req/s   %.1f / %.1f / %.1f   fouten %d   platform threads (piek) %d%n", naam, tijden.length / (duur / 1e9),
+				percentiel(tijden, 50), percentiel(tijden, 95), percentiel(tijden, 99), resultaat.fouten.get(), threads.getPeakThreadCount() - CLIENTS);
+		} finally {
+			context.close();
+		}
+	}
+
+	private static Resultaat belast(String url, int aanvragenPerClient) throws Exception {
+		Resultaat resultaat = new Resultaat(CLIENTS * aanvragenPerClient);
+		ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+		List<Future<?>> klaar = new ArrayList<>();
+		AtomicInteger volgende = new AtomicInteger();
+		for (int i = 0; i < CLIENTS; i++) {
+			klaar.add(clients.submit(() -> {
+				for (int j = 0; j < aanvragenPerClient; j++) {
+					long start = System.nanoTime();
+					if (!haalOp(url)) {
+						resultaat.fouten.incrementAndGet();
+					}
+					resultaat.tijden[volgende.getAndIncrement()] = System.nanoTime() - start;
+				}
+			}));
+		}
+		for (Future<?> client : klaar) {
+			client.get();
+		}
+		clients.shutdown();
+		clients.awaitTermination(1, TimeUnit.MINUTES);
+		return resultaat;
+	}
+
+	private static boolean haalOp(String url) {
+		try {
+			HttpURLConnection verbinding = (HttpURLConnection) new URL(url).openConnection();
+			verbinding.setRequestProperty("Accept", "application/json");
+			int status = verbinding.getResponseCode();
+			try (InputStream body = status < 400 ? verbinding.getInputStream() : verbinding.getErrorStream()) {
+				byte[] buffer = new byte[8192];
+				while (body != null && body.read(buffer) != -1) {
+					// De body moet gelezen zijn om de verbinding te hergebruiken.
+				}
+			}
+			return status == 200;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static void vulDatabase(ConfigurableApplicationContext context) {
+		Persoon persoon = context.getBean(PersoonRepository.class).save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654321",
+			LocalDate.of(1990, 10, 12)));
+		Feit feit = context.getBean(FeitRepository.class).save(new Feit("VBF-911", "Test", 4.00));
+		Status status = context.getBean(StatusRepository.class).save(new Status("Open"));
+		ZaakRepository zaakRepository = context.getBean(ZaakRepository.class);
+		for (int i = 0; i < ZAKEN; i++) {
+			Zaak zaak = new Zaak(LocalDate.of(2019, 12, 12), "Drachten", persoon, new ArrayList<>(Collections.singletonList(feit)));
+			List<ZaakStatus> zaakStatussen = new ArrayList<>();
+			zaakStatussen.add(new ZaakStatus(LocalDate.now(), status, zaak));
+			zaak.setZaakstatus(zaakStatussen);
+			zaakRepository.save(zaak);
+		}
+	}
+
+	private static final class Resultaat {
+
+		private final long[] tijden;
+		private final AtomicInteger fouten = new AtomicInteger();
+
+		private Resultaat(int aanvragen) {
+			this.tijden = new long[aanvragen];
+		}
+	}
+}
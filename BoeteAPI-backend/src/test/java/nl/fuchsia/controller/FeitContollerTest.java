@@ -1,18 +1,37 @@
 package nl.fuchsia.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.fuchsia.model.Feit;
 import nl.fuchsia.services.FeitService;
+import nl.fuchsia.services.VersieTeller;
+import nl.fuchsia.util.Paginering;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class FeitContollerTest {
 	@Mock
 	FeitService feitService;
+	@Spy
+	VersieTeller versieTeller = new VersieTeller();
+	@Spy
+	ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
 	@InjectMocks
 	FeitContoller feitContoller;
 
@@ -32,11 +51,75 @@ public class FeitContollerTest {
 
 	@Test
 	public void testGetFeiten() {
-		feitContoller.getFeiten();
+		feitContoller.getFeiten(null, null, request(null));
 
 		verify(feitService).getFeiten();
 	}
 
+	@Test
+	public void testGetFeitenPagina() {
+		feitContoller.getFeiten(5, null, request(null));
+
+		verify(feitService).getFeiten(5, Paginering.DEFAULT_LIMIT);
+	}
+
+	@Test
+	public void testGetFeitenLimitWordtBegrensd() {
+		feitContoller.getFeiten(null, 1_000_000, request(null));
+
+		verify(feitService).getFeiten(null, Paginering.MAX_LIMIT);
+	}
+
+	@Test
+	public void testGetFeitenNietGewijzigd() {
+		ServletWebRequest request = request(versieTeller.etag(VersieTeller.Tabel.FEIT));
+
+		assertThat(feitContoller.getFeiten(null, null, request)).isNull();
+
+		assertThat(request.getResponse().getStatus()).isEqualTo(304);
+		verifyNoInteractions(feitService);
+	}
+
+	/**
+	 * De ETag van de JSON lijst past niet op de NDJSON stream van dezelfde URL, en andersom.
+	 */
+	@Test
+	public void testStreamFeitenEigenETag() {
+		ServletWebRequest request = request(versieTeller.etag(VersieTeller.Tabel.FEIT));
+
+		assertThat(feitContoller.streamFeiten(request)).isNotNull();
+
+		assertThat(request.getResponse().getHeader("ETag")).isEqualTo(versieTeller.ndjsonEtag(VersieTeller.Tabel.FEIT));
+		assertThat(request.getResponse().getHeader("Vary")).isEqualTo("Accept");
+		assertThat(feitContoller.getFeiten(null, null, request(versieTeller.ndjsonEtag(VersieTeller.Tabel.FEIT)))).isNotNull();
+	}
+
+	@Test
+	public void testStreamFeiten() throws Exception {
+		when(feitService.getFeiten()).thenReturn(Arrays.asList(new Feit(1, "VBF-001", "Een", 4.00), new Feit(2, "VBF-002", "Twee", 5.00)));
+
+		ByteArrayOutputStream uitvoer = new ByteArrayOutputStream();
+		feitContoller.streamFeiten(request(null)).getBody().writeTo(uitvoer);
+
+		assertThat(new String(uitvoer.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(
+			"{\"feitnr\":1,\"feitcode\":\"VBF-001\",\"omschrijving\":\"Een\",\"bedrag\":4.0}\n"
+				+ "{\"feitnr\":2,\"feitcode\":\"VBF-002\",\"omschrijving\":\"Twee\",\"bedrag\":5.0}\n");
+	}
+
+	@Test
+	public void testZoekFeiten() {
+		feitContoller.zoekFeiten("rood licht", null, request(null));
+
+		verify(feitService).zoekFeiten("rood licht", Paginering.DEFAULT_LIMIT);
+	}
+
+	@Test
+	public void testZoekFeitenNietGewijzigd() {
+		assertThat(feitContoller.zoekFeiten("rood", null, request(versieTeller.etag(VersieTeller.Tabel.FEIT)))).isNull();
+
+		verifyNoInteractions(feitService);
+	}
+
 	@Test
 	public void testUpdateFeitById() {
 		Feit feit = new Feit();
@@ -45,4 +128,12 @@ public class FeitContollerTest {
 
 		verify(feitService).updateFeitById(feit);
 	}
+
+	private ServletWebRequest request(String etag) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		if (etag != null) {
+			request.addHeader("If-None-Match", etag);
+		}
+		return new ServletWebRequest(request, new MockHttpServletResponse());
+	}
 }
@@ -1,19 +1,36 @@
 package nl.fuchsia.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.fuchsia.model.Persoon;
 import nl.fuchsia.services.PersoonService;
+import nl.fuchsia.services.SaldoService;
+import nl.fuchsia.services.VersieTeller;
+import nl.fuchsia.util.Paginering;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class PersoonControllerTest {
 
 	@Mock
 	PersoonService persoonService;
+	@Mock
+	SaldoService saldoService;
+	@Spy
+	VersieTeller versieTeller = new VersieTeller();
+	@Spy
+	ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
 	@InjectMocks
 	PersoonController persoonController;
 
@@ -27,11 +44,31 @@ public class PersoonControllerTest {
 	 */
 	@Test
 	public void testGetPersonen() {
-		persoonController.getPersonen();
+		persoonController.getPersonen(null, null, request(null));
 
 		verify(persoonService).getPersonen();
 	}
 
+	/**
+	 * Test of met after en limit een pagina wordt opgehaald in de persoonService.
+	 */
+	@Test
+	public void testGetPersonenPagina() {
+		persoonController.getPersonen(20, 50, request(null));
+
+		verify(persoonService).getPersonen(20, 50);
+	}
+
+	/**
+	 * Test of er gezocht wordt via de persoonService, met de standaard limit.
+	 */
+	@Test
+	public void testZoekPersonen() {
+		persoonController.zoekPersonen("Houwing", null, request(null));
+
+		verify(persoonService).zoekPersonen("Houwing", Paginering.DEFAULT_LIMIT);
+	}
+
 	/**
 	 * Test of de methode addPersoon in de persoonService wordt aangeroepen.
 	 */
@@ -49,11 +86,34 @@ public class PersoonControllerTest {
 	 */
 	@Test
 	public void testGetPersoonById() {
-		persoonController.getPersoonById(1);
+		persoonController.getPersoonById(1, request(null));
 
 		verify(persoonService).getPersoonById(1);
 	}
 
+	/**
+	 * Test of bij een passende If-None-Match een 304 komt zonder dat de persoonService wordt aangeroepen.
+	 */
+	@Test
+	public void testGetPersoonByIdNietGewijzigd() {
+		ServletWebRequest request = request(versieTeller.etag(VersieTeller.Tabel.PERSOON));
+
+		assertThat(persoonController.getPersoonById(1, request)).isNull();
+
+		assertThat(request.getResponse().getStatus()).isEqualTo(304);
+		verifyNoInteractions(persoonService);
+	}
+
+	/**
+	 * Test of het saldo via de saldoService wordt opgehaald.
+	 */
+	@Test
+	public void testGetSaldo() {
+		persoonController.getSaldo(1);
+
+		verify(saldoService).getSaldo(1);
+	}
+
 	/**
 	 * Test of de methode updatePersoonById in de persoonService wordt aangeroepen.
 	 */
@@ -66,4 +126,12 @@ public class PersoonControllerTest {
 
 		verify(persoonService).updatePersoonById(persoonnr, persoon);
 	}
+
+	private ServletWebRequest request(String etag) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		if (etag != null) {
+			request.addHeader("If-None-Match", etag);
+		}
+		return new ServletWebRequest(request, new MockHttpServletResponse());
+	}
 }
@@ -1,24 +1,60 @@
 package nl.fuchsia.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.fuchsia.dto.ZaakAddFeitDto;
 import nl.fuchsia.dto.ZaakAddStatusDto;
 import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.dto.ZaakZoekDto;
+import nl.fuchsia.model.Payload;
+import nl.fuchsia.model.ZaakOverzicht;
+import nl.fuchsia.services.ZaakBatchService;
+import nl.fuchsia.services.ZaakOverzichtService;
+import nl.fuchsia.services.VersieTeller;
 import nl.fuchsia.services.ZaakService;
+import nl.fuchsia.services.ZaakStatusBatchService;
+import nl.fuchsia.util.Ndjson;
+import nl.fuchsia.util.Paginering;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-
+import org.mockito.Spy;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class ZaakControllerTest {
 
 	@Mock
 	ZaakService zaakService;
+	@Mock
+	ZaakBatchService zaakBatchService;
+	@Mock
+	ZaakStatusBatchService zaakStatusBatchService;
+	@Mock
+	ZaakOverzichtService zaakOverzichtService;
+	@Spy
+	VersieTeller versieTeller = new VersieTeller();
+	@Spy
+	ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
 	@InjectMocks
 	ZaakController zaakController;
 
@@ -29,11 +65,64 @@ public class ZaakControllerTest {
 
 	@Test
 	public void testGetZaken() {
-		zaakController.getZaken(null);
+		zaakController.getZaken(null, null, null, request(null));
 
 		verify(zaakService).getZaken();
 	}
 
+	@Test
+	public void testGetZakenPagina() {
+		ZaakDto zaakEen = new ZaakDto(11, LocalDate.of(2019, 2, 18), "Leeuwarden", 1, Arrays.asList(1));
+		ZaakDto zaakTwee = new ZaakDto(12, LocalDate.of(2019, 2, 18), "Leeuwarden", 1, Arrays.asList(1));
+		when(zaakService.getZaken(10, 2)).thenReturn(Arrays.asList(zaakEen, zaakTwee));
+
+		Payload<ZaakDto> payload = zaakController.getZaken(null, 10, 2, request(null)).getBody();
+
+		verify(zaakService).getZaken(10, 2);
+		assertThat(payload.getPayload()).hasSize(2);
+		assertThat(payload.getNextCursor()).isEqualTo(12);
+	}
+
+	@Test
+	void testGetZakenByPersoonLaatstePagina() {
+		ZaakDto zaak = new ZaakDto(11, LocalDate.of(2019, 2, 18), "Leeuwarden", 1, Arrays.asList(1));
+		when(zaakService.getZakenByPersoon(1, null, 2)).thenReturn(Arrays.asList(zaak));
+
+		Payload<ZaakDto> payload = zaakController.getZaken(1, null, 2, request(null)).getBody();
+
+		verify(zaakService).getZakenByPersoon(1, null, 2);
+		assertThat(payload.getNextCursor()).isNull();
+	}
+
+	@Test
+	void testZoekZaken() {
+		ZaakOverzicht zaak = new ZaakOverzicht(11, 1, "Rense", "Houwing", LocalDate.of(2019, 2, 18), "Leeuwarden", new BigDecimal("95.00"), 2, 1, LocalDate.of(2019, 2, 18));
+		ZaakZoekDto zoek = new ZaakZoekDto(null, 1, LocalDate.of(2019, 1, 1), null, "Leeu", 3);
+		when(zaakOverzichtService.zoek(zoek, 10, Paginering.DEFAULT_LIMIT)).thenReturn(Arrays.asList(zaak));
+
+		Payload<ZaakOverzicht> payload = zaakController.zoekZaken(zoek, 10, null, request(null)).getBody();
+
+		verify(zaakOverzichtService).zoek(zoek, 10, Paginering.DEFAULT_LIMIT);
+		assertThat(payload.getPayload()).containsExactly(zaak);
+		assertThat(payload.getNextCursor()).isNull();
+	}
+
+	@Test
+	void testStreamZaken() throws Exception {
+		ZaakDto zaakEen = new ZaakDto(11, LocalDate.of(2019, 2, 18), "Leeuwarden", 1, Arrays.asList(1));
+		ZaakDto zaakTwee = new ZaakDto(12, LocalDate.of(2019, 2, 19), "Drachten", 1, Arrays.asList(1, 2));
+		when(zaakService.stroomZaken(1)).thenReturn(verwerker -> Arrays.asList(zaakEen, zaakTwee).forEach(verwerker));
+
+		ResponseEntity<StreamingResponseBody> response = zaakController.streamZaken(1, request(null));
+		ByteArrayOutputStream uitvoer = new ByteArrayOutputStream();
+		response.getBody().writeTo(uitvoer);
+
+		assertThat(response.getHeaders().getContentType()).isEqualTo(Ndjson.MEDIA_TYPE);
+		String[] regels = new String(uitvoer.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertThat(regels).hasSize(2);
+		assertThat(objectMapper.readValue(regels[1], ZaakDto.class)).isEqualToComparingFieldByField(zaakTwee);
+	}
+
 	@Test
 	public void testAddZaak() {
 		ZaakDto zaakDto = new ZaakDto();
@@ -43,11 +132,20 @@ public class ZaakControllerTest {
 		verify(zaakService).addZaak(zaakDto);
 	}
 
+	@Test
+	public void testAddZaken() {
+		List<ZaakDto> zaakDtos = Arrays.asList(new ZaakDto(), new ZaakDto());
+
+		zaakController.addZaken(zaakDtos);
+
+		verify(zaakBatchService).addZaken(zaakDtos);
+	}
+
 	@Test
 	void testGetZakenByPersoon() {
 		int persoonnr = 1;
 
-		zaakController.getZaken(persoonnr);
+		zaakController.getZaken(persoonnr, null, null, request(null));
 
 		verify(zaakService).getZakenByPersoon(persoonnr);
 	}
@@ -66,11 +164,32 @@ public class ZaakControllerTest {
 
 	@Test
 	void testGetZaakById() {
-		zaakService.getZaakById(1);
+		zaakController.getZaakById(1, request(null));
 
 		verify(zaakService).getZaakById(1);
 	}
 
+	@Test
+	void testGetZakenNietGewijzigd() {
+		ServletWebRequest request = request(versieTeller.etag(VersieTeller.Tabel.ZAAK));
+
+		assertThat(zaakController.getZaken(null, null, null, request)).isNull();
+
+		assertThat(request.getResponse().getStatus()).isEqualTo(304);
+		verifyNoInteractions(zaakService);
+	}
+
+	@Test
+	void testGetZakenGewijzigdNaVerhogen() {
+		ServletWebRequest request = request(versieTeller.etag(VersieTeller.Tabel.ZAAK));
+		versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+
+		zaakController.getZaken(null, null, null, request);
+
+		verify(zaakService).getZaken();
+		assertThat(request.getResponse().getHeader("ETag")).isEqualTo(versieTeller.etag(VersieTeller.Tabel.ZAAK));
+	}
+
 	@Test
 	void addZaakStatus() {
 		ZaakAddStatusDto zaakAddStatusDto = new ZaakAddStatusDto();
@@ -79,4 +198,12 @@ public class ZaakControllerTest {
 
 		verify(zaakService).updateZaakStatus(1, zaakAddStatusDto);
 	}
+
+	private ServletWebRequest request(String etag) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		if (etag != null) {
+			request.addHeader("If-None-Match", etag);
+		}
+		return new ServletWebRequest(request, new MockHttpServletResponse());
+	}
 }
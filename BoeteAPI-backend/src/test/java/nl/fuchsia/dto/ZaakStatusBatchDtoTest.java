@@ -0,0 +1,39 @@
+package nl.fuchsia.dto;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZaakStatusBatchDtoTest {
+
+	private static Validator validator;
+
+	@BeforeAll
+	public static void setupAll() {
+		ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
+		validator = factory.getValidator();
+	}
+
+	@Test
+	void zaaknrsOfFilter() {
+		ZaakStatusBatchDto geen = new ZaakStatusBatchDto(2, null, null);
+		ZaakStatusBatchDto allebei = new ZaakStatusBatchDto(2, 1, 30);
+		allebei.setZaaknrs(Arrays.asList(1, 2));
+
+		assertThat(validator.validate(new ZaakStatusBatchDto(2, Arrays.asList(1, 2)))).isEmpty();
+		assertThat(validator.validate(new ZaakStatusBatchDto(2, 1, 30))).isEmpty();
+		for (ZaakStatusBatchDto ongeldig : Arrays.asList(geen, allebei)) {
+			Set<ConstraintViolation<ZaakStatusBatchDto>> constraintViolations = validator.validate(ongeldig);
+			assertThat(constraintViolations).hasSize(1);
+			assertThat(constraintViolations.iterator().next().getMessage()).isEqualTo("Geef zaaknrs of een huidigeStatusnr op, niet allebei");
+		}
+	}
+}
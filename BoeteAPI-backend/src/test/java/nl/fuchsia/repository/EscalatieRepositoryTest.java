@@ -0,0 +1,129 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.EscalatieCheckpoint;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.services.FeitCatalogus;
+import nl.fuchsia.services.StatusRegister;
+import nl.fuchsia.services.ZaakService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * De queries van de escalatie: checkpoints, verlopen zaken zoeken in het leesmodel en de toeslag toevoegen.
+ */
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@SpringBootTest(classes = Application.class)
+public class EscalatieRepositoryTest {
+
+	private static final int OPEN = 1;
+	private static final LocalDate PEILDATUM = LocalDate.now().minusDays(30);
+
+	@PersistenceContext(unitName = "entityManagerFactory")
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EscalatieRepository escalatieRepository;
+
+	@Autowired
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+
+	@Autowired
+	private ZaakregelRepository zaakregelRepository;
+
+	@Autowired
+	private ZaakService zaakService;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private FeitCatalogus feitCatalogus;
+
+	@Autowired
+	private StatusRegister statusRegister;
+
+	private Persoon persoon;
+	private Feit feit;
+	private Feit toeslag;
+
+	@BeforeEach
+	public void setup() {
+		persoon = persoonRepository.save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654392", LocalDate.of(1990, 10, 12)));
+		feit = feitRepository.save(new Feit("VBF-992", "Test", 10.00));
+		toeslag = feitRepository.save(new Feit("VBF-993", "Toeslag", 15.00));
+		if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM status WHERE statusnr = ?", Integer.class, OPEN) == 0) {
+			jdbcTemplate.update("INSERT INTO status (statusnr, omschrijving) VALUES (?, 'Open')", OPEN);
+		}
+		entityManager.flush();
+		feitCatalogus.herlaad();
+		statusRegister.herlaad();
+	}
+
+	@Test
+	public void testCheckpoints() {
+		escalatieRepository.begin(Arrays.asList(new EscalatieCheckpoint(1, 10, PEILDATUM, 0), new EscalatieCheckpoint(11, 15, PEILDATUM, 10)));
+		escalatieRepository.voortgang(1, 10);
+
+		assertThat(escalatieRepository.findAll()).extracting(EscalatieCheckpoint::isKlaar).containsExactly(true, false);
+		assertThat(escalatieRepository.vergrendel(11).get().getPeildatum()).isEqualTo(PEILDATUM);
+		assertThat(escalatieRepository.vergrendel(21)).isEmpty();
+
+		// Een nieuwe run vervangt de bereiken van de vorige.
+		escalatieRepository.begin(Collections.singletonList(new EscalatieCheckpoint(1, 20, PEILDATUM.plusDays(1), 0)));
+		assertThat(escalatieRepository.findAll()).extracting(EscalatieCheckpoint::getTot).containsExactly(20);
+	}
+
+	@Test
+	public void testZoekVerlopen() {
+		int verlopen = nieuweZaak(PEILDATUM.minusDays(1));
+		int opTijd = nieuweZaak(PEILDATUM.plusDays(1));
+		int opPeildatum = nieuweZaak(PEILDATUM);
+
+		assertThat(zaakOverzichtRepository.zoekVerlopen(OPEN, verlopen - 1, opPeildatum, PEILDATUM, 10)).containsExactly(verlopen, opPeildatum);
+		assertThat(zaakOverzichtRepository.zoekVerlopen(OPEN, verlopen, opPeildatum, PEILDATUM, 10)).containsExactly(opPeildatum);
+		assertThat(zaakOverzichtRepository.zoekVerlopen(OPEN, verlopen - 1, opTijd, PEILDATUM, 1)).containsExactly(verlopen);
+	}
+
+	@Test
+	public void testToeslagEenKeer() {
+		int zaaknr = nieuweZaak(PEILDATUM);
+		int andereZaak = nieuweZaak(PEILDATUM);
+
+		assertThat(zaakregelRepository.voegFeitToe(Collections.singletonList(zaaknr), toeslag.getFeitnr())).containsExactly(zaaknr);
+		assertThat(zaakregelRepository.voegFeitToe(Arrays.asList(zaaknr, andereZaak), toeslag.getFeitnr())).containsExactly(andereZaak);
+		zaakOverzichtRepository.vernieuw(Arrays.asList(zaaknr, andereZaak));
+
+		assertThat(zaakregelRepository.getFeitnrs(zaaknr)).containsExactlyInAnyOrder(feit.getFeitnr(), toeslag.getFeitnr());
+		assertThat(zaakOverzichtRepository.findBereik(zaaknr, zaaknr).get(0).getAantalFeiten()).isEqualTo(2);
+	}
+
+	// Een zaak die sinds statusdatum open is, in de zaak en in het leesmodel.
+	private int nieuweZaak(LocalDate statusdatum) {
+		ZaakDto zaak = zaakService.addZaak(new ZaakDto(null, statusdatum, "Drachten", persoon.getPersoonnr(), Collections.singletonList(feit.getFeitnr())));
+		jdbcTemplate.update("UPDATE zaakstatus SET veranderdatum = ? WHERE zaaknr = ?", statusdatum, zaak.getZaaknr());
+		zaakOverzichtRepository.vernieuw(zaak.getZaaknr());
+		return zaak.getZaaknr();
+	}
+}
@@ -0,0 +1,125 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakAddFeitDto;
+import nl.fuchsia.dto.ZaakAddStatusDto;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.model.PersoonSaldo;
+import nl.fuchsia.services.FeitCatalogus;
+import nl.fuchsia.services.FeitService;
+import nl.fuchsia.services.SaldoService;
+import nl.fuchsia.services.StatusRegister;
+import nl.fuchsia.services.ZaakService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Status 90 sluit een zaak af. Na elke wijziging via de services moet het bijgehouden saldo gelijk zijn aan een saldo dat
+ * opnieuw vanuit de zaken berekend wordt.
+ */
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@SpringBootTest(classes = Application.class, properties = "boeteapi.status.afgesloten=90")
+public class SaldoRepositoryTest {
+
+	private static final int BETAALD = 90;
+
+	@PersistenceContext(unitName = "entityManagerFactory")
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private SaldoRepository saldoRepository;
+
+	@Autowired
+	private SaldoService saldoService;
+
+	@Autowired
+	private ZaakService zaakService;
+
+	@Autowired
+	private FeitService feitService;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private FeitCatalogus feitCatalogus;
+
+	@Autowired
+	private StatusRegister statusRegister;
+
+	private Persoon persoon;
+	private Feit tienEuro;
+	private Feit tweeFijftig;
+
+	@BeforeEach
+	public void setup() {
+		jdbcTemplate.update("DELETE FROM persoonsaldo");
+		persoon = persoonRepository.save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654390", LocalDate.of(1990, 10, 12)));
+		tienEuro = feitRepository.save(new Feit("VBF-981", "Test", 10.00));
+		tweeFijftig = feitRepository.save(new Feit("VBF-982", "Test", 2.50));
+		jdbcTemplate.update("INSERT INTO status (statusnr, omschrijving) VALUES (?, 'Betaald')", BETAALD);
+		if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM status WHERE statusnr = 1", Integer.class) == 0) {
+			jdbcTemplate.update("INSERT INTO status (statusnr, omschrijving) VALUES (1, 'Open')");
+		}
+		entityManager.flush();
+		feitCatalogus.herlaad();
+		statusRegister.herlaad();
+	}
+
+	@Test
+	public void testSaldoVolgtWijzigingen() {
+		ZaakDto eerste = zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Drachten", persoon.getPersoonnr(), Collections.singletonList(tienEuro.getFeitnr())));
+		assertThat(saldoService.getSaldo(persoon.getPersoonnr())).isEqualTo(new PersoonSaldo(persoon.getPersoonnr(), 1, 1, new BigDecimal("10.00")));
+
+		ZaakDto tweede = zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 13), "Sneek", persoon.getPersoonnr(), Arrays.asList(tienEuro.getFeitnr(), tweeFijftig.getFeitnr())));
+		zaakService.updateZaakFeit(eerste.getZaaknr(), Collections.singletonList(new ZaakAddFeitDto(tweeFijftig.getFeitnr())));
+		assertThat(saldoService.getSaldo(persoon.getPersoonnr())).isEqualTo(new PersoonSaldo(persoon.getPersoonnr(), 2, 2, new BigDecimal("25.00")));
+
+		zaakService.updateZaakStatus(tweede.getZaaknr(), new ZaakAddStatusDto(BETAALD));
+		assertThat(saldoService.getSaldo(persoon.getPersoonnr())).isEqualTo(new PersoonSaldo(persoon.getPersoonnr(), 2, 1, new BigDecimal("12.50")));
+
+		feitService.updateFeitById(new Feit(tienEuro.getFeitnr(), tienEuro.getFeitcode(), "Duurder", 20.00));
+		assertThat(saldoService.getSaldo(persoon.getPersoonnr())).isEqualTo(new PersoonSaldo(persoon.getPersoonnr(), 2, 1, new BigDecimal("22.50")));
+
+		assertThat(saldoService.getSaldo(persoon.getPersoonnr())).isEqualTo(herberekend(persoon.getPersoonnr()));
+	}
+
+	@Test
+	public void testMaakAanBerekentVanuitZaken() {
+		ZaakDto zaak = zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Drachten", persoon.getPersoonnr(), Arrays.asList(tienEuro.getFeitnr(), tweeFijftig.getFeitnr())));
+		zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Drachten", persoon.getPersoonnr(), Collections.singletonList(tweeFijftig.getFeitnr())));
+		zaakService.updateZaakStatus(zaak.getZaaknr(), new ZaakAddStatusDto(BETAALD));
+
+		assertThat(herberekend(persoon.getPersoonnr())).isEqualTo(new PersoonSaldo(persoon.getPersoonnr(), 2, 1, new BigDecimal("2.50")));
+		assertThat(saldoRepository.maakAan(persoon.getPersoonnr())).isFalse();
+		assertThat(saldoRepository.maakAan(-1)).isFalse();
+	}
+
+	private PersoonSaldo herberekend(int persoonnr) {
+		jdbcTemplate.update("DELETE FROM persoonsaldo WHERE persoonnr = ?", persoonnr);
+		assertThat(saldoRepository.maakAan(persoonnr)).isTrue();
+		return saldoRepository.findByPersoonnr(persoonnr).get();
+	}
+}
@@ -0,0 +1,103 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.model.Status;
+import nl.fuchsia.util.SqlMeting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@SpringBootTest(classes = Application.class)
+public class ZaakBatchRepositoryTest {
+
+	@PersistenceContext(unitName = "entityManagerFactory")
+	private EntityManager entityManager;
+
+	@Autowired
+	private ZaakBatchRepository zaakBatchRepository;
+
+	@Autowired
+	private ZaakDtoRepository zaakDtoRepository;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private StatusRepository statusRepository;
+
+	private Persoon persoon;
+	private Feit feitEen;
+	private Feit feitTwee;
+	private Status status;
+
+	@BeforeEach
+	public void setup() {
+		entityManager.createQuery("DELETE FROM ZaakStatus").executeUpdate();
+		entityManager.createNativeQuery("DELETE FROM zaakregel").executeUpdate();
+		entityManager.createQuery("DELETE FROM Zaak").executeUpdate();
+
+		persoon = persoonRepository.save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654331", LocalDate.of(1990, 10, 12)));
+		feitEen = feitRepository.save(new Feit("VBF-921", "Test", 4.00));
+		feitTwee = feitRepository.save(new Feit("VBF-922", "Test", 5.00));
+		status = statusRepository.save(new Status("Open"));
+		entityManager.flush();
+	}
+
+	@Test
+	public void testAddZaken() {
+		List<ZaakDto> zaken = Arrays.asList(
+			new ZaakDto(null, LocalDate.of(2019, 12, 12), "Leeuwarden", persoon.getPersoonnr(), Arrays.asList(feitEen.getFeitnr(), feitTwee.getFeitnr())),
+			new ZaakDto(null, LocalDate.of(2019, 12, 13), "Drachten", persoon.getPersoonnr(), Arrays.asList(feitTwee.getFeitnr())));
+
+		List<Integer> zaaknrs = zaakBatchRepository.addZaken(zaken, status.getStatusnr(), LocalDate.of(2020, 1, 1));
+
+		assertThat(zaaknrs).hasSize(2).doesNotHaveDuplicates();
+		List<ZaakDto> opgeslagen = zaakDtoRepository.findAllByPersoonnr(persoon.getPersoonnr());
+		assertThat(opgeslagen).extracting(ZaakDto::getZaaknr).containsExactlyInAnyOrderElementsOf(zaaknrs);
+		for (ZaakDto zaakDto : opgeslagen) {
+			ZaakDto invoer = zaken.get(zaaknrs.indexOf(zaakDto.getZaaknr()));
+			assertThat(zaakDto.getPleeglocatie()).isEqualTo(invoer.getPleeglocatie());
+			assertThat(zaakDto.getOvertredingsdatum()).isEqualTo(invoer.getOvertredingsdatum());
+			assertThat(zaakDto.getFeitnrs()).containsExactlyInAnyOrderElementsOf(invoer.getFeitnrs());
+			assertThat(zaakDto.getZaakstatusnr()).hasSize(1);
+		}
+	}
+
+	/**
+	 * Het aantal statements mag niet meegroeien met het aantal zaken.
+	 */
+	@Test
+	public void testAantalStatementsConstant() {
+		int klein = SqlMeting.meet(() -> zaakBatchRepository.addZaken(maakZaken(2), status.getStatusnr(), LocalDate.now())).getStatements();
+		int groot = SqlMeting.meet(() -> zaakBatchRepository.addZaken(maakZaken(50), status.getStatusnr(), LocalDate.now())).getStatements();
+
+		assertThat(groot).isEqualTo(klein);
+	}
+
+	private List<ZaakDto> maakZaken(int aantal) {
+		List<ZaakDto> zaken = new ArrayList<>();
+		for (int i = 0; i < aantal; i++) {
+			zaken.add(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Leeuwarden " + i, persoon.getPersoonnr(), Arrays.asList(feitEen.getFeitnr())));
+		}
+		return zaken;
+	}
+}
@@ -0,0 +1,168 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.*;
+import nl.fuchsia.services.ZaakDtoService;
+import nl.fuchsia.util.SqlMeting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@SpringBootTest(classes = Application.class)
+public class ZaakDtoRepositoryTest {
+
+	@PersistenceContext(unitName = "entityManagerFactory")
+	private EntityManager entityManager;
+
+	@Autowired
+	private ZaakDtoRepository zaakDtoRepository;
+
+	@Autowired
+	private StroomRepository stroomRepository;
+
+	@Autowired
+	private ZaakDtoService zaakDtoService;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private StatusRepository statusRepository;
+
+	@Autowired
+	private ZaakRepository zaakRepository;
+
+	private Persoon persoon;
+	private Persoon anderePersoon;
+	private List<Feit> feiten;
+	private Status status;
+
+	@BeforeEach
+	public void setup() {
+		entityManager.createQuery("DELETE FROM ZaakStatus").executeUpdate();
+		entityManager.createNativeQuery("DELETE FROM zaakregel").executeUpdate();
+		entityManager.createQuery("DELETE FROM Zaak").executeUpdate();
+
+		persoon = persoonRepository.save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654321", LocalDate.of(1990, 10, 12)));
+		anderePersoon = persoonRepository.save(new Persoon("Henk", "V", "Straat", "1", "9999 AA", "Sneek", "987654322", LocalDate.of(1990, 1, 1)));
+		feiten = new ArrayList<>(Arrays.asList(
+			feitRepository.save(new Feit("VBF-911", "Test", 4.00)),
+			feitRepository.save(new Feit("VBF-912", "Test", 5.00))));
+		status = statusRepository.save(new Status("Open"));
+	}
+
+	/**
+	 * De projectie moet dezelfde ZaakDto's opleveren als het omzetten van de entiteiten.
+	 */
+	@Test
+	public void testFindAllGelijkAanEntiteiten() {
+		voegZakenToe(persoon, 5);
+		voegZakenToe(anderePersoon, 2);
+		entityManager.clear();
+
+		List<ZaakDto> verwacht = new ArrayList<>();
+		for (Zaak zaak : zaakRepository.findAll()) {
+			verwacht.add(zaakDtoService.setZaakDto(zaak));
+		}
+
+		assertThat(zaakDtoRepository.findAll()).usingFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(verwacht);
+	}
+
+	@Test
+	public void testFindAllIsEenQuery() {
+		voegZakenToe(persoon, 10);
+
+		assertThat(SqlMeting.meet(() -> assertThat(zaakDtoRepository.findAll()).hasSize(10)).getStatements()).isEqualTo(1);
+	}
+
+	@Test
+	public void testFindAllByPersoonnr() {
+		voegZakenToe(persoon, 3);
+		voegZakenToe(anderePersoon, 2);
+
+		List<ZaakDto> zaken = zaakDtoRepository.findAllByPersoonnr(anderePersoon.getPersoonnr());
+
+		assertThat(zaken).hasSize(2);
+		assertThat(zaken).allMatch(zaakDto -> zaakDto.getPersoonnr().equals(anderePersoon.getPersoonnr()));
+		assertThat(zaken.get(0).getFeitnrs()).containsExactlyInAnyOrder(feiten.get(0).getFeitnr(), feiten.get(1).getFeitnr()).isSorted();
+		assertThat(zaken.get(0).getZaakstatusnr()).hasSize(1);
+	}
+
+	@Test
+	public void testPaginering() {
+		voegZakenToe(persoon, 25);
+
+		List<ZaakDto> eerstePagina = zaakDtoRepository.findAll(0, 10);
+		Integer after = eerstePagina.get(9).getZaaknr();
+		List<ZaakDto> tweedePagina = zaakDtoRepository.findAll(after, 10);
+		List<ZaakDto> laatstePagina = zaakDtoRepository.findAllByPersoonnr(persoon.getPersoonnr(), tweedePagina.get(9).getZaaknr(), 10);
+
+		assertThat(eerstePagina).hasSize(10);
+		assertThat(tweedePagina).hasSize(10);
+		assertThat(tweedePagina.get(0).getZaaknr()).isGreaterThan(after);
+		assertThat(laatstePagina).hasSize(5);
+	}
+
+	/**
+	 * De stroom leest met dezelfde query als findAll, alleen met een cursor.
+	 */
+	@Test
+	public void testStroomGelijkAanFindAll() {
+		voegZakenToe(persoon, 5);
+		voegZakenToe(anderePersoon, 2);
+
+		List<ZaakDto> gestroomd = new ArrayList<>();
+		stroomRepository.getZaken().verwerk(gestroomd::add);
+
+		assertThat(gestroomd).usingFieldByFieldElementComparator().containsExactlyElementsOf(zaakDtoRepository.findAll());
+	}
+
+	@Test
+	public void testStroomByPersoonnr() {
+		voegZakenToe(persoon, 3);
+		voegZakenToe(anderePersoon, 2);
+
+		List<ZaakDto> gestroomd = new ArrayList<>();
+		stroomRepository.getZakenByPersoonnr(anderePersoon.getPersoonnr()).verwerk(gestroomd::add);
+
+		assertThat(gestroomd).extracting(ZaakDto::getPersoonnr).containsExactly(anderePersoon.getPersoonnr(), anderePersoon.getPersoonnr());
+	}
+
+	@Test
+	public void testStroomPersonen() {
+		entityManager.flush();
+		List<Persoon> gestroomd = new ArrayList<>();
+		stroomRepository.getPersonen().verwerk(gestroomd::add);
+
+		assertThat(gestroomd).containsExactlyElementsOf(persoonRepository.findAll(Sort.by("persoonnr")));
+	}
+
+	private void voegZakenToe(Persoon persoon, int aantal) {
+		for (int i = 0; i < aantal; i++) {
+			Zaak zaak = new Zaak(LocalDate.of(2019, 12, 12), "Drachten", persoon, new ArrayList<>(feiten));
+			List<ZaakStatus> zaakStatussen = new ArrayList<>();
+			zaakStatussen.add(new ZaakStatus(LocalDate.now(), status, zaak));
+			zaak.setZaakstatus(zaakStatussen);
+			zaakRepository.save(zaak);
+		}
+		entityManager.flush();
+	}
+}
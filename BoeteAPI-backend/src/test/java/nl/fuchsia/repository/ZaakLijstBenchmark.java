@@ -0,0 +1,107 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.Zaak;
+import nl.fuchsia.services.ZaakDtoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vergelijkt het ophalen van de ZaakDto lijst via de entiteiten (ZaakRepository + ZaakDtoService) met de SQL projectie
+ * van {@link ZaakDtoRepository}.
+ * <p>
+ * Draait niet mee met de gewone tests, start met: mvn test -Dtest=ZaakLijstBenchmark [-Dbenchmark.zaken=5000]
+ */
+@SpringBootTest(classes = Application.class)
+public class ZaakLijstBenchmark {
+
+	private static final int AANTAL_ZAKEN = Integer.getInteger("benchmark.zaken", 5000);
+	private static final int OPWARMEN = 5;
+	private static final int METINGEN = 20;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ZaakRepository zaakRepository;
+
+	@Autowired
+	private ZaakDtoRepository zaakDtoRepository;
+
+	@Autowired
+	private ZaakDtoService zaakDtoService;
+
+	@BeforeEach
+	public void setup() {
+		verwijderGegevens();
+		jdbcTemplate.update("INSERT INTO persoon (voornaam, achternaam, straat, huisnummer, postcode, woonplaats, bsn, geboortedatum) VALUES ('Rense', 'Houwing', 'De buren', '10', '8402 GH', 'Drachten', '999999999', ?)",
+			LocalDate.of(1990, 10, 12));
+		jdbcTemplate.update("INSERT INTO feit (feitcode, omschrijving, bedrag) VALUES ('VBF-991', 'Benchmark', 4.0), ('VBF-992', 'Benchmark', 5.0)");
+		jdbcTemplate.update("INSERT INTO status (omschrijving) VALUES ('Open')");
+
+		List<Object[]> zaken = new ArrayList<>();
+		for (int i = 0; i < AANTAL_ZAKEN; i++) {
+			zaken.add(new Object[]{LocalDate.of(2019, 12, 12), "Drachten " + i});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO zaak (persoonnr, overtredingsdatum, pleeglocatie) SELECT persoonnr, ?, ? FROM persoon WHERE bsn = '999999999'", zaken);
+		jdbcTemplate.update("INSERT INTO zaakregel (zaaknr, feitnr) SELECT z.zaaknr, f.feitnr FROM zaak z, feit f WHERE f.feitcode IN ('VBF-991', 'VBF-992')");
+		jdbcTemplate.update("INSERT INTO zaakstatus (zaaknr, statusnr, veranderdatum) SELECT z.zaaknr, s.statusnr, ? FROM zaak z, status s", LocalDate.now());
+	}
+
+	@AfterEach
+	public void opruimen() {
+		verwijderGegevens();
+	}
+
+	@Test
+	public void vergelijkLeesPaden() {
+		double entiteiten = meet(() -> {
+			// Zonder lege cache zou het entiteitenpad na de eerste meting alleen nog objecten uit het geheugen halen.
+			entityManagerFactory.getCache().evictAll();
+			List<ZaakDto> zaakDtos = new ArrayList<>();
+			for (Zaak zaak : zaakRepository.findAll()) {
+				zaakDtos.add(zaakDtoService.setZaakDto(zaak));
+			}
+			return zaakDtos;
+		});
+		double projectie = meet(() -> zaakDtoRepository.findAll());
+
+		System.out.printf("ZaakDto lijst met %d zaken: entiteiten %.2f ms/op, projectie %.2f ms/op (%.1fx)%n", AANTAL_ZAKEN, entiteiten, projectie, entiteiten / projectie);
+	}
+
+	private double meet(Supplier<List<ZaakDto>> leesPad) {
+		for (int i = 0; i < OPWARMEN; i++) {
+			assertThat(leesPad.get()).hasSize(AANTAL_ZAKEN);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < METINGEN; i++) {
+			assertThat(leesPad.get()).hasSize(AANTAL_ZAKEN);
+		}
+		return (System.nanoTime() - start) / 1_000_000.0 / METINGEN;
+	}
+
+	private void verwijderGegevens() {
+		jdbcTemplate.update("DELETE FROM zaakstatus");
+		jdbcTemplate.update("DELETE FROM zaakregel");
+		jdbcTemplate.update("DELETE FROM zaak");
+		jdbcTemplate.update("DELETE FROM feit WHERE feitcode IN ('VBF-991', 'VBF-992')");
+		jdbcTemplate.update("DELETE FROM status WHERE omschrijving = 'Open'");
+		jdbcTemplate.update("DELETE FROM persoon WHERE bsn = '999999999'");
+	}
+}
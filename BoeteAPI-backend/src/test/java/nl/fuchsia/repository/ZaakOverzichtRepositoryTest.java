@@ -0,0 +1,183 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakAddFeitDto;
+import nl.fuchsia.dto.ZaakAddStatusDto;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.dto.ZaakZoekDto;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.model.Status;
+import nl.fuchsia.model.ZaakOverzicht;
+import nl.fuchsia.services.FeitCatalogus;
+import nl.fuchsia.services.FeitService;
+import nl.fuchsia.services.PersoonService;
+import nl.fuchsia.services.StatusRegister;
+import nl.fuchsia.services.ZaakBatchService;
+import nl.fuchsia.services.ZaakService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Na elke wijziging via de services moet zaak_overzicht gelijk zijn aan wat er vanuit de zaken berekend wordt.
+ */
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@SpringBootTest(classes = Application.class)
+public class ZaakOverzichtRepositoryTest {
+
+	@PersistenceContext(unitName = "entityManagerFactory")
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+
+	@Autowired
+	private ZaakService zaakService;
+
+	@Autowired
+	private ZaakBatchService zaakBatchService;
+
+	@Autowired
+	private FeitService feitService;
+
+	@Autowired
+	private PersoonService persoonService;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private StatusRepository statusRepository;
+
+	@Autowired
+	private FeitCatalogus feitCatalogus;
+
+	@Autowired
+	private StatusRegister statusRegister;
+
+	private Persoon persoon;
+	private Feit tienEuro;
+	private Feit tweeFijftig;
+	private Status betaald;
+
+	@BeforeEach
+	public void setup() {
+		jdbcTemplate.update("DELETE FROM zaak_overzicht");
+		persoon = persoonRepository.save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654391", LocalDate.of(1990, 10, 12)));
+		tienEuro = feitRepository.save(new Feit("VBF-971", "Test", 10.00));
+		tweeFijftig = feitRepository.save(new Feit("VBF-972", "Test", 2.50));
+		if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM status WHERE statusnr = 1", Integer.class) == 0) {
+			jdbcTemplate.update("INSERT INTO status (statusnr, omschrijving) VALUES (1, 'Open')");
+		}
+		betaald = statusRepository.save(new Status("Betaald"));
+		entityManager.flush();
+		feitCatalogus.herlaad();
+		statusRegister.herlaad();
+	}
+
+	@Test
+	public void testOverzichtVolgtWijzigingen() {
+		ZaakDto zaak = zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Drachten", persoon.getPersoonnr(), Collections.singletonList(tienEuro.getFeitnr())));
+		assertThat(opgeslagen(zaak.getZaaknr())).isEqualTo(new ZaakOverzicht(zaak.getZaaknr(), persoon.getPersoonnr(), "Rense", "Houwing", LocalDate.of(2019, 12, 12),
+			"Drachten", new BigDecimal("10.00"), 1, 1, LocalDate.now()));
+
+		zaakService.updateZaakFeit(zaak.getZaaknr(), Collections.singletonList(new ZaakAddFeitDto(tweeFijftig.getFeitnr())));
+		zaakService.updateZaakStatus(zaak.getZaaknr(), new ZaakAddStatusDto(betaald.getStatusnr()));
+		feitService.updateFeitById(new Feit(tienEuro.getFeitnr(), tienEuro.getFeitcode(), "Duurder", 20.00));
+		persoonService.updatePersoonById(persoon.getPersoonnr(), new Persoon("Henk", "de Vries", "De buren", "10", "8402 GH", "Drachten", "987654391",
+			LocalDate.of(1990, 10, 12)));
+		entityManager.flush();
+
+		ZaakOverzicht overzicht = opgeslagen(zaak.getZaaknr());
+		assertThat(overzicht.getTotaalBedrag()).isEqualByComparingTo("22.50");
+		assertThat(overzicht.getAantalFeiten()).isEqualTo(2);
+		assertThat(overzicht.getStatusnr()).isEqualTo(betaald.getStatusnr());
+		assertThat(overzicht.getAchternaam()).isEqualTo("de Vries");
+		assertThat(overzicht).isEqualTo(berekend(zaak.getZaaknr()));
+	}
+
+	@Test
+	public void testBatchEnZoeken() {
+		List<Integer> zaaknrs = Arrays.asList(
+			zaakBatchService.addZaken(Collections.singletonList(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Sneek", persoon.getPersoonnr(),
+				Arrays.asList(tienEuro.getFeitnr(), tweeFijftig.getFeitnr())))).get(0).getZaaknr(),
+			zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 13), "Drachten", persoon.getPersoonnr(), Collections.singletonList(tienEuro.getFeitnr()))).getZaaknr());
+		zaakService.updateZaakStatus(zaaknrs.get(1), new ZaakAddStatusDto(betaald.getStatusnr()));
+		// De batch en EclipseLink halen elk hun eigen blok uit de sequence, de volgorde van de nummers is niet die van toevoegen.
+		List<Integer> oplopend = new ArrayList<>(zaaknrs);
+		Collections.sort(oplopend);
+
+		assertThat(opgeslagen(zaaknrs.get(0))).isEqualTo(berekend(zaaknrs.get(0)));
+		assertThat(zoek(new ZaakZoekDto(persoon.getPersoonnr(), null, null, null, null, null), 0)).containsExactlyElementsOf(oplopend);
+		assertThat(zoek(new ZaakZoekDto(persoon.getPersoonnr(), null, null, null, null, null), oplopend.get(0))).containsExactly(oplopend.get(1));
+		assertThat(zoek(new ZaakZoekDto(null, betaald.getStatusnr(), null, null, null, null), 0)).containsExactly(zaaknrs.get(1));
+		assertThat(zoek(new ZaakZoekDto(null, null, LocalDate.of(2019, 12, 13), LocalDate.of(2019, 12, 31), null, null), 0)).containsExactly(zaaknrs.get(1));
+		assertThat(zoek(new ZaakZoekDto(null, null, null, LocalDate.of(2019, 12, 12), null, null), 0)).containsExactly(zaaknrs.get(0));
+		assertThat(zoek(new ZaakZoekDto(null, null, null, null, "Sn", null), 0)).containsExactly(zaaknrs.get(0));
+		assertThat(zoek(new ZaakZoekDto(null, null, null, null, null, tweeFijftig.getFeitnr()), 0)).containsExactly(zaaknrs.get(0));
+		assertThat(zoek(new ZaakZoekDto(persoon.getPersoonnr(), 1, LocalDate.of(2019, 12, 1), null, "Dr", tienEuro.getFeitnr()), 0)).isEmpty();
+	}
+
+	/**
+	 * Een % of _ in de pleeglocatie is geen jokerteken.
+	 */
+	@Test
+	public void testZoekPleeglocatieZonderJokertekens() {
+		ZaakDto procent = zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "100% Drachten", persoon.getPersoonnr(), Collections.singletonList(tienEuro.getFeitnr())));
+		zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "1000 Drachten", persoon.getPersoonnr(), Collections.singletonList(tienEuro.getFeitnr())));
+		zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "10_ Drachten", persoon.getPersoonnr(), Collections.singletonList(tienEuro.getFeitnr())));
+
+		assertThat(zoek(new ZaakZoekDto(null, null, null, null, "100%", null), 0)).containsExactly(procent.getZaaknr());
+		assertThat(zoek(new ZaakZoekDto(null, null, null, null, "10_", null), 0)).hasSize(1);
+	}
+
+	@Test
+	public void testHerbouw() {
+		ZaakDto zaak = zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Drachten", persoon.getPersoonnr(), Collections.singletonList(tienEuro.getFeitnr())));
+		jdbcTemplate.update("UPDATE zaak_overzicht SET totaal_bedrag = 0 WHERE zaaknr = ?", zaak.getZaaknr());
+		jdbcTemplate.update("INSERT INTO zaak_overzicht (zaaknr, persoonnr, overtredingsdatum, totaal_bedrag, aantal_feiten) VALUES (?, ?, ?, 0, 0)",
+			zaak.getZaaknr() + 1, persoon.getPersoonnr(), LocalDate.of(2019, 12, 12));
+
+		assertThat(zaakOverzichtRepository.getMaxZaaknr()).isEqualTo(zaak.getZaaknr() + 1);
+		assertThat(zaakOverzichtRepository.herbouw(zaak.getZaaknr(), zaak.getZaaknr() + 1)).isEqualTo(1);
+		assertThat(zaakOverzichtRepository.findBereik(zaak.getZaaknr(), zaak.getZaaknr() + 1)).containsExactly(berekend(zaak.getZaaknr()));
+	}
+
+	private List<Integer> zoek(ZaakZoekDto zoekDto, int after) {
+		List<Integer> zaaknrs = new ArrayList<>();
+		for (ZaakOverzicht overzicht : zaakOverzichtRepository.zoek(zoekDto, after, 10)) {
+			zaaknrs.add(overzicht.getZaaknr());
+		}
+		return zaaknrs;
+	}
+
+	private ZaakOverzicht opgeslagen(int zaaknr) {
+		return zaakOverzichtRepository.findBereik(zaaknr, zaaknr).get(0);
+	}
+
+	private ZaakOverzicht berekend(int zaaknr) {
+		return zaakOverzichtRepository.bereken(zaaknr, zaaknr).get(0);
+	}
+}
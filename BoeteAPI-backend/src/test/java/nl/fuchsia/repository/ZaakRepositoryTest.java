@@ -0,0 +1,127 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.*;
+import nl.fuchsia.services.ZaakDtoService;
+import nl.fuchsia.util.SqlMeting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Controleert dat het ophalen van zaken als entiteiten een vast aantal queries kost, onafhankelijk van het aantal zaken,
+ * en dat het toevoegen in batches gaat.
+ */
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@SpringBootTest(classes = Application.class)
+public class ZaakRepositoryTest {
+
+	@PersistenceContext(unitName = "entityManagerFactory")
+	private EntityManager entityManager;
+
+	@Autowired
+	private ZaakDtoService zaakDtoService;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private StatusRepository statusRepository;
+
+	@Autowired
+	private ZaakRepository zaakRepository;
+
+	private Persoon persoon;
+	private List<Feit> feiten;
+	private Status status;
+
+	@BeforeEach
+	public void setup() {
+		entityManager.createQuery("DELETE FROM ZaakStatus").executeUpdate();
+		entityManager.createNativeQuery("DELETE FROM zaakregel").executeUpdate();
+		entityManager.createQuery("DELETE FROM Zaak").executeUpdate();
+
+		persoon = persoonRepository.save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654321", LocalDate.of(1990, 10, 12)));
+		feiten = new ArrayList<>(Arrays.asList(
+			feitRepository.save(new Feit("VBF-901", "Test", 4.00)),
+			feitRepository.save(new Feit("VBF-902", "Test", 5.00))));
+		status = statusRepository.save(new Status("Open"));
+	}
+
+	@Test
+	public void testFindAllAantalQueriesGroeitNiet() {
+		voegZakenToe(3);
+		int statementsBijDrieZaken = telStatements(() -> assertThat(naarDtos(zaakRepository.findAll())).hasSize(3));
+
+		voegZakenToe(27);
+		int statementsBijDertigZaken = telStatements(() -> assertThat(naarDtos(zaakRepository.findAll())).hasSize(30));
+
+		assertThat(statementsBijDertigZaken).isEqualTo(statementsBijDrieZaken);
+	}
+
+	@Test
+	public void testFindAllByPersoonAantalQueriesGroeitNiet() {
+		voegZakenToe(3);
+		int statementsBijDrieZaken = telStatements(() -> assertThat(naarDtos(zaakRepository.findAllByPersoon(persoon))).hasSize(3));
+
+		voegZakenToe(27);
+		int statementsBijDertigZaken = telStatements(() -> assertThat(naarDtos(zaakRepository.findAllByPersoon(persoon))).hasSize(30));
+
+		assertThat(statementsBijDertigZaken).isEqualTo(statementsBijDrieZaken);
+	}
+
+	/**
+	 * De sleutels komen per blok uit de sequences, dus EclipseLink kan de inserts per tabel in één batch sturen.
+	 */
+	@Test
+	public void testToevoegenInBatches() {
+		entityManager.flush();
+		// zaak, zaakregel en zaakstatus elk één batch, plus voor zaak en zaakstatus hoogstens twee keer nextval.
+		assertThat(SqlMeting.meet(() -> voegZakenToe(30)).getStatements()).isLessThanOrEqualTo(7);
+	}
+
+	private void voegZakenToe(int aantal) {
+		for (int i = 0; i < aantal; i++) {
+			Zaak zaak = new Zaak(LocalDate.of(2019, 12, 12), "Drachten", persoon, new ArrayList<>(feiten));
+			List<ZaakStatus> zaakStatussen = new ArrayList<>();
+			zaakStatussen.add(new ZaakStatus(LocalDate.now(), status, zaak));
+			zaak.setZaakstatus(zaakStatussen);
+			zaakRepository.save(zaak);
+		}
+		entityManager.flush();
+	}
+
+	// Het omzetten naar ZaakDto's raakt alle associaties aan, net als de controller.
+	private List<ZaakDto> naarDtos(List<Zaak> zaken) {
+		List<ZaakDto> zaakDtos = new ArrayList<>();
+		for (Zaak zaak : zaken) {
+			zaakDtos.add(zaakDtoService.setZaakDto(zaak));
+		}
+		return zaakDtos;
+	}
+
+	/**
+	 * Voert de actie uit met een lege persistence context en cache en telt de uitgevoerde SQL statements.
+	 */
+	private int telStatements(Runnable actie) {
+		entityManager.clear();
+		entityManager.getEntityManagerFactory().getCache().evictAll();
+		return SqlMeting.meet(actie).getStatements();
+	}
+}
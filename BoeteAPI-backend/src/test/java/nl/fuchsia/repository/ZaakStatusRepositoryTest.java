@@ -0,0 +1,172 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakAddStatusDto;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.dto.ZaakStatusBatchDto;
+import nl.fuchsia.dto.ZaakStatusBatchResultaatDto;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.services.FeitCatalogus;
+import nl.fuchsia.services.StatusRegister;
+import nl.fuchsia.services.ZaakService;
+import nl.fuchsia.services.ZaakStatusBatchService;
+import nl.fuchsia.util.SqlMeting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Een statuswijziging voegt één zaakstatus toe en verplaatst zaak.huidige_zaakstatusnr, zonder de historie te lezen.
+ */
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@SpringBootTest(classes = Application.class)
+public class ZaakStatusRepositoryTest {
+
+	private static final int OPEN = 1;
+	private static final int IN_BEHANDELING = 91;
+
+	@PersistenceContext(unitName = "entityManagerFactory")
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ZaakService zaakService;
+
+	@Autowired
+	private ZaakStatusBatchService zaakStatusBatchService;
+
+	@Autowired
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private FeitCatalogus feitCatalogus;
+
+	@Autowired
+	private StatusRegister statusRegister;
+
+	private Persoon persoon;
+	private Feit feit;
+	private ZaakDto zaak;
+
+	@BeforeEach
+	public void setup() {
+		persoon = persoonRepository.save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "987654391", LocalDate.of(1990, 10, 12)));
+		feit = feitRepository.save(new Feit("VBF-991", "Test", 10.00));
+		if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM status WHERE statusnr = ?", Integer.class, OPEN) == 0) {
+			jdbcTemplate.update("INSERT INTO status (statusnr, omschrijving) VALUES (?, 'Open')", OPEN);
+		}
+		jdbcTemplate.update("INSERT INTO status (statusnr, omschrijving) VALUES (?, 'In behandeling')", IN_BEHANDELING);
+		entityManager.flush();
+		feitCatalogus.herlaad();
+		statusRegister.herlaad();
+		zaak = nieuweZaak();
+	}
+
+	@Test
+	public void testHuidigeStatus() {
+		assertThat(huidigeZaakstatusnr()).isEqualTo(zaak.getZaakstatusnr().get(0));
+
+		ZaakDto gewijzigd = zaakService.updateZaakStatus(zaak.getZaaknr(), new ZaakAddStatusDto(IN_BEHANDELING));
+
+		assertThat(gewijzigd.getZaakstatusnr()).hasSize(2).contains(huidigeZaakstatusnr());
+		assertThat(jdbcTemplate.queryForObject("SELECT statusnr FROM zaakstatus WHERE zaakstatusnr = ?", Integer.class, huidigeZaakstatusnr())).isEqualTo(IN_BEHANDELING);
+		assertThat(zaakOverzichtRepository.findBereik(zaak.getZaaknr(), zaak.getZaaknr()).get(0).getStatusnr()).isEqualTo(IN_BEHANDELING);
+
+		// Met gepoolde sleutels kan een oudere status een hoger nummer hebben, de verwijzing bepaalt de huidige.
+		jdbcTemplate.update("INSERT INTO zaakstatus (zaakstatusnr, zaaknr, statusnr, veranderdatum) VALUES (?, ?, ?, ?)",
+			Integer.MAX_VALUE, zaak.getZaaknr(), OPEN, LocalDate.of(2019, 12, 12));
+		zaakOverzichtRepository.vernieuw(zaak.getZaaknr());
+		assertThat(zaakOverzichtRepository.findBereik(zaak.getZaaknr(), zaak.getZaaknr()).get(0).getStatusnr()).isEqualTo(IN_BEHANDELING);
+	}
+
+	/**
+	 * Vergrendelen, de insert, de verwijzing, het overzicht (drie) en de ZaakDto, plus soms een nextval voor een nieuw
+	 * blok sleutels. Dat blijft zo, hoe lang de historie ook wordt.
+	 */
+	@Test
+	public void testStatementsOnafhankelijkVanHistorie() {
+		int kort = SqlMeting.meet(() -> zaakService.updateZaakStatus(zaak.getZaaknr(), new ZaakAddStatusDto(IN_BEHANDELING))).getStatements();
+		for (int i = 0; i < 50; i++) {
+			zaakService.updateZaakStatus(zaak.getZaaknr(), new ZaakAddStatusDto(i % 2 == 0 ? OPEN : IN_BEHANDELING));
+		}
+		int lang = SqlMeting.meet(() -> zaakService.updateZaakStatus(zaak.getZaaknr(), new ZaakAddStatusDto(IN_BEHANDELING))).getStatements();
+
+		assertThat(kort).isLessThanOrEqualTo(8);
+		assertThat(lang).isLessThanOrEqualTo(8);
+	}
+
+	@Test
+	public void testBatch() {
+		List<Integer> zaaknrs = zaaknrs(3);
+
+		ZaakStatusBatchResultaatDto resultaat = zaakStatusBatchService.wijzigStatussen(new ZaakStatusBatchDto(IN_BEHANDELING, zaaknrs));
+		ZaakStatusBatchResultaatDto herhaald = zaakStatusBatchService.wijzigStatussen(new ZaakStatusBatchDto(IN_BEHANDELING, zaaknrs));
+
+		assertThat(resultaat.getGewijzigd()).isEqualTo(3);
+		assertThat(herhaald.getGewijzigd()).isZero();
+		assertThat(herhaald.getOngewijzigd()).isEqualTo(3);
+		for (Integer zaaknr : zaaknrs) {
+			assertThat(jdbcTemplate.queryForObject("SELECT s.statusnr FROM zaak z JOIN zaakstatus s ON s.zaakstatusnr = z.huidige_zaakstatusnr WHERE z.zaaknr = ?",
+				Integer.class, zaaknr)).isEqualTo(IN_BEHANDELING);
+			assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM zaakstatus WHERE zaaknr = ?", Integer.class, zaaknr)).isEqualTo(2);
+			assertThat(zaakOverzichtRepository.findBereik(zaaknr, zaaknr).get(0).getStatusnr()).isEqualTo(IN_BEHANDELING);
+		}
+
+		// Met het filter worden alleen de zaken gevonden die nog Open zijn, zoals de zaak uit setup.
+		ZaakStatusBatchResultaatDto gefilterd = zaakStatusBatchService.wijzigStatussen(new ZaakStatusBatchDto(IN_BEHANDELING, OPEN, 0));
+		assertThat(gefilterd.getGewijzigd()).isGreaterThanOrEqualTo(1);
+		assertThat(huidigeZaakstatusnr()).isNotEqualTo(zaak.getZaakstatusnr().get(0));
+	}
+
+	/**
+	 * Een chunk kost een vast aantal statements: vergrendelen, de sequence, de insert, de verwijzingen en het overzicht.
+	 */
+	@Test
+	public void testBatchStatementsOnafhankelijkVanAantal() {
+		List<Integer> twee = zaaknrs(2);
+		List<Integer> twintig = zaaknrs(20);
+
+		int kort = SqlMeting.meet(() -> zaakStatusBatchService.wijzigStatussen(new ZaakStatusBatchDto(IN_BEHANDELING, twee))).getStatements();
+		int lang = SqlMeting.meet(() -> zaakStatusBatchService.wijzigStatussen(new ZaakStatusBatchDto(IN_BEHANDELING, twintig))).getStatements();
+
+		assertThat(lang).isLessThanOrEqualTo(kort + 1);
+	}
+
+	private ZaakDto nieuweZaak() {
+		return zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Drachten", persoon.getPersoonnr(), Collections.singletonList(feit.getFeitnr())));
+	}
+
+	private List<Integer> zaaknrs(int aantal) {
+		List<Integer> zaaknrs = new ArrayList<>();
+		for (int i = 0; i < aantal; i++) {
+			zaaknrs.add(nieuweZaak().getZaaknr());
+		}
+		return zaaknrs;
+	}
+
+	private Integer huidigeZaakstatusnr() {
+		return jdbcTemplate.queryForObject("SELECT huidige_zaakstatusnr FROM zaak WHERE zaaknr = ?", Integer.class, zaak.getZaaknr());
+	}
+}
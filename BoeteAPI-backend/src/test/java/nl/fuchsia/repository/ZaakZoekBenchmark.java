@@ -0,0 +1,168 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakZoekDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static nl.fuchsia.util.Percentielen.p50p95p99;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Meet GET /zaken/zoek ({@link ZaakOverzichtRepository#zoek}) per combinatie van filters, voor de eerste pagina en voor
+ * een pagina halverwege, en toont het plan dat de database kiest. Een plan met een table scan laat de benchmark falen.
+ * <p>
+ * Draait niet mee met de gewone tests, start met: mvn test -Dtest=ZaakZoekBenchmark [-Dbenchmark.zaken=100000]
+ * <p>
+ * Dit draait op de H2 database van de tests, met de indexen uit de JPA mapping. De partiële indexen en text_pattern_ops
+ * bestaan alleen in PostgreSQL; controleer daar de plannen met EXPLAIN (ANALYZE, BUFFERS) op de queries die deze
+ * benchmark toont.
+ */
+@SpringBootTest(classes = Application.class)
+public class ZaakZoekBenchmark {
+
+	private static final int AANTAL_ZAKEN = Integer.getInteger("benchmark.zaken", 100000);
+	private static final int AANTAL_PERSONEN = 1000;
+	private static final int AANTAL_FEITEN = 20;
+	private static final int BLOK = 10000;
+	private static final int LIMIT = 100;
+	private static final int OPWARMEN = 20;
+	private static final int METINGEN = 200;
+	private static final String[] PLAATSEN = {"Amsterdam", "Drachten", "Groningen", "Heerenveen", "Leeuwarden", "Sneek", "Utrecht", "Zwolle"};
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+
+	private int eersteZaaknr;
+	private int feitnr;
+	private int open;
+	private int betaald;
+
+	@BeforeEach
+	public void setup() {
+		verwijderGegevens();
+		Random random = new Random(42);
+
+		List<Object[]> personen = new ArrayList<>();
+		for (int i = 0; i < AANTAL_PERSONEN; i++) {
+			personen.add(new Object[]{String.format("77%07d", i), LocalDate.of(1990, 1, 1)});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO persoon (voornaam, achternaam, straat, huisnummer, postcode, woonplaats, bsn, geboortedatum) "
+			+ "VALUES ('Rense', 'Houwing', 'De buren', '10', '8402 GH', 'Drachten', ?, ?)", personen);
+		List<Object[]> feiten = new ArrayList<>();
+		for (int i = 0; i < AANTAL_FEITEN; i++) {
+			feiten.add(new Object[]{String.format("VBZ-%03d", i), 10.0 + i});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO feit (feitcode, omschrijving, bedrag) VALUES (?, 'Benchmark', ?)", feiten);
+		jdbcTemplate.update("INSERT INTO status (omschrijving) VALUES ('Benchmark open'), ('Benchmark betaald')");
+
+		Integer[] persoonnrs = jdbcTemplate.queryForList("SELECT persoonnr FROM persoon WHERE bsn LIKE '77%'", Integer.class).toArray(new Integer[0]);
+		Integer[] feitnrs = jdbcTemplate.queryForList("SELECT feitnr FROM feit WHERE feitcode LIKE 'VBZ-%'", Integer.class).toArray(new Integer[0]);
+		open = jdbcTemplate.queryForObject("SELECT statusnr FROM status WHERE omschrijving = 'Benchmark open'", Integer.class);
+		betaald = jdbcTemplate.queryForObject("SELECT statusnr FROM status WHERE omschrijving = 'Benchmark betaald'", Integer.class);
+		feitnr = feitnrs[AANTAL_FEITEN - 1];
+		eersteZaaknr = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(zaaknr), 0) + 1 FROM zaak", Integer.class);
+
+		// In blokken, zodat ook miljoenen zaken niet in één keer in het geheugen staan.
+		for (int start = 0; start < AANTAL_ZAKEN; start += BLOK) {
+			List<Object[]> zaken = new ArrayList<>();
+			List<Object[]> regels = new ArrayList<>();
+			List<Object[]> statussen = new ArrayList<>();
+			for (int i = start; i < Math.min(start + BLOK, AANTAL_ZAKEN); i++) {
+				int zaaknr = eersteZaaknr + i;
+				LocalDate datum = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(5 * 365));
+				zaken.add(new Object[]{zaaknr, persoonnrs[random.nextInt(persoonnrs.length)], datum, PLAATSEN[random.nextInt(PLAATSEN.length)] + " " + random.nextInt(100)});
+				// De feiten zijn scheef verdeeld, het laatste feit komt weinig voor.
+				int eerste = random.nextInt(AANTAL_FEITEN - 1);
+				regels.add(new Object[]{zaaknr, feitnrs[eerste]});
+				if (random.nextInt(100) == 0) {
+					regels.add(new Object[]{zaaknr, feitnr});
+				}
+				statussen.add(new Object[]{zaaknr, open, datum});
+				if (random.nextInt(10) < 3) {
+					statussen.add(new Object[]{zaaknr, betaald, datum.plusDays(30)});
+				}
+			}
+			jdbcTemplate.batchUpdate("INSERT INTO zaak (zaaknr, persoonnr, overtredingsdatum, pleeglocatie) VALUES (?, ?, ?, ?)", zaken);
+			jdbcTemplate.batchUpdate("INSERT INTO zaakregel (zaaknr, feitnr) VALUES (?, ?)", regels);
+			jdbcTemplate.batchUpdate("INSERT INTO zaakstatus (zaaknr, statusnr, veranderdatum) VALUES (?, ?, ?)", statussen);
+		}
+		// Zonder sleutel loopt het zaakstatusnr hier op, de laatst toegevoegde status is de huidige.
+		jdbcTemplate.update("UPDATE zaak z SET huidige_zaakstatusnr = (SELECT MAX(s.zaakstatusnr) FROM zaakstatus s WHERE s.zaaknr = z.zaaknr) "
+			+ "WHERE z.huidige_zaakstatusnr IS NULL");
+		for (int van = eersteZaaknr; van < eersteZaaknr + AANTAL_ZAKEN; van += BLOK) {
+			zaakOverzichtRepository.herbouw(van, Math.min(van + BLOK, eersteZaaknr + AANTAL_ZAKEN) - 1);
+		}
+		jdbcTemplate.execute("ANALYZE");
+	}
+
+	@AfterEach
+	public void opruimen() {
+		verwijderGegevens();
+	}
+
+	@Test
+	public void meetZoekopdrachten() {
+		Map<String, ZaakZoekDto> zoekopdrachten = new LinkedHashMap<>();
+		zoekopdrachten.put("persoonnr", new ZaakZoekDto(jdbcTemplate.queryForObject("SELECT MIN(persoonnr) FROM persoon WHERE bsn LIKE '77%'", Integer.class),
+			null, null, null, null, null));
+		zoekopdrachten.put("statusnr", new ZaakZoekDto(null, betaald, null, null, null, null));
+		zoekopdrachten.put("datum", new ZaakZoekDto(null, null, LocalDate.of(2017, 3, 1), LocalDate.of(2017, 3, 31), null, null));
+		zoekopdrachten.put("pleeglocatie", new ZaakZoekDto(null, null, null, null, "Sneek 4", null));
+		zoekopdrachten.put("feitnr", new ZaakZoekDto(null, null, null, null, null, feitnr));
+		zoekopdrachten.put("status+datum", new ZaakZoekDto(null, open, LocalDate.of(2017, 3, 1), LocalDate.of(2017, 3, 31), null, null));
+		zoekopdrachten.put("status+pleeglocatie+feitnr", new ZaakZoekDto(null, open, null, null, "Sneek", feitnr));
+
+		int halverwege = eersteZaaknr + AANTAL_ZAKEN / 2;
+		System.out.printf("Zoeken in %d zaken, limit %d, tijden in ms (p50 / p95 / p99)%n", AANTAL_ZAKEN, LIMIT);
+		for (Map.Entry<String, ZaakZoekDto> zoekopdracht : zoekopdrachten.entrySet()) {
+			String plan = plan(zoekopdracht.getValue());
+			System.out.printf("%-28s eerste pagina %s, halverwege %s%n    %s%n", zoekopdracht.getKey(), meet(zoekopdracht.getValue(), 0),
+				meet(zoekopdracht.getValue(), halverwege), plan.replaceAll("\\s+", " "));
+			assertThat(plan).as(zoekopdracht.getKey()).doesNotContain("tableScan");
+		}
+	}
+
+	private String plan(ZaakZoekDto zoek) {
+		List<Object> parameters = new ArrayList<>();
+		String sql = ZaakOverzichtRepository.zoekQuery(zoek, 0, LIMIT, parameters);
+		return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters.toArray());
+	}
+
+	private String meet(ZaakZoekDto zoek, int after) {
+		for (int i = 0; i < OPWARMEN; i++) {
+			zaakOverzichtRepository.zoek(zoek, after, LIMIT);
+		}
+		long[] tijden = new long[METINGEN];
+		for (int i = 0; i < METINGEN; i++) {
+			long start = System.nanoTime();
+			zaakOverzichtRepository.zoek(zoek, after, LIMIT);
+			tijden[i] = System.nanoTime() - start;
+		}
+		return p50p95p99(tijden);
+	}
+
+	private void verwijderGegevens() {
+		jdbcTemplate.update("DELETE FROM zaak_overzicht");
+		jdbcTemplate.update("DELETE FROM zaakstatus");
+		jdbcTemplate.update("DELETE FROM zaakregel");
+		jdbcTemplate.update("DELETE FROM zaak");
+		jdbcTemplate.update("DELETE FROM feit WHERE feitcode LIKE 'VBZ-%'");
+		jdbcTemplate.update("DELETE FROM status WHERE omschrijving LIKE 'Benchmark %'");
+		jdbcTemplate.update("DELETE FROM persoon WHERE bsn LIKE '77%'");
+	}
+}
@@ -0,0 +1,121 @@
+package nl.fuchsia.repository;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.dto.ZaakAddFeitDto;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.exceptionhandlers.UniekVeldException;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.services.FeitCatalogus;
+import nl.fuchsia.services.StatusRegister;
+import nl.fuchsia.services.ZaakService;
+import nl.fuchsia.util.SqlMeting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Feiten toevoegen aan een zaak kost hetzelfde aantal statements voor twee feiten als voor twintig.
+ */
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@SpringBootTest(classes = Application.class)
+public class ZaakregelRepositoryTest {
+
+	@PersistenceContext(unitName = "entityManagerFactory")
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ZaakService zaakService;
+
+	@Autowired
+	private ZaakregelRepository zaakregelRepository;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private FeitCatalogus feitCatalogus;
+
+	@Autowired
+	private StatusRegister statusRegister;
+
+	private List<Feit> feiten = new ArrayList<>();
+	private int bsn = 987654100;
+
+	@BeforeEach
+	public void setup() {
+		for (int i = 0; i < 25; i++) {
+			feiten.add(feitRepository.save(new Feit(String.format("VBF-%03d", 900 + i), "Test", 10.00 + i)));
+		}
+		if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM status WHERE statusnr = 1", Integer.class) == 0) {
+			jdbcTemplate.update("INSERT INTO status (statusnr, omschrijving) VALUES (1, 'Open')");
+		}
+		entityManager.flush();
+		feitCatalogus.herlaad();
+		statusRegister.herlaad();
+	}
+
+	@Test
+	public void testToevoegenInEenKeer() {
+		ZaakDto zaak = nieuweZaak();
+		ZaakDto andereZaak = nieuweZaak();
+
+		// Het tweede feit staat twee keer in de lijst en wordt één keer toegevoegd.
+		int twee = SqlMeting.meet(() -> zaakService.updateZaakFeit(zaak.getZaaknr(), toevoegen(feiten.subList(1, 3), feiten.get(2)))).getStatements();
+		int twintig = SqlMeting.meet(() -> zaakService.updateZaakFeit(andereZaak.getZaaknr(), toevoegen(feiten.subList(1, 21)))).getStatements();
+
+		assertThat(zaakregelRepository.getFeitnrs(zaak.getZaaknr())).containsExactlyInAnyOrder(feitnrs(feiten.subList(0, 3)).toArray(new Integer[0]));
+		assertThat(zaakregelRepository.getFeitnrs(andereZaak.getZaaknr())).hasSize(21);
+		assertThat(twintig).isEqualTo(twee);
+	}
+
+	@Test
+	public void testFeitAlToegevoegd() {
+		ZaakDto zaak = nieuweZaak();
+
+		assertThatThrownBy(() -> zaakService.updateZaakFeit(zaak.getZaaknr(), toevoegen(feiten.subList(0, 2)))).isInstanceOf(UniekVeldException.class)
+			.hasMessage("[feitNummer: " + feiten.get(0).getFeitnr() + " is reeds toegevoegd aan deze zaak, geen feit(en) toegevoegd]");
+		assertThat(zaakregelRepository.getFeitnrs(zaak.getZaaknr())).containsExactly(feiten.get(0).getFeitnr());
+	}
+
+	private ZaakDto nieuweZaak() {
+		Persoon persoon = persoonRepository.save(new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", String.valueOf(bsn++), LocalDate.of(1990, 10, 12)));
+		return zaakService.addZaak(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Drachten", persoon.getPersoonnr(), Collections.singletonList(feiten.get(0).getFeitnr())));
+	}
+
+	private static List<ZaakAddFeitDto> toevoegen(List<Feit> feiten, Feit... extra) {
+		List<ZaakAddFeitDto> toevoegen = new ArrayList<>();
+		for (Integer feitnr : feitnrs(feiten)) {
+			toevoegen.add(new ZaakAddFeitDto(feitnr));
+		}
+		for (Feit feit : extra) {
+			toevoegen.add(new ZaakAddFeitDto(feit.getFeitnr()));
+		}
+		return toevoegen;
+	}
+
+	private static List<Integer> feitnrs(List<Feit> feiten) {
+		return feiten.stream().map(Feit::getFeitnr).collect(Collectors.toList());
+	}
+}
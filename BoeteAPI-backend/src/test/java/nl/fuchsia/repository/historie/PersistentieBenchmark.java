@@ -0,0 +1,220 @@
+package nl.fuchsia.repository.historie;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.repository.PersoonRepository;
+import nl.fuchsia.repository.ZaakDtoRepository;
+import nl.fuchsia.repository.ZaakRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static nl.fuchsia.util.Percentielen.percentiel;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Draait dezelfde werklasten via elke manier van database toegang in de applicatie: Spring Data (PersoonRepository,
+ * ZaakRepository), de EclipseLink repositories uit de historie (PersoonRepositoryOrm, ZaakRepositoryOrm), JDBC
+ * (JdbcPersoonRepository en voor de zaken de projectie van ZaakDtoRepository) en als ondergrens de List repositories in
+ * het geheugen. Per werklast en implementatie komen de p50, p95, p99 en max van de tijd per operatie in de uitvoer.
+ * <p>
+ * Let op bij de zaken van een persoon: Spring Data laadt de persoon, feiten en statussen met batch fetching mee, ORM laadt
+ * ze pas bij gebruik en JDBC levert alleen de nummers (ZaakDto). Dat verschil in werk zit in de tijden.
+ * <p>
+ * De gedeelde cache van EclipseLink wordt voor elke operatie geleegd (buiten de meting), zodat elke implementatie echt de
+ * database raakt. Met -Dbenchmark.cache=true blijft de cache staan, zoals in productie.
+ * <p>
+ * Draait niet mee met de gewone tests, start op H2 met: mvn test -Dtest=PersistentieBenchmark [-Dbenchmark.personen=10000]
+ * <p>
+ * Op een lokale PostgreSQL (de tabellen worden opnieuw aangemaakt, dus gebruik de integratietest database):
+ * mvn test -Dtest=PersistentieBenchmark -Dspring.datasource.driver-class-name=org.postgresql.Driver
+ * -Dspring.datasource.url=jdbc:postgresql://localhost:5432/boeteapi_it -Dspring.datasource.username=postgres
+ * -Dspring.datasource.password=postgres
+ */
+@SpringBootTest(classes = Application.class)
+public class PersistentieBenchmark {
+
+	private static final int AANTAL_PERSONEN = Integer.getInteger("benchmark.personen", 10000);
+	private static final int ZAKEN_PER_PERSOON = 2;
+	private static final boolean CACHE = Boolean.getBoolean("benchmark.cache");
+	private static final int OPWARMEN = 200;
+	private static final int METINGEN = 2000;
+	private static final int BULK_OPWARMEN = 5;
+	private static final int BULK_METINGEN = 50;
+	private static final int BSN_BASIS = 800000000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private ZaakRepository zaakRepository;
+
+	@Autowired
+	private ZaakDtoRepository zaakDtoRepository;
+
+	@Autowired
+	private PersoonRepositoryOrm persoonRepositoryOrm;
+
+	@Autowired
+	private ZaakRepositoryOrm zaakRepositoryOrm;
+
+	@Autowired
+	private JdbcPersoonRepository jdbcPersoonRepository;
+
+	@Autowired
+	private ListPersoonRepository listPersoonRepository;
+
+	@Autowired
+	private ListZaakReposistory listZaakReposistory;
+
+	private final Map<String, Map<String, long[]>> resultaten = new LinkedHashMap<>();
+	private final Random random = new Random(16);
+	private int[] persoonnrs;
+	private int volgendeBsn;
+
+	@BeforeEach
+	public void setup() {
+		verwijderGegevens();
+		List<Object[]> personen = new ArrayList<>();
+		for (int i = 0; i < AANTAL_PERSONEN; i++) {
+			personen.add(new Object[]{"Rense" + i, "Houwing", "De buren", String.valueOf(i % 200 + 1), "8402 GH", "Drachten",
+				String.valueOf(BSN_BASIS + i), LocalDate.of(1990, 10, 12).plusDays(i % 10000)});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO persoon (voornaam, achternaam, straat, huisnummer, postcode, woonplaats, bsn, geboortedatum) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", personen);
+		volgendeBsn = BSN_BASIS + AANTAL_PERSONEN;
+		jdbcTemplate.update("INSERT INTO feit (feitcode, omschrijving, bedrag) VALUES ('VBF-981', 'Benchmark', 4.0), ('VBF-982', 'Benchmark', 5.0)");
+		jdbcTemplate.update("INSERT INTO status (omschrijving) VALUES ('Benchmark')");
+		for (int i = 0; i < ZAKEN_PER_PERSOON; i++) {
+			jdbcTemplate.update("INSERT INTO zaak (persoonnr, overtredingsdatum, pleeglocatie) SELECT persoonnr, ?, 'Drachten' FROM persoon WHERE bsn LIKE '8%'",
+				LocalDate.of(2019, 12, 12).plusDays(i));
+		}
+		jdbcTemplate.update("INSERT INTO zaakregel (zaaknr, feitnr) SELECT z.zaaknr, f.feitnr FROM zaak z, feit f WHERE f.feitcode IN ('VBF-981', 'VBF-982')");
+		jdbcTemplate.update("INSERT INTO zaakstatus (zaaknr, statusnr, veranderdatum) SELECT z.zaaknr, s.statusnr, ? FROM zaak z, status s WHERE s.omschrijving = 'Benchmark'", LocalDate.now());
+
+		persoonnrs = jdbcTemplate.queryForList("SELECT persoonnr FROM persoon WHERE bsn LIKE '8%' ORDER BY persoonnr", Integer.class)
+			.stream().mapToInt(Integer::intValue).toArray();
+		// De List repositories zijn alleen een lijst in het geheugen, ze krijgen dezelfde gegevens als de database.
+		listPersoonRepository.getListPersonen().addAll(persoonRepository.findAll());
+		listZaakReposistory.getZaken().addAll(zaakRepository.findAll());
+	}
+
+	@AfterEach
+	public void opruimen() {
+		listPersoonRepository.getListPersonen().clear();
+		listZaakReposistory.getZaken().clear();
+		verwijderGegevens();
+	}
+
+	@Test
+	public void vergelijkPersistentie() {
+		meet("alle personen", "Spring Data", BULK_OPWARMEN, BULK_METINGEN, i -> persoonRepository.findAll(), AANTAL_PERSONEN);
+		meet("alle personen", "ORM", BULK_OPWARMEN, BULK_METINGEN, i -> persoonRepositoryOrm.getPersonen(), AANTAL_PERSONEN);
+		meet("alle personen", "JDBC", BULK_OPWARMEN, BULK_METINGEN, i -> jdbcPersoonRepository.getJdbcPersonen(), AANTAL_PERSONEN);
+		meet("alle personen", "List", BULK_OPWARMEN, BULK_METINGEN, i -> listPersoonRepository.getListPersonen(), AANTAL_PERSONEN);
+
+		meet("persoon op id", "Spring Data", OPWARMEN, METINGEN, i -> persoonRepository.findById(willekeurigPersoonnr()).orElse(null), 1);
+		meet("persoon op id", "ORM", OPWARMEN, METINGEN, i -> persoonRepositoryOrm.getPersoonById(willekeurigPersoonnr()), 1);
+		meet("persoon op id", "JDBC", OPWARMEN, METINGEN, i -> jdbcPersoonRepository.getJdbcPersoonById(willekeurigPersoonnr()), 1);
+		meet("persoon op id", "List", OPWARMEN, METINGEN, i -> {
+			int persoonnr = willekeurigPersoonnr();
+			return listPersoonRepository.getListPersonen().stream().filter(persoon -> persoon.getPersoonnr() == persoonnr).findFirst().orElse(null);
+		}, 1);
+
+		meet("zaken van persoon", "Spring Data", OPWARMEN, METINGEN, i -> zaakRepository.findAllByPersoon(new Persoon(willekeurigPersoonnr())), ZAKEN_PER_PERSOON);
+		meet("zaken van persoon", "ORM", OPWARMEN, METINGEN, i -> zaakRepositoryOrm.getZakenByPersoon(new Persoon(willekeurigPersoonnr())), ZAKEN_PER_PERSOON);
+		meet("zaken van persoon", "JDBC", OPWARMEN, METINGEN, i -> zaakDtoRepository.findAllByPersoonnr(willekeurigPersoonnr()), ZAKEN_PER_PERSOON);
+		meet("zaken van persoon", "List", OPWARMEN, METINGEN, i -> {
+			int persoonnr = willekeurigPersoonnr();
+			return listZaakReposistory.getZaken().stream().filter(zaak -> zaak.getPersoon().getPersoonnr() == persoonnr).collect(Collectors.toList());
+		}, ZAKEN_PER_PERSOON);
+
+		meet("persoon toevoegen", "Spring Data", OPWARMEN, METINGEN, i -> persoonRepository.save(nieuwePersoon()), 1);
+		meet("persoon toevoegen", "ORM", OPWARMEN, METINGEN, i -> persoonRepositoryOrm.addPersoon(nieuwePersoon()), 1);
+		meet("persoon toevoegen", "JDBC", OPWARMEN, METINGEN, i -> {
+			jdbcPersoonRepository.addPersoon(nieuwePersoon());
+			return null;
+		}, 1);
+		meet("persoon toevoegen", "List", OPWARMEN, METINGEN, i -> listPersoonRepository.addPersoon(nieuwePersoon()), 1);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM persoon WHERE bsn LIKE '8%'", Integer.class))
+			.isEqualTo(AANTAL_PERSONEN + 3 * (OPWARMEN + METINGEN));
+
+		String database = jdbcTemplate.execute((Connection connection) -> connection.getMetaData().getDatabaseProductName());
+		System.out.printf("%s, %d personen, %d zaken per persoon, gedeelde cache %s; tijden in ms%n", database, AANTAL_PERSONEN, ZAKEN_PER_PERSOON, CACHE ? "aan" : "geleegd per operatie");
+		System.out.printf("%-20s %-12s %10s %10s %10s %10s%n", "werklast", "implementatie", "p50", "p95", "p99", "max");
+		for (Map.Entry<String, Map<String, long[]>> werklast : resultaten.entrySet()) {
+			for (Map.Entry<String, long[]> implementatie : werklast.getValue().entrySet()) {
+				long[] tijden = implementatie.getValue();
+				System.out.printf("%-20s %-12s %10.3f %10.3f %10.3f %10.3f%n", werklast.getKey(), implementatie.getKey(),
+					percentiel(tijden, 50), percentiel(tijden, 95), percentiel(tijden, 99), tijden[tijden.length - 1] / 1_000_000.0);
+			}
+		}
+	}
+
+	/**
+	 * Voert de operatie eerst een aantal keer uit om op te warmen en meet daarna elke uitvoering apart.
+	 *
+	 * @param verwacht het aantal resultaten dat de operatie op moet leveren, zodat een snelle maar foute implementatie
+	 *                 opvalt; operaties die een enkel object of niets teruggeven worden niet gecontroleerd.
+	 */
+	private void meet(String werklast, String implementatie, int opwarmen, int metingen, IntFunction<Object> operatie, int verwacht) {
+		for (int i = 0; i < opwarmen; i++) {
+			voerUit(operatie, i, verwacht);
+		}
+		long[] tijden = new long[metingen];
+		for (int i = 0; i < metingen; i++) {
+			if (!CACHE) {
+				entityManagerFactory.getCache().evictAll();
+			}
+			long start = System.nanoTime();
+			voerUit(operatie, i, verwacht);
+			tijden[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(tijden);
+		resultaten.computeIfAbsent(werklast, naam -> new LinkedHashMap<>()).put(implementatie, tijden);
+	}
+
+	private static void voerUit(IntFunction<Object> operatie, int i, int verwacht) {
+		Object resultaat = operatie.apply(i);
+		if (resultaat instanceof List) {
+			assertThat((List<?>) resultaat).hasSize(verwacht);
+		}
+	}
+
+	private int willekeurigPersoonnr() {
+		return persoonnrs[random.nextInt(persoonnrs.length)];
+	}
+
+	private Persoon nieuwePersoon() {
+		return new Persoon("Geert", "Houwing", "De buren", "10", "8402 GH", "Drachten", String.valueOf(volgendeBsn++), LocalDate.of(1990, 10, 12));
+	}
+
+	private void verwijderGegevens() {
+		jdbcTemplate.update("DELETE FROM zaakstatus WHERE zaaknr IN (SELECT z.zaaknr FROM zaak z JOIN persoon p ON p.persoonnr = z.persoonnr WHERE p.bsn LIKE '8%')");
+		jdbcTemplate.update("DELETE FROM zaakregel WHERE zaaknr IN (SELECT z.zaaknr FROM zaak z JOIN persoon p ON p.persoonnr = z.persoonnr WHERE p.bsn LIKE '8%')");
+		jdbcTemplate.update("DELETE FROM zaak WHERE persoonnr IN (SELECT persoonnr FROM persoon WHERE bsn LIKE '8%')");
+		jdbcTemplate.update("DELETE FROM feit WHERE feitcode IN ('VBF-981', 'VBF-982')");
+		jdbcTemplate.update("DELETE FROM status WHERE omschrijving = 'Benchmark'");
+		jdbcTemplate.update("DELETE FROM persoon WHERE bsn LIKE '8%'");
+	}
+}
@@ -0,0 +1,175 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.model.EscalatieCheckpoint;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.HuidigeStatus;
+import nl.fuchsia.model.PersoonSaldo;
+import nl.fuchsia.model.Status;
+import nl.fuchsia.repository.EscalatieRepository;
+import nl.fuchsia.repository.ZaakOverzichtRepository;
+import nl.fuchsia.repository.ZaakStatusRepository;
+import nl.fuchsia.repository.ZaakregelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class EscalatieServiceTest {
+
+	private static final Status OPEN = new Status(1, "Open");
+	private static final Status AANMANING = new Status(5, "Aanmaning verstuurd");
+	private static final Feit TOESLAG = new Feit(7, "TOESLAG", "Verhoging na aanmaning", 15.00);
+	private static final LocalDate PEILDATUM = LocalDate.now().minusDays(30);
+
+	@Mock
+	private EscalatieRepository escalatieRepository;
+
+	@Mock
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+
+	@Mock
+	private ZaakStatusRepository zaakStatusRepository;
+
+	@Mock
+	private ZaakregelRepository zaakregelRepository;
+
+	@Mock
+	private StatusRegister statusRegister;
+
+	@Mock
+	private FeitCatalogus feitCatalogus;
+
+	@Mock
+	private SaldoService saldoService;
+
+	@Mock
+	private ZaakOverzichtService zaakOverzichtService;
+
+	@Mock
+	private VersieTeller versieTeller;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Captor
+	private ArgumentCaptor<List<EscalatieCheckpoint>> bereiken;
+
+	@Captor
+	private ArgumentCaptor<Collection<PersoonSaldo>> saldoVerschillen;
+
+	private EscalatieMetrieken escalatieMetrieken = new EscalatieMetrieken();
+
+	@BeforeEach
+	public void setup() {
+		initMocks(this);
+		when(statusRegister.getStatus(OPEN.getStatusnr())).thenReturn(Optional.of(OPEN));
+		when(statusRegister.getStatus(AANMANING.getStatusnr())).thenReturn(Optional.of(AANMANING));
+		when(statusRegister.isOpen(any())).thenReturn(true);
+		when(feitCatalogus.getFeit(TOESLAG.getFeitnr())).thenReturn(Optional.of(TOESLAG));
+	}
+
+	/**
+	 * De bereiken sluiten op elkaar aan, het laatste eindigt op het hoogste zaaknr en elk bereik wordt afgesloten.
+	 */
+	@Test
+	public void testNieuweRun() {
+		when(zaakOverzichtRepository.getMaxZaaknr()).thenReturn(25);
+		for (int van : new int[]{1, 11, 21}) {
+			when(escalatieRepository.vergrendel(van)).thenReturn(Optional.of(new EscalatieCheckpoint(van, Math.min(van + 9, 25), PEILDATUM, van - 1)));
+		}
+
+		EscalatieResultaat resultaat = escalatieService(0).escaleer(2, 10, 500, voortgang -> {
+		});
+
+		verify(escalatieRepository).begin(bereiken.capture());
+		assertThat(bereiken.getValue()).extracting(EscalatieCheckpoint::getVan).containsExactly(1, 11, 21);
+		assertThat(bereiken.getValue()).extracting(EscalatieCheckpoint::getTot).containsExactly(10, 20, 25);
+		assertThat(bereiken.getValue()).extracting(EscalatieCheckpoint::getPeildatum).containsOnly(PEILDATUM);
+		verify(escalatieRepository).voortgang(1, 10);
+		verify(escalatieRepository).voortgang(11, 20);
+		verify(escalatieRepository).voortgang(21, 25);
+		assertThat(resultaat.isHervat()).isFalse();
+		assertThat(resultaat.getBereikenKlaar()).isEqualTo(3);
+		assertThat(escalatieMetrieken.getBereikenOpen()).isZero();
+	}
+
+	/**
+	 * Alleen zaken die na het vergrendelen nog verlopen zijn krijgen de escalatiestatus en de toeslag. Het checkpoint
+	 * schuift per chunk op tot het einde van het bereik.
+	 */
+	@Test
+	public void testEscaleerPerChunk() {
+		when(zaakOverzichtRepository.getMaxZaaknr()).thenReturn(10);
+		when(escalatieRepository.vergrendel(1)).thenReturn(Optional.of(new EscalatieCheckpoint(1, 10, PEILDATUM, 0)))
+			.thenReturn(Optional.of(new EscalatieCheckpoint(1, 10, PEILDATUM, 4)));
+		when(zaakOverzichtRepository.zoekVerlopen(OPEN.getStatusnr(), 0, 10, PEILDATUM, 2)).thenReturn(Arrays.asList(3, 4));
+		// Zaak 4 is na het zoeken betaald en weer geopend, de termijn is opnieuw begonnen.
+		when(zaakStatusRepository.vergrendel(Arrays.asList(3, 4))).thenReturn(Arrays.asList(
+			new HuidigeStatus(3, 10, OPEN.getStatusnr(), PEILDATUM.minusDays(2), new BigDecimal("45.00")),
+			new HuidigeStatus(4, 10, OPEN.getStatusnr(), LocalDate.now(), new BigDecimal("45.00"))));
+		when(zaakregelRepository.voegFeitToe(Collections.singletonList(3), TOESLAG.getFeitnr())).thenReturn(Collections.singletonList(3));
+
+		EscalatieResultaat resultaat = escalatieService(TOESLAG.getFeitnr()).escaleer(1, 10, 2, voortgang -> {
+		});
+
+		verify(zaakStatusRepository).voegToe(Collections.singletonList(3), AANMANING.getStatusnr(), LocalDate.now());
+		verify(saldoService).verwerk(saldoVerschillen.capture());
+		assertThat(saldoVerschillen.getValue()).containsExactly(new PersoonSaldo(10, 0, 0, new BigDecimal("15.00")));
+		verify(zaakOverzichtService).zakenGewijzigd(Collections.singletonList(3));
+		verify(escalatieRepository).voortgang(1, 4);
+		verify(escalatieRepository).voortgang(1, 10);
+		verify(versieTeller).verhoog(VersieTeller.Tabel.ZAAK);
+		assertThat(resultaat.getZaken()).isEqualTo(1);
+		assertThat(resultaat.getToeslagen()).isEqualTo(1);
+		assertThat(escalatieMetrieken.getZaken()).isEqualTo(1);
+		assertThat(escalatieMetrieken.getVertraging()).isEqualTo(2);
+	}
+
+	/**
+	 * Een afgebroken run wordt met dezelfde peildatum afgemaakt vanaf de checkpoints, bereiken die klaar zijn blijven over.
+	 */
+	@Test
+	public void testHervat() {
+		LocalDate eerder = PEILDATUM.minusDays(1);
+		when(escalatieRepository.findAll()).thenReturn(Arrays.asList(new EscalatieCheckpoint(1, 10, eerder, 10), new EscalatieCheckpoint(11, 20, eerder, 15)));
+		when(escalatieRepository.vergrendel(11)).thenReturn(Optional.of(new EscalatieCheckpoint(11, 20, eerder, 15)));
+
+		EscalatieResultaat resultaat = escalatieService(0).escaleer(2, 10, 500, voortgang -> {
+		});
+
+		verify(escalatieRepository, never()).begin(anyList());
+		verify(escalatieRepository, never()).vergrendel(1);
+		verify(zaakOverzichtRepository).zoekVerlopen(OPEN.getStatusnr(), 15, 20, eerder, 500);
+		verify(escalatieRepository).voortgang(11, 20);
+		assertThat(resultaat.isHervat()).isTrue();
+		assertThat(resultaat.getPeildatum()).isEqualTo(eerder);
+		assertThat(resultaat.getBereiken()).isEqualTo(1);
+	}
+
+	@Test
+	public void testOnbekendeEscalatiestatus() {
+		EscalatieService escalatieService = new EscalatieService(escalatieRepository, zaakOverzichtRepository, zaakStatusRepository, zaakregelRepository, statusRegister,
+			feitCatalogus, saldoService, zaakOverzichtService, versieTeller, escalatieMetrieken, transactionManager, OPEN.getStatusnr(), 0, 30, 0);
+
+		assertThatThrownBy(() -> escalatieService.escaleer(2, voortgang -> {
+		})).isInstanceOf(IllegalStateException.class);
+		verifyNoInteractions(escalatieRepository);
+	}
+
+	private EscalatieService escalatieService(int toeslagFeitnr) {
+		return new EscalatieService(escalatieRepository, zaakOverzichtRepository, zaakStatusRepository, zaakregelRepository, statusRegister, feitCatalogus,
+			saldoService, zaakOverzichtService, versieTeller, escalatieMetrieken, transactionManager, OPEN.getStatusnr(), AANMANING.getStatusnr(), 30, toeslagFeitnr);
+	}
+}
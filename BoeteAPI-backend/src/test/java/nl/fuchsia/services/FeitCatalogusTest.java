@@ -0,0 +1,112 @@
+package nl.fuchsia.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.repository.FeitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class FeitCatalogusTest {
+
+	@Mock
+	private FeitRepository feitRepository;
+
+	@InjectMocks
+	private FeitCatalogus feitCatalogus;
+
+	private Feit feitEen = new Feit(1, "VBF-001", "Test", 4.00);
+	private Feit feitTwee = new Feit(2, "VBF-002", "Test", 5.00);
+	private Feit feitDrie = new Feit(3, "VBF-003", "Test", 6.00);
+
+	@BeforeEach
+	public void setup() {
+		initMocks(this);
+		when(feitRepository.findAll()).thenReturn(Arrays.asList(feitDrie, feitEen, feitTwee));
+		feitCatalogus.herlaad();
+	}
+
+	@Test
+	public void testOpzoeken() {
+		assertThat(feitCatalogus.getFeit(2)).contains(feitTwee);
+		assertThat(feitCatalogus.getFeitByFeitcode("VBF-003")).contains(feitDrie);
+		assertThat(feitCatalogus.getFeit(4)).isEmpty();
+		assertThat(feitCatalogus.getFeiten()).containsExactly(feitEen, feitTwee, feitDrie);
+
+		verify(feitRepository, times(1)).findAll();
+		verifyNoMoreInteractions(feitRepository);
+	}
+
+	@Test
+	public void testPagina() {
+		assertThat(feitCatalogus.getFeiten(0, 2)).containsExactly(feitEen, feitTwee);
+		assertThat(feitCatalogus.getFeiten(2, 2)).containsExactly(feitDrie);
+		assertThat(feitCatalogus.getFeiten(3, 2)).isEmpty();
+	}
+
+	/**
+	 * Een feit dat bijgewerkt wordt terwijl de database gelezen wordt, staat ook in de nieuwe versie.
+	 */
+	@Test
+	public void testBijwerkenTijdensHerladen() {
+		Feit feitVier = new Feit(4, "VBF-004", "Test", 7.00);
+		when(feitRepository.findAll()).thenAnswer(aanroep -> {
+			feitCatalogus.bijwerken(feitVier);
+			return Arrays.asList(feitEen, feitTwee);
+		});
+
+		feitCatalogus.herlaad();
+
+		assertThat(feitCatalogus.getFeiten()).containsExactly(feitEen, feitTwee, feitVier);
+	}
+
+	/**
+	 * Een lijst die voor de wijziging is opgehaald verandert niet mee, de wijziging komt in een nieuwe versie.
+	 */
+	@Test
+	public void testBijwerken() {
+		List<Feit> voor = feitCatalogus.getFeiten();
+		Feit gewijzigd = new Feit(2, "VBF-002", "Gewijzigd", 7.00);
+		Feit nieuw = new Feit(4, "VBF-004", "Nieuw", 8.00);
+
+		feitCatalogus.bijwerken(gewijzigd);
+		feitCatalogus.bijwerken(nieuw);
+
+		assertThat(voor).containsExactly(feitEen, feitTwee, feitDrie);
+		assertThat(feitCatalogus.getFeit(2).get().getOmschrijving()).isEqualTo("Gewijzigd");
+		assertThat(feitCatalogus.getFeitByFeitcode("VBF-004")).contains(nieuw);
+		assertThat(feitCatalogus.getFeiten()).extracting(Feit::getFeitnr).containsExactly(1, 2, 3, 4);
+	}
+
+	@Test
+	public void testZoek() {
+		feitCatalogus.bijwerken(new Feit(2, "VBF-002", "Door rood licht rijden", 5.00));
+
+		assertThat(feitCatalogus.zoek("rood", 10)).containsExactly(feitCatalogus.getFeit(2).get());
+		assertThat(feitCatalogus.zoek("test", 10)).containsExactly(feitEen, feitDrie);
+	}
+
+	@Test
+	public void testMetrics() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		feitCatalogus.bindTo(registry);
+
+		feitCatalogus.getFeit(1);
+		feitCatalogus.getFeit(1);
+		feitCatalogus.getFeit(9);
+		feitCatalogus.bijwerken(new Feit(4, "VBF-004", "Nieuw", 8.00));
+
+		assertThat(registry.get("feitcatalogus.opzoekingen").tag("resultaat", "hit").functionCounter().count()).isEqualTo(2);
+		assertThat(registry.get("feitcatalogus.opzoekingen").tag("resultaat", "miss").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("feitcatalogus.herladen").functionCounter().count()).isEqualTo(2);
+		assertThat(registry.get("feitcatalogus.grootte").gauge().value()).isEqualTo(4);
+	}
+}
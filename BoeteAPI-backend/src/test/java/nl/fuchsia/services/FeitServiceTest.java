@@ -13,12 +13,21 @@ import org.springframework.transaction.TransactionSystemException;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class FeitServiceTest {
 	@Mock
 	private FeitRepository feitRepository;
+	@Mock
+	private FeitCatalogus feitCatalogus;
+	@Mock
+	private VersieTeller versieTeller;
+	@Mock
+	private SaldoService saldoService;
+	@Mock
+	private ZaakOverzichtService zaakOverzichtService;
 	@InjectMocks
 	private FeitService feitService;
 
@@ -30,10 +39,13 @@ public class FeitServiceTest {
 	@Test
 	public void testAddFeit() {
 		Feit feit = new Feit();
+		Feit opgeslagen = new Feit(1, "VBF-001", "Test", 4.00);
+		when(feitRepository.save(feit)).thenReturn(opgeslagen);
 
 		feitService.addFeit(feit);
 
 		verify(feitRepository).save(feit);
+		verify(feitCatalogus).bijwerken(opgeslagen);
 	}
 
 	@Test
@@ -47,7 +59,15 @@ public class FeitServiceTest {
 	public void testGetFeiten() {
 		feitService.getFeiten();
 
-		verify(feitRepository).findAll();
+		verify(feitCatalogus).getFeiten();
+		verifyNoInteractions(feitRepository);
+	}
+
+	@Test
+	public void testGetFeitenPagina() {
+		feitService.getFeiten(null, 10);
+
+		verify(feitCatalogus).getFeiten(0, 10);
 	}
 
 	/**
@@ -56,13 +76,17 @@ public class FeitServiceTest {
 	@Test
 	public void testUpdateFeitById() {
 		Feit feit = new Feit(2, "VBF-002", "Test", 500);
-		when(feitRepository.findById(feit.getFeitnr())).thenReturn(java.util.Optional.of(feit));
+		when(feitCatalogus.getFeit(feit.getFeitnr())).thenReturn(java.util.Optional.of(feit));
 		Feit updatedfeit = new Feit(2, "VBF-002", "Test", 5000);
+		when(feitRepository.saveAndFlush(updatedfeit)).thenReturn(updatedfeit);
 
 		feitService.updateFeitById(updatedfeit);
 
-		verify(feitRepository).findById(feit.getFeitnr());
-		verify(feitRepository).save(updatedfeit);
+		verify(feitCatalogus).getFeit(feit.getFeitnr());
+		verify(feitRepository).saveAndFlush(updatedfeit);
+		verify(feitCatalogus).bijwerken(updatedfeit);
+		verify(saldoService).feitGewijzigd(2);
+		verify(zaakOverzichtService).feitGewijzigd(2);
 	}
 
 	/**
@@ -71,7 +95,7 @@ public class FeitServiceTest {
 	@Test
 	public void testFeitcodeUpdateExeption() {
 		Feit feit = new Feit(3, "VBF-003", "Test", 500);
-		when(feitRepository.findById(feit.getFeitnr())).thenReturn(java.util.Optional.of(feit));
+		when(feitCatalogus.getFeit(feit.getFeitnr())).thenReturn(java.util.Optional.of(feit));
 
 		assertThatThrownBy(() -> feitService.updateFeitById(new Feit(3, "VBF-004", "Test", 500))).isInstanceOf(UniekVeldException.class)
 			.hasMessage("Feitcode: VBF-003 mag niet gewijzigd worden in VBF-004");
@@ -82,7 +106,7 @@ public class FeitServiceTest {
 	 */
 	@Test
 	public void testBestaanPersoonnr() {
-		when(feitRepository.save(any(Feit.class))).thenThrow(new TransactionSystemException("TestException"));
+		when(feitRepository.saveAndFlush(any(Feit.class))).thenThrow(new TransactionSystemException("TestException"));
 
 		assertThatThrownBy(() -> feitService.updateFeitById(new Feit(3, "VBF-003", "Test", 500))).isInstanceOf(NotFoundException.class).hasMessage("Feitnummer: 3 bestaat niet!");
 	}
@@ -0,0 +1,81 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.model.Feit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static nl.fuchsia.util.Percentielen.p50p95p99;
+
+/**
+ * Meet {@link FeitZoekIndex#zoek} over een catalogus met lange omschrijvingen, en hoe lang het bijwerken van één feit duurt.
+ * <p>
+ * Draait niet mee met de gewone tests, start met: mvn test -Dtest=FeitZoekBenchmark [-Dbenchmark.feiten=1000]
+ */
+public class FeitZoekBenchmark {
+
+	private static final int AANTAL_FEITEN = Integer.getInteger("benchmark.feiten", 1000);
+	private static final int WOORDEN_PER_FEIT = 700;
+	private static final int WOORDENSCHAT = 20000;
+	private static final int OPWARMEN = 20000;
+	private static final int METINGEN = 10000;
+
+	@Test
+	public void meetZoeken() {
+		Random random = new Random(42);
+		List<Feit> feiten = new ArrayList<>();
+		for (int i = 1; i <= AANTAL_FEITEN; i++) {
+			feiten.add(new Feit(i, String.format("VBB-%04d", i), omschrijving(random), 1.00));
+		}
+		long start = System.nanoTime();
+		FeitZoekIndex index = FeitZoekIndex.bouw(feiten);
+		System.out.printf("Index van %d feiten met %d termen opgebouwd in %.1f ms%n", AANTAL_FEITEN, index.getAantalTermen(), (System.nanoTime() - start) / 1_000_000.0);
+
+		String[] vragen = new String[100];
+		for (int i = 0; i < vragen.length; i++) {
+			vragen[i] = woord(random) + " " + woord(random) + " " + woord(random);
+		}
+		for (int i = 0; i < OPWARMEN; i++) {
+			index.zoek(vragen[i % vragen.length], 25);
+		}
+		long[] tijden = new long[METINGEN];
+		for (int i = 0; i < METINGEN; i++) {
+			start = System.nanoTime();
+			index.zoek(vragen[i % vragen.length], 25);
+			tijden[i] = System.nanoTime() - start;
+		}
+		System.out.printf("Zoeken met 3 termen, tijden in ms (p50 / p95 / p99): %s%n", percentielen(tijden));
+
+		for (int i = 0; i < METINGEN / 10; i++) {
+			Feit oud = feiten.get(i % feiten.size());
+			Feit nieuw = new Feit(oud.getFeitnr(), oud.getFeitcode(), omschrijving(random), 1.00);
+			start = System.nanoTime();
+			index = index.met(nieuw);
+			tijden[i] = System.nanoTime() - start;
+			feiten.set(i % feiten.size(), nieuw);
+		}
+		System.out.printf("Bijwerken van één feit, tijden in ms (p50 / p95 / p99): %s%n", percentielen(Arrays.copyOf(tijden, METINGEN / 10)));
+	}
+
+	private static String omschrijving(Random random) {
+		StringBuilder omschrijving = new StringBuilder();
+		for (int i = 0; i < WOORDEN_PER_FEIT; i++) {
+			omschrijving.append(woord(random)).append(' ');
+		}
+		return omschrijving.toString();
+	}
+
+	/**
+	 * Woorden met een scheve verdeling, zoals in gewone tekst: een paar woorden komen heel vaak voor.
+	 */
+	private static String woord(Random random) {
+		return "w" + (int) Math.pow(WOORDENSCHAT, random.nextDouble());
+	}
+
+	private static String percentielen(long[] tijden) {
+		return p50p95p99(tijden);
+	}
+}
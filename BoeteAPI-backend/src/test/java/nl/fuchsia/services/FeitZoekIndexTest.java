@@ -0,0 +1,80 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.model.Feit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FeitZoekIndexTest {
+
+	private Feit rood = new Feit(1, "VBF-001", "Door rood licht rijden", 4.00);
+	private Feit snelheid = new Feit(2, "VBF-002", "Overschrijding van de maximumsnelheid binnen de bebouwde kom", 5.00);
+	private Feit parkeren = new Feit(3, "VBF-003", "Parkeren op een invalidenparkeerplaats", 6.00);
+	private Feit snelweg = new Feit(4, "VBF-004", "Overschrijding van de maximumsnelheid op de snelweg, met meer dan 30 km/u", 7.00);
+
+	private FeitZoekIndex index = FeitZoekIndex.bouw(Arrays.asList(snelweg, rood, parkeren, snelheid));
+
+	@Test
+	public void testTermen() {
+		assertThat(FeitZoekIndex.termen("Één ROOD-licht, 30 km/u!")).containsExactly("een", "rood", "licht", "30", "km", "u");
+		assertThat(FeitZoekIndex.termen(null)).isEmpty();
+		assertThat(FeitZoekIndex.termen(" ,. ")).isEmpty();
+	}
+
+	@Test
+	public void testZoekRangschiktOpAantalEnZeldzaamheid() {
+		assertThat(index.zoek("maximumsnelheid", 10)).containsExactly(2, 4);
+		// "snelweg" komt maar in één feit voor en geeft de doorslag.
+		assertThat(index.zoek("maximumsnelheid snelweg", 10)).containsExactly(4, 2);
+		assertThat(index.zoek("Kom MAXIMUMSNELHEID", 10)).containsExactly(2, 4);
+		assertThat(index.zoek("rood parkeren", 10)).containsExactlyInAnyOrder(1, 3);
+	}
+
+	@Test
+	public void testZoekZonderTreffers() {
+		assertThat(index.zoek("fiets", 10)).isEmpty();
+		assertThat(index.zoek("", 10)).isEmpty();
+		assertThat(FeitZoekIndex.bouw(new ArrayList<>()).zoek("rood", 10)).isEmpty();
+	}
+
+	@Test
+	public void testZoekLimit() {
+		assertThat(index.zoek("de", 1)).containsExactly(2);
+	}
+
+	/**
+	 * De bijgewerkte index moet hetzelfde vinden als een index die opnieuw is opgebouwd, en de oude index verandert niet.
+	 */
+	@Test
+	public void testMetGelijkAanOpnieuwBouwen() {
+		Feit gewijzigd = new Feit(1, "VBF-001", "Door rood licht fietsen", 4.00);
+		Feit nieuw = new Feit(5, "VBF-005", "Fietsen zonder licht", 2.00);
+
+		FeitZoekIndex bijgewerkt = index.met(gewijzigd).met(nieuw);
+		FeitZoekIndex opnieuw = FeitZoekIndex.bouw(Arrays.asList(gewijzigd, snelheid, parkeren, snelweg, nieuw));
+
+		for (String vraag : Arrays.asList("fietsen", "licht", "rijden", "rood licht", "maximumsnelheid snelweg", "zonder")) {
+			assertThat(bijgewerkt.zoek(vraag, 10)).as(vraag).isEqualTo(opnieuw.zoek(vraag, 10));
+		}
+		assertThat(bijgewerkt.zoek("rijden", 10)).isEmpty();
+		assertThat(bijgewerkt.getAantalTermen()).isEqualTo(opnieuw.getAantalTermen());
+		assertThat(index.zoek("rijden", 10)).containsExactly(1);
+	}
+
+	/**
+	 * Een beheerd feit kan de nieuwe omschrijving al hebben voordat de index wordt bijgewerkt.
+	 */
+	@Test
+	public void testMetZelfdeGewijzigdeInstantie() {
+		parkeren.setOmschrijving("Parkeren langs een gele streep");
+
+		FeitZoekIndex bijgewerkt = index.met(parkeren);
+
+		assertThat(bijgewerkt.zoek("invalidenparkeerplaats", 10)).isEmpty();
+		assertThat(bijgewerkt.zoek("streep", 10)).containsExactly(3);
+	}
+}
@@ -0,0 +1,118 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.Application;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.repository.FeitRepository;
+import nl.fuchsia.repository.PersoonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importeert tegen H2. Elke chunk wordt in een eigen thread en transactie geladen, daarom draait deze test niet in een
+ * teruggedraaide testtransactie en ruimt hij zelf op.
+ */
+@SpringBootTest(classes = Application.class)
+public class ImportServiceTest {
+
+	@TempDir
+	Path map;
+
+	@Autowired
+	private ImportService importService;
+
+	@Autowired
+	private PersoonRepository persoonRepository;
+
+	@Autowired
+	private FeitRepository feitRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	public void setup() {
+		opruimen();
+	}
+
+	@AfterEach
+	public void opruimen() {
+		jdbcTemplate.update("DELETE FROM persoon WHERE bsn LIKE '12345670_'");
+		jdbcTemplate.update("DELETE FROM feit WHERE feitcode LIKE 'VBF-8__'");
+	}
+
+	@Test
+	public void testImporteerPersonen() throws IOException {
+		persoonRepository.save(new Persoon("Henk", "V", "Straat", "1", "9999 AA", "Sneek", "123456709", LocalDate.of(1990, 1, 1)));
+		Path bestand = schrijf("personen.csv",
+			"voornaam;achternaam;straat;huisnummer;postcode;woonplaats;bsn;geboortedatum",
+			"Rense;Houwing;De buren;10;8402 GH;Drachten;123456701;12-10-1990",
+			"Sjaak;Jansen;Hoofdstraat;1a;8911 AB;Leeuwarden;123456702;01-02-1985",
+			"Piet;Fout;Straat;2;8911ab;Leeuwarden;123456703;01-02-1985",
+			"Klaas;Dubbel;Straat;3;8911 AB;Leeuwarden;123456701;01-02-1985",
+			"Anna;Bestaat;Straat;4;8911 AB;Leeuwarden;123456709;01-02-1985",
+			"Jan;Datum;Straat;5;8911 AB;Leeuwarden;123456704;31-02-1985",
+			"",
+			"Marie;de Vries;\"Weg; achter\";6;8911 AB;Leeuwarden;123456705;01-02-1985");
+		Path rejects = map.resolve("personen.rejects.csv");
+		AtomicInteger meldingen = new AtomicInteger();
+
+		ImportResultaat resultaat = importService.importeer(ImportService.Soort.PERSONEN, bestand, rejects, 3, 64, voortgang -> meldingen.incrementAndGet());
+
+		assertThat(resultaat.getChunks()).isGreaterThan(1);
+		assertThat(meldingen.get()).isEqualTo(resultaat.getChunks());
+		assertThat(resultaat.getRegels()).isEqualTo(7);
+		assertThat(resultaat.getGeladen()).isEqualTo(3);
+		assertThat(resultaat.getAfgewezen()).isEqualTo(4);
+		assertThat(persoonRepository.findBestaandeBsns(Arrays.asList("123456701", "123456702", "123456705"))).hasSize(3);
+
+		// Regel 2 en 5 hebben hetzelfde bsn en staan in verschillende chunks, welke van de twee geladen wordt ligt niet vast.
+		List<String> afgewezen = Files.readAllLines(rejects, StandardCharsets.UTF_8);
+		assertThat(afgewezen).hasSize(5);
+		assertThat(afgewezen).filteredOn(regel -> regel.contains("Bsn 123456701 komt meerdere keren voor in het bestand")).hasSize(1);
+		assertThat(afgewezen).anyMatch(regel -> regel.startsWith("4;\"Voer een geldige postcode in."));
+		assertThat(afgewezen).contains("6;\"Bsn 123456709 bestaat al\";Anna;Bestaat;Straat;4;8911 AB;Leeuwarden;123456709;01-02-1985");
+		assertThat(afgewezen).anyMatch(regel -> regel.startsWith("7;\"Geboortedatum 31-02-1985 is geen geldige datum (dd-MM-yyyy)\";Jan"));
+		assertThat(afgewezen.subList(1, afgewezen.size())).extracting(regel -> Integer.valueOf(regel.substring(0, regel.indexOf(';')))).isSorted();
+	}
+
+	@Test
+	public void testImporteerFeiten() throws IOException {
+		Path bestand = schrijf("feiten.csv",
+			"feitcode;omschrijving;bedrag",
+			"VBF-801;Door rood licht;239,00",
+			"VBF-802;\"Te hard; binnen de bebouwde kom\";120.50",
+			"VBF-8033;Foute code;10",
+			"VBF-804;Geen bedrag;gratis");
+		Path rejects = map.resolve("feiten.rejects.csv");
+
+		ImportResultaat resultaat = importService.importeer(ImportService.Soort.FEITEN, bestand, rejects, 2, voortgang -> {
+		});
+
+		assertThat(resultaat.getGeladen()).isEqualTo(2);
+		assertThat(resultaat.getAfgewezen()).isEqualTo(2);
+		assertThat(feitRepository.findBestaandeFeitcodes(Arrays.asList("VBF-801", "VBF-802"))).hasSize(2);
+		assertThat(feitRepository.findAll()).extracting(Feit::getOmschrijving).contains("Te hard; binnen de bebouwde kom");
+		assertThat(Files.readAllLines(rejects, StandardCharsets.UTF_8)).hasSize(3);
+	}
+
+	private Path schrijf(String naam, String... regels) throws IOException {
+		return Files.write(map.resolve(naam), Arrays.asList(regels), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,117 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.repository.StroomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class PersoonIndexTest {
+
+	@Mock
+	private StroomRepository stroomRepository;
+
+	private PersoonIndex persoonIndex;
+
+	private Persoon rense = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
+	private Persoon sjaak = new Persoon(2, "Sjaak", "de Vries", "Hoofdstraat", "1a", "8911 AB", "Leeuwarden", "012345678", LocalDate.of(1985, 2, 1));
+	private Persoon anna = new Persoon(3, "Anna", "Houtman", "De buren", "12", "8402 GJ", "Drachten", "223456789", null);
+	private Persoon piet = new Persoon(4, "Piet", "Hóuwing", "Kerkstraat", "3", "8411 AA", "Sneek", "323456789", LocalDate.of(1970, 5, 5));
+
+	@BeforeEach
+	public void setup() {
+		initMocks(this);
+		List<Persoon> personen = Arrays.asList(rense, sjaak, anna, piet);
+		when(stroomRepository.getPersonen()).thenReturn(personen::forEach);
+		persoonIndex = new PersoonIndex(stroomRepository, 1000);
+		persoonIndex.herlaad();
+	}
+
+	@Test
+	public void testZoekAchternaam() {
+		assertThat(persoonIndex.zoek("houwing", 10)).containsExactly(rense, piet);
+		assertThat(persoonIndex.zoek("Hou", 10)).containsExactly(anna, rense, piet);
+		assertThat(persoonIndex.zoek("vries", 10)).containsExactly(sjaak);
+		assertThat(persoonIndex.zoek("de vr", 10)).containsExactly(sjaak);
+		assertThat(persoonIndex.zoek("Hou", 1)).containsExactly(anna);
+	}
+
+	@Test
+	public void testZoekMetTikfouten() {
+		assertThat(persoonIndex.zoek("Houwig", 10)).containsExactly(rense, piet);
+		assertThat(persoonIndex.zoek("Vires", 10)).containsExactly(sjaak);
+		assertThat(persoonIndex.zoek("Visser", 10)).isEmpty();
+		assertThat(PersoonIndex.afstand("houwing", "hauwink", 2)).isEqualTo(2);
+		assertThat(PersoonIndex.afstand("vries", "vrise", 2)).isEqualTo(1);
+		assertThat(PersoonIndex.afstand("houwing", "jansen", 2)).isEqualTo(3);
+	}
+
+	@Test
+	public void testZoekPostcodeEnBsn() {
+		assertThat(persoonIndex.zoek("8402 GH", 10)).containsExactly(rense);
+		assertThat(persoonIndex.zoek("8402g", 10)).containsExactly(rense, anna);
+		assertThat(persoonIndex.zoek("123456789", 10)).containsExactly(rense);
+		assertThat(persoonIndex.zoek("0123", 10)).containsExactly(sjaak);
+		// Vier cijfers kunnen een postcode en het begin van een BSN zijn.
+		assertThat(persoonIndex.zoek("8411", 10)).containsExactly(piet);
+	}
+
+	/**
+	 * Een persoon die bijgewerkt wordt terwijl de database gelezen wordt, raakt niet kwijt als de nieuwe index wordt neergezet.
+	 */
+	@Test
+	public void testBijwerkenTijdensHerladen() {
+		Persoon nieuw = new Persoon(10, "Klaas", "Jansen", "Markt", "2", "8911 AB", "Leeuwarden", "423456789", LocalDate.of(2000, 1, 1));
+		when(stroomRepository.getPersonen()).thenReturn(verwerker -> {
+			Arrays.asList(rense, sjaak).forEach(verwerker);
+			persoonIndex.bijwerken(nieuw);
+		});
+
+		persoonIndex.herlaad();
+
+		assertThat(persoonIndex.zoek("jansen", 10)).containsExactly(nieuw);
+		assertThat(persoonIndex.zoek("houtman", 10)).isEmpty();
+	}
+
+	@Test
+	public void testBijwerken() {
+		Persoon verhuisd = new Persoon(1, "Rense", "Jansen", "Markt", "1", "8911 AB", "Leeuwarden", "123456789", LocalDate.of(1990, 10, 12));
+		Persoon nieuw = new Persoon(10, "Klaas", "Houwing", "Markt", "2", "8911 AB", "Leeuwarden", "423456789", LocalDate.of(2000, 1, 1));
+		Persoon tussen = new Persoon(5, "Jan", "Houwing", "Markt", "3", "8911 AB", "Leeuwarden", "523456789", LocalDate.of(2000, 1, 1));
+
+		persoonIndex.bijwerken(verhuisd);
+		persoonIndex.bijwerken(nieuw);
+		persoonIndex.bijwerken(tussen);
+
+		assertThat(persoonIndex.zoek("houwing", 10)).containsExactly(piet, tussen, nieuw);
+		assertThat(persoonIndex.zoek("jansen", 10)).containsExactly(verhuisd);
+		assertThat(persoonIndex.zoek("8911 AB", 10)).containsExactly(verhuisd, sjaak, tussen, nieuw);
+		assertThat(persoonIndex.zoek("8402 GH", 10)).isEmpty();
+		assertThat(persoonIndex.getAantal()).isEqualTo(6);
+	}
+
+	@Test
+	public void testBudget() {
+		persoonIndex = new PersoonIndex(stroomRepository, 0);
+		persoonIndex.herlaad();
+
+		assertThat(persoonIndex.zoek("Houwig", 10)).isEmpty();
+		// Genoeg exacte treffers, er wordt niet naar tikfouten gezocht.
+		assertThat(persoonIndex.zoek("Houwing", 2)).containsExactly(rense, piet);
+		assertThat(persoonIndex.getBudgetOverschreden()).isEqualTo(1);
+	}
+
+	@Test
+	public void testNormaliseer() {
+		assertThat(PersoonIndex.normaliseer("  Van  der Hóuwing-Jansen ")).isEqualTo("van der houwing jansen");
+		assertThat(PersoonIndex.normaliseer("'t")).isEqualTo("t");
+	}
+}
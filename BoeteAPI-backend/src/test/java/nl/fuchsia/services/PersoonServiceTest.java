@@ -8,6 +8,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionSystemException;
 
 import java.time.LocalDate;
@@ -16,6 +18,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -23,6 +26,14 @@ public class PersoonServiceTest {
 
 	@Mock
 	PersoonRepository persoonRepository;
+	@Mock
+	VersieTeller versieTeller;
+	@Mock
+	ZaakOverzichtService zaakOverzichtService;
+	@Mock
+	PersoonIndex persoonIndex;
+	@Mock
+	PlatformTransactionManager transactionManager;
 
 	@InjectMocks
 	PersoonService persoonService;
@@ -39,9 +50,12 @@ public class PersoonServiceTest {
 	public void testAddPersoon() {
 		Persoon persoon = new Persoon();
 
+		when(persoonRepository.save(persoon)).thenReturn(persoon);
+
 		persoonService.addPersoon(persoon);
 
 		verify(persoonRepository).save(persoon);
+		verify(persoonIndex).bijwerken(persoon);
 	}
 
 	/**
@@ -54,6 +68,16 @@ public class PersoonServiceTest {
 		verify(persoonRepository).findAll();
 	}
 
+	/**
+	 * Test of een pagina personen na het meegegeven persoonnr wordt opgehaald.
+	 */
+	@Test
+	public void testGetPersonenPagina() {
+		persoonService.getPersonen(40, 10);
+
+		verify(persoonRepository).findByPersoonnrGreaterThanOrderByPersoonnrAsc(40, PageRequest.of(0, 10));
+	}
+
 	/**
 	 * Test of de methode getPersoonByID in de persoonRepository wordt aangeroepen.
 	 */
@@ -82,6 +106,19 @@ public class PersoonServiceTest {
 
 		verify(persoonRepository).findById(1);
 		verify(persoonRepository).save(persoon);
+		verify(zaakOverzichtService).persoonGewijzigd(persoon);
+		verify(persoonIndex).bijwerken(persoon);
+	}
+
+	/**
+	 * Test of het zoeken naar personen via de index gaat.
+	 */
+	@Test
+	public void testZoekPersonen() {
+		persoonService.zoekPersonen("Houwing", 10);
+
+		verify(persoonIndex).zoek("Houwing", 10);
+		verifyNoInteractions(persoonRepository);
 	}
 
 	/**
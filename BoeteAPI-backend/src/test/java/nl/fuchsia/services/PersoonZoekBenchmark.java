@@ -0,0 +1,102 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.repository.StroomRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static nl.fuchsia.util.Percentielen.p50p95p99;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Meet {@link PersoonIndex#zoek} per soort zoekvraag en het geheugen dat de index inneemt.
+ * <p>
+ * Draait niet mee met de gewone tests, start met: mvn test -Dtest=PersoonZoekBenchmark [-Dbenchmark.personen=1000000]
+ */
+public class PersoonZoekBenchmark {
+
+	private static final int AANTAL_PERSONEN = Integer.getInteger("benchmark.personen", 1000000);
+	private static final int OPWARMEN = 2000;
+	private static final int METINGEN = 5000;
+	private static final String[] PLAATSEN = {"Amsterdam", "Drachten", "Groningen", "Heerenveen", "Leeuwarden", "Sneek", "Utrecht", "Zwolle"};
+	private static final String[] VOORVOEGSELS = {"", "", "", "de ", "van ", "van der "};
+	private static final String[] LETTERGREPEN = {"bak", "ker", "jan", "sen", "de", "vries", "hou", "wing", "meer", "berg", "dijk", "man", "ster", "hof",
+		"veld", "kamp", "brink", "bos", "wit", "groot", "huis", "hout", "ma", "stra", "boer", "ens", "wal", "zee", "molen", "aar"};
+
+	@Test
+	public void meetZoeken() {
+		StroomRepository stroomRepository = mock(StroomRepository.class);
+		when(stroomRepository.getPersonen()).thenReturn(verwerker -> {
+			Random random = new Random(42);
+			for (int i = 1; i <= AANTAL_PERSONEN; i++) {
+				verwerker.accept(persoon(i, random));
+			}
+		});
+		PersoonIndex persoonIndex = new PersoonIndex(stroomRepository, 5);
+
+		long voor = gebruiktGeheugen();
+		long start = System.nanoTime();
+		persoonIndex.herlaad();
+		long duur = System.nanoTime() - start;
+		System.out.printf("Index van %d personen geladen in %.0f ms, %.1f MB (%.0f bytes per persoon)%n", AANTAL_PERSONEN, duur / 1_000_000.0,
+			(gebruiktGeheugen() - voor) / 1_048_576.0, (gebruiktGeheugen() - voor) / (double) AANTAL_PERSONEN);
+
+		Map<String, String> vragen = new LinkedHashMap<>();
+		vragen.put("achternaam exact", "Houwingmeer");
+		vragen.put("achternaam begin", "Houwing");
+		vragen.put("tussenvoegsel", "vries");
+		vragen.put("tikfout", "Houwnigmeer");
+		vragen.put("twee tikfouten", "Hauwingmeir");
+		vragen.put("postcode", "8402 GH");
+		vragen.put("postcode begin", "8402");
+		vragen.put("bsn", String.format("%09d", AANTAL_PERSONEN / 2));
+		vragen.put("bsn begin", "00012");
+		System.out.println("Zoeken, limit 10, tijden in ms (p50 / p95 / p99)");
+		for (Map.Entry<String, String> vraag : vragen.entrySet()) {
+			System.out.printf("%-18s %s (%d treffers)%n", vraag.getKey(), meet(persoonIndex, vraag.getValue()), persoonIndex.zoek(vraag.getValue(), 10).size());
+		}
+		System.out.printf("Budget overschreden: %d keer%n", persoonIndex.getBudgetOverschreden());
+	}
+
+	private static Persoon persoon(int persoonnr, Random random) {
+		String achternaam = VOORVOEGSELS[random.nextInt(VOORVOEGSELS.length)] + achternaam(random);
+		String postcode = String.format("%04d %c%c", 1000 + random.nextInt(9000), (char) ('A' + random.nextInt(26)), (char) ('A' + random.nextInt(26)));
+		return new Persoon(persoonnr, "Voornaam" + random.nextInt(2000), achternaam, "Straat" + random.nextInt(20000), String.valueOf(1 + random.nextInt(200)),
+			postcode, PLAATSEN[random.nextInt(PLAATSEN.length)], String.format("%09d", persoonnr), LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20000)));
+	}
+
+	/**
+	 * Twee of drie lettergrepen, zo'n 25.000 verschillende achternamen.
+	 */
+	private static String achternaam(Random random) {
+		StringBuilder naam = new StringBuilder();
+		for (int i = random.nextInt(3) == 0 ? 3 : 2; i > 0; i--) {
+			naam.append(LETTERGREPEN[random.nextInt(LETTERGREPEN.length)]);
+		}
+		naam.setCharAt(0, Character.toUpperCase(naam.charAt(0)));
+		return naam.toString();
+	}
+
+	private static String meet(PersoonIndex persoonIndex, String vraag) {
+		for (int i = 0; i < OPWARMEN; i++) {
+			persoonIndex.zoek(vraag, 10);
+		}
+		long[] tijden = new long[METINGEN];
+		for (int i = 0; i < METINGEN; i++) {
+			long start = System.nanoTime();
+			persoonIndex.zoek(vraag, 10);
+			tijden[i] = System.nanoTime() - start;
+		}
+		return p50p95p99(tijden);
+	}
+
+	private static long gebruiktGeheugen() {
+		System.gc();
+		return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+	}
+}
@@ -0,0 +1,128 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.exceptionhandlers.NotFoundException;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.PersoonSaldo;
+import nl.fuchsia.repository.SaldoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class SaldoServiceTest {
+
+	@Mock
+	private SaldoRepository saldoRepository;
+
+	@InjectMocks
+	private SaldoService saldoService;
+
+	@BeforeEach
+	public void setup() {
+		initMocks(this);
+		when(saldoRepository.wijzig(anyCollection())).thenReturn(new int[]{1});
+	}
+
+	@Test
+	public void testGetSaldo() {
+		PersoonSaldo saldo = new PersoonSaldo(1, 3, 2, new BigDecimal("45.00"));
+		when(saldoRepository.findByPersoonnr(1)).thenReturn(Optional.of(saldo));
+
+		assertThat(saldoService.getSaldo(1)).isEqualTo(saldo);
+		verify(saldoRepository, never()).maakAan(anyInt());
+	}
+
+	/**
+	 * Een persoon zonder saldo krijgt er een, berekend vanuit zijn zaken.
+	 */
+	@Test
+	public void testGetSaldoMaaktSaldoAan() {
+		PersoonSaldo saldo = new PersoonSaldo(1, 0, 0, BigDecimal.ZERO);
+		when(saldoRepository.findByPersoonnr(1)).thenReturn(Optional.empty()).thenReturn(Optional.of(saldo));
+
+		assertThat(saldoService.getSaldo(1)).isEqualTo(saldo);
+		verify(saldoRepository).maakAan(1);
+	}
+
+	@Test
+	public void testGetSaldoPersoonBestaatNiet() {
+		when(saldoRepository.findByPersoonnr(1)).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> saldoService.getSaldo(1)).isInstanceOf(NotFoundException.class).hasMessage("Persoonnr 1 bestaat niet");
+	}
+
+	@Test
+	public void testZaakToegevoegd() {
+		saldoService.zaakToegevoegd(1, new BigDecimal("45.00"), true);
+		saldoService.zaakToegevoegd(2, new BigDecimal("45.00"), false);
+
+		verify(saldoRepository).wijzig(Collections.singletonList(new PersoonSaldo(1, 1, 1, new BigDecimal("45.00"))));
+		verify(saldoRepository).wijzig(Collections.singletonList(new PersoonSaldo(2, 1, 0, BigDecimal.ZERO)));
+	}
+
+	@Test
+	public void testFeitenToegevoegdAanAfgeslotenZaak() {
+		saldoService.feitenToegevoegd(1, new BigDecimal("45.00"), false);
+
+		verifyNoInteractions(saldoRepository);
+	}
+
+	@Test
+	public void testStatusGewijzigd() {
+		saldoService.statusGewijzigd(1, new BigDecimal("45.00"), true, true);
+		verifyNoInteractions(saldoRepository);
+
+		saldoService.statusGewijzigd(1, new BigDecimal("45.00"), true, false);
+		verify(saldoRepository).wijzig(Collections.singletonList(new PersoonSaldo(1, 0, -1, new BigDecimal("-45.00"))));
+
+		saldoService.statusGewijzigd(1, new BigDecimal("45.00"), false, true);
+		verify(saldoRepository).wijzig(Collections.singletonList(new PersoonSaldo(1, 0, 1, new BigDecimal("45.00"))));
+	}
+
+	/**
+	 * Alleen de personen die nog geen saldo hebben worden vanuit hun zaken berekend.
+	 */
+	@Test
+	public void testVerwerkMaaktOntbrekendeSaldosAan() {
+		when(saldoRepository.wijzig(anyCollection())).thenReturn(new int[]{1, 0});
+		when(saldoRepository.maakAan(2)).thenReturn(true);
+
+		saldoService.verwerk(Arrays.asList(new PersoonSaldo(1, 1, 1, BigDecimal.ONE), new PersoonSaldo(2, 1, 1, BigDecimal.ONE)));
+
+		verify(saldoRepository).maakAan(2);
+		verify(saldoRepository, never()).maakAan(1);
+		verify(saldoRepository, times(1)).wijzig(anyCollection());
+	}
+
+	/**
+	 * Een saldo dat tussen de UPDATE en het aanmaken door een andere transactie is aangemaakt krijgt het verschil alsnog.
+	 */
+	@Test
+	public void testVerwerkSaldoTegelijkAangemaakt() {
+		PersoonSaldo verschil = new PersoonSaldo(2, 1, 1, BigDecimal.ONE);
+		when(saldoRepository.wijzig(anyCollection())).thenReturn(new int[]{0});
+		when(saldoRepository.maakAan(2)).thenReturn(false);
+
+		saldoService.verwerk(Collections.singletonList(verschil));
+
+		verify(saldoRepository, times(2)).wijzig(Collections.singletonList(verschil));
+	}
+
+	@Test
+	public void testBedrag() {
+		assertThat(SaldoService.bedrag(Arrays.asList(new Feit(1, "VBF-001", "Test", 0.1), new Feit(2, "VBF-002", "Test", 0.2))))
+			.isEqualTo(new BigDecimal("0.30"));
+	}
+}
@@ -0,0 +1,85 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.model.Status;
+import nl.fuchsia.repository.StatusRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class StatusRegisterTest {
+
+	@Mock
+	private StatusRepository statusRepository;
+
+	private Status open = new Status(1, "Open");
+	private Status betaald = new Status(4, "Betaald");
+
+	@BeforeEach
+	public void setup() {
+		initMocks(this);
+		when(statusRepository.findAll()).thenReturn(Arrays.asList(betaald, open));
+	}
+
+	@Test
+	public void testGetStatus() {
+		StatusRegister statusRegister = new StatusRegister(statusRepository, 1, new int[0]);
+		statusRegister.herlaad();
+
+		assertThat(statusRegister.getStatus(1)).contains(open);
+		assertThat(statusRegister.getStatus(4)).contains(betaald);
+		assertThat(statusRegister.getStatus(2)).isEmpty();
+		assertThat(statusRegister.getStatus(5)).isEmpty();
+		assertThat(statusRegister.getStatus(-1)).isEmpty();
+		assertThat(statusRegister.getStatus(null)).isEmpty();
+		assertThat(statusRegister.getBeginstatus()).isEqualTo(open);
+
+		statusRegister.getStatus(4);
+		verify(statusRepository, times(1)).findAll();
+	}
+
+	@Test
+	public void testBeginstatusInstelbaar() {
+		StatusRegister statusRegister = new StatusRegister(statusRepository, 4, new int[0]);
+		statusRegister.herlaad();
+
+		assertThat(statusRegister.getBeginstatus()).isEqualTo(betaald);
+	}
+
+	@Test
+	public void testHerlaad() {
+		StatusRegister statusRegister = new StatusRegister(statusRepository, 1, new int[0]);
+		statusRegister.herlaad();
+		when(statusRepository.findAll()).thenReturn(Collections.singletonList(new Status(1, "Nieuw")));
+
+		statusRegister.herlaad();
+
+		assertThat(statusRegister.getStatus(1).get().getOmschrijving()).isEqualTo("Nieuw");
+		assertThat(statusRegister.getStatus(4)).isEmpty();
+	}
+
+	@Test
+	public void testIsOpen() {
+		StatusRegister statusRegister = new StatusRegister(statusRepository, 1, new int[]{5, 4});
+
+		assertThat(statusRegister.isOpen(open)).isTrue();
+		assertThat(statusRegister.isOpen(betaald)).isFalse();
+		assertThat(statusRegister.isOpen(null)).isTrue();
+		assertThat(new StatusRegister(statusRepository, 1, new int[0]).isOpen(betaald)).isTrue();
+	}
+
+	@Test
+	public void testBeginstatusBestaatNiet() {
+		StatusRegister statusRegister = new StatusRegister(statusRepository, 7, new int[0]);
+		statusRegister.herlaad();
+
+		assertThatThrownBy(statusRegister::getBeginstatus).isInstanceOf(IllegalStateException.class).hasMessage("Beginstatus 7 staat niet in de tabel status");
+	}
+}
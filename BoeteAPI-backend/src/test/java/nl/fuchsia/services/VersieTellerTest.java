@@ -0,0 +1,55 @@
+package nl.fuchsia.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VersieTellerTest {
+
+	private final VersieTeller versieTeller = new VersieTeller();
+
+	@AfterEach
+	public void opruimen() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testVerhoogBuitenTransactie() {
+		String etag = versieTeller.etag(VersieTeller.Tabel.FEIT);
+
+		versieTeller.verhoog(VersieTeller.Tabel.FEIT);
+
+		assertThat(versieTeller.getVersie(VersieTeller.Tabel.FEIT)).isEqualTo(1);
+		assertThat(versieTeller.etag(VersieTeller.Tabel.FEIT)).isNotEqualTo(etag);
+		assertThat(versieTeller.getVersie(VersieTeller.Tabel.ZAAK)).isZero();
+	}
+
+	/**
+	 * Test of binnen een transactie de versie pas na de commit omhoog gaat.
+	 */
+	@Test
+	public void testVerhoogNaCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+
+		versieTeller.verhoog(VersieTeller.Tabel.ZAAK);
+
+		assertThat(versieTeller.getVersie(VersieTeller.Tabel.ZAAK)).isZero();
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+		assertThat(versieTeller.getVersie(VersieTeller.Tabel.ZAAK)).isEqualTo(1);
+	}
+
+	@Test
+	public void testEtagIsSterkEnPerTabel() {
+		String etag = versieTeller.etag(VersieTeller.Tabel.PERSOON);
+
+		assertThat(etag).startsWith("\"persoon-").endsWith("-0\"");
+		assertThat(etag).isNotEqualTo(versieTeller.etag(VersieTeller.Tabel.ZAAK));
+	}
+}
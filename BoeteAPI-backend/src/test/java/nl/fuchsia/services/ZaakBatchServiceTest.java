@@ -0,0 +1,122 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.dto.ZaakBatchResultaatDto;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.PersoonSaldo;
+import nl.fuchsia.model.Status;
+import nl.fuchsia.repository.PersoonRepository;
+import nl.fuchsia.repository.ZaakBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.validation.Validation;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class ZaakBatchServiceTest {
+
+	@Mock
+	private PersoonRepository persoonRepository;
+
+	@Mock
+	private FeitCatalogus feitCatalogus;
+
+	@Mock
+	private StatusRegister statusRegister;
+
+	@Mock
+	private ZaakBatchRepository zaakBatchRepository;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Mock
+	private VersieTeller versieTeller;
+
+	@Mock
+	private SaldoService saldoService;
+
+	@Mock
+	private ZaakOverzichtService zaakOverzichtService;
+
+	@Captor
+	private ArgumentCaptor<Collection<PersoonSaldo>> saldoVerschillen;
+
+	private ZaakBatchService zaakBatchService;
+
+	@BeforeEach
+	public void setup() {
+		initMocks(this);
+		zaakBatchService = new ZaakBatchService(persoonRepository, feitCatalogus, statusRegister, zaakBatchRepository,
+			Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, versieTeller, saldoService, zaakOverzichtService);
+		when(persoonRepository.findBestaandePersoonnrs(anyCollection())).thenReturn(new HashSet<>(Arrays.asList(1, 2)));
+		when(statusRegister.getBeginstatus()).thenReturn(new Status(1, "Open"));
+		when(statusRegister.isOpen(any())).thenReturn(true);
+		when(feitCatalogus.getFeit(10)).thenReturn(Optional.of(new Feit(10, "VBF-010", "Test", 4.00)));
+		when(feitCatalogus.getFeit(11)).thenReturn(Optional.of(new Feit(11, "VBF-011", "Test", 4.00)));
+	}
+
+	@Test
+	public void testAddZaken() {
+		ZaakDto zaakEen = new ZaakDto(null, LocalDate.of(2019, 12, 12), "Leeuwarden", 1, Arrays.asList(10, 11));
+		ZaakDto zaakTwee = new ZaakDto(null, LocalDate.of(2019, 12, 12), "Drachten", 2, Arrays.asList(10));
+		when(zaakBatchRepository.addZaken(eq(Arrays.asList(zaakEen, zaakTwee)), eq(1), any())).thenReturn(Arrays.asList(100, 101));
+
+		List<ZaakBatchResultaatDto> resultaten = zaakBatchService.addZaken(Arrays.asList(zaakEen, zaakTwee));
+
+		assertThat(resultaten).extracting(ZaakBatchResultaatDto::getZaaknr).containsExactly(100, 101);
+		assertThat(resultaten).allMatch(ZaakBatchResultaatDto::isGeslaagd);
+		verify(persoonRepository, times(1)).findBestaandePersoonnrs(anyCollection());
+		verify(saldoService).verwerk(saldoVerschillen.capture());
+		assertThat(saldoVerschillen.getValue()).containsExactly(new PersoonSaldo(1, 1, 1, new BigDecimal("8.00")), new PersoonSaldo(2, 1, 1, new BigDecimal("4.00")));
+		verify(zaakOverzichtService).zakenToegevoegd(Arrays.asList(100, 101));
+	}
+
+	@Test
+	public void testAddZakenOngeldigeZakenWordenOvergeslagen() {
+		ZaakDto geldig = new ZaakDto(null, LocalDate.of(2019, 12, 12), "Leeuwarden", 1, Arrays.asList(10));
+		ZaakDto onbekendePersoon = new ZaakDto(null, LocalDate.of(2019, 12, 12), "Leeuwarden", 3, Arrays.asList(10));
+		ZaakDto onbekendFeit = new ZaakDto(null, LocalDate.of(2019, 12, 12), "Leeuwarden", 1, Arrays.asList(12));
+		ZaakDto dubbelFeit = new ZaakDto(null, LocalDate.of(2019, 12, 12), "Leeuwarden", 1, Arrays.asList(10, 10));
+		ZaakDto geenDatum = new ZaakDto(null, null, "Leeuwarden", 1, Arrays.asList(10));
+		when(zaakBatchRepository.addZaken(eq(Collections.singletonList(geldig)), eq(1), any())).thenReturn(Collections.singletonList(100));
+
+		List<ZaakBatchResultaatDto> resultaten = zaakBatchService.addZaken(Arrays.asList(geldig, onbekendePersoon, onbekendFeit, dubbelFeit, geenDatum));
+
+		assertThat(resultaten.get(0).getZaaknr()).isEqualTo(100);
+		assertThat(resultaten.get(1).getFouten()).containsExactly("Persoonnr 3 bestaat niet");
+		assertThat(resultaten.get(2).getFouten()).containsExactly("Feitnr 12 bestaat niet");
+		assertThat(resultaten.get(3).getFouten()).containsExactly("Feitnr 10 komt meerdere keren voor");
+		assertThat(resultaten.get(4).getFouten()).containsExactly("Overtredingsdatum dient te zijn gevuld!");
+		assertThat(resultaten).extracting(ZaakBatchResultaatDto::getIndex).containsExactly(0, 1, 2, 3, 4);
+	}
+
+	@Test
+	public void testAddZakenPerChunk() {
+		List<ZaakDto> zaken = new ArrayList<>();
+		for (int i = 0; i < ZaakBatchService.CHUNK_GROOTTE + 1; i++) {
+			zaken.add(new ZaakDto(null, LocalDate.of(2019, 12, 12), "Leeuwarden", 1, Arrays.asList(10)));
+		}
+		when(zaakBatchRepository.addZaken(argThat(chunk -> chunk != null && chunk.size() == ZaakBatchService.CHUNK_GROOTTE), eq(1), any()))
+			.thenThrow(new DataIntegrityViolationException("fout"));
+		when(zaakBatchRepository.addZaken(argThat(chunk -> chunk != null && chunk.size() == 1), eq(1), any())).thenReturn(Collections.singletonList(100));
+
+		List<ZaakBatchResultaatDto> resultaten = zaakBatchService.addZaken(zaken);
+
+		verify(zaakBatchRepository, times(2)).addZaken(anyList(), eq(1), any());
+		assertThat(resultaten.subList(0, ZaakBatchService.CHUNK_GROOTTE)).noneMatch(ZaakBatchResultaatDto::isGeslaagd);
+		assertThat(resultaten.get(ZaakBatchService.CHUNK_GROOTTE).getZaaknr()).isEqualTo(100);
+	}
+}
@@ -0,0 +1,130 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.dto.ZaakZoekDto;
+import nl.fuchsia.model.Persoon;
+import nl.fuchsia.model.ZaakOverzicht;
+import nl.fuchsia.repository.ZaakOverzichtRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class ZaakOverzichtServiceTest {
+
+	@Mock
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+
+	@Mock
+	private VersieTeller versieTeller;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	private ZaakOverzichtService zaakOverzichtService;
+
+	@BeforeEach
+	public void setup() {
+		initMocks(this);
+		zaakOverzichtService = new ZaakOverzichtService(zaakOverzichtRepository, versieTeller, transactionManager);
+	}
+
+	@Test
+	public void testZoek() {
+		ZaakZoekDto zoek = new ZaakZoekDto(1, 2, null, null, null, null);
+
+		zaakOverzichtService.zoek(zoek, null, 10);
+
+		verify(zaakOverzichtRepository).zoek(zoek, 0, 10);
+	}
+
+	@Test
+	public void testPersoonGewijzigd() {
+		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
+		when(zaakOverzichtRepository.wijzigNaam(1, "Rense", "Houwing")).thenReturn(2);
+
+		zaakOverzichtService.persoonGewijzigd(persoon);
+
+		verify(versieTeller).verhoog(VersieTeller.Tabel.ZAAK);
+	}
+
+	/**
+	 * De bereiken sluiten op elkaar aan en het laatste bereik eindigt op het hoogste zaaknr.
+	 */
+	@Test
+	public void testHerbouwPerBereik() {
+		when(zaakOverzichtRepository.getMaxZaaknr()).thenReturn(25);
+		when(zaakOverzichtRepository.herbouw(anyInt(), anyInt())).thenReturn(10, 10, 5);
+
+		OverzichtResultaat resultaat = zaakOverzichtService.herbouw(2, 10, voortgang -> {
+		});
+
+		verify(zaakOverzichtRepository).herbouw(1, 10);
+		verify(zaakOverzichtRepository).herbouw(11, 20);
+		verify(zaakOverzichtRepository).herbouw(21, 25);
+		verify(transactionManager, times(3)).commit(any());
+		assertThat(resultaat.getBereikenKlaar()).isEqualTo(3);
+		assertThat(resultaat.getZaken()).isEqualTo(25);
+		verify(versieTeller).verhoog(VersieTeller.Tabel.ZAAK);
+	}
+
+	@Test
+	public void testControleerVindtAfwijkingen() {
+		when(zaakOverzichtRepository.getMaxZaaknr()).thenReturn(4);
+		ZaakOverzicht een = overzicht(1, "10.00");
+		ZaakOverzicht twee = overzicht(2, "10.00");
+		ZaakOverzicht drie = overzicht(3, "10.00");
+		when(zaakOverzichtRepository.bereken(1, 4)).thenReturn(Arrays.asList(een, twee, drie));
+		when(zaakOverzichtRepository.findBereik(1, 4)).thenReturn(Arrays.asList(een, overzicht(2, "12.50"), overzicht(4, "10.00")));
+
+		OverzichtResultaat resultaat = zaakOverzichtService.controleer(1, 10, voortgang -> {
+		});
+
+		assertThat(resultaat.getZaken()).isEqualTo(3);
+		assertThat(resultaat.getAfwijkend()).isEqualTo(3);
+		assertThat(resultaat.getVoorbeelden()).containsExactly(2, 3, 4);
+		verify(zaakOverzichtRepository, never()).herbouw(anyInt(), anyInt());
+	}
+
+	@Test
+	public void testControleerLegeDatabase() {
+		when(zaakOverzichtRepository.getMaxZaaknr()).thenReturn(0);
+
+		OverzichtResultaat resultaat = zaakOverzichtService.controleer(1, voortgang -> {
+		});
+
+		assertThat(resultaat.getBereiken()).isZero();
+		verify(zaakOverzichtRepository, never()).bereken(anyInt(), anyInt());
+	}
+
+	@Test
+	public void testFoutInBereik() {
+		when(zaakOverzichtRepository.getMaxZaaknr()).thenReturn(5);
+		when(zaakOverzichtRepository.bereken(1, 5)).thenThrow(new IllegalStateException("Test"));
+
+		assertThatThrownBy(() -> zaakOverzichtService.controleer(1, 10, voortgang -> {
+		})).isInstanceOf(IllegalStateException.class).hasMessage("Verwerken van een bereik is mislukt");
+	}
+
+	@Test
+	public void testAfwijkendZonderRijen() {
+		List<ZaakOverzicht> leeg = Collections.emptyList();
+
+		assertThat(ZaakOverzichtService.afwijkend(leeg, leeg)).isEmpty();
+		assertThat(ZaakOverzichtService.afwijkend(Collections.singletonList(overzicht(1, "1.00")), leeg)).containsExactly(1);
+	}
+
+	private static ZaakOverzicht overzicht(int zaaknr, String bedrag) {
+		return new ZaakOverzicht(zaaknr, 1, "Rense", "Houwing", LocalDate.of(2019, 12, 12), "Drachten", new BigDecimal(bedrag), 1, 1, LocalDate.of(2019, 12, 12));
+	}
+}
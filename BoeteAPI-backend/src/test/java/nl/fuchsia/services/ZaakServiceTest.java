@@ -6,18 +6,24 @@ import nl.fuchsia.dto.ZaakDto;
 import nl.fuchsia.exceptionhandlers.NotFoundException;
 import nl.fuchsia.exceptionhandlers.UniekVeldException;
 import nl.fuchsia.model.*;
-import nl.fuchsia.repository.FeitRepository;
 import nl.fuchsia.repository.PersoonRepository;
-import nl.fuchsia.repository.StatusRepository;
+import nl.fuchsia.repository.StroomRepository;
+import nl.fuchsia.repository.ZaakDtoRepository;
 import nl.fuchsia.repository.ZaakRepository;
+import nl.fuchsia.repository.ZaakStatusRepository;
+import nl.fuchsia.repository.ZaakregelRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,23 +39,45 @@ public class ZaakServiceTest {
 	private ZaakRepository zaakRepository;
 
 	@Mock
-	private StatusRepository statusRepository;
+	private StatusRegister statusRegister;
 
 	@Mock
 	private PersoonRepository persoonRepository;
 
 	@Mock
-	private FeitRepository feitRepository;
+	private FeitCatalogus feitCatalogus;
 
 	@Mock
 	private ZaakDtoService zaakDtoService;
 
+	@Mock
+	private ZaakDtoRepository zaakDtoRepository;
+
+	@Mock
+	private VersieTeller versieTeller;
+
+	@Mock
+	private StroomRepository stroomRepository;
+
+	@Mock
+	private SaldoService saldoService;
+
+	@Mock
+	private ZaakOverzichtService zaakOverzichtService;
+
+	@Mock
+	private ZaakStatusRepository zaakStatusRepository;
+
+	@Mock
+	private ZaakregelRepository zaakregelRepository;
+
 	@InjectMocks
 	private ZaakService zaakService;
 
 	@BeforeEach
 	public void setup() {
 		initMocks(this);
+		when(statusRegister.getBeginstatus()).thenReturn(new Status(1, "Open"));
 	}
 
 	@Test
@@ -88,21 +116,23 @@ public class ZaakServiceTest {
 		savedZaak.setZaakstatus(savedZaakStatussen);
 
 		when(persoonRepository.findById(persoon.getPersoonnr())).thenReturn(java.util.Optional.of(persoon));
-		when(zaakRepository.save((any()))).thenReturn(Optional.of(savedZaak));
-		when(feitRepository.findById(feit.getFeitnr())).thenReturn(Optional.of(feit));
+		when(zaakRepository.save(any())).thenReturn(savedZaak);
+		when(feitCatalogus.getFeit(feit.getFeitnr())).thenReturn(Optional.of(feit));
 
 		zaakService.addZaak(zaakDto);
 
 		verify(persoonRepository).findById(persoon.getPersoonnr());
-		verify(feitRepository).findById(feit.getFeitnr());
-		verify(zaakRepository).saveAndFlush(zaak);
+		verify(feitCatalogus).getFeit(feit.getFeitnr());
+		verify(zaakRepository).save(zaak);
+		verify(zaakRepository).flush();
+		verify(zaakOverzichtService).zaakGewijzigd(savedZaak.getZaaknr());
 	}
 
 	@Test
 	public void testAddZaakPersoonDoesNotExist() {
 		ZaakDto zaakAddDto = new ZaakDto(1, LocalDate.now(), "Leeuwarden", 1, new ArrayList<>(Arrays.asList(1)));
 		Feit feit = new Feit(zaakAddDto.getFeitnrs().indexOf(0), "VBF-001", "Test", 4.00);
-		when(feitRepository.findById(1)).thenReturn(Optional.of(feit));
+		when(feitCatalogus.getFeit(1)).thenReturn(Optional.of(feit));
 
 		assertThatThrownBy(() -> zaakService.addZaak(zaakAddDto)).isInstanceOf(NotFoundException.class).hasMessage("[ Persoonnr 1 bestaat niet]");
 	}
@@ -115,7 +145,7 @@ public class ZaakServiceTest {
 
 		assertThatThrownBy(() -> zaakService.addZaak(zaakDto)).isInstanceOf(NotFoundException.class).hasMessage("[Feitnr 1 bestaat niet, Feitnr 2 bestaat niet]");
 
-		when(feitRepository.findById(1)).thenReturn(Optional.of(new Feit(1, "VBF-001", "Test", 4.00)));
+		when(feitCatalogus.getFeit(1)).thenReturn(Optional.of(new Feit(1, "VBF-001", "Test", 4.00)));
 
 		assertThatThrownBy(() -> zaakService.addZaak(zaakDto)).isInstanceOf(NotFoundException.class).hasMessage("[Feitnr 2 bestaat niet]");
 	}
@@ -131,7 +161,24 @@ public class ZaakServiceTest {
 	public void testGetZaken() {
 		zaakService.getZaken();
 
-		verify(zaakRepository).findAll();
+		verify(zaakDtoRepository).findAll();
+	}
+
+	@Test
+	public void testGetZakenPagina() {
+		zaakService.getZaken(100, 25);
+
+		verify(zaakDtoRepository).findAll(100, 25);
+	}
+
+	@Test
+	void testGetZakenByPersoonPagina() {
+		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
+		when(persoonRepository.findById(1)).thenReturn(Optional.of(persoon));
+
+		zaakService.getZakenByPersoon(persoon.getPersoonnr(), null, 25);
+
+		verify(zaakDtoRepository).findAllByPersoonnr(1, 0, 25);
 	}
 
 	@Test
@@ -142,7 +189,7 @@ public class ZaakServiceTest {
 		zaakService.getZakenByPersoon(persoon.getPersoonnr());
 
 		verify(persoonRepository).findById(persoon.getPersoonnr());
-		verify(zaakRepository).findAllByPersoon(persoon);
+		verify(zaakDtoRepository).findAllByPersoonnr(persoon.getPersoonnr());
 	}
 
 	@Test
@@ -153,219 +200,122 @@ public class ZaakServiceTest {
 	}
 
 	@Test
-	void testUpdZaakStatus() {
-		//Maak een persoon aan om toe te voegen aan zaak
-		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
-
-		//Maak een feit aan, zet deze in een lijst  om deze toe te voegen aan zaak
-		Feit feit = new Feit(1, "VBF-003", "Test", 4.00);
-		List<Feit> feiten = new ArrayList<>();
-		feiten.add(feit);
-
-		//Maakt een zaak aan om toe te voegen aan zaakStatus en nadat zaakStatus aan zaak is gekoppeld te gebruiken in verify
-		Zaak zaak = new Zaak(LocalDate.now(), "Leeuwarden", persoon, feiten);
-
-		//Maakt een zaakStatus om deze weer toe te voegen aan de zaak
-		ZaakStatus zaakStatus = new ZaakStatus(null, LocalDate.now(), new Status(1, "Open"), zaak);
-		List<ZaakStatus> zaakStatussen = new ArrayList<>();
-		zaakStatussen.add(zaakStatus);
-		zaak.setZaakstatus(zaakStatussen);
-
-		//Maakt een lijst van feitnrs, om deze toe te kunnen voegen aan de te vekrijgen zaakDto
-		List<Integer> feitnrs = new ArrayList<>();
-		feitnrs.add(feit.getFeitnr());
+	void testStroomZaken() {
+		when(persoonRepository.existsById(1)).thenReturn(true);
 
-		//Maakt een lijst van zaakStatusnrs, om deze toe te kunnen voegen aan de te vekrijgen zaakDto
-		List<Integer> zaakStatusnrs = new ArrayList<>();
-		ZaakStatus savedZaakStatus = new ZaakStatus(1, LocalDate.now(), new Status(1, "Open"), zaak);
-		zaakStatusnrs.add(zaakStatus.getZaakStatusnr());
-
-		//Maakt een zaak aan zoals die in de database is gewijzigd
-		Zaak savedZaak = new Zaak(1, LocalDate.now(), "Leeuwarden", persoon, feiten);
+		zaakService.stroomZaken(null);
+		zaakService.stroomZaken(1);
 
-		//Maakt een zaakDto aan en hangt hier een zaakstatus aan, deze wordt gebruikt om de uitvoer van setZaakDto te mocken
-		ZaakDto zaakDto = new ZaakDto(savedZaak.getZaaknr(), zaak.getOvertredingsdatum(), zaak.getPleeglocatie(), persoon.getPersoonnr(), feitnrs, zaakStatusnrs);
-		List<ZaakStatus> savedZaakStatussen = new ArrayList<>();
-		savedZaakStatussen.add(savedZaakStatus);
-		savedZaak.setZaakstatus(savedZaakStatussen);
-
-		//Maakt de extra toe te voegen status aan
-		Status status = new Status(2, "In Behandeling");
-
-		when(zaakRepository.findById(zaak.getZaaknr())).thenReturn(Optional.of(zaak));
-		when(statusRepository.findById(status.getStatusnr())).thenReturn(Optional.of(status));
-		when(zaakDtoService.setZaakDto(zaak)).thenReturn(zaakDto);
+		verify(stroomRepository).getZaken();
+		verify(stroomRepository).getZakenByPersoonnr(1);
+	}
 
-		zaakService.updateZaakStatus(zaak.getZaaknr(), new ZaakAddStatusDto(status.getStatusnr()));
+	/**
+	 * Een onbekende persoon moet al bij het aanvragen van de stroom gemeld worden, zolang de response nog niet begonnen is.
+	 */
+	@Test
+	void testStroomZakenPersoonDoesNotExist() {
+		assertThatThrownBy(() -> zaakService.stroomZaken(1)).isInstanceOf(NotFoundException.class).hasMessage("Persoonnr 1 bestaat niet");
+		verifyNoInteractions(stroomRepository);
+	}
 
-		verify(statusRepository).findById(status.getStatusnr());
-		verify(zaakRepository).findById(zaak.getZaaknr());
-		verify(zaakDtoService).setZaakDto(zaak);
+	@Test
+	void testUpdZaakStatus() {
+		Status open = new Status(1, "Open");
+		Status inBehandeling = new Status(2, "In Behandeling");
+		ZaakDto zaakDto = new ZaakDto(1, LocalDate.now(), "Leeuwarden", 1, Collections.singletonList(1), Arrays.asList(1, 2));
+
+		when(statusRegister.getStatus(open.getStatusnr())).thenReturn(Optional.of(open));
+		when(statusRegister.getStatus(inBehandeling.getStatusnr())).thenReturn(Optional.of(inBehandeling));
+		when(statusRegister.isOpen(any())).thenReturn(true);
+		when(zaakStatusRepository.vergrendel(1)).thenReturn(Optional.of(new HuidigeStatus(1, 1, open.getStatusnr(), null, new BigDecimal("4.00"))));
+		when(zaakDtoRepository.findByZaaknr(1)).thenReturn(Optional.of(zaakDto));
+
+		assertThat(zaakService.updateZaakStatus(1, new ZaakAddStatusDto(inBehandeling.getStatusnr()))).isSameAs(zaakDto);
+
+		// De zaak en zijn historie worden niet geladen.
+		verify(zaakStatusRepository).voegToe(eq(1), eq(inBehandeling.getStatusnr()), any());
+		verify(saldoService).statusGewijzigd(1, new BigDecimal("4.00"), true, true);
+		verify(zaakOverzichtService).zaakGewijzigd(1);
+		verifyNoInteractions(zaakRepository, zaakDtoService);
 	}
 
 	@Test
 	void testNotFoundZaakUpdZaakstatus() {
 		Status status = new Status(1, "Open");
 		ZaakAddStatusDto zaakAddStatusDto = new ZaakAddStatusDto(status.getStatusnr());
-		when(statusRepository.findById(status.getStatusnr())).thenReturn(Optional.of(status));
+		when(statusRegister.getStatus(status.getStatusnr())).thenReturn(Optional.of(status));
 
 		assertThatThrownBy(() -> zaakService.updateZaakStatus(5, zaakAddStatusDto)).isInstanceOf(NotFoundException.class).hasMessage("[ZaakNummer: 5 bestaat niet]");
+		verify(zaakStatusRepository, never()).voegToe(anyInt(), anyInt(), any());
 	}
 
 	@Test
 	void testNotFoundStatusUpdZaakstatus() {
-		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
-
-		Feit feit = new Feit(1, "VBF-003", "Test", 4.00);
-		List<Feit> feiten = new ArrayList<>();
-		feiten.add(feit);
-
-		Zaak zaak = new Zaak(1, LocalDate.now(), "Leeuwarden", persoon, feiten);
-
-		ZaakStatus zaakStatus = new ZaakStatus(1, LocalDate.now(), new Status(1, "Open"), zaak);
-		List<ZaakStatus> zaakStatussen = new ArrayList<>();
-		zaakStatussen.add(zaakStatus);
-		zaak.setZaakstatus(zaakStatussen);
-
 		ZaakAddStatusDto zaakAddStatusDto = new ZaakAddStatusDto(1);
 
-		Status status = new Status(2, "In Behandeling");
-
-		when(statusRepository.findById(status.getStatusnr())).thenReturn(Optional.of(status));
-		when(zaakRepository.findById(zaak.getZaaknr())).thenReturn(Optional.of(zaak));
+		when(zaakStatusRepository.vergrendel(1)).thenReturn(Optional.of(new HuidigeStatus(1, 1, 2, null, new BigDecimal("4.00"))));
 
-		assertThatThrownBy(() -> zaakService.updateZaakStatus(zaak.getZaaknr(), zaakAddStatusDto)).isInstanceOf(NotFoundException.class).hasMessage("[StatusNummer: 1 bestaat niet]");
+		assertThatThrownBy(() -> zaakService.updateZaakStatus(1, zaakAddStatusDto)).isInstanceOf(NotFoundException.class).hasMessage("[StatusNummer: 1 bestaat niet]");
+		verify(zaakStatusRepository, never()).voegToe(anyInt(), anyInt(), any());
 	}
 
 	@Test
 	public void testUpdZaakFeit() {
-		//Maak een persoon aan om toe te voegen aan zaak
-		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
-
-		//Maak een feit aan, zet deze in een lijst  om deze toe te voegen aan zaak
-		Feit feit = new Feit(1, "VBF-001", "Te hard gereden hoor...", 45.0);
-		List<Feit> feiten = new ArrayList<>();
-		feiten.add(feit);
-
-		//Maakt een zaak aan om toe te voegen aan zaakStatus en nadat zaakStatus aan zaak is gekoppeld te gebruiken
-		Zaak zaak = new Zaak(LocalDate.of(2019, 2, 18), "Leeuwarden", persoon, feiten);
-
-		//Maakt een zaakStatus om deze weer toe te voegen aan de zaak
-		ZaakStatus zaakstatus = new ZaakStatus(1, LocalDate.now(), new Status(1, "Open"), zaak);
-		List<ZaakStatus> listZaakStatus = new ArrayList<>();
-		listZaakStatus.add(zaakstatus);
-		zaak.setZaakstatus(listZaakStatus);
-
-		// Maakt een zaakAddFeitDto, voegt deze aan de lijst toe
-		ZaakAddFeitDto zaakAddFeitDto = new ZaakAddFeitDto(2);
-		List<ZaakAddFeitDto> listZaakAddFeitDto = new ArrayList<>();
-		listZaakAddFeitDto.add(zaakAddFeitDto);
-
-		//Maakt het toe te voegen feit
+		Status open = new Status(1, "Open");
 		Feit nieuwFeit = new Feit(2, "VBF-002", "Echt te hard gereden", 95.0);
-
-		// Maakt eem zaakDto, deze is de returnwaarde van setZaakDto
-		ZaakDto zaakDto = new ZaakDto(zaak.getZaaknr(), zaak.getOvertredingsdatum(), zaak.getPleeglocatie(), persoon.getPersoonnr(), Arrays.asList(feit.getFeitnr(), nieuwFeit.getFeitnr()));
-
-		when(zaakRepository.findById(zaak.getZaaknr())).thenReturn(Optional.of(zaak));
-		when(feitRepository.findById(nieuwFeit.getFeitnr())).thenReturn(Optional.of(nieuwFeit));
-		when(zaakDtoService.setZaakDto(zaak)).thenReturn(zaakDto);
-
-		assertThat(zaak.getFeiten()).hasSize(1);
-
-		ZaakDto zaakDtoReturn = zaakService.updateZaakFeit(zaak.getZaaknr(), listZaakAddFeitDto);
-
-		assertThat(zaakDtoReturn.getFeitnrs()).hasSize(2);
-
-		verify(zaakRepository).findById(zaak.getZaaknr());
-		verify(feitRepository, times(2)).findById(nieuwFeit.getFeitnr());
-		verify(zaakDtoService).setZaakDto(zaak);
+		Feit ander = new Feit(3, "VBF-003", "Door rood gereden", 5.0);
+		ZaakDto zaakDto = new ZaakDto(1, LocalDate.of(2019, 2, 18), "Leeuwarden", 1, Arrays.asList(1, 2, 3));
+
+		when(zaakStatusRepository.vergrendel(1)).thenReturn(Optional.of(new HuidigeStatus(1, 1, open.getStatusnr(), null, new BigDecimal("45.00"))));
+		when(feitCatalogus.getFeit(nieuwFeit.getFeitnr())).thenReturn(Optional.of(nieuwFeit));
+		when(feitCatalogus.getFeit(ander.getFeitnr())).thenReturn(Optional.of(ander));
+		when(zaakregelRepository.getFeitnrs(1)).thenReturn(new HashSet<>(Collections.singletonList(1)));
+		when(statusRegister.getStatus(open.getStatusnr())).thenReturn(Optional.of(open));
+		when(statusRegister.isOpen(open)).thenReturn(true);
+		when(zaakDtoRepository.findByZaaknr(1)).thenReturn(Optional.of(zaakDto));
+
+		// Een feit dat twee keer in de lijst staat wordt één keer opgezocht en toegevoegd.
+		ZaakDto zaakDtoReturn = zaakService.updateZaakFeit(1, Arrays.asList(new ZaakAddFeitDto(2), new ZaakAddFeitDto(3), new ZaakAddFeitDto(2)));
+
+		assertThat(zaakDtoReturn.getFeitnrs()).hasSize(3);
+		verify(feitCatalogus).getFeit(nieuwFeit.getFeitnr());
+		verify(zaakregelRepository).voegToe(1, new LinkedHashSet<>(Arrays.asList(2, 3)));
+		verify(saldoService).feitenToegevoegd(1, new BigDecimal("100.00"), true);
+		verify(zaakOverzichtService).zaakGewijzigd(1);
+		verifyNoInteractions(zaakRepository, zaakDtoService);
 	}
 
 	@Test
 	public void testNotFoundZaakUpdZaakFeit() {
-		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
-
-		Feit feit = new Feit(1, "VBF-001", "Te hard gereden hoor...", 45.0);
-		List<Feit> feiten = new ArrayList<>();
-		feiten.add(feit);
-
-		Zaak zaak = new Zaak(4, LocalDate.of(2019, 2, 18), "Leeuwarden", persoon, feiten);
-
-		ZaakStatus zaakstatus = new ZaakStatus(LocalDate.now(), new Status(1, "Open"), zaak);
-		List<ZaakStatus> listZaakStatus = new ArrayList<>();
-		listZaakStatus.add(zaakstatus);
-		zaak.setZaakstatus(listZaakStatus);
-
-		ZaakAddFeitDto zaakAddFeitDto = new ZaakAddFeitDto(2);
-		List<ZaakAddFeitDto> listZaakAddFeitDto = new ArrayList<>();
-		listZaakAddFeitDto.add(zaakAddFeitDto);
-
 		Feit feitTwee = new Feit(2, "VBF-002", "Echt te hard gereden", 95.0);
+		when(feitCatalogus.getFeit(feitTwee.getFeitnr())).thenReturn(Optional.of(feitTwee));
 
-		when(zaakRepository.findById(zaak.getZaaknr())).thenReturn(Optional.of(zaak));
-		when(feitRepository.findById(feitTwee.getFeitnr())).thenReturn(Optional.of(feitTwee));
-
-		assertThat(zaak.getFeiten()).hasSize(1);
-		assertThatThrownBy(() -> zaakService.updateZaakFeit(5, listZaakAddFeitDto)).isInstanceOf(NotFoundException.class).hasMessage("[zaakNummer: 5 bestaat niet, geen feit(en) toegevoegd]");
+		assertThatThrownBy(() -> zaakService.updateZaakFeit(5, Collections.singletonList(new ZaakAddFeitDto(2)))).isInstanceOf(NotFoundException.class)
+			.hasMessage("[zaakNummer: 5 bestaat niet, geen feit(en) toegevoegd]");
+		verify(zaakregelRepository, never()).voegToe(anyInt(), any());
 	}
 
 	@Test
 	public void testNotFoundFeit() {
-		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
-
-		Feit feit = new Feit(1, "VBF-001", "Te hard gereden hoor...", 45.0);
-		List<Feit> feiten = new ArrayList<>();
-		feiten.add(feit);
-
-		Zaak zaak = new Zaak(4, LocalDate.of(2019, 2, 18), "Leeuwarden", persoon, feiten);
-
-		List<ZaakStatus> listZaakStatus = new ArrayList<>();
-		ZaakStatus zaakstatus = new ZaakStatus(LocalDate.now(), new Status(1, "Open"), zaak);
-		listZaakStatus.add(zaakstatus);
-		zaak.setZaakstatus(listZaakStatus);
-
-		ZaakAddFeitDto zaakAddFeitDto = new ZaakAddFeitDto(2);
-		List<ZaakAddFeitDto> listZaakAddFeitDto = new ArrayList<>();
-		listZaakAddFeitDto.add(zaakAddFeitDto);
-
 		Feit feitTwee = new Feit(2, "VBF-002", "Echt te hard gereden", 95.0);
+		when(zaakStatusRepository.vergrendel(4)).thenReturn(Optional.of(new HuidigeStatus(4, 1, 1, null, new BigDecimal("45.00"))));
+		when(feitCatalogus.getFeit(feitTwee.getFeitnr())).thenReturn(Optional.of(feitTwee));
 
-		when(zaakRepository.findById(zaak.getZaaknr())).thenReturn(Optional.of(zaak));
-		when(feitRepository.findById(feitTwee.getFeitnr())).thenReturn(Optional.of(feitTwee));
-
-		assertThat(zaak.getFeiten()).hasSize(1);
-
-		ZaakAddFeitDto zaakAddFeitDto1 = new ZaakAddFeitDto(3);
-		listZaakAddFeitDto.add(zaakAddFeitDto1);
-
-		assertThatThrownBy(() -> zaakService.updateZaakFeit(zaak.getZaaknr(), listZaakAddFeitDto)).isInstanceOf(NotFoundException.class)
+		assertThatThrownBy(() -> zaakService.updateZaakFeit(4, Arrays.asList(new ZaakAddFeitDto(2), new ZaakAddFeitDto(3)))).isInstanceOf(NotFoundException.class)
 			.hasMessage("[feitNummer: 3 bestaat niet, geen feit(en) toegevoegd]");
+		verify(zaakregelRepository, never()).voegToe(anyInt(), any());
 	}
 
 	@Test
 	public void testFeitAlreadyAdded() {
-		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
-
 		Feit feit = new Feit(1, "VBF-001", "Te hard gereden hoor...", 45.0);
-		List<Feit> feiten = new ArrayList<>();
-		feiten.add(feit);
-
-		Zaak zaak = new Zaak(4, LocalDate.of(2019, 2, 18), "Leeuwarden", persoon, feiten);
-		List<ZaakStatus> listZaakStatus = new ArrayList<>();
-		ZaakStatus zaakstatus = new ZaakStatus(LocalDate.now(), new Status(1, "Open"), zaak);
-		listZaakStatus.add(zaakstatus);
-		zaak.setZaakstatus(listZaakStatus);
-
-		ZaakAddFeitDto zaakAddFeitDto = new ZaakAddFeitDto(1);
-		List<ZaakAddFeitDto> listZaakAddFeitDto = new ArrayList<>();
-		listZaakAddFeitDto.add(zaakAddFeitDto);
-
-		when(zaakRepository.findById(zaak.getZaaknr())).thenReturn(Optional.of(zaak));
-		when(feitRepository.findById(feit.getFeitnr())).thenReturn(Optional.of(feit));
+		when(zaakStatusRepository.vergrendel(4)).thenReturn(Optional.of(new HuidigeStatus(4, 1, 1, null, new BigDecimal("45.00"))));
+		when(feitCatalogus.getFeit(feit.getFeitnr())).thenReturn(Optional.of(feit));
+		when(zaakregelRepository.getFeitnrs(4)).thenReturn(new HashSet<>(Collections.singletonList(1)));
 
-		assertThat(zaak.getFeiten()).hasSize(1);
-		assertThatThrownBy(() -> zaakService.updateZaakFeit(zaak.getZaaknr(), listZaakAddFeitDto)).isInstanceOf(UniekVeldException.class)
+		assertThatThrownBy(() -> zaakService.updateZaakFeit(4, Collections.singletonList(new ZaakAddFeitDto(1)))).isInstanceOf(UniekVeldException.class)
 			.hasMessage("[feitNummer: 1 is reeds toegevoegd aan deze zaak, geen feit(en) toegevoegd]");
+		verify(zaakregelRepository, never()).voegToe(anyInt(), any());
 	}
 }
@@ -0,0 +1,131 @@
+package nl.fuchsia.services;
+
+import nl.fuchsia.dto.ZaakStatusBatchDto;
+import nl.fuchsia.dto.ZaakStatusBatchResultaatDto;
+import nl.fuchsia.exceptionhandlers.NotFoundException;
+import nl.fuchsia.model.HuidigeStatus;
+import nl.fuchsia.model.PersoonSaldo;
+import nl.fuchsia.model.Status;
+import nl.fuchsia.repository.ZaakOverzichtRepository;
+import nl.fuchsia.repository.ZaakStatusRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class ZaakStatusBatchServiceTest {
+
+	private static final Status OPEN = new Status(1, "Open");
+	private static final Status AANMANING = new Status(2, "Aanmaning verstuurd");
+	private static final Status BETAALD = new Status(3, "Betaald");
+
+	@Mock
+	private ZaakStatusRepository zaakStatusRepository;
+
+	@Mock
+	private ZaakOverzichtRepository zaakOverzichtRepository;
+
+	@Mock
+	private StatusRegister statusRegister;
+
+	@Mock
+	private VersieTeller versieTeller;
+
+	@Mock
+	private SaldoService saldoService;
+
+	@Mock
+	private ZaakOverzichtService zaakOverzichtService;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Captor
+	private ArgumentCaptor<Collection<PersoonSaldo>> saldoVerschillen;
+
+	private ZaakStatusBatchService zaakStatusBatchService;
+
+	@BeforeEach
+	public void setup() {
+		initMocks(this);
+		zaakStatusBatchService = new ZaakStatusBatchService(zaakStatusRepository, zaakOverzichtRepository, statusRegister, versieTeller, saldoService, zaakOverzichtService, transactionManager);
+		for (Status status : Arrays.asList(OPEN, AANMANING, BETAALD)) {
+			when(statusRegister.getStatus(status.getStatusnr())).thenReturn(Optional.of(status));
+		}
+		when(statusRegister.isOpen(any())).thenReturn(true);
+		when(statusRegister.isOpen(BETAALD)).thenReturn(false);
+	}
+
+	@Test
+	public void testWijzigStatussenPerChunk() {
+		when(zaakStatusRepository.vergrendel(Arrays.asList(1, 2))).thenReturn(Arrays.asList(huidig(1, 10, OPEN, LocalDate.now()), huidig(2, 10, BETAALD, LocalDate.now())));
+		when(zaakStatusRepository.vergrendel(Arrays.asList(3, 99))).thenReturn(Collections.singletonList(huidig(3, 11, OPEN, LocalDate.now())));
+
+		ZaakStatusBatchResultaatDto resultaat = zaakStatusBatchService.wijzigStatussen(new ZaakStatusBatchDto(BETAALD.getStatusnr(), Arrays.asList(3, 1, 2, 1, 99)), 2);
+
+		verify(zaakStatusRepository).voegToe(Collections.singletonList(1), BETAALD.getStatusnr(), LocalDate.now());
+		verify(zaakStatusRepository).voegToe(Collections.singletonList(3), BETAALD.getStatusnr(), LocalDate.now());
+		verify(saldoService, times(2)).verwerk(saldoVerschillen.capture());
+		assertThat(saldoVerschillen.getAllValues().get(0)).containsExactly(new PersoonSaldo(10, 0, -1, new BigDecimal("-4.00")));
+		assertThat(saldoVerschillen.getAllValues().get(1)).containsExactly(new PersoonSaldo(11, 0, -1, new BigDecimal("-4.00")));
+		verify(zaakOverzichtService).statusGewijzigd(Collections.singletonList(3), BETAALD.getStatusnr(), LocalDate.now());
+		verify(versieTeller, times(2)).verhoog(VersieTeller.Tabel.ZAAK);
+		assertThat(resultaat.getGewijzigd()).isEqualTo(2);
+		assertThat(resultaat.getOngewijzigd()).isEqualTo(1);
+		assertThat(resultaat.getNietGevonden()).isEqualTo(1);
+		assertThat(resultaat.getChunks()).isEqualTo(2);
+	}
+
+	@Test
+	public void testWijzigStatussenMetFilter() {
+		LocalDate uiterlijk = LocalDate.now().minusDays(30);
+		when(zaakOverzichtRepository.zoekVerlopen(OPEN.getStatusnr(), 0, Integer.MAX_VALUE, uiterlijk, 2)).thenReturn(Arrays.asList(5, 6));
+		when(zaakOverzichtRepository.zoekVerlopen(OPEN.getStatusnr(), 6, Integer.MAX_VALUE, uiterlijk, 2)).thenReturn(Collections.emptyList());
+		// Zaak 6 heeft tussen het zoeken en vergrendelen een andere status gekregen.
+		when(zaakStatusRepository.vergrendel(Arrays.asList(5, 6))).thenReturn(Arrays.asList(huidig(5, 10, OPEN, uiterlijk), huidig(6, 10, BETAALD, LocalDate.now())));
+
+		ZaakStatusBatchResultaatDto resultaat = zaakStatusBatchService.wijzigStatussen(new ZaakStatusBatchDto(AANMANING.getStatusnr(), OPEN.getStatusnr(), 30), 2);
+
+		verify(zaakStatusRepository).voegToe(Collections.singletonList(5), AANMANING.getStatusnr(), LocalDate.now());
+		verifyNoInteractions(saldoService);
+		assertThat(resultaat.getGewijzigd()).isEqualTo(1);
+		assertThat(resultaat.getOngewijzigd()).isEqualTo(1);
+		assertThat(resultaat.getChunks()).isEqualTo(1);
+	}
+
+	@Test
+	public void testMisluktChunkHoudtAndereNietTegen() {
+		when(zaakStatusRepository.vergrendel(Arrays.asList(1, 2))).thenThrow(new DataIntegrityViolationException("fout"));
+		when(zaakStatusRepository.vergrendel(Collections.singletonList(3))).thenReturn(Collections.singletonList(huidig(3, 11, OPEN, LocalDate.now())));
+
+		ZaakStatusBatchResultaatDto resultaat = zaakStatusBatchService.wijzigStatussen(new ZaakStatusBatchDto(AANMANING.getStatusnr(), Arrays.asList(1, 2, 3)), 2);
+
+		assertThat(resultaat.getMislukt()).isEqualTo(2);
+		assertThat(resultaat.getFouten()).containsExactly("Zaken 1 t/m 2 niet gewijzigd: fout");
+		assertThat(resultaat.getGewijzigd()).isEqualTo(1);
+	}
+
+	@Test
+	public void testOnbekendeStatus() {
+		assertThatThrownBy(() -> zaakStatusBatchService.wijzigStatussen(new ZaakStatusBatchDto(8, 9, null))).isInstanceOf(NotFoundException.class)
+			.hasMessage("[StatusNummer: 8 bestaat niet, StatusNummer: 9 bestaat niet]");
+		verifyNoInteractions(zaakStatusRepository);
+	}
+
+	private static HuidigeStatus huidig(int zaaknr, int persoonnr, Status status, LocalDate statusdatum) {
+		return new HuidigeStatus(zaaknr, persoonnr, status.getStatusnr(), statusdatum, new BigDecimal("4.00"));
+	}
+}
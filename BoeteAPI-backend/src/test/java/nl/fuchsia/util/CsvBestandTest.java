@@ -0,0 +1,67 @@
+package nl.fuchsia.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CsvBestandTest {
+
+	@TempDir
+	Path map;
+
+	/**
+	 * Welke chunkgrootte ook gekozen wordt, samen moeten de chunks precies alle regels opleveren.
+	 */
+	@Test
+	public void testVerdeelOpRegelgrenzen() throws IOException {
+		List<String> verwacht = new ArrayList<>();
+		StringBuilder inhoud = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			String regel = "regel " + i + ";" + String.join("", Collections.nCopies(i % 7, "ë"));
+			verwacht.add(regel);
+			inhoud.append(regel).append(i % 2 == 0 ? "\r\n" : "\n");
+		}
+		Path bestand = Files.write(map.resolve("test.csv"), inhoud.toString().getBytes(StandardCharsets.UTF_8));
+
+		try (FileChannel kanaal = FileChannel.open(bestand, StandardOpenOption.READ)) {
+			for (long chunkGrootte : new long[]{1, 7, 100, 10_000}) {
+				List<String> regels = new ArrayList<>();
+				List<CsvBestand.Chunk> chunks = CsvBestand.verdeel(kanaal, chunkGrootte);
+				for (CsvBestand.Chunk chunk : chunks) {
+					regels.addAll(CsvBestand.regels(kanaal, chunk));
+				}
+				assertThat(regels).isEqualTo(verwacht);
+				assertThat(chunks).extracting(CsvBestand.Chunk::getVolgnummer).isSorted();
+			}
+		}
+	}
+
+	@Test
+	public void testLaatsteRegelZonderRegeleinde() throws IOException {
+		Path bestand = Files.write(map.resolve("test.csv"), "a;b\nc;d".getBytes(StandardCharsets.UTF_8));
+
+		try (FileChannel kanaal = FileChannel.open(bestand, StandardOpenOption.READ)) {
+			List<CsvBestand.Chunk> chunks = CsvBestand.verdeel(kanaal, 1024);
+
+			assertThat(chunks).hasSize(1);
+			assertThat(CsvBestand.regels(kanaal, chunks.get(0))).containsExactly("a;b", "c;d");
+		}
+	}
+
+	@Test
+	public void testVelden() {
+		assertThat(CsvBestand.velden("Rense;Houwing;;10")).containsExactly("Rense", "Houwing", "", "10");
+		assertThat(CsvBestand.velden("VBF-001;\"Rijden; zonder \"\"licht\"\"\";4.00")).containsExactly("VBF-001", "Rijden; zonder \"licht\"", "4.00");
+	}
+}
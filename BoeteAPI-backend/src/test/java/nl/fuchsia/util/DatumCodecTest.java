@@ -0,0 +1,149 @@
+package nl.fuchsia.util;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Vergelijkt {@link DatumCodec} en de Jackson (de)serializers met de formatters die ze vervangen, voor elke datum van
+ * 1800 t/m 2200 en voor ongeldige en willekeurig verminkte invoer.
+ */
+public class DatumCodecTest {
+
+	// De formatters zoals JsonDateSerializer en JsonDateDeserializer ze eerst gebruikten.
+	private static final DateTimeFormatter SCHRIJVEN = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+	private static final DateTimeFormatter LEZEN = new DateTimeFormatterBuilder()
+		.appendPattern("dd-MM-yyyy")
+		.parseDefaulting(ChronoField.ERA, 1)
+		.toFormatter()
+		.withResolverStyle(ResolverStyle.STRICT);
+
+	private static final LocalDate EERSTE = LocalDate.of(1800, 1, 1);
+	private static final LocalDate LAATSTE = LocalDate.of(2200, 12, 31);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	public static class Datum {
+		@JsonDate
+		public LocalDate datum;
+	}
+
+	/**
+	 * Test of elke datum van 1800 t/m 2200 hetzelfde geschreven wordt als met de formatter, direct en via Jackson.
+	 */
+	@Test
+	public void testSchrijvenElkeDatum() throws IOException {
+		Datum datum = new Datum();
+		for (LocalDate dag = EERSTE; !dag.isAfter(LAATSTE); dag = dag.plusDays(1)) {
+			String verwacht = dag.format(SCHRIJVEN);
+			assertThat(DatumCodec.formatteer(dag)).isEqualTo(verwacht);
+			datum.datum = dag;
+			assertThat(objectMapper.writeValueAsString(datum)).isEqualTo("{\"datum\":\"" + verwacht + "\"}");
+		}
+	}
+
+	/**
+	 * Test of elke datum van 1800 t/m 2200 hetzelfde gelezen wordt als met de formatter, direct en via Jackson.
+	 */
+	@Test
+	public void testLezenElkeDatum() throws IOException {
+		for (LocalDate dag = EERSTE; !dag.isAfter(LAATSTE); dag = dag.plusDays(1)) {
+			String tekst = dag.format(SCHRIJVEN);
+			assertThat(DatumCodec.lees(tekst)).isEqualTo(LocalDate.parse(tekst, LEZEN)).isEqualTo(dag);
+			char[] tekens = ("[" + tekst + "]").toCharArray();
+			assertThat(DatumCodec.lees(tekens, 1, tekst.length())).isEqualTo(dag);
+			assertThat(objectMapper.readValue("{\"datum\":\"" + tekst + "\"}", Datum.class).datum).isEqualTo(dag);
+		}
+	}
+
+	/**
+	 * Test of elke combinatie van dag 00 t/m 32 en maand 00 t/m 13 in 1800 t/m 2200 dezelfde datum of dezelfde fout
+	 * geeft als de formatter, dus ook 29-02 in een jaar dat geen schrikkeljaar is en 31-04.
+	 */
+	@Test
+	public void testLezenOngeldigeDagEnMaand() {
+		for (int jaar = EERSTE.getYear(); jaar <= LAATSTE.getYear(); jaar++) {
+			for (int maand = 0; maand <= 13; maand++) {
+				for (int dag = 0; dag <= 32; dag++) {
+					String tekst = String.format("%02d-%02d-%04d", dag, maand, jaar);
+					assertThat(uitkomst(() -> DatumCodec.lees(tekst))).as(tekst).isEqualTo(uitkomst(() -> LocalDate.parse(tekst, LEZEN)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test of willekeurig verminkte datums (een teken vervangen, toegevoegd of weggelaten) dezelfde datum of dezelfde fout
+	 * geven als de formatter.
+	 */
+	@Test
+	public void testLezenVerminkteTekst() {
+		Random random = new Random(17);
+		String tekens = "0123456789-/ +a\u0660";
+		long dagen = LAATSTE.toEpochDay() - EERSTE.toEpochDay();
+		for (int i = 0; i < 200_000; i++) {
+			StringBuilder tekst = new StringBuilder(LocalDate.ofEpochDay(EERSTE.toEpochDay() + random.nextInt((int) dagen)).format(SCHRIJVEN));
+			int positie = random.nextInt(tekst.length());
+			switch (random.nextInt(3)) {
+				case 0:
+					tekst.setCharAt(positie, tekens.charAt(random.nextInt(tekens.length())));
+					break;
+				case 1:
+					tekst.insert(positie, tekens.charAt(random.nextInt(tekens.length())));
+					break;
+				default:
+					tekst.deleteCharAt(positie);
+			}
+			String verminkt = tekst.toString();
+			assertThat(uitkomst(() -> DatumCodec.lees(verminkt))).as(verminkt).isEqualTo(uitkomst(() -> LocalDate.parse(verminkt, LEZEN)));
+		}
+	}
+
+	/**
+	 * Test of een jaar dat niet in vier cijfers past hetzelfde geschreven en gelezen wordt als met de formatter.
+	 */
+	@Test
+	public void testJarenBuitenVierCijfers() {
+		for (LocalDate dag : new LocalDate[]{LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31), LocalDate.of(10000, 1, 1), LocalDate.of(123456, 6, 15)}) {
+			String tekst = dag.format(SCHRIJVEN);
+			assertThat(DatumCodec.formatteer(dag)).isEqualTo(tekst);
+			assertThat(uitkomst(() -> DatumCodec.lees(tekst))).isEqualTo(uitkomst(() -> LocalDate.parse(tekst, LEZEN)));
+		}
+		assertThat(uitkomst(() -> DatumCodec.lees("01-01-0000"))).isEqualTo(uitkomst(() -> LocalDate.parse("01-01-0000", LEZEN)));
+	}
+
+	/**
+	 * Test of Jackson een ongeldige datum nog steeds als fout in de JSON meldt.
+	 */
+	@Test
+	public void testJacksonOngeldigeDatum() {
+		assertThatThrownBy(() -> objectMapper.readValue("{\"datum\":\"30-02-2019\"}", Datum.class))
+			.isInstanceOf(JsonMappingException.class).hasCauseInstanceOf(DateTimeParseException.class);
+		assertThatThrownBy(() -> objectMapper.readValue("{\"datum\":20190230}", Datum.class))
+			.isInstanceOf(JsonMappingException.class).hasCauseInstanceOf(DateTimeParseException.class);
+	}
+
+	/**
+	 * @return de gelezen datum, of het type en de melding van de fout.
+	 */
+	private static String uitkomst(Supplier<LocalDate> lezen) {
+		try {
+			return lezen.get().toString();
+		} catch (RuntimeException e) {
+			return e.getClass().getName() + ": " + e.getMessage();
+		}
+	}
+}
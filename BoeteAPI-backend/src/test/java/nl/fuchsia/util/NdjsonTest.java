@@ -0,0 +1,64 @@
+package nl.fuchsia.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.fuchsia.model.Persoon;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NdjsonTest {
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	@Test
+	public void testEenRegelPerElement() throws IOException {
+		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
+		ByteArrayOutputStream uitvoer = new ByteArrayOutputStream();
+
+		Ndjson.body(objectMapper, Arrays.asList(persoon, persoon)::forEach).writeTo(uitvoer);
+
+		String regel = objectMapper.writeValueAsString(persoon);
+		assertThat(regel).contains("\"geboortedatum\":\"12-10-1990\"");
+		assertThat(new String(uitvoer.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(regel + "\n" + regel + "\n");
+	}
+
+	@Test
+	public void testLegeStroom() throws IOException {
+		ByteArrayOutputStream uitvoer = new ByteArrayOutputStream();
+
+		Ndjson.body(objectMapper, Collections.emptyList()::forEach).writeTo(uitvoer);
+
+		assertThat(uitvoer.toByteArray()).isEmpty();
+	}
+
+	/**
+	 * Als de client de verbinding verbreekt moet het lezen stoppen met de IOException van het schrijven.
+	 */
+	@Test
+	public void testSchrijffoutStoptStroom() {
+		OutputStream afgebroken = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("Verbinding verbroken");
+			}
+		};
+		// Meer elementen dan in de buffer van de generator passen, zodat er tijdens het stromen geschreven wordt.
+		Stroom<Integer> stroom = verwerker -> {
+			for (int i = 0; i < 100_000; i++) {
+				verwerker.accept(i);
+			}
+		};
+
+		assertThatThrownBy(() -> Ndjson.body(objectMapper, stroom).writeTo(afgebroken)).isInstanceOf(IOException.class).hasMessage("Verbinding verbroken");
+	}
+}
@@ -0,0 +1,32 @@
+package nl.fuchsia.util;
+
+import java.util.Arrays;
+
+/**
+ * Percentielen van gemeten tijden voor de benchmarks. De tijden zijn in nanoseconden (System.nanoTime), de uitkomst in
+ * milliseconden.
+ */
+public final class Percentielen {
+
+	private Percentielen() {
+	}
+
+	/**
+	 * @param gesorteerd de tijden, oplopend gesorteerd.
+	 * @param percentiel bijvoorbeeld 95 voor p95.
+	 * @return de tijd in ms waar het percentiel onder valt.
+	 */
+	public static double percentiel(long[] gesorteerd, int percentiel) {
+		return gesorteerd[Math.min(gesorteerd.length - 1, gesorteerd.length * percentiel / 100)] / 1_000_000.0;
+	}
+
+	/**
+	 * Sorteert de tijden.
+	 *
+	 * @return "p50 / p95 / p99" in ms.
+	 */
+	public static String p50p95p99(long[] tijden) {
+		Arrays.sort(tijden);
+		return String.format("%.3f / %.3f / %.3f", percentiel(tijden, 50), percentiel(tijden, 95), percentiel(tijden, 99));
+	}
+}
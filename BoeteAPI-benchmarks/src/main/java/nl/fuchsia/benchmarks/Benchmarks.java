@@ -0,0 +1,45 @@
+package nl.fuchsia.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Start de benchmarks: java -jar target/benchmarks.jar [JMH opties], bijvoorbeeld "Validatie" om alleen de benchmarks
+ * met Validatie in de naam te draaien.
+ * <p>
+ * Zonder verdere opties draait elke benchmark met de gc profiler, zodat naast de doorvoer ook de allocaties per operatie
+ * (gc.alloc.rate.norm) in het resultaat staan, en komt het resultaat als JSON in jmh-resultaat.json. Twee van die
+ * bestanden zijn te vergelijken met {@link Vergelijk}.
+ */
+public final class Benchmarks {
+
+	static final String RESULTAAT = "jmh-resultaat.json";
+
+	private Benchmarks() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions opdrachtregel = new CommandLineOptions(args);
+		ChainedOptionsBuilder opties = new OptionsBuilder().parent(opdrachtregel);
+
+		boolean gcProfiler = false;
+		for (ProfilerConfig profiler : opdrachtregel.getProfilers()) {
+			gcProfiler |= profiler.getKlass().equals(GCProfiler.class.getName()) || profiler.getKlass().equals("gc");
+		}
+		if (!gcProfiler) {
+			opties.addProfiler(GCProfiler.class);
+		}
+		if (!opdrachtregel.getResultFormat().hasValue()) {
+			opties.resultFormat(ResultFormatType.JSON);
+		}
+		if (!opdrachtregel.getResult().hasValue()) {
+			opties.result(RESULTAAT);
+		}
+		new Runner(opties.build()).run();
+	}
+}
@@ -0,0 +1,56 @@
+package nl.fuchsia.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import nl.fuchsia.util.JsonDate;
+import nl.fuchsia.util.JsonDateDeserializer;
+import nl.fuchsia.util.JsonDateSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonDateSerializer} en {@link JsonDateDeserializer}, via Jackson op een object met alleen een {@link JsonDate}
+ * veld, zodat de datum het grootste deel van het werk is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDateBenchmark {
+
+	public static class Datum {
+		@JsonDate
+		public LocalDate datum;
+	}
+
+	private ObjectWriter writer;
+	private ObjectReader reader;
+	private Datum datum;
+	private String json;
+
+	@Setup
+	public void setup() throws IOException {
+		ObjectMapper objectMapper = new ObjectMapper();
+		writer = objectMapper.writerFor(Datum.class);
+		reader = objectMapper.readerFor(Datum.class);
+		datum = new Datum();
+		datum.datum = LocalDate.of(2019, 12, 12);
+		json = writer.writeValueAsString(datum);
+	}
+
+	@Benchmark
+	public String serialiseer() throws IOException {
+		return writer.writeValueAsString(datum);
+	}
+
+	@Benchmark
+	public Datum deserialiseer() throws IOException {
+		return reader.readValue(json);
+	}
+}
@@ -0,0 +1,67 @@
+package nl.fuchsia.benchmarks;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import nl.fuchsia.config.MetriekenConfiguration;
+import nl.fuchsia.config.MetriekenInterceptor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * De kosten van {@link MetriekenInterceptor} per aanroep: dezelfde lege service methode direct, via een proxy zonder
+ * advies en via een proxy met de service advisor uit {@link MetriekenConfiguration} en een Prometheus registry. Het
+ * verschil tussen de laatste twee is wat het meten kost, het verschil met direct is wat elke Spring proxy
+ * (zoals @Transactional) al kost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetriekenBenchmark {
+
+	@Service
+	public static class Voorbeeld {
+		public int volgende(int getal) {
+			return getal + 1;
+		}
+	}
+
+	private Voorbeeld direct;
+	private Voorbeeld zonderAdvies;
+	private Voorbeeld gemeten;
+	private int getal;
+
+	@Setup
+	public void setup() {
+		direct = new Voorbeeld();
+		zonderAdvies = proxy(new ProxyFactory(new Voorbeeld()));
+		ProxyFactory proxyFactory = new ProxyFactory(new Voorbeeld());
+		proxyFactory.addAdvisor(new MetriekenConfiguration().serviceMetrieken(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)));
+		gemeten = proxy(proxyFactory);
+	}
+
+	private static Voorbeeld proxy(ProxyFactory proxyFactory) {
+		proxyFactory.setProxyTargetClass(true);
+		return (Voorbeeld) proxyFactory.getProxy();
+	}
+
+	@Benchmark
+	public int direct() {
+		return direct.volgende(getal++);
+	}
+
+	@Benchmark
+	public int zonderAdvies() {
+		return zonderAdvies.volgende(getal++);
+	}
+
+	@Benchmark
+	public int gemeten() {
+		return gemeten.volgende(getal++);
+	}
+}
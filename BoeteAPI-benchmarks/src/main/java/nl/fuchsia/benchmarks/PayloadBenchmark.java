@@ -0,0 +1,72 @@
+package nl.fuchsia.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.Payload;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialisatie van een {@link Payload} met zaken, met dezelfde ObjectMapper instellingen als de message
+ * converter van Spring. Er wordt naar een stream geschreven die de bytes alleen telt, zoals naar een response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int aantalZaken;
+
+	private ObjectWriter writer;
+	private Payload<ZaakDto> payload;
+
+	@Setup
+	public void setup() {
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		writer = objectMapper.writerFor(TypeFactory.defaultInstance().constructParametricType(Payload.class, ZaakDto.class));
+		List<ZaakDto> zaken = new ArrayList<>();
+		for (int i = 1; i <= aantalZaken; i++) {
+			zaken.add(new ZaakDto(i, LocalDate.of(2019, 1, 1).plusDays(i % 365), "Leeuwarden", i % 100 + 1, Arrays.asList(1, 2), Arrays.asList(i * 2, i * 2 + 1)));
+		}
+		payload = new Payload<>(zaken, aantalZaken);
+	}
+
+	@Benchmark
+	public long serialiseer() throws IOException {
+		Teller teller = new Teller();
+		writer.writeValue(teller, payload);
+		return teller.aantal;
+	}
+
+	/**
+	 * Telt de geschreven bytes en gooit ze weg.
+	 */
+	private static final class Teller extends OutputStream {
+
+		private long aantal;
+
+		@Override
+		public void write(int b) {
+			aantal++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			aantal += len;
+		}
+	}
+}
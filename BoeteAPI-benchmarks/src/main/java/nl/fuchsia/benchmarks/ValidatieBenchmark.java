@@ -0,0 +1,60 @@
+package nl.fuchsia.benchmarks;
+
+import nl.fuchsia.model.Feit;
+import nl.fuchsia.model.Persoon;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean validation van {@link Persoon} en {@link Feit}, zoals bij elke POST/PUT en elke regel van een import. Een
+ * ongeldig object is duurder, dan worden de meldingen opgebouwd.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatieBenchmark {
+
+	private Validator validator;
+	private Persoon geldigePersoon;
+	private Persoon ongeldigePersoon;
+	private Feit geldigFeit;
+	private Feit ongeldigFeit;
+
+	@Setup
+	public void setup() {
+		validator = Validation.buildDefaultValidatorFactory().getValidator();
+		geldigePersoon = new Persoon("Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
+		ongeldigePersoon = new Persoon("Rense", "", "De buren", "10", "8402gh", "Drachten", "12345", LocalDate.of(1990, 10, 12));
+		geldigFeit = new Feit("VBF-001", "Door rood licht rijden", 4.00);
+		ongeldigFeit = new Feit("VBF1", "", -1);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Persoon>> geldigePersoon() {
+		return validator.validate(geldigePersoon);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Persoon>> ongeldigePersoon() {
+		return validator.validate(ongeldigePersoon);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Feit>> geldigFeit() {
+		return validator.validate(geldigFeit);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Feit>> ongeldigFeit() {
+		return validator.validate(ongeldigFeit);
+	}
+}
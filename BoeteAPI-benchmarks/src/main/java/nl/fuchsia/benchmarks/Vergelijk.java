@@ -0,0 +1,90 @@
+package nl.fuchsia.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vergelijkt twee JSON resultaten van {@link Benchmarks}, bijvoorbeeld van de master en van een branch:
+ * <p>
+ * java -cp target/benchmarks.jar nl.fuchsia.benchmarks.Vergelijk oud.json nieuw.json [drempel in procenten]
+ * <p>
+ * Per benchmark komen de score met zijn eenheid en de allocaties per operatie naast elkaar. De score is de doorvoer
+ * (mode thrpt, hoger is beter) of de tijd per operatie (avgt, sample en ss, lager is beter). Is een benchmark meer dan de
+ * drempel (standaard 10%) langzamer geworden, of zijn de allocaties per operatie met meer dan de drempel gestegen, dan
+ * eindigt het programma met exit code 1.
+ */
+public final class Vergelijk {
+
+	private static final String ALLOCATIES = "·gc.alloc.rate.norm";
+	private static final Set<String> TIJD_PER_OPERATIE = new HashSet<>(Arrays.asList("avgt", "sample", "ss"));
+
+	private Vergelijk() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Gebruik: Vergelijk <oud.json> <nieuw.json> [drempel in procenten]");
+			System.exit(2);
+		}
+		double drempel = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+		Map<String, JsonNode> oud = lees(new File(args[0]));
+		Map<String, JsonNode> nieuw = lees(new File(args[1]));
+
+		boolean achteruit = false;
+		System.out.printf("%-60s %15s %15s %-8s %8s %12s %12s %8s%n", "benchmark", "oud", "nieuw", "eenheid", "verschil", "oud B/op", "nieuw B/op",
+			"verschil");
+		for (Map.Entry<String, JsonNode> resultaat : nieuw.entrySet()) {
+			JsonNode vorige = oud.get(resultaat.getKey());
+			double score = resultaat.getValue().path("primaryMetric").path("score").asDouble();
+			String eenheid = resultaat.getValue().path("primaryMetric").path("scoreUnit").asText();
+			double bytes = resultaat.getValue().path("secondaryMetrics").path(ALLOCATIES).path("score").asDouble(Double.NaN);
+			if (vorige == null) {
+				System.out.printf("%-60s %15s %15.1f %-8s %8s %12s %12.0f %8s%n", resultaat.getKey(), "-", score, eenheid, "nieuw", "-", bytes, "");
+				continue;
+			}
+			double vorigeScore = vorige.path("primaryMetric").path("score").asDouble();
+			double vorigeBytes = vorige.path("secondaryMetrics").path(ALLOCATIES).path("score").asDouble(Double.NaN);
+			double verschil = procent(vorigeScore, score);
+			double allocaties = procent(vorigeBytes, bytes);
+			System.out.printf("%-60s %15.1f %15.1f %-8s %+7.1f%% %12.0f %12.0f %+7.1f%%%n", resultaat.getKey(), vorigeScore, score, eenheid, verschil, vorigeBytes,
+				bytes, allocaties);
+			// Bij een tijd per operatie is een hogere score een achteruitgang.
+			double sneller = TIJD_PER_OPERATIE.contains(resultaat.getValue().path("mode").asText()) ? -verschil : verschil;
+			achteruit |= sneller < -drempel || allocaties > drempel;
+		}
+		if (achteruit) {
+			System.out.printf("Achteruitgang van meer dan %.0f%%%n", drempel);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @return de resultaten per benchmark met zijn parameters, bijvoorbeeld "PayloadBenchmark.serialiseer aantalZaken=100".
+	 */
+	private static Map<String, JsonNode> lees(File bestand) throws IOException {
+		Map<String, JsonNode> resultaten = new LinkedHashMap<>();
+		for (JsonNode resultaat : new ObjectMapper().readTree(bestand)) {
+			StringBuilder naam = new StringBuilder(resultaat.path("benchmark").asText().replace(Benchmarks.class.getPackage().getName() + ".", ""));
+			Iterator<Map.Entry<String, JsonNode>> parameters = resultaat.path("params").fields();
+			while (parameters.hasNext()) {
+				Map.Entry<String, JsonNode> parameter = parameters.next();
+				naam.append(' ').append(parameter.getKey()).append('=').append(parameter.getValue().asText());
+			}
+			resultaten.put(naam.toString(), resultaat);
+		}
+		return resultaten;
+	}
+
+	private static double procent(double oud, double nieuw) {
+		return oud == 0 || Double.isNaN(oud) || Double.isNaN(nieuw) ? 0 : (nieuw - oud) / oud * 100;
+	}
+}
@@ -0,0 +1,50 @@
+package nl.fuchsia.benchmarks;
+
+import nl.fuchsia.dto.ZaakDto;
+import nl.fuchsia.model.*;
+import nl.fuchsia.services.ZaakDtoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ZaakDtoService#setZaakDto}: het omzetten van een zaak met feiten en statussen naar een ZaakDto, wat voor elke
+ * zaak in GET /zaken gebeurt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZaakDtoBenchmark {
+
+	@Param({"1", "10"})
+	private int aantalFeiten;
+
+	private final ZaakDtoService zaakDtoService = new ZaakDtoService();
+	private Zaak zaak;
+
+	@Setup
+	public void setup() {
+		Persoon persoon = new Persoon(1, "Rense", "Houwing", "De buren", "10", "8402 GH", "Drachten", "123456789", LocalDate.of(1990, 10, 12));
+		List<Feit> feiten = new ArrayList<>();
+		for (int i = 1; i <= aantalFeiten; i++) {
+			feiten.add(new Feit(i, String.format("VBF-%03d", i), "Test", 4.00));
+		}
+		zaak = new Zaak(1, LocalDate.of(2019, 12, 12), "Leeuwarden", persoon, feiten);
+		List<ZaakStatus> statussen = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			statussen.add(new ZaakStatus(i, LocalDate.of(2019, 12, 12).plusDays(i), new Status(i, "Status " + i), zaak));
+		}
+		zaak.setZaakstatus(statussen);
+	}
+
+	@Benchmark
+	public ZaakDto setZaakDto() {
+		return zaakDtoService.setZaakDto(zaak);
+	}
+}